@@ -17,12 +17,16 @@
 
 package infra.config.etcd;
 
+import java.util.concurrent.TimeUnit;
+
 import infra.app.Application;
 import infra.app.env.EnvironmentPostProcessor;
 import infra.context.properties.bind.BindResult;
 import infra.context.properties.bind.Binder;
 import infra.core.Ordered;
 import infra.core.env.ConfigurableEnvironment;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
 
@@ -32,10 +36,13 @@ import io.etcd.jetcd.KV;
  */
 public class ConfigApplicationStartupListener implements EnvironmentPostProcessor, Ordered {
 
+  private static final Logger log = LoggerFactory.getLogger(ConfigApplicationStartupListener.class);
+
   @Override
   public void postProcessEnvironment(ConfigurableEnvironment environment, Application application) {
     BindResult<EtcdProperties> result = Binder.get(environment).bind("config.server.etcd", EtcdProperties.class);
     if (result.isBound()) {
+      long start = System.nanoTime();
       EtcdProperties properties = result.get();
       Client client = Client.builder()
               .endpoints(properties.getEndpoints())
@@ -44,8 +51,11 @@ public class ConfigApplicationStartupListener implements EnvironmentPostProcesso
               .build();
 
       KV kvClient = client.getKVClient();
-      environment.getPropertySources()
-              .addLast(new EtcdPropertySource(kvClient, properties.getNamespace()));
+      EtcdPropertySource propertySource = new EtcdPropertySource(kvClient, client.getWatchClient(), properties.getNamespace());
+      propertySource.setSnapshot(properties.getSnapshot());
+      propertySource.start();
+      environment.getPropertySources().addLast(propertySource);
+      log.info("Etcd config ready in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
   }
 
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.config.etcd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+import infra.lang.Nullable;
+
+/**
+ * Last configuration loaded from etcd with its revision, kept in a local
+ * file so the application starts from it without waiting for etcd.
+ * <p>
+ * Written to a temporary file renamed over the snapshot, read through a
+ * memory-mapped buffer. The namespace the configuration was loaded from
+ * leads the body, a snapshot of another namespace is ignored, as the
+ * snapshots of an older format.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 11:10
+ */
+final class ConfigSnapshot {
+
+  private static final int MAGIC = 0x45434647;
+
+  private static final int FORMAT_VERSION = 2;
+
+  /** magic, version, revision, body length, crc */
+  private static final int HEADER = 4 + 4 + 8 + 4 + 4;
+
+  final long revision;
+
+  final Map<String, String> properties;
+
+  ConfigSnapshot(long revision, Map<String, String> properties) {
+    this.revision = revision;
+    this.properties = properties;
+  }
+
+  /**
+   * Read the snapshot of the given namespace in the given file.
+   *
+   * @param namespace namespace of the properties, empty if none
+   * @return {@code null} if there is no snapshot, or it is of another
+   * namespace or format
+   * @throws IOException the snapshot cannot be read or is corrupted
+   */
+  @Nullable
+  static ConfigSnapshot read(Path file, String namespace) throws IOException {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+        throw new IOException("Not a config snapshot: " + file);
+      }
+      if (buffer.getInt() != FORMAT_VERSION) {
+        return null;
+      }
+      long revision = buffer.getLong();
+      int bodyLength = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (bodyLength < 8 || bodyLength != buffer.remaining()) {
+        throw new IOException("Truncated config snapshot: " + file);
+      }
+      CRC32C crc = new CRC32C();
+      crc.update(buffer.slice(HEADER, bodyLength));
+      if ((int) crc.getValue() != checksum) {
+        throw new IOException("Corrupted config snapshot: " + file);
+      }
+
+      if (!Objects.equals(getString(buffer), namespace)) {
+        return null;
+      }
+      int count = buffer.getInt();
+      HashMap<String, String> properties = new HashMap<>(count * 2);
+      for (int i = 0; i < count; i++) {
+        properties.put(getString(buffer), getString(buffer));
+      }
+      return new ConfigSnapshot(revision, properties);
+    }
+  }
+
+  /**
+   * Replace the snapshot in the given file.
+   *
+   * @param namespace namespace of the properties, empty if none
+   */
+  static void write(Path file, String namespace, long revision, Map<String, String> properties) throws IOException {
+    byte[] namespaceBytes = namespace.getBytes(StandardCharsets.UTF_8);
+    ArrayList<byte[]> fields = new ArrayList<>(properties.size() * 2);
+    int bodyLength = 4 + namespaceBytes.length + 4;
+    for (Map.Entry<String, String> entry : properties.entrySet()) {
+      byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+      byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+      fields.add(key);
+      fields.add(value);
+      bodyLength += 8 + key.length + value.length;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER + bodyLength);
+    buffer.position(HEADER);
+    buffer.putInt(namespaceBytes.length).put(namespaceBytes);
+    buffer.putInt(properties.size());
+    for (byte[] field : fields) {
+      buffer.putInt(field.length).put(field);
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.array(), HEADER, bodyLength);
+    buffer.putInt(0, MAGIC)
+            .putInt(4, FORMAT_VERSION)
+            .putLong(8, revision)
+            .putInt(16, bodyLength)
+            .putInt(20, (int) crc.getValue());
+    buffer.flip();
+
+    Path directory = file.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
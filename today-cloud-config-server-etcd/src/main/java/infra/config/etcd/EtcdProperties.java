@@ -17,6 +17,8 @@
 
 package infra.config.etcd;
 
+import java.nio.file.Path;
+
 import infra.beans.factory.annotation.Value;
 import infra.context.properties.ConfigurationProperties;
 import infra.lang.Nullable;
@@ -40,6 +42,13 @@ public class EtcdProperties {
   @Value("${app.name:application}")
   private String namespace;
 
+  /**
+   * File keeping the last loaded configuration, the application starts
+   * from it then reconciles with etcd in the background. Not kept if not set.
+   */
+  @Nullable
+  private Path snapshot;
+
   /**
    * Etcd server user name.
    */
@@ -66,6 +75,15 @@ public class EtcdProperties {
     this.endpoints = endpoints;
   }
 
+  public void setSnapshot(@Nullable Path snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  @Nullable
+  public Path getSnapshot() {
+    return snapshot;
+  }
+
   public String[] getEndpoints() {
     return endpoints;
   }
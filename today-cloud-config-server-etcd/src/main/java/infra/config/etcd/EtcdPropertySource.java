@@ -14,65 +14,470 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see [http://www.gnu.org/licenses/]
  */
-
 package infra.config.etcd;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import infra.core.env.PropertySource;
+import infra.config.PropertyChangeListener;
+import infra.config.WatchablePropertySource;
+import infra.core.env.EnumerablePropertySource;
+import infra.lang.Assert;
 import infra.lang.Nullable;
 import infra.logging.Logger;
 import infra.logging.LoggerFactory;
-import infra.util.CollectionUtils;
-import infra.util.ExceptionUtils;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.KV;
 import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.common.exception.CompactedException;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.options.GetOption;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.watch.WatchResponse;
 
 /**
+ * Properties under the namespace prefix of etcd.
+ * <p>
+ * The whole prefix is loaded with one range request on the first lookup, or
+ * by {@link #start()}, and kept current by watching it from the revision of
+ * the load. Lookups are reads of an immutable local map: a key absent from it
+ * is absent from etcd too, so a miss never goes remote. The changed keys are
+ * reported to the {@link PropertyChangeListener listeners}, which update the
+ * {@link infra.config.DynamicProperty dynamic properties}.
+ * <p>
+ * With a {@link #setSnapshot snapshot}, the last loaded properties are kept in
+ * a local file: {@link #start()} serves them right away and reconciles them
+ * with etcd in the background, the differences are reported as changes.
+ * The snapshot is written in the background, once per {@link #setSnapshotWriteDelay
+ * write delay} however many changes, never while applying the changes.
+ * {@link #close()} writes the pending changes.
+ *
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 1.0 2023/10/6 21:41
  */
-public class EtcdPropertySource extends PropertySource<KV> {
+public class EtcdPropertySource extends EnumerablePropertySource<KV> implements WatchablePropertySource, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(EtcdPropertySource.class);
+
+  private static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  /** all the keys, when there is no namespace */
+  private static final ByteSequence ALL_KEYS = ByteSequence.from(new byte[] { 0 });
+
+  private final String prefix;
+
+  @Nullable
+  private final Watch watchClient;
+
+  @Nullable
+  private ScheduledExecutorService executor;
+
+  private Duration timeout = Duration.ofSeconds(10);
+
+  @Nullable
+  private Path snapshot;
+
+  private Duration snapshotWriteDelay = Duration.ofSeconds(1);
+
+  /** serializes the writes of the snapshot */
+  private final Object snapshotLock = new Object();
+
+  private final CopyOnWriteArrayList<PropertyChangeListener> listeners = new CopyOnWriteArrayList<>();
 
-  private final Logger logger = LoggerFactory.getLogger(getClass());
+  /** property name to value, guarded by this */
+  private final HashMap<String, String> state = new HashMap<>();
 
+  /** published copy of the state, {@code null} until loaded */
   @Nullable
-  private final String namespace;
+  private volatile Map<String, String> properties;
+
+  /** guarded by this */
+  private long revision;
+
+  /** guarded by this */
+  private long backoff;
+
+  /** guarded by this */
+  @Nullable
+  private Watch.Watcher watcher;
+
+  /** a snapshot write is scheduled, guarded by this */
+  private boolean snapshotPending;
+
+  /** guarded by this */
+  private boolean closed;
 
   public EtcdPropertySource(KV kvClient) {
     this(kvClient, null);
   }
 
   public EtcdPropertySource(KV kvClient, @Nullable String namespace) {
+    this(kvClient, null, namespace);
+  }
+
+  /**
+   * @param kvClient KV client of etcd
+   * @param watchClient Watch client of etcd, the properties are not updated if {@code null}
+   * @param namespace prefix of the property keys
+   */
+  public EtcdPropertySource(KV kvClient, @Nullable Watch watchClient, @Nullable String namespace) {
     super("etcd", kvClient);
-    this.namespace = namespace;
+    this.watchClient = watchClient;
+    this.prefix = namespace != null ? namespace : "";
+  }
+
+  /**
+   * Set the max time to wait for the initial load.
+   */
+  public void setTimeout(Duration timeout) {
+    Assert.notNull(timeout, "timeout is required");
+    this.timeout = timeout;
+  }
+
+  /**
+   * Set the file keeping the last loaded properties.
+   */
+  public void setSnapshot(@Nullable Path snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  @Nullable
+  public Path getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Set how long the changes are gathered before the snapshot is written.
+   */
+  public void setSnapshotWriteDelay(Duration snapshotWriteDelay) {
+    Assert.notNull(snapshotWriteDelay, "snapshotWriteDelay is required");
+    this.snapshotWriteDelay = snapshotWriteDelay;
+  }
+
+  /**
+   * Load the properties, from the snapshot if there is one, and start
+   * watching their changes.
+   *
+   * @throws IllegalStateException the properties cannot be loaded
+   */
+  public void start() {
+    if (snapshot == null || !startFromSnapshot(snapshot)) {
+      properties();
+    }
+  }
+
+  @Override
+  public void addChangeListener(PropertyChangeListener listener) {
+    Assert.notNull(listener, "listener is required");
+    listeners.add(listener);
+  }
+
+  @Override
+  public void removeChangeListener(PropertyChangeListener listener) {
+    listeners.remove(listener);
   }
 
   @Nullable
   @Override
   public Object getProperty(String name) {
-    ByteSequence key = getKey(name);
-    try {
-      List<KeyValue> kvs = source.get(key).get().getKvs();
-      KeyValue keyValue = CollectionUtils.firstElement(kvs);
-      if (keyValue != null) {
-        logger.info("found property: {}: key: {} value: {}", name, key, keyValue.getValue());
-        return keyValue.getValue().toString();
+    return properties().get(name);
+  }
+
+  @Override
+  public boolean containsProperty(String name) {
+    return properties().containsKey(name);
+  }
+
+  @Override
+  public String[] getPropertyNames() {
+    return properties().keySet().toArray(new String[0]);
+  }
+
+  /**
+   * Stop watching the changes and write the pending ones to the snapshot.
+   */
+  @Override
+  public void close() {
+    boolean write;
+    synchronized(this) {
+      closed = true;
+      write = snapshotPending;
+      snapshotPending = false;
+      if (watcher != null) {
+        watcher.close();
+        watcher = null;
       }
-      return null;
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+    if (write) {
+      storeSnapshot();
+    }
+  }
+
+  private Map<String, String> properties() {
+    Map<String, String> properties = this.properties;
+    if (properties == null) {
+      synchronized(this) {
+        properties = this.properties;
+        if (properties == null) {
+          properties = loadNow();
+        }
+      }
+    }
+    return properties;
+  }
+
+  private synchronized boolean startFromSnapshot(Path snapshot) {
+    if (properties != null) {
+      return true;
+    }
+    ConfigSnapshot loaded;
+    try {
+      loaded = ConfigSnapshot.read(snapshot, prefix);
+    }
+    catch (IOException | RuntimeException e) {
+      log.warn("Config snapshot [{}] cannot be read, loading from etcd", snapshot, e);
+      return false;
+    }
+    if (loaded == null) {
+      log.info("No config snapshot of namespace [{}] in [{}], loading from etcd", prefix, snapshot);
+      return false;
+    }
+    state.putAll(loaded.properties);
+    revision = loaded.revision;
+    properties = Map.copyOf(state);
+    log.info("Started from config snapshot [{}], {} properties at revision {}", snapshot, state.size(), revision);
+    reload();
+    return true;
+  }
+
+  /** guarded by this */
+  private Map<String, String> loadNow() {
+    try {
+      load(source.get(prefixKey(), rangeOption()).get(timeout.toMillis(), TimeUnit.MILLISECONDS));
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted loading the properties from etcd", e);
     }
     catch (Exception e) {
-      throw ExceptionUtils.sneakyThrow(e);
+      throw new IllegalStateException("Cannot load the properties from etcd", e);
+    }
+    Map<String, String> loaded = this.properties;
+    return loaded != null ? loaded : Map.of();
+  }
+
+  /**
+   * Replace the properties with the loaded ones and watch from there.
+   */
+  private synchronized void load(GetResponse response) {
+    if (closed) {
+      return;
+    }
+    HashMap<String, String> previous = new HashMap<>(state);
+    state.clear();
+    for (KeyValue keyValue : response.getKvs()) {
+      state.put(propertyName(keyValue.getKey()), keyValue.getValue().toString(StandardCharsets.UTF_8));
+    }
+    revision = response.getHeader().getRevision();
+    boolean initial = properties == null;
+    properties = Map.copyOf(state);
+    log.info("Loaded {} properties from etcd at revision {}", state.size(), revision);
+    scheduleSnapshot();
+    if (watchClient != null) {
+      watchFrom(revision + 1);
+    }
+    if (!initial) {
+      HashSet<String> changed = new HashSet<>(previous.keySet());
+      changed.addAll(state.keySet());
+      changed.removeIf(name -> Objects.equals(previous.get(name), state.get(name)));
+      fireChanged(changed);
     }
   }
 
-  private ByteSequence getKey(String name) {
-    if (namespace != null) {
-      return ByteSequence.from(namespace + name, StandardCharsets.UTF_8);
+  /** guarded by this */
+  private void watchFrom(long startRevision) {
+    if (watcher != null) {
+      watcher.close();
+    }
+    WatchOption.Builder option = WatchOption.newBuilder().withRevision(startRevision);
+    if (prefix.isEmpty()) {
+      option.withRange(ALL_KEYS);
+    }
+    else {
+      option.isPrefix(true);
+    }
+    watcher = watchClient.watch(prefixKey(), option.build(), Watch.listener(this::apply, this::onWatchError));
+  }
+
+  private synchronized void apply(WatchResponse response) {
+    if (closed) {
+      return;
+    }
+    HashSet<String> changed = new HashSet<>();
+    long applied = revision;
+    for (WatchEvent event : response.getEvents()) {
+      KeyValue keyValue = event.getKeyValue();
+      if (keyValue.getModRevision() <= applied) {
+        // delivered by a watcher replaced meanwhile
+        continue;
+      }
+      revision = Math.max(revision, keyValue.getModRevision());
+      String name = propertyName(keyValue.getKey());
+      switch (event.getEventType()) {
+        case PUT -> {
+          state.put(name, keyValue.getValue().toString(StandardCharsets.UTF_8));
+          changed.add(name);
+        }
+        case DELETE -> {
+          if (state.remove(name) != null) {
+            changed.add(name);
+          }
+        }
+        default -> { }
+      }
+    }
+    backoff = 0;
+    if (!changed.isEmpty()) {
+      properties = Map.copyOf(state);
+      scheduleSnapshot();
+      fireChanged(changed);
+    }
+  }
+
+  /** guarded by this, the changes after {@link #close()} are not written */
+  private void scheduleSnapshot() {
+    if (snapshot != null && !closed && !snapshotPending) {
+      snapshotPending = true;
+      executor().schedule(this::writeSnapshot, snapshotWriteDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void writeSnapshot() {
+    synchronized(this) {
+      if (!snapshotPending) {
+        return;
+      }
+      snapshotPending = false;
     }
-    return ByteSequence.from(name, StandardCharsets.UTF_8);
+    storeSnapshot();
+  }
+
+  /**
+   * Write the current properties, the changes are not blocked meanwhile.
+   */
+  private void storeSnapshot() {
+    synchronized(snapshotLock) {
+      Map<String, String> properties;
+      long revision;
+      synchronized(this) {
+        properties = this.properties;
+        revision = this.revision;
+      }
+      Path snapshot = this.snapshot;
+      if (snapshot != null && properties != null) {
+        try {
+          ConfigSnapshot.write(snapshot, prefix, revision, properties);
+        }
+        catch (IOException e) {
+          log.warn("Config snapshot [{}] cannot be written", snapshot, e);
+        }
+      }
+    }
+  }
+
+  /** guarded by this */
+  private void fireChanged(Set<String> changed) {
+    if (!changed.isEmpty()) {
+      Set<String> names = Set.copyOf(changed);
+      for (PropertyChangeListener listener : listeners) {
+        try {
+          listener.propertiesChanged(names);
+        }
+        catch (RuntimeException e) {
+          log.warn("Property change listener failed", e);
+        }
+      }
+    }
+  }
+
+  private synchronized void onWatchError(Throwable error) {
+    if (closed) {
+      return;
+    }
+    backoff = Math.min(MAX_BACKOFF_MILLIS, Math.max(100, backoff * 2));
+    if (watchClient == null) {
+      log.warn("Loading the properties from etcd failed, retrying in {}ms", backoff, error);
+      executor().schedule(this::reload, backoff, TimeUnit.MILLISECONDS);
+    }
+    else if (error instanceof CompactedException) {
+      log.warn("Etcd watch revision {} compacted, reloading in {}ms", revision + 1, backoff);
+      executor().schedule(this::reload, backoff, TimeUnit.MILLISECONDS);
+    }
+    else {
+      log.warn("Etcd watch failed, resuming from revision {} in {}ms", revision + 1, backoff, error);
+      executor().schedule(this::resume, backoff, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** guarded by this */
+  private ScheduledExecutorService executor() {
+    if (executor == null) {
+      executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "etcd-config");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return executor;
+  }
+
+  private synchronized void resume() {
+    if (!closed) {
+      watchFrom(revision + 1);
+    }
+  }
+
+  private void reload() {
+    source.get(prefixKey(), rangeOption())
+            .whenComplete((response, error) -> {
+              if (error != null) {
+                onWatchError(error);
+              }
+              else {
+                load(response);
+              }
+            });
+  }
+
+  private ByteSequence prefixKey() {
+    return prefix.isEmpty() ? ALL_KEYS : ByteSequence.from(prefix, StandardCharsets.UTF_8);
+  }
+
+  private GetOption rangeOption() {
+    if (prefix.isEmpty()) {
+      return GetOption.newBuilder().withRange(ALL_KEYS).build();
+    }
+    return GetOption.newBuilder().isPrefix(true).build();
+  }
+
+  private String propertyName(ByteSequence key) {
+    return key.toString(StandardCharsets.UTF_8).substring(prefix.length());
   }
 
 }
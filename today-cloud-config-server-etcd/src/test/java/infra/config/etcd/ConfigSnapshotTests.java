@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.config.etcd;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 11:40
+ */
+class ConfigSnapshotTests {
+
+  private static final String NAMESPACE = "app/";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void missingSnapshot() throws IOException {
+    assertThat(ConfigSnapshot.read(directory.resolve("config.snapshot"), NAMESPACE)).isNull();
+  }
+
+  @Test
+  void writeAndRead() throws IOException {
+    Path file = directory.resolve("snapshots/config.snapshot");
+    ConfigSnapshot.write(file, NAMESPACE, 42, Map.of("server.port", "8080", "feature.enabled", "true", "empty", ""));
+
+    ConfigSnapshot snapshot = ConfigSnapshot.read(file, NAMESPACE);
+    assertThat(snapshot).isNotNull();
+    assertThat(snapshot.revision).isEqualTo(42);
+    assertThat(snapshot.properties).containsOnly(
+            Map.entry("server.port", "8080"), Map.entry("feature.enabled", "true"), Map.entry("empty", ""));
+  }
+
+  @Test
+  void replacesPreviousSnapshot() throws IOException {
+    Path file = directory.resolve("config.snapshot");
+    ConfigSnapshot.write(file, NAMESPACE, 1, Map.of("key", "value"));
+    ConfigSnapshot.write(file, NAMESPACE, 2, Map.of("key", "changed"));
+
+    ConfigSnapshot snapshot = ConfigSnapshot.read(file, NAMESPACE);
+    assertThat(snapshot.revision).isEqualTo(2);
+    assertThat(snapshot.properties).containsOnly(Map.entry("key", "changed"));
+    assertThat(directory.resolve("config.snapshot.tmp")).doesNotExist();
+  }
+
+  @Test
+  void corruptedSnapshot() throws IOException {
+    Path file = directory.resolve("config.snapshot");
+    ConfigSnapshot.write(file, NAMESPACE, 1, Map.of("key", "value"));
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(file, bytes);
+
+    assertThatIOException().isThrownBy(() -> ConfigSnapshot.read(file, NAMESPACE))
+            .withMessageContaining("Corrupted");
+  }
+
+  @Test
+  void truncatedSnapshot() throws IOException {
+    Path file = directory.resolve("config.snapshot");
+    ConfigSnapshot.write(file, NAMESPACE, 1, Map.of("key", "value"));
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+    assertThatIOException().isThrownBy(() -> ConfigSnapshot.read(file, NAMESPACE))
+            .withMessageContaining("Truncated");
+  }
+
+  @Test
+  void snapshotOfAnotherNamespace() throws IOException {
+    Path file = directory.resolve("config.snapshot");
+    ConfigSnapshot.write(file, "other/", 1, Map.of("key", "value"));
+
+    assertThat(ConfigSnapshot.read(file, NAMESPACE)).isNull();
+    assertThat(ConfigSnapshot.read(file, "")).isNull();
+    assertThat(ConfigSnapshot.read(file, "other/")).isNotNull();
+  }
+
+  @Test
+  void snapshotOfOlderFormat() throws IOException {
+    Path file = directory.resolve("config.snapshot");
+    ConfigSnapshot.write(file, NAMESPACE, 1, Map.of("key", "value"));
+    byte[] bytes = Files.readAllBytes(file);
+    // format version 1, without namespace
+    bytes[7] = 1;
+    Files.write(file, bytes);
+
+    assertThat(ConfigSnapshot.read(file, NAMESPACE)).isNull();
+  }
+
+}
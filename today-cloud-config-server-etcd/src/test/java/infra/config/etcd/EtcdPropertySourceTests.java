@@ -18,9 +18,19 @@
 package infra.config.etcd;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import infra.cloud.registry.test.InMemoryEtcd;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
@@ -28,12 +38,17 @@ import io.etcd.jetcd.Watch;
 import io.etcd.jetcd.options.WatchOption;
 import io.etcd.jetcd.watch.WatchResponse;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
 /**
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 1.0 2023/10/6 22:20
  */
 class EtcdPropertySourceTests {
 
+  private static final String NAMESPACE = "app/";
+
   @Test
   void test() throws InterruptedException {
     Client client = Client.builder()
@@ -71,4 +86,163 @@ class EtcdPropertySourceTests {
     Thread.currentThread().join();
   }
 
-}
\ No newline at end of file
+  @Test
+  void loadThenWatch() {
+    try (InMemoryEtcd etcd = new InMemoryEtcd()) {
+      etcd.put(NAMESPACE + "server.port", "8080");
+      etcd.put("other/server.port", "9090");
+      EtcdPropertySource source = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      Set<String> changed = ConcurrentHashMap.newKeySet();
+      source.addChangeListener(changed::addAll);
+      source.start();
+
+      assertThat(source.getPropertyNames()).containsExactly("server.port");
+      assertThat(source.getProperty("server.port")).isEqualTo("8080");
+
+      etcd.put(NAMESPACE + "feature.enabled", "true");
+      etcd.delete(NAMESPACE + "server.port");
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+        assertThat(source.getPropertyNames()).containsExactly("feature.enabled");
+        assertThat(changed).containsExactlyInAnyOrder("feature.enabled", "server.port");
+      });
+      source.close();
+    }
+  }
+
+  @Test
+  void startFromSnapshotThenReconcile(@TempDir Path directory) {
+    Path snapshot = directory.resolve("config.snapshot");
+    try (InMemoryEtcd etcd = new InMemoryEtcd()) {
+      etcd.put(NAMESPACE + "server.port", "8080");
+      etcd.put(NAMESPACE + "feature.enabled", "false");
+      EtcdPropertySource first = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      first.setSnapshot(snapshot);
+      first.start();
+      first.close();
+
+      etcd.put(NAMESPACE + "feature.enabled", "true");
+      // etcd does not answer yet
+      etcd.holdReads();
+
+      EtcdPropertySource source = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      source.setSnapshot(snapshot);
+      Set<String> changed = ConcurrentHashMap.newKeySet();
+      source.addChangeListener(changed::addAll);
+      source.start();
+      assertThat(source.getProperty("server.port")).isEqualTo("8080");
+      assertThat(source.getProperty("feature.enabled")).isEqualTo("false");
+
+      etcd.releaseReads();
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+        assertThat(source.getProperty("feature.enabled")).isEqualTo("true");
+        assertThat(changed).containsExactly("feature.enabled");
+      });
+      source.close();
+    }
+  }
+
+  @Test
+  void snapshotOfAnotherNamespaceIgnored(@TempDir Path directory) throws IOException {
+    Path snapshot = directory.resolve("config.snapshot");
+    ConfigSnapshot.write(snapshot, "other/", 100, Map.of("server.port", "9090"));
+
+    try (InMemoryEtcd etcd = new InMemoryEtcd()) {
+      etcd.put(NAMESPACE + "server.port", "8080");
+      EtcdPropertySource source = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      source.setSnapshot(snapshot);
+      source.start();
+
+      assertThat(source.getProperty("server.port")).isEqualTo("8080");
+      source.close();
+      // replaced by the snapshot of this namespace
+      ConfigSnapshot written = ConfigSnapshot.read(snapshot, NAMESPACE);
+      assertThat(written).isNotNull();
+      assertThat(written.properties).containsOnly(Map.entry("server.port", "8080"));
+    }
+  }
+
+  @Test
+  void snapshotWrittenInBackground(@TempDir Path directory) throws IOException {
+    Path snapshot = directory.resolve("config.snapshot");
+    try (InMemoryEtcd etcd = new InMemoryEtcd()) {
+      etcd.put(NAMESPACE + "server.port", "8080");
+      EtcdPropertySource source = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      source.setSnapshot(snapshot);
+      source.setSnapshotWriteDelay(Duration.ofMillis(200));
+      source.start();
+
+      for (int i = 0; i < 10; i++) {
+        etcd.put(NAMESPACE + "feature.count", String.valueOf(i));
+      }
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+        ConfigSnapshot written = ConfigSnapshot.read(snapshot, NAMESPACE);
+        assertThat(written).isNotNull();
+        assertThat(written.revision).isEqualTo(etcd.revision());
+        assertThat(written.properties).containsOnly(Map.entry("server.port", "8080"), Map.entry("feature.count", "9"));
+      });
+      source.close();
+    }
+  }
+
+  @Test
+  void pendingSnapshotWrittenOnClose(@TempDir Path directory) throws IOException {
+    Path snapshot = directory.resolve("config.snapshot");
+    try (InMemoryEtcd etcd = new InMemoryEtcd()) {
+      etcd.put(NAMESPACE + "server.port", "8080");
+      EtcdPropertySource source = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      source.setSnapshot(snapshot);
+      source.setSnapshotWriteDelay(Duration.ofMinutes(1));
+      source.start();
+
+      etcd.put(NAMESPACE + "feature.enabled", "true");
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+              assertThat(source.getProperty("feature.enabled")).isEqualTo("true"));
+      // not written by the watch
+      assertThat(snapshot).doesNotExist();
+
+      source.close();
+      ConfigSnapshot written = ConfigSnapshot.read(snapshot, NAMESPACE);
+      assertThat(written).isNotNull();
+      assertThat(written.properties).containsOnly(Map.entry("server.port", "8080"), Map.entry("feature.enabled", "true"));
+    }
+  }
+
+  @Test
+  void startupWithAndWithoutSnapshot(@TempDir Path directory) {
+    Path snapshot = directory.resolve("config.snapshot");
+    long latency = 300;
+    try (InMemoryEtcd etcd = new InMemoryEtcd()) {
+      for (int i = 0; i < 1000; i++) {
+        etcd.put(NAMESPACE + "property." + i, "value-" + i);
+      }
+      EtcdPropertySource first = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      first.setSnapshot(snapshot);
+      first.start();
+      first.close();
+
+      // etcd answers the range reads after the latency
+      etcd.holdReads();
+      CompletableFuture.delayedExecutor(latency, TimeUnit.MILLISECONDS).execute(etcd::releaseReads);
+      long start = System.nanoTime();
+      EtcdPropertySource fromEtcd = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      fromEtcd.start();
+      long etcdMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      fromEtcd.close();
+
+      etcd.holdReads();
+      CompletableFuture.delayedExecutor(latency, TimeUnit.MILLISECONDS).execute(etcd::releaseReads);
+      start = System.nanoTime();
+      EtcdPropertySource fromSnapshot = new EtcdPropertySource(etcd.kv(), etcd.watch(), NAMESPACE);
+      fromSnapshot.setSnapshot(snapshot);
+      fromSnapshot.start();
+      long snapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      assertThat(fromSnapshot.getPropertyNames()).containsExactlyInAnyOrder(fromEtcd.getPropertyNames());
+      assertThat(etcdMillis).isGreaterThanOrEqualTo(latency);
+      assertThat(snapshotMillis).isLessThan(latency);
+      System.out.printf("started in %dms from etcd, %dms from the snapshot%n", etcdMillis, snapshotMillis);
+      fromSnapshot.close();
+    }
+  }
+
+}
@@ -14,21 +14,74 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see [http://www.gnu.org/licenses/]
  */
-
 package infra.config;
 
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import infra.lang.Assert;
 import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
 
 /**
+ * Value of a property following its changes while the application runs.
+ * <p>
+ * The raw value is converted once per change and published through a
+ * volatile field, {@link #get()} is a plain read. Listeners are notified
+ * on the given executor and coalesced: a burst of changes arriving before
+ * a notification runs gives one notification, with the latest value.
+ *
+ * @param <T> value type
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 1.0 2023/11/14 21:43
+ * @see DynamicPropertyRegistry
  */
 public class DynamicProperty<T> implements Supplier<T> {
 
-  private T value;
+  private static final Logger log = LoggerFactory.getLogger(DynamicProperty.class);
+
+  private final String name;
+
+  private final Function<String, T> converter;
+
+  @Nullable
+  private final T defaultValue;
+
+  private final Executor executor;
+
+  private final CopyOnWriteArrayList<Consumer<? super T>> listeners = new CopyOnWriteArrayList<>();
+
+  private final AtomicBoolean notificationPending = new AtomicBoolean();
+
+  @Nullable
+  private volatile T value;
+
+  /**
+   * @param name name of the property
+   * @param converter converts the raw value
+   * @param defaultValue value when the property is absent
+   * @param executor runs the notifications of the listeners
+   */
+  public DynamicProperty(String name, Function<String, T> converter, @Nullable T defaultValue, Executor executor) {
+    Assert.hasText(name, "name is required");
+    Assert.notNull(converter, "converter is required");
+    Assert.notNull(executor, "executor is required");
+    this.name = name;
+    this.converter = converter;
+    this.defaultValue = defaultValue;
+    this.executor = executor;
+    this.value = defaultValue;
+  }
+
+  public String getName() {
+    return name;
+  }
 
   @Nullable
   @Override
@@ -42,8 +95,51 @@ public class DynamicProperty<T> implements Supplier<T> {
     return value;
   }
 
-  private void update(T value) {
-    this.value = value;
+  /**
+   * Add a listener of the value changes.
+   */
+  public void addListener(Consumer<? super T> listener) {
+    Assert.notNull(listener, "listener is required");
+    listeners.add(listener);
+  }
+
+  public void removeListener(Consumer<? super T> listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Update from the raw value of the property, listeners are notified
+   * if the converted value changed.
+   *
+   * @param raw raw value, {@code null} if the property is absent
+   * @throws RuntimeException the raw value cannot be converted, the value is unchanged
+   */
+  synchronized void update(@Nullable String raw) {
+    T value = raw == null ? defaultValue : converter.apply(raw);
+    if (!Objects.equals(value, this.value)) {
+      this.value = value;
+      if (!listeners.isEmpty() && notificationPending.compareAndSet(false, true)) {
+        executor.execute(this::notifyListeners);
+      }
+    }
+  }
+
+  private void notifyListeners() {
+    notificationPending.set(false);
+    T value = this.value;
+    for (Consumer<? super T> listener : listeners) {
+      try {
+        listener.accept(value);
+      }
+      catch (RuntimeException e) {
+        log.warn("Listener of dynamic property [{}] failed", name, e);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "DynamicProperty[" + name + "=" + value + "]";
   }
 
 }
@@ -14,23 +14,38 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see [http://www.gnu.org/licenses/]
  */
-
 package infra.config;
 
+import infra.beans.factory.annotation.Value;
 import infra.beans.factory.config.DependencyDescriptor;
 import infra.beans.factory.support.DependencyResolvingStrategy;
 import infra.context.BootstrapContext;
+import infra.core.env.ConfigurableEnvironment;
+import infra.core.env.Environment;
+import infra.lang.Assert;
 import infra.lang.Nullable;
 
 /**
- * for DynamicProperty
+ * for DynamicProperty, bound to the key of its {@link Value @Value}:
+ * <pre>{@code
+ * @Value("${feature.enabled:false}")
+ * DynamicProperty<Boolean> featureEnabled;
+ * }</pre>
  *
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 1.0 2023/11/18 23:21
  */
 public class DynamicPropertyDependencyResolvingStrategy implements DependencyResolvingStrategy {
+
+  private static final String PLACEHOLDER_PREFIX = "${";
+
+  private static final String PLACEHOLDER_SUFFIX = "}";
+
   private final BootstrapContext bootstrapContext;
 
+  @Nullable
+  private DynamicPropertyRegistry registry;
+
   public DynamicPropertyDependencyResolvingStrategy(BootstrapContext bootstrapContext) {
     this.bootstrapContext = bootstrapContext;
   }
@@ -39,9 +54,38 @@ public class DynamicPropertyDependencyResolvingStrategy implements DependencyRes
   @Override
   public Object resolveDependency(DependencyDescriptor descriptor, Context context) {
     if (descriptor.getDependencyType() == DynamicProperty.class) {
-      return new DynamicProperty();
+      Value value = descriptor.getAnnotation(Value.class);
+      Assert.state(value != null, () -> "DynamicProperty requires a @Value key: " + descriptor);
+
+      String name = value.value().trim();
+      String defaultValue = null;
+      if (name.startsWith(PLACEHOLDER_PREFIX) && name.endsWith(PLACEHOLDER_SUFFIX)) {
+        name = name.substring(PLACEHOLDER_PREFIX.length(), name.length() - PLACEHOLDER_SUFFIX.length());
+        int separator = name.indexOf(':');
+        if (separator != -1) {
+          defaultValue = name.substring(separator + 1);
+          name = name.substring(0, separator);
+        }
+      }
+      Class<?> type = descriptor.getResolvableType().as(DynamicProperty.class).getGeneric(0).resolve(String.class);
+      return registry().bind(name, type, defaultValue);
     }
     return null;
   }
 
+  private synchronized DynamicPropertyRegistry registry() {
+    DynamicPropertyRegistry registry = this.registry;
+    if (registry == null) {
+      Environment environment = bootstrapContext.getEnvironment();
+      if (environment instanceof ConfigurableEnvironment configurable) {
+        registry = DynamicPropertyRegistry.forEnvironment(configurable);
+      }
+      else {
+        registry = new DynamicPropertyRegistry(environment);
+      }
+      this.registry = registry;
+    }
+    return registry;
+  }
+
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.config;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import infra.core.conversion.ConversionService;
+import infra.core.conversion.support.DefaultConversionService;
+import infra.core.env.ConfigurableEnvironment;
+import infra.core.env.PropertyResolver;
+import infra.core.env.PropertySource;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+
+/**
+ * Binds the {@link DynamicProperty dynamic properties} to the keys of a
+ * {@link PropertyResolver}, and updates them when a
+ * {@link WatchablePropertySource} reports a change of their keys.
+ * <p>
+ * The bound properties are held weakly, a property no longer used is
+ * forgotten once it is garbage collected.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 10:20
+ */
+public class DynamicPropertyRegistry implements PropertyChangeListener {
+
+  private static final Logger log = LoggerFactory.getLogger(DynamicPropertyRegistry.class);
+
+  private final PropertyResolver propertyResolver;
+
+  private final ConversionService conversionService;
+
+  private final ConcurrentHashMap<String, CopyOnWriteArrayList<BoundProperty>> properties = new ConcurrentHashMap<>();
+
+  /** the bound properties garbage collected */
+  private final ReferenceQueue<DynamicProperty<?>> collected = new ReferenceQueue<>();
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "dynamic-property");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public DynamicPropertyRegistry(PropertyResolver propertyResolver) {
+    this(propertyResolver, DefaultConversionService.getSharedInstance());
+  }
+
+  public DynamicPropertyRegistry(PropertyResolver propertyResolver, ConversionService conversionService) {
+    Assert.notNull(propertyResolver, "PropertyResolver is required");
+    Assert.notNull(conversionService, "ConversionService is required");
+    this.propertyResolver = propertyResolver;
+    this.conversionService = conversionService;
+  }
+
+  /**
+   * Listen to the changes of the watchable property sources of the given
+   * environment.
+   */
+  public static DynamicPropertyRegistry forEnvironment(ConfigurableEnvironment environment) {
+    DynamicPropertyRegistry registry = new DynamicPropertyRegistry(environment, environment.getConversionService());
+    for (PropertySource<?> propertySource : environment.getPropertySources()) {
+      if (propertySource instanceof WatchablePropertySource watchable) {
+        watchable.addChangeListener(registry);
+      }
+    }
+    return registry;
+  }
+
+  /**
+   * Returns a dynamic property bound to the given key, it is updated as
+   * long as the caller keeps a reference to it.
+   *
+   * @param name key of the property
+   * @param type value type
+   * @param defaultValue raw value when the property is absent
+   */
+  public <T> DynamicProperty<T> bind(String name, Class<T> type, @Nullable String defaultValue) {
+    T converted = defaultValue == null ? null : conversionService.convert(defaultValue, type);
+    DynamicProperty<T> property = new DynamicProperty<>(name, raw -> conversionService.convert(raw, type), converted, executor);
+    expungeCollected();
+    BoundProperty bound = new BoundProperty(name, property, collected);
+    properties.compute(name, (key, list) -> {
+      if (list == null) {
+        list = new CopyOnWriteArrayList<>();
+      }
+      list.add(bound);
+      return list;
+    });
+    property.update(propertyResolver.getProperty(name));
+    return property;
+  }
+
+  @Override
+  public void propertiesChanged(Set<String> names) {
+    expungeCollected();
+    for (String name : names) {
+      CopyOnWriteArrayList<BoundProperty> bound = properties.get(name);
+      if (bound != null) {
+        String raw = propertyResolver.getProperty(name);
+        for (BoundProperty reference : bound) {
+          DynamicProperty<?> property = reference.get();
+          if (property == null) {
+            continue;
+          }
+          try {
+            property.update(raw);
+          }
+          catch (RuntimeException e) {
+            log.warn("Dynamic property [{}] cannot be updated to [{}], keeping [{}]", name, raw, property.get(), e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Forget the properties garbage collected.
+   */
+  private void expungeCollected() {
+    BoundProperty reference;
+    while ((reference = (BoundProperty) collected.poll()) != null) {
+      BoundProperty expunged = reference;
+      properties.computeIfPresent(reference.name, (key, list) -> {
+        list.remove(expunged);
+        return list.isEmpty() ? null : list;
+      });
+    }
+  }
+
+  private static final class BoundProperty extends WeakReference<DynamicProperty<?>> {
+
+    final String name;
+
+    BoundProperty(String name, DynamicProperty<?> property, ReferenceQueue<DynamicProperty<?>> queue) {
+      super(property, queue);
+      this.name = name;
+    }
+
+  }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.config;
+
+import java.util.Set;
+
+/**
+ * Listener of the changes of a {@link WatchablePropertySource}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 10:05
+ */
+@FunctionalInterface
+public interface PropertyChangeListener {
+
+  /**
+   * Invoked after the given properties changed, added or removed, their
+   * new values are visible to the lookups of the source.
+   *
+   * @param names names of the changed properties
+   */
+  void propertiesChanged(Set<String> names);
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import infra.beans.factory.annotation.Value;
+import infra.beans.factory.config.DependencyDescriptor;
+import infra.context.BootstrapContext;
+import infra.core.env.MapPropertySource;
+import infra.core.env.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/20 10:10
+ */
+class DynamicPropertyDependencyResolvingStrategyTests {
+
+  private final DynamicPropertyDependencyResolvingStrategy strategy;
+
+  DynamicPropertyDependencyResolvingStrategyTests() {
+    StandardEnvironment environment = new StandardEnvironment();
+    environment.getPropertySources().addFirst(new MapPropertySource("test",
+            Map.of("server.port", "8080", "feature.enabled", "true")));
+    BootstrapContext bootstrapContext = mock(BootstrapContext.class);
+    when(bootstrapContext.getEnvironment()).thenReturn(environment);
+    strategy = new DynamicPropertyDependencyResolvingStrategy(bootstrapContext);
+  }
+
+  @Test
+  void placeholderKey() {
+    DynamicProperty<?> property = resolve("port");
+    assertThat(property.getName()).isEqualTo("server.port");
+    assertThat(property.get()).isEqualTo(8080);
+  }
+
+  @Test
+  void placeholderDefaultValue() {
+    DynamicProperty<?> enabled = resolve("enabled");
+    assertThat(enabled.getName()).isEqualTo("feature.enabled");
+    assertThat(enabled.get()).isEqualTo(true);
+
+    DynamicProperty<?> timeout = resolve("timeout");
+    assertThat(timeout.getName()).isEqualTo("client.timeout");
+    assertThat(timeout.get()).isEqualTo(30);
+  }
+
+  @Test
+  void defaultValueSplitOnFirstSeparator() {
+    DynamicProperty<?> url = resolve("url");
+    assertThat(url.getName()).isEqualTo("registry.url");
+    assertThat(url.get()).isEqualTo("http://localhost:8080/services");
+  }
+
+  @Test
+  void emptyDefaultValue() {
+    DynamicProperty<?> name = resolve("name");
+    assertThat(name.getName()).isEqualTo("application.name");
+    assertThat(name.get()).isEqualTo("");
+  }
+
+  @Test
+  void plainKey() {
+    DynamicProperty<?> property = resolve("plain");
+    assertThat(property.getName()).isEqualTo("server.port");
+    assertThat(property.get()).isEqualTo("8080");
+  }
+
+  @Test
+  void withoutValueAnnotation() {
+    assertThatIllegalStateException().isThrownBy(() -> resolve("missing"));
+  }
+
+  @Test
+  void otherDependencyNotResolved() throws NoSuchFieldException {
+    DependencyDescriptor descriptor = new DependencyDescriptor(Injected.class.getDeclaredField("other"), true);
+    assertThat(strategy.resolveDependency(descriptor, null)).isNull();
+  }
+
+  private DynamicProperty<?> resolve(String field) {
+    DependencyDescriptor descriptor;
+    try {
+      descriptor = new DependencyDescriptor(Injected.class.getDeclaredField(field), true);
+    }
+    catch (NoSuchFieldException e) {
+      throw new IllegalArgumentException(e);
+    }
+    Object resolved = strategy.resolveDependency(descriptor, null);
+    assertThat(resolved).isInstanceOf(DynamicProperty.class);
+    return (DynamicProperty<?>) resolved;
+  }
+
+  static class Injected {
+
+    @Value("${server.port}")
+    DynamicProperty<Integer> port;
+
+    @Value("${feature.enabled:false}")
+    DynamicProperty<Boolean> enabled;
+
+    @Value("${client.timeout:30}")
+    DynamicProperty<Integer> timeout;
+
+    @Value("${registry.url:http://localhost:8080/services}")
+    DynamicProperty<String> url;
+
+    @Value("${application.name:}")
+    DynamicProperty<String> name;
+
+    @Value("server.port")
+    DynamicProperty<String> plain;
+
+    DynamicProperty<String> missing;
+
+    @Value("${server.port}")
+    String other;
+
+  }
+
+}
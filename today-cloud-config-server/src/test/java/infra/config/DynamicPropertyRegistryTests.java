@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import infra.core.env.MapPropertySource;
+import infra.core.env.StandardEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/20 09:55
+ */
+class DynamicPropertyRegistryTests {
+
+  private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+
+  private final WatchableMapPropertySource propertySource = new WatchableMapPropertySource(values);
+
+  private final DynamicPropertyRegistry registry;
+
+  DynamicPropertyRegistryTests() {
+    StandardEnvironment environment = new StandardEnvironment();
+    environment.getPropertySources().addFirst(propertySource);
+    registry = DynamicPropertyRegistry.forEnvironment(environment);
+  }
+
+  @Test
+  void boundToCurrentValueOrDefault() {
+    values.put("server.port", "8080");
+    assertThat(registry.bind("server.port", Integer.class, null).get()).isEqualTo(8080);
+    assertThat(registry.bind("feature.enabled", Boolean.class, "false").get()).isFalse();
+    assertThat(registry.bind("timeout", String.class, null).get()).isNull();
+  }
+
+  @Test
+  void followsChangesOfWatchableSource() {
+    values.put("server.port", "8080");
+    DynamicProperty<Integer> port = registry.bind("server.port", Integer.class, null);
+    DynamicProperty<Boolean> enabled = registry.bind("feature.enabled", Boolean.class, "false");
+    CopyOnWriteArrayList<Integer> notified = new CopyOnWriteArrayList<>();
+    port.addListener(notified::add);
+
+    values.put("server.port", "9090");
+    values.put("feature.enabled", "true");
+    propertySource.changed("server.port", "feature.enabled");
+    assertThat(port.get()).isEqualTo(9090);
+    assertThat(enabled.get()).isTrue();
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(notified).containsExactly(9090));
+
+    values.remove("feature.enabled");
+    propertySource.changed("feature.enabled");
+    assertThat(enabled.get()).isFalse();
+  }
+
+  @Test
+  void conversionFailureKeepsValue() {
+    values.put("server.port", "8080");
+    DynamicProperty<Integer> port = registry.bind("server.port", Integer.class, null);
+    DynamicProperty<String> raw = registry.bind("server.port", String.class, null);
+
+    values.put("server.port", "not a port");
+    propertySource.changed("server.port");
+    assertThat(port.get()).isEqualTo(8080);
+    // the other properties of the key are still updated
+    assertThat(raw.get()).isEqualTo("not a port");
+
+    values.put("server.port", "9090");
+    propertySource.changed("server.port");
+    assertThat(port.get()).isEqualTo(9090);
+  }
+
+  @Test
+  void propertyNoLongerUsedNotRetained() {
+    values.put("server.port", "8080");
+    WeakReference<DynamicProperty<Integer>> reference =
+            new WeakReference<>(registry.bind("server.port", Integer.class, null));
+
+    await().atMost(Duration.ofSeconds(10)).until(() -> {
+      System.gc();
+      return reference.get() == null;
+    });
+    // the collected property is forgotten, the others still follow the changes
+    DynamicProperty<Integer> port = registry.bind("server.port", Integer.class, null);
+    values.put("server.port", "9090");
+    propertySource.changed("server.port");
+    assertThat(port.get()).isEqualTo(9090);
+  }
+
+  static final class WatchableMapPropertySource extends MapPropertySource implements WatchablePropertySource {
+
+    private final CopyOnWriteArrayList<PropertyChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    WatchableMapPropertySource(Map<String, Object> source) {
+      super("watchable", source);
+    }
+
+    @Override
+    public void addChangeListener(PropertyChangeListener listener) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(PropertyChangeListener listener) {
+      listeners.remove(listener);
+    }
+
+    void changed(String... names) {
+      for (PropertyChangeListener listener : listeners) {
+        listener.propertiesChanged(Set.of(names));
+      }
+    }
+
+  }
+
+}
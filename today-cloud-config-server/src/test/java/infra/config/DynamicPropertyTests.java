@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/20 09:40
+ */
+class DynamicPropertyTests {
+
+  /** notifications waiting to run */
+  private final ArrayList<Runnable> notifications = new ArrayList<>();
+
+  private final DynamicProperty<Integer> property = new DynamicProperty<>("server.port", Integer::valueOf, 8080, notifications::add);
+
+  @Test
+  void defaultValueWhenAbsent() {
+    assertThat(property.get()).isEqualTo(8080);
+    property.update("9090");
+    assertThat(property.obtain()).isEqualTo(9090);
+    property.update(null);
+    assertThat(property.get()).isEqualTo(8080);
+  }
+
+  @Test
+  void burstOfChangesCoalesced() {
+    List<Integer> notified = new ArrayList<>();
+    property.addListener(notified::add);
+
+    property.update("9001");
+    property.update("9002");
+    property.update("9003");
+    assertThat(notifications).hasSize(1);
+    assertThat(notified).isEmpty();
+
+    // one notification with the latest value
+    runNotifications();
+    assertThat(notified).containsExactly(9003);
+
+    property.update("9004");
+    assertThat(notifications).hasSize(1);
+    runNotifications();
+    assertThat(notified).containsExactly(9003, 9004);
+  }
+
+  @Test
+  void sameValueNotNotified() {
+    property.addListener(value -> { });
+    property.update("8080");
+    property.update(null);
+    assertThat(notifications).isEmpty();
+  }
+
+  @Test
+  void withoutListenerNotNotified() {
+    property.update("9001");
+    assertThat(notifications).isEmpty();
+    assertThat(property.get()).isEqualTo(9001);
+  }
+
+  @Test
+  void failingListenerDoesNotStopOthers() {
+    List<Integer> notified = new ArrayList<>();
+    property.addListener(value -> {
+      throw new IllegalStateException("listener failed");
+    });
+    property.addListener(notified::add);
+
+    property.update("9001");
+    runNotifications();
+    assertThat(notified).containsExactly(9001);
+  }
+
+  @Test
+  void conversionFailureKeepsValue() {
+    List<Integer> notified = new ArrayList<>();
+    property.addListener(notified::add);
+    property.update("9001");
+
+    assertThatExceptionOfType(NumberFormatException.class)
+            .isThrownBy(() -> property.update("not a port"));
+    assertThat(property.get()).isEqualTo(9001);
+    runNotifications();
+    assertThat(notified).containsExactly(9001);
+  }
+
+  private void runNotifications() {
+    List<Runnable> pending = List.copyOf(notifications);
+    notifications.clear();
+    pending.forEach(Runnable::run);
+  }
+
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.transport.netty;
+
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import infra.lang.Nullable;
+import infra.remoting.frame.FrameLengthCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import reactor.core.CoreSubscriber;
+import reactor.core.Fuseable;
+import reactor.netty.Connection;
+
+import static infra.remoting.frame.FrameLengthCodec.FRAME_LENGTH_SIZE;
+
+/**
+ * Outbound path of a {@link TcpDuplexConnection}. Fuses with the sender queue and drains
+ * every frame queued since the last event-loop tick, gathers the length prefixes and the
+ * frames into {@link CompositeByteBuf} batches and flushes once per drain instead of
+ * once per frame.
+ * <p>
+ * All length prefixes of a batch are written into one shared header buffer, so a batch of
+ * {@code n} frames costs one header allocation instead of {@code n} buffers and {@code n}
+ * composites.
+ */
+final class FrameBatchWriter extends ChannelInboundHandlerAdapter implements CoreSubscriber<ByteBuf>, Runnable {
+
+  /**
+   * Upper bound of the frames gathered into a single write, keeps composites from
+   * consolidating their components.
+   */
+  static final int MAX_FRAMES_PER_WRITE = 256;
+
+  static final String NAME = "remoting-frame-batch-writer";
+
+  private static final int HEADER_CHUNK_SIZE = FRAME_LENGTH_SIZE * MAX_FRAMES_PER_WRITE;
+
+  private static final AtomicIntegerFieldUpdater<FrameBatchWriter> WIP =
+          AtomicIntegerFieldUpdater.newUpdater(FrameBatchWriter.class, "wip");
+
+  private final Connection connection;
+
+  private final Channel channel;
+
+  private final long startedAt = System.nanoTime();
+
+  private volatile int wip;
+
+  private volatile boolean done;
+
+  private volatile boolean cancelled;
+
+  @Nullable
+  private Throwable error;
+
+  @Nullable
+  private Fuseable.QueueSubscription<ByteBuf> queue;
+
+  /** written on the event loop only */
+  @Nullable
+  private ByteBuf headers;
+
+  /** written on the event loop only */
+  private boolean terminated;
+
+  private volatile long flushes;
+
+  private volatile long frames;
+
+  FrameBatchWriter(Connection connection) {
+    this.connection = connection;
+    this.channel = connection.channel();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void onSubscribe(Subscription s) {
+    if (s instanceof Fuseable.QueueSubscription<?> qs
+            && qs.requestFusion(Fuseable.ASYNC) == Fuseable.ASYNC) {
+      this.queue = (Fuseable.QueueSubscription<ByteBuf>) qs;
+    }
+    else {
+      s.cancel();
+      throw new IllegalStateException("Sender must support asynchronous fusion");
+    }
+  }
+
+  @Override
+  public void onNext(@Nullable ByteBuf ignored) {
+    // fused mode, frames are polled from the queue on the event loop
+    schedule();
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    this.error = t;
+    this.done = true;
+    schedule();
+  }
+
+  @Override
+  public void onComplete() {
+    this.done = true;
+    schedule();
+  }
+
+  /**
+   * Stops writing, queued frames are released. Called once the connection is disposed.
+   */
+  void cancel() {
+    this.cancelled = true;
+    schedule();
+  }
+
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+    if (ctx.channel().isWritable()) {
+      schedule();
+    }
+    super.channelWritabilityChanged(ctx);
+  }
+
+  private void schedule() {
+    if (WIP.getAndIncrement(this) == 0) {
+      // always hop to the next tick, frames emitted in the meantime join the same batch
+      channel.eventLoop().execute(this);
+    }
+  }
+
+  @Override
+  public void run() {
+    int missed = 1;
+    for (; ; ) {
+      if (!terminated) {
+        drain();
+      }
+
+      missed = WIP.addAndGet(this, -missed);
+      if (missed == 0) {
+        return;
+      }
+    }
+  }
+
+  private void drain() {
+    final Fuseable.QueueSubscription<ByteBuf> queue = this.queue;
+    final Channel channel = this.channel;
+
+    ChannelFuture lastWrite = null;
+    int written = 0;
+    for (; ; ) {
+      if (cancelled || !channel.isActive()) {
+        queue.cancel();
+        terminate(null);
+        break;
+      }
+
+      // done has to be read before queue.poll to ensure no frame is missed
+      boolean done = this.done;
+      if (done && error != null) {
+        terminate(null);
+        break;
+      }
+
+      if (!channel.isWritable()) {
+        // resumed by channelWritabilityChanged
+        break;
+      }
+
+      CompositeByteBuf batch = null;
+      int count = 0;
+      ByteBuf frame;
+      while (count < MAX_FRAMES_PER_WRITE && (frame = queue.poll()) != null) {
+        if (batch == null) {
+          batch = channel.alloc().compositeBuffer(MAX_FRAMES_PER_WRITE * 2);
+        }
+        batch.addComponent(true, header(frame.readableBytes()));
+        batch.addComponent(true, frame);
+        count++;
+      }
+
+      if (batch == null) {
+        if (done) {
+          if (written > 0) {
+            channel.flush();
+            recordFlush(written);
+            written = 0;
+          }
+          terminate(lastWrite);
+        }
+        break;
+      }
+
+      lastWrite = channel.write(batch);
+      written += count;
+    }
+
+    if (written > 0) {
+      channel.flush();
+      recordFlush(written);
+    }
+  }
+
+  private ByteBuf header(int length) {
+    ByteBuf headers = this.headers;
+    if (headers == null || headers.writableBytes() < FRAME_LENGTH_SIZE) {
+      if (headers != null) {
+        headers.release();
+      }
+      headers = channel.alloc().buffer(HEADER_CHUNK_SIZE, HEADER_CHUNK_SIZE);
+      this.headers = headers;
+    }
+    int index = headers.writerIndex();
+    FrameLengthCodec.encodeLength(headers, length);
+    return headers.retainedSlice(index, FRAME_LENGTH_SIZE);
+  }
+
+  private void recordFlush(int written) {
+    // single writer, the event loop
+    this.flushes = flushes + 1;
+    this.frames = frames + written;
+  }
+
+  private void terminate(@Nullable ChannelFuture lastWrite) {
+    this.terminated = true;
+    final ByteBuf headers = this.headers;
+    if (headers != null) {
+      this.headers = null;
+      headers.release();
+    }
+    // releases whatever is left and completes the sender
+    queue.clear();
+
+    if (lastWrite != null) {
+      lastWrite.addListener(future -> connection.dispose());
+    }
+    else {
+      connection.dispose();
+    }
+  }
+
+  /**
+   * Number of flushes, each one maps to a single gathering write on the socket.
+   */
+  long getFlushCount() {
+    return flushes;
+  }
+
+  /**
+   * Number of frames written to the socket.
+   */
+  long getFrameCount() {
+    return frames;
+  }
+
+  /**
+   * Average number of frames coalesced into one flush.
+   */
+  double getFramesPerFlush() {
+    long flushes = this.flushes;
+    return flushes == 0 ? 0 : (double) frames / flushes;
+  }
+
+  /**
+   * Average number of flushes, and so of write syscalls, per second since the connection
+   * was established.
+   */
+  double getFlushesPerSecond() {
+    long elapsed = System.nanoTime() - startedAt;
+    return elapsed <= 0 ? 0 : flushes * 1_000_000_000d / elapsed;
+  }
+
+  @Override
+  public String toString() {
+    return "FrameBatchWriter{flushes=%d, frames=%d}".formatted(flushes, frames);
+  }
+
+}
@@ -36,6 +36,8 @@ public final class TcpDuplexConnection extends BaseDuplexConnection {
   private final String side;
   private final Connection connection;
 
+  private final FrameBatchWriter writer;
+
   /**
    * Creates a new instance
    *
@@ -54,7 +56,41 @@ public final class TcpDuplexConnection extends BaseDuplexConnection {
     this.connection = Objects.requireNonNull(connection, "connection is required");
     this.side = side;
 
-    connection.outbound().send(sender).then().doFinally(__ -> connection.dispose()).subscribe();
+    this.writer = new FrameBatchWriter(connection);
+
+    connection.addHandlerLast(FrameBatchWriter.NAME, writer);
+    sender.subscribe(writer);
+    connection.onDispose(writer::cancel);
+  }
+
+  /**
+   * Returns the number of flushes issued on the underlying channel, every flush
+   * results in a single gathering write on the socket.
+   */
+  public long getFlushCount() {
+    return writer.getFlushCount();
+  }
+
+  /**
+   * Returns the number of frames written to the underlying channel.
+   */
+  public long getFrameCount() {
+    return writer.getFrameCount();
+  }
+
+  /**
+   * Returns the average number of frames coalesced into a single flush.
+   */
+  public double getFramesPerFlush() {
+    return writer.getFramesPerFlush();
+  }
+
+  /**
+   * Returns the average number of flushes, and so of write syscalls, per second
+   * since this connection was created.
+   */
+  public double getFlushesPerSecond() {
+    return writer.getFlushesPerSecond();
   }
 
   @Override
@@ -80,7 +116,7 @@ public final class TcpDuplexConnection extends BaseDuplexConnection {
   @Override
   public void sendErrorAndClose(ProtocolErrorException e) {
     final ByteBuf errorFrame = ErrorFrameCodec.encode(alloc(), 0, e);
-    sender.tryEmitFinal(FrameLengthCodec.encode(alloc(), errorFrame.readableBytes(), errorFrame));
+    sender.tryEmitFinal(errorFrame);
   }
 
   @Override
@@ -90,12 +126,16 @@ public final class TcpDuplexConnection extends BaseDuplexConnection {
 
   @Override
   public void sendFrame(int streamId, ByteBuf frame) {
-    super.sendFrame(streamId, FrameLengthCodec.encode(alloc(), frame.readableBytes(), frame));
+    if ((frame.readableBytes() & ~FrameLengthCodec.FRAME_LENGTH_MASK) != 0) {
+      throw new IllegalArgumentException("Length is larger than 24 bits");
+    }
+    // length prefixes are added by the writer when the frame is batched
+    super.sendFrame(streamId, frame);
   }
 
   @Override
   public String toString() {
-    return "TcpDuplexConnection{side='%s', connection=%s}".formatted(side, connection);
+    return "TcpDuplexConnection{side='%s', connection=%s, writer=%s}".formatted(side, connection, writer);
   }
 
 }
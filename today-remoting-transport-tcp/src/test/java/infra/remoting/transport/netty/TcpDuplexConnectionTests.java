@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.transport.netty;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import infra.remoting.frame.FrameLengthCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import reactor.netty.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 10:12
+ */
+class TcpDuplexConnectionTests {
+
+  @Test
+  void framesQueuedInOneTickAreFlushedOnce() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    TcpDuplexConnection connection = new TcpDuplexConnection("client", Connection.from(channel));
+
+    connection.sendFrame(1, frame("first"));
+    connection.sendFrame(3, frame("second"));
+    connection.sendFrame(0, frame("keepalive"));
+    channel.runPendingTasks();
+
+    ByteBuf batch = channel.readOutbound();
+    assertThat(batch).isNotNull();
+    assertThat(channel.<ByteBuf>readOutbound()).isNull();
+
+    // stream 0 is prioritized
+    assertThat(readFrame(batch)).isEqualTo("keepalive");
+    assertThat(readFrame(batch)).isEqualTo("first");
+    assertThat(readFrame(batch)).isEqualTo("second");
+    assertThat(batch.isReadable()).isFalse();
+    batch.release();
+
+    assertThat(connection.getFlushCount()).isEqualTo(1);
+    assertThat(connection.getFrameCount()).isEqualTo(3);
+    assertThat(connection.getFramesPerFlush()).isEqualTo(3);
+
+    connection.sendFrame(1, frame("next"));
+    channel.runPendingTasks();
+
+    batch = channel.readOutbound();
+    assertThat(readFrame(batch)).isEqualTo("next");
+    batch.release();
+
+    assertThat(connection.getFlushCount()).isEqualTo(2);
+    assertThat(connection.getFramesPerFlush()).isEqualTo(2);
+
+    connection.dispose();
+    channel.runPendingTasks();
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void largeBacklogIsSplitIntoSeveralWritesButFlushedOnce() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    TcpDuplexConnection connection = new TcpDuplexConnection("client", Connection.from(channel));
+
+    int count = FrameBatchWriter.MAX_FRAMES_PER_WRITE * 2 + 1;
+    for (int i = 0; i < count; i++) {
+      connection.sendFrame(1, frame(Integer.toString(i)));
+    }
+    channel.runPendingTasks();
+
+    int i = 0;
+    ByteBuf batch;
+    while ((batch = channel.readOutbound()) != null) {
+      while (batch.isReadable()) {
+        assertThat(readFrame(batch)).isEqualTo(Integer.toString(i++));
+      }
+      batch.release();
+    }
+    assertThat(i).isEqualTo(count);
+    assertThat(connection.getFlushCount()).isEqualTo(1);
+
+    connection.dispose();
+    channel.runPendingTasks();
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void queuedFramesAreReleasedWhenDisposed() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    TcpDuplexConnection connection = new TcpDuplexConnection("client", Connection.from(channel));
+
+    ByteBuf frame = frame("pending");
+    connection.sendFrame(1, frame);
+    connection.dispose();
+    channel.runPendingTasks();
+
+    assertThat(frame.refCnt()).isZero();
+    assertThat(connection.isDisposed()).isTrue();
+    channel.finishAndReleaseAll();
+  }
+
+  private static ByteBuf frame(String content) {
+    return Unpooled.copiedBuffer(content, StandardCharsets.UTF_8);
+  }
+
+  private static String readFrame(ByteBuf batch) {
+    int length = FrameLengthCodec.length(batch);
+    batch.skipBytes(FrameLengthCodec.FRAME_LENGTH_SIZE);
+    return batch.readCharSequence(length, StandardCharsets.UTF_8).toString();
+  }
+
+}
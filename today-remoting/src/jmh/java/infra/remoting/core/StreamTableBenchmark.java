@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.remoting.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+/**
+ * Stream lifecycle on one connection: a requester issues a stream id and
+ * adds its handler, inbound frames look the handler up, then the stream
+ * ends. {@link StreamTable} against the former synchronized
+ * {@link IntObjectHashMap}, at 1, 8 and 64 requesting threads.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamTableBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Streams {
+
+    /** lookups per stream, the inbound frames of a stream */
+    @Param({ "1", "4" })
+    int lookups;
+
+    StreamIdProvider streamIdProvider;
+
+    StreamTable<Object> streamTable;
+
+    SynchronizedStreams synchronizedStreams;
+
+    @Setup
+    public void setup() {
+      streamIdProvider = StreamIdProvider.forClient();
+      streamTable = new StreamTable<>();
+      synchronizedStreams = new SynchronizedStreams();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Requester {
+
+    final Object handler = new Object();
+
+    /** streams of this requester in flight */
+    final int[] inFlight = new int[16];
+
+    int next;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object streamTable1(Streams streams, Requester requester) {
+    return streamTable(streams, requester);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object streamTable8(Streams streams, Requester requester) {
+    return streamTable(streams, requester);
+  }
+
+  @Benchmark
+  @Threads(64)
+  public Object streamTable64(Streams streams, Requester requester) {
+    return streamTable(streams, requester);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Object synchronized1(Streams streams, Requester requester) {
+    return synchronizedMap(streams, requester);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Object synchronized8(Streams streams, Requester requester) {
+    return synchronizedMap(streams, requester);
+  }
+
+  @Benchmark
+  @Threads(64)
+  public Object synchronized64(Streams streams, Requester requester) {
+    return synchronizedMap(streams, requester);
+  }
+
+  private static Object streamTable(Streams streams, Requester requester) {
+    StreamTable<Object> table = streams.streamTable;
+    int streamId;
+    do {
+      streamId = streams.streamIdProvider.nextStreamId(table);
+    }
+    while (table.putIfAbsent(streamId, requester.handler) != null);
+
+    Object handler = null;
+    for (int i = 0; i < streams.lookups; i++) {
+      handler = table.get(streamId);
+    }
+
+    int slot = requester.next++ & (requester.inFlight.length - 1);
+    int ended = requester.inFlight[slot];
+    if (ended != 0) {
+      table.remove(ended, requester.handler);
+    }
+    requester.inFlight[slot] = streamId;
+    return handler;
+  }
+
+  private static Object synchronizedMap(Streams streams, Requester requester) {
+    SynchronizedStreams map = streams.synchronizedStreams;
+    int streamId = map.addAndGetNextStreamId(streams.streamIdProvider, requester.handler);
+
+    Object handler = null;
+    for (int i = 0; i < streams.lookups; i++) {
+      handler = map.get(streamId);
+    }
+
+    int slot = requester.next++ & (requester.inFlight.length - 1);
+    int ended = requester.inFlight[slot];
+    if (ended != 0) {
+      map.remove(ended, requester.handler);
+    }
+    requester.inFlight[slot] = streamId;
+    return handler;
+  }
+
+  /**
+   * The former active streams of {@link RequesterResponderSupport}.
+   */
+  static final class SynchronizedStreams {
+
+    private final IntObjectMap<Object> activeStreams = new IntObjectHashMap<>();
+
+    synchronized int addAndGetNextStreamId(StreamIdProvider streamIdProvider, Object handler) {
+      int streamId = streamIdProvider.nextStreamId(activeStreams);
+      activeStreams.put(streamId, handler);
+      return streamId;
+    }
+
+    synchronized Object get(int streamId) {
+      return activeStreams.get(streamId);
+    }
+
+    synchronized void remove(int streamId, Object handler) {
+      if (activeStreams.get(streamId) == handler) {
+        activeStreams.remove(streamId);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.protocol;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import infra.remoting.frame.FrameType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Serializing a {@link ProtocolFrame} with 64B, 4KB and 1MB of data. The former
+ * encoding, a default sized header buffer composed with the data, against the
+ * composite with an exact sized header and the header written into reserved headroom.
+ * <p>
+ * Allocation rates are reported with the gc profiler: {@code -Pjmh.profilers=gc}.
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ProtocolFrameBenchmark {
+
+  @Param({ "64", "4096", "1048576" })
+  int size;
+
+  ByteBufAllocator allocator;
+
+  byte[] content;
+
+  @Setup
+  public void setup() {
+    allocator = PooledByteBufAllocator.DEFAULT;
+    content = new byte[size];
+  }
+
+  @Benchmark
+  public int legacy() {
+    ByteBuf data = allocator.buffer(size).writeBytes(content);
+    ByteBuf header = allocator.buffer().writeInt(1).writeShort(FrameType.PAYLOAD.getEncodedType());
+    ByteBuf frame = allocator.compositeBuffer(2).addComponents(true, header, data);
+    return release(frame);
+  }
+
+  @Benchmark
+  public int composite() {
+    ByteBuf data = allocator.buffer(size).writeBytes(content);
+    ProtocolFrame frame = new ProtocolFrame(1, FrameType.PAYLOAD, ProtocolFrame.FLAGS_N, Metadata.EMPTY, data);
+    return release(frame.serialize(allocator));
+  }
+
+  @Benchmark
+  public int headroom() {
+    ByteBuf data = ProtocolFrame.allocateData(allocator, size).writeBytes(content);
+    ProtocolFrame frame = new ProtocolFrame(1, FrameType.PAYLOAD, ProtocolFrame.FLAGS_N, Metadata.EMPTY, data);
+    return release(frame.serialize(allocator));
+  }
+
+  private static int release(ByteBuf frame) {
+    int length = frame.readableBytes();
+    frame.release();
+    return length;
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.remoting.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import infra.remoting.Payload;
+import infra.remoting.frame.RequestResponseFrameCodec;
+import infra.remoting.frame.decoder.PayloadDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * The payload of an inbound request, decoded by the zero copy decoder and released as
+ * the responder does once per request. The same code with the {@link ByteBufPayload}
+ * pool, against a fork where the Netty {@code Recycler} is disabled and every payload
+ * is a new object.
+ * <p>
+ * Bytes allocated per request are reported with the gc profiler, {@code gc.alloc.rate.norm}
+ * with {@code -Pjmh.profilers=gc}.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ByteBufPayloadBenchmark {
+
+  @Param({ "64", "4096" })
+  int size;
+
+  ByteBuf frame;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    ByteBuf metadata = allocator.buffer(16).writeZero(16);
+    ByteBuf data = allocator.buffer(size).writeZero(size);
+    frame = RequestResponseFrameCodec.encode(allocator, 1, false, metadata, data);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    frame.release();
+  }
+
+  @Benchmark
+  @Fork(1)
+  public int pooled() {
+    return request();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dio.netty.recycler.maxCapacityPerThread=0")
+  public int unpooled() {
+    return request();
+  }
+
+  private int request() {
+    Payload payload = PayloadDecoder.ZERO_COPY.apply(frame);
+    int length = payload.data().readableBytes();
+    payload.release();
+    return length;
+  }
+
+}
@@ -56,6 +56,8 @@ import reactor.util.retry.Retry;
 import static infra.remoting.core.FragmentationUtils.assertMtu;
 import static infra.remoting.core.PayloadValidationUtils.assertValidateSetup;
 import static infra.remoting.core.ReassemblyUtils.assertInboundPayloadSize;
+import static infra.remoting.core.ReassemblyUtils.assertReassemblySize;
+import static infra.remoting.core.ReassemblyUtils.newReassemblyBudget;
 
 /**
  * The main class to use to establish a connection to an RSocket server.
@@ -114,6 +116,8 @@ public class ChannelConnector {
 
   private int maxInboundPayloadSize = Integer.MAX_VALUE;
 
+  private long maxReassemblySize = Long.MAX_VALUE;
+
   private PayloadDecoder payloadDecoder = PayloadDecoder.DEFAULT;
 
   private ChannelConnector() {
@@ -475,6 +479,26 @@ public class ChannelConnector {
     return this;
   }
 
+  /**
+   * When this is set, caps the bytes held by fragments in reassembly per connection, across
+   * all streams of the connection. Where {@code maxInboundPayloadSize} bounds one payload, this
+   * bounds the payloads reassembled at the same time, so that many concurrent large streams
+   * can't exhaust direct memory. A fragmented request that doesn't fit is rejected with a
+   * retryable error, a stream going out of the budget is cancelled.
+   *
+   * <p>Fragments are reassembled without copying, they count against the budget until the
+   * reassembled payload is released.
+   *
+   * <p>By default this is not set in which case the bytes in reassembly are not controlled.
+   *
+   * @param maxReassemblySize the maximum number of bytes in reassembly per connection
+   * @return the same instance for method chaining
+   */
+  public ChannelConnector maxReassemblySize(long maxReassemblySize) {
+    this.maxReassemblySize = assertReassemblySize(maxReassemblySize);
+    return this;
+  }
+
   /**
    * When this is set, frames larger than the given maximum transmission unit (mtu) size value are
    * broken down into fragments to fit that size.
@@ -604,6 +628,7 @@ public class ChannelConnector {
                   }
 
                   var multiplexer = new ClientServerInputMultiplexer(wrappedConnection, interceptors, true);
+                  var reassemblyBudget = newReassemblyBudget(maxReassemblySize);
 
                   final LeaseSpec leases;
                   final RequesterLeaseTracker requesterLeaseTracker;
@@ -621,7 +646,7 @@ public class ChannelConnector {
                   final Sinks.Empty<Void> responderOnAllClosedSink = Sinks.unsafe().empty();
 
                   Channel channelRequester = new ChannelRequester(multiplexer.asClientConnection(), payloadDecoder,
-                          StreamIdProvider.forClient(), mtu, maxFrameLength, maxInboundPayloadSize,
+                          StreamIdProvider.forClient(), mtu, maxFrameLength, maxInboundPayloadSize, reassemblyBudget,
                           (int) keepAliveInterval.toMillis(), (int) keepAliveMaxLifeTime.toMillis(), keepAliveHandler,
                           interceptors::initRequesterRequestInterceptor, requesterLeaseTracker, requesterOnAllClosedSink,
                           Mono.whenDelayError(responderOnAllClosedSink.asMono(), requesterOnAllClosedSink.asMono()));
@@ -641,7 +666,7 @@ public class ChannelConnector {
                                     : null;
 
                             Channel channelResponder = new ChannelResponder(multiplexer.asServerConnection(), wrappedChannelHandler,
-                                    payloadDecoder, responderLeaseTracker, mtu, maxFrameLength, maxInboundPayloadSize,
+                                    payloadDecoder, responderLeaseTracker, mtu, maxFrameLength, maxInboundPayloadSize, reassemblyBudget,
                                     leaseEnabled && leases.sender instanceof TrackingLeaseSender
                                             ? rSocket -> interceptors.initResponderRequestInterceptor(rSocket, (TrackingLeaseSender) leases.sender)
                                             : interceptors::initResponderRequestInterceptor, responderOnAllClosedSink);
@@ -43,7 +43,6 @@ import infra.remoting.keepalive.KeepAliveHandler;
 import infra.remoting.keepalive.KeepAliveSupport;
 import infra.remoting.plugins.RequestInterceptor;
 import io.netty.buffer.ByteBuf;
-import io.netty.util.collection.IntObjectMap;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
@@ -77,10 +76,10 @@ class ChannelRequester extends RequesterResponderSupport implements Channel {
   private final Mono<Void> onAllClosed;
 
   ChannelRequester(DuplexConnection connection, PayloadDecoder payloadDecoder, StreamIdProvider streamIdProvider,
-          int mtu, int maxFrameLength, int maxInboundPayloadSize, int keepAliveTickPeriod, int keepAliveAckTimeout,
+          int mtu, int maxFrameLength, int maxInboundPayloadSize, ReassemblyBudget reassemblyBudget, int keepAliveTickPeriod, int keepAliveAckTimeout,
           @Nullable KeepAliveHandler keepAliveHandler, Function<Channel, RequestInterceptor> requestInterceptorFunction,
           @Nullable RequesterLeaseTracker requesterLeaseTracker, Sinks.Empty<Void> onThisSideClosedSink, Mono<Void> onAllClosed) {
-    super(mtu, maxFrameLength, maxInboundPayloadSize, payloadDecoder, connection, streamIdProvider, requestInterceptorFunction);
+    super(mtu, maxFrameLength, maxInboundPayloadSize, reassemblyBudget, payloadDecoder, connection, streamIdProvider, requestInterceptorFunction);
 
     this.requesterLeaseTracker = requesterLeaseTracker;
     this.onThisSideClosedSink = onThisSideClosedSink;
@@ -381,11 +380,7 @@ class ChannelRequester extends RequesterResponderSupport implements Channel {
       requesterLeaseTracker.dispose(e);
     }
 
-    final ArrayList<FrameHandler> activeStreamsCopy;
-    synchronized(this) {
-      final IntObjectMap<FrameHandler> activeStreams = this.activeStreams;
-      activeStreamsCopy = new ArrayList<>(activeStreams.values());
-    }
+    final ArrayList<FrameHandler> activeStreamsCopy = new ArrayList<>(activeStreams.values());
 
     for (FrameHandler handler : activeStreamsCopy) {
       if (handler != null) {
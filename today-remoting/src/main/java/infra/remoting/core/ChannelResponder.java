@@ -34,6 +34,7 @@ import infra.remoting.DuplexConnection;
 import infra.remoting.Payload;
 import infra.remoting.exceptions.ConnectionErrorException;
 import infra.remoting.exceptions.Exceptions;
+import infra.remoting.exceptions.RejectedException;
 import infra.remoting.frame.ErrorFrameCodec;
 import infra.remoting.frame.FrameHeaderCodec;
 import infra.remoting.frame.FrameType;
@@ -71,9 +72,9 @@ class ChannelResponder extends RequesterResponderSupport implements Channel {
                   ChannelResponder.class, Throwable.class, "terminationError");
 
   ChannelResponder(DuplexConnection connection, Channel requestHandler, PayloadDecoder payloadDecoder, @Nullable ResponderLeaseTracker leaseHandler,
-          int mtu, int maxFrameLength, int maxInboundPayloadSize, Function<Channel, ? extends RequestInterceptor> requestInterceptorFunction,
-          Sinks.Empty<Void> onThisSideClosedSink) {
-    super(mtu, maxFrameLength, maxInboundPayloadSize, payloadDecoder, connection, null, requestInterceptorFunction);
+          int mtu, int maxFrameLength, int maxInboundPayloadSize, ReassemblyBudget reassemblyBudget,
+          Function<Channel, ? extends RequestInterceptor> requestInterceptorFunction, Sinks.Empty<Void> onThisSideClosedSink) {
+    super(mtu, maxFrameLength, maxInboundPayloadSize, reassemblyBudget, payloadDecoder, connection, null, requestInterceptorFunction);
     this.leaseHandler = leaseHandler;
     this.requestHandler = requestHandler;
     this.onThisSideClosedSink = onThisSideClosedSink;
@@ -196,10 +197,7 @@ class ChannelResponder extends RequesterResponderSupport implements Channel {
   }
 
   private void cleanupSendingSubscriptions() {
-    final ArrayList<FrameHandler> activeStreamsCopy;
-    synchronized(this) {
-      activeStreamsCopy = new ArrayList<>(activeStreams.values());
-    }
+    final ArrayList<FrameHandler> activeStreamsCopy = new ArrayList<>(activeStreams.values());
 
     for (FrameHandler handler : activeStreamsCopy) {
       if (handler != null) {
@@ -293,17 +291,17 @@ class ChannelResponder extends RequesterResponderSupport implements Channel {
   }
 
   final void handleFireAndForget(int streamId, ByteBuf frame) {
-    ResponderLeaseTracker leaseHandler = this.leaseHandler;
-    Throwable leaseError;
-    if (leaseHandler == null || (leaseError = leaseHandler.use()) == null) {
-      if (FrameHeaderCodec.hasFollows(frame)) {
+    final ReassemblyBudget.Frames frames = admitReassembly(frame);
+    final Throwable rejection = checkAdmission(frame, frames);
+    if (rejection == null) {
+      if (frames != null) {
         final RequestInterceptor requestInterceptor = getRequestInterceptor();
         if (requestInterceptor != null) {
           requestInterceptor.onStart(streamId, FrameType.REQUEST_FNF, RequestFireAndForgetFrameCodec.metadata(frame));
         }
 
         FireAndForgetResponderSubscriber subscriber =
-                new FireAndForgetResponderSubscriber(streamId, frame, this, this);
+                new FireAndForgetResponderSubscriber(streamId, frames, frame, this, this);
 
         add(streamId, subscriber);
       }
@@ -325,22 +323,22 @@ class ChannelResponder extends RequesterResponderSupport implements Channel {
     else {
       final RequestInterceptor requestTracker = getRequestInterceptor();
       if (requestTracker != null) {
-        requestTracker.onReject(leaseError, FrameType.REQUEST_FNF, RequestFireAndForgetFrameCodec.metadata(frame));
+        requestTracker.onReject(rejection, FrameType.REQUEST_FNF, RequestFireAndForgetFrameCodec.metadata(frame));
       }
     }
   }
 
   final void handleRequestResponse(int streamId, ByteBuf frame) {
-    ResponderLeaseTracker leaseHandler = this.leaseHandler;
-    Throwable leaseError;
-    if (leaseHandler == null || (leaseError = leaseHandler.use()) == null) {
+    final ReassemblyBudget.Frames frames = admitReassembly(frame);
+    final Throwable rejection = checkAdmission(frame, frames);
+    if (rejection == null) {
       final RequestInterceptor requestInterceptor = getRequestInterceptor();
       if (requestInterceptor != null) {
         requestInterceptor.onStart(streamId, FrameType.REQUEST_RESPONSE, RequestResponseFrameCodec.metadata(frame));
       }
 
-      if (FrameHeaderCodec.hasFollows(frame)) {
-        var subscriber = new RequestResponseResponderSubscriber(streamId, frame, this, this);
+      if (frames != null) {
+        var subscriber = new RequestResponseResponderSubscriber(streamId, frames, frame, this, this);
         add(streamId, subscriber);
       }
       else {
@@ -353,23 +351,23 @@ class ChannelResponder extends RequesterResponderSupport implements Channel {
     else {
       final RequestInterceptor requestInterceptor = getRequestInterceptor();
       if (requestInterceptor != null) {
-        requestInterceptor.onReject(leaseError, FrameType.REQUEST_RESPONSE, RequestResponseFrameCodec.metadata(frame));
+        requestInterceptor.onReject(rejection, FrameType.REQUEST_RESPONSE, RequestResponseFrameCodec.metadata(frame));
       }
-      sendLeaseRejection(streamId, leaseError);
+      sendRejection(streamId, rejection);
     }
   }
 
   final void handleStream(int streamId, ByteBuf frame, long initialRequestN) {
-    ResponderLeaseTracker leaseHandler = this.leaseHandler;
-    Throwable leaseError;
-    if (leaseHandler == null || (leaseError = leaseHandler.use()) == null) {
+    final ReassemblyBudget.Frames frames = admitReassembly(frame);
+    final Throwable rejection = checkAdmission(frame, frames);
+    if (rejection == null) {
       final RequestInterceptor requestInterceptor = getRequestInterceptor();
       if (requestInterceptor != null) {
         requestInterceptor.onStart(streamId, FrameType.REQUEST_STREAM, RequestStreamFrameCodec.metadata(frame));
       }
 
-      if (FrameHeaderCodec.hasFollows(frame)) {
-        var subscriber = new RequestStreamResponderSubscriber(streamId, initialRequestN, frame, this, this);
+      if (frames != null) {
+        var subscriber = new RequestStreamResponderSubscriber(streamId, initialRequestN, frames, frame, this, this);
         add(streamId, subscriber);
       }
       else {
@@ -385,24 +383,24 @@ class ChannelResponder extends RequesterResponderSupport implements Channel {
       final RequestInterceptor requestInterceptor = getRequestInterceptor();
       if (requestInterceptor != null) {
         requestInterceptor.onReject(
-                leaseError, FrameType.REQUEST_STREAM, RequestStreamFrameCodec.metadata(frame));
+                rejection, FrameType.REQUEST_STREAM, RequestStreamFrameCodec.metadata(frame));
       }
-      sendLeaseRejection(streamId, leaseError);
+      sendRejection(streamId, rejection);
     }
   }
 
   final void handleChannel(int streamId, ByteBuf frame, long initialRequestN, boolean complete) {
-    ResponderLeaseTracker leaseHandler = this.leaseHandler;
-    Throwable leaseError;
-    if (leaseHandler == null || (leaseError = leaseHandler.use()) == null) {
+    final ReassemblyBudget.Frames frames = admitReassembly(frame);
+    final Throwable rejection = checkAdmission(frame, frames);
+    if (rejection == null) {
       final RequestInterceptor requestInterceptor = getRequestInterceptor();
       if (requestInterceptor != null) {
         requestInterceptor.onStart(streamId, FrameType.REQUEST_CHANNEL, RequestChannelFrameCodec.metadata(frame));
       }
 
-      if (FrameHeaderCodec.hasFollows(frame)) {
+      if (frames != null) {
         RequestChannelResponderSubscriber subscriber =
-                new RequestChannelResponderSubscriber(streamId, initialRequestN, frame, this, this);
+                new RequestChannelResponderSubscriber(streamId, initialRequestN, frames, frame, this, this);
 
         add(streamId, subscriber);
       }
@@ -422,14 +420,49 @@ class ChannelResponder extends RequesterResponderSupport implements Channel {
     else {
       final RequestInterceptor requestTracker = getRequestInterceptor();
       if (requestTracker != null) {
-        requestTracker.onReject(leaseError, FrameType.REQUEST_CHANNEL, RequestChannelFrameCodec.metadata(frame));
+        requestTracker.onReject(rejection, FrameType.REQUEST_CHANNEL, RequestChannelFrameCodec.metadata(frame));
       }
-      sendLeaseRejection(streamId, leaseError);
+      sendRejection(streamId, rejection);
     }
   }
 
-  private void sendLeaseRejection(int streamId, Throwable leaseError) {
-    connection.sendFrame(streamId, ErrorFrameCodec.encode(getAllocator(), streamId, leaseError));
+  private void sendRejection(int streamId, Throwable rejection) {
+    connection.sendFrame(streamId, ErrorFrameCodec.encode(getAllocator(), streamId, rejection));
+  }
+
+  /**
+   * Reserves the first fragment of a fragmented request in the reassembly budget of the
+   * connection. The reservation travels with the returned frames into the subscriber
+   * reassembling the request and is given back once they are released.
+   *
+   * @return the frames to reassemble into, or {@code null} if the request isn't fragmented
+   * or its first fragment doesn't fit into the budget
+   */
+  @Nullable
+  private ReassemblyBudget.Frames admitReassembly(ByteBuf frame) {
+    return FrameHeaderCodec.hasFollows(frame) ? reassemblyBudget.admit(getAllocator(), frame) : null;
+  }
+
+  /**
+   * Rejects a fragmented request up front when its first fragment didn't fit into the
+   * reassembly budget of the connection. The error is retryable, the requester may try
+   * again once the payloads in reassembly were released. A request rejected by the lease
+   * gives its reservation back.
+   */
+  @Nullable
+  private Throwable checkAdmission(ByteBuf frame, @Nullable ReassemblyBudget.Frames frames) {
+    if (frames == null && FrameHeaderCodec.hasFollows(frame)) {
+      return new RejectedException(String.format(ReassemblyBudget.ILLEGAL_REASSEMBLY_BUDGET, reassemblyBudget.maxBytes));
+    }
+    final ResponderLeaseTracker leaseHandler = this.leaseHandler;
+    Throwable rejection;
+    if (leaseHandler != null && (rejection = leaseHandler.use()) != null) {
+      if (frames != null) {
+        frames.release();
+      }
+      return rejection;
+    }
+    return null;
   }
 
   private void handleMetadataPush(Mono<Void> result) {
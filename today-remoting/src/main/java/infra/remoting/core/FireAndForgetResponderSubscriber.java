@@ -80,6 +80,20 @@ final class FireAndForgetResponderSubscriber
           ByteBuf firstFrame,
           RequesterResponderSupport requesterResponderSupport,
           Channel handler) {
+    this(streamId, requesterResponderSupport.getReassemblyBudget().newFrames(requesterResponderSupport.getAllocator()),
+            firstFrame, requesterResponderSupport, handler);
+  }
+
+  /**
+   * Reassembles into the given frames, which hold the reservation of the first fragment when
+   * it was taken at admission.
+   */
+  FireAndForgetResponderSubscriber(
+          int streamId,
+          CompositeByteBuf frames,
+          ByteBuf firstFrame,
+          RequesterResponderSupport requesterResponderSupport,
+          Channel handler) {
     this.streamId = streamId;
     this.allocator = requesterResponderSupport.getAllocator();
     this.payloadDecoder = requesterResponderSupport.getPayloadDecoder();
@@ -88,9 +102,7 @@ final class FireAndForgetResponderSubscriber
     this.handler = handler;
     this.requestInterceptor = requesterResponderSupport.getRequestInterceptor();
 
-    this.frames =
-            ReassemblyUtils.addFollowingFrame(
-                    allocator.compositeBuffer(), firstFrame, true, maxInboundPayloadSize);
+    this.frames = ReassemblyUtils.addFollowingFrame(frames, firstFrame, true, maxInboundPayloadSize);
   }
 
   @Override
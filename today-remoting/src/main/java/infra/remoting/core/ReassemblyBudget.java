@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.core;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import infra.lang.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+
+/**
+ * Per connection cap on the bytes held by fragments in reassembly, shared by the requester
+ * and the responder side of a connection. Where {@code maxInboundPayloadSize} bounds a single
+ * payload, the budget bounds all payloads reassembled at the same time, so that many
+ * concurrent large streams can't exhaust direct memory.
+ * <p>
+ * Fragments are gathered into a {@link Frames} buffer, a {@link CompositeByteBuf} of the
+ * retained fragments that never consolidates them into a contiguous copy. Its bytes count
+ * against the budget until it is deallocated, that is until the reassembled payload is
+ * released by a zero copy decoder, or right after decoding by a copying one.
+ */
+final class ReassemblyBudget {
+
+  static final String ILLEGAL_REASSEMBLY_BUDGET =
+          "Bytes held in reassembly went out of allowed %s bytes per connection";
+
+  static final ReassemblyBudget UNLIMITED = new ReassemblyBudget(Long.MAX_VALUE);
+
+  private static final AtomicLongFieldUpdater<ReassemblyBudget> HELD =
+          AtomicLongFieldUpdater.newUpdater(ReassemblyBudget.class, "held");
+
+  final long maxBytes;
+
+  private volatile long held;
+
+  ReassemblyBudget(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be positive");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns a new empty buffer for the fragments of one payload, accounted to this budget.
+   */
+  Frames newFrames(ByteBufAllocator allocator) {
+    return new Frames(allocator, this);
+  }
+
+  /**
+   * Reserves the first fragment of a payload atomically, so concurrent requests can't
+   * both pass admission and overrun the budget afterwards.
+   *
+   * @return the buffer holding the reservation, which is accounted to it until
+   * deallocation, or {@code null} if the fragment doesn't fit into the budget
+   */
+  @Nullable
+  Frames admit(ByteBufAllocator allocator, ByteBuf firstFragment) {
+    int bytes = firstFragment.readableBytes();
+    if (!tryReserve(bytes)) {
+      return null;
+    }
+    Frames frames = new Frames(allocator, this);
+    frames.reserved = bytes;
+    frames.admitted = true;
+    return frames;
+  }
+
+  /**
+   * Whether the given number of bytes fits into the budget right now.
+   */
+  boolean hasRoom(int bytes) {
+    return maxBytes == Long.MAX_VALUE || held + bytes <= maxBytes;
+  }
+
+  long getHeldBytes() {
+    return held;
+  }
+
+  private boolean tryReserve(int bytes) {
+    if (maxBytes == Long.MAX_VALUE) {
+      return true;
+    }
+    for (; ; ) {
+      long held = this.held;
+      long next = held + bytes;
+      if (next > maxBytes) {
+        return false;
+      }
+      if (HELD.compareAndSet(this, held, next)) {
+        return true;
+      }
+    }
+  }
+
+  private void release(long bytes) {
+    if (maxBytes != Long.MAX_VALUE && bytes > 0) {
+      HELD.addAndGet(this, -bytes);
+    }
+  }
+
+  /**
+   * Fragments of a payload in reassembly.
+   */
+  static final class Frames extends CompositeByteBuf {
+
+    private final ReassemblyBudget budget;
+
+    /** guarded by the reassembling handler, read on deallocation */
+    private long reserved;
+
+    /** whether the first fragment was reserved at admission already */
+    private boolean admitted;
+
+    Frames(ByteBufAllocator allocator, ReassemblyBudget budget) {
+      // no consolidation into a contiguous copy, however many fragments there are
+      super(allocator, false, Integer.MAX_VALUE);
+      this.budget = budget;
+    }
+
+    /**
+     * Accounts the given fragment to the budget.
+     *
+     * @throws IllegalStateException if the fragment doesn't fit into the budget
+     */
+    void reserve(ByteBuf fragment) {
+      if (admitted) {
+        admitted = false;
+        return;
+      }
+      int bytes = fragment.readableBytes();
+      if (!budget.tryReserve(bytes)) {
+        throw new IllegalStateException(String.format(ILLEGAL_REASSEMBLY_BUDGET, budget.maxBytes));
+      }
+      reserved += bytes;
+    }
+
+    @Override
+    protected void deallocate() {
+      try {
+        super.deallocate();
+      }
+      finally {
+        budget.release(reserved);
+        reserved = 0;
+      }
+    }
+  }
+
+}
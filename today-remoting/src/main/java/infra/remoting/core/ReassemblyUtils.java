@@ -71,6 +71,7 @@ class ReassemblyUtils {
           CoreSubscriber<? super Payload> inboundSubscriber,
           PayloadDecoder payloadDecoder,
           ByteBufAllocator allocator,
+          ReassemblyBudget reassemblyBudget,
           int maxInboundPayloadSize,
           ByteBuf frame,
           boolean hasFollows,
@@ -104,9 +105,20 @@ class ReassemblyUtils {
 
     CompositeByteBuf frames = instance.getFrames();
     if (frames == null) {
-      frames =
-              ReassemblyUtils.addFollowingFrame(
-                      allocator.compositeBuffer(), frame, hasFollows, maxInboundPayloadSize);
+      try {
+        frames =
+                ReassemblyUtils.addFollowingFrame(
+                        reassemblyBudget.newFrames(allocator), frame, hasFollows, maxInboundPayloadSize);
+      }
+      catch (IllegalStateException t) {
+        // out of the reassembly budget of the connection, sends cancel frame to prevent any
+        // further frames
+        subscription.cancel();
+        // terminates downstream
+        inboundSubscriber.onError(t);
+
+        return;
+      }
       instance.setFrames(frames);
 
       long previousState = markReassembling(updater, instance);
@@ -174,6 +186,7 @@ class ReassemblyUtils {
           int maxInboundPayloadSize) {
     int readableBytes = frames.readableBytes();
     if (readableBytes == 0) {
+      reserve(frames, followingFrame);
       return frames.addComponent(true, followingFrame.retain());
     }
     else if (maxInboundPayloadSize != Integer.MAX_VALUE
@@ -216,6 +229,8 @@ class ReassemblyUtils {
 
     synchronized(frames) {
       if (frames.refCnt() > 0) {
+        // accounted only while alive, deallocation returns what was reserved
+        reserve(frames, followingFrame);
         followingFrame.retain();
         return frames.addComponent(true, followingFrame);
       }
@@ -225,6 +240,12 @@ class ReassemblyUtils {
     }
   }
 
+  private static void reserve(CompositeByteBuf frames, ByteBuf followingFrame) {
+    if (frames instanceof ReassemblyBudget.Frames budgeted) {
+      budgeted.reserve(followingFrame);
+    }
+  }
+
   private static void encodeLength(final ByteBuf byteBuf, final int length) {
     if ((length & ~FRAME_LENGTH_MASK) != 0) {
       throw new IllegalArgumentException("Length is larger than 24 bits");
@@ -243,6 +264,23 @@ class ReassemblyUtils {
     return length;
   }
 
+  static long assertReassemblySize(long reassemblySize) {
+    if (reassemblySize < MIN_MTU_SIZE) {
+      throw new IllegalArgumentException(String.format(
+              "The min allowed reassemblySize size is %d bytes, provided: %d", MIN_MTU_SIZE, reassemblySize));
+    }
+    return reassemblySize;
+  }
+
+  /**
+   * Returns the budget shared by the requester and the responder of a new connection.
+   */
+  static ReassemblyBudget newReassemblyBudget(long maxReassemblySize) {
+    return maxReassemblySize == Long.MAX_VALUE
+            ? ReassemblyBudget.UNLIMITED
+            : new ReassemblyBudget(maxReassemblySize);
+  }
+
   static int assertInboundPayloadSize(int inboundPayloadSize) {
     if (inboundPayloadSize < MIN_MTU_SIZE) {
       String msg =
@@ -50,6 +50,8 @@ import reactor.core.publisher.Sinks;
 import static infra.remoting.core.FragmentationUtils.assertMtu;
 import static infra.remoting.core.PayloadValidationUtils.assertValidateSetup;
 import static infra.remoting.core.ReassemblyUtils.assertInboundPayloadSize;
+import static infra.remoting.core.ReassemblyUtils.assertReassemblySize;
+import static infra.remoting.core.ReassemblyUtils.newReassemblyBudget;
 import static infra.remoting.frame.FrameLengthCodec.FRAME_LENGTH_MASK;
 
 /**
@@ -80,6 +82,8 @@ public final class RemotingServer {
 
   private int maxInboundPayloadSize = Integer.MAX_VALUE;
 
+  private long maxReassemblySize = Long.MAX_VALUE;
+
   private PayloadDecoder payloadDecoder = PayloadDecoder.DEFAULT;
 
   private Duration timeout = Duration.ofMinutes(1);
@@ -191,7 +195,9 @@ public final class RemotingServer {
   /**
    * Enables the Lease feature of the RSocket protocol where the number of requests that can be
    * performed from either side are rationed via {@code LEASE} frames from the responder side. For
-   * this to work clients must also support and request to enable this when connecting.
+   * this to work clients must also support and request to enable this when connecting. Connections
+   * of clients that do not request it are set up without leasing, no {@code LEASE} frames are
+   * sent to them.
    *
    * <p>Example usage:
    *
@@ -254,6 +260,26 @@ public final class RemotingServer {
     return this;
   }
 
+  /**
+   * When this is set, caps the bytes held by fragments in reassembly per connection, across
+   * all streams of the connection. Where {@code maxInboundPayloadSize} bounds one payload, this
+   * bounds the payloads reassembled at the same time, so that many concurrent large streams
+   * can't exhaust direct memory. A fragmented request that doesn't fit is rejected with a
+   * retryable error, a stream going out of the budget is cancelled.
+   *
+   * <p>Fragments are reassembled without copying, they count against the budget until the
+   * reassembled payload is released.
+   *
+   * <p>By default this is not set in which case the bytes in reassembly are not controlled.
+   *
+   * @param maxReassemblySize the maximum number of bytes in reassembly per connection
+   * @return the same instance for method chaining
+   */
+  public RemotingServer maxReassemblySize(long maxReassemblySize) {
+    this.maxReassemblySize = assertReassemblySize(maxReassemblySize);
+    return this;
+  }
+
   /**
    * When this is set, frames larger than the given maximum transmission unit (mtu) size value are
    * fragmented.
@@ -386,16 +412,19 @@ public final class RemotingServer {
       return clientServerConnection.onClose();
     }
 
-    boolean leaseEnabled = leaseConfigurer != null;
-    if (SetupFrameCodec.honorLease(setupFrame) && !leaseEnabled) {
+    boolean honorLease = SetupFrameCodec.honorLease(setupFrame);
+    if (honorLease && leaseConfigurer == null) {
       serverSetup.sendError(clientServerConnection, new InvalidSetupException("lease is not supported"));
       return clientServerConnection.onClose();
     }
+    // LEASE frames are only valid on connections set up with leasing
+    boolean leaseEnabled = honorLease;
 
     return serverSetup.acceptRSocketSetup(setupFrame, clientServerConnection, (keepAliveHandler, wrappedDuplexConnection) -> {
       final InitializingInterceptorRegistry interceptors = this.interceptors;
       final ConnectionSetupPayload setupPayload = new DefaultConnectionSetupPayload(setupFrame.retain());
       final ClientServerInputMultiplexer multiplexer = new ClientServerInputMultiplexer(wrappedDuplexConnection, interceptors, false);
+      final ReassemblyBudget reassemblyBudget = newReassemblyBudget(maxReassemblySize);
       final LeaseSpec leases;
       final RequesterLeaseTracker requesterLeaseTracker;
       if (leaseEnabled) {
@@ -412,7 +441,7 @@ public final class RemotingServer {
       final Sinks.Empty<Void> responderOnAllClosedSink = Sinks.unsafe().empty();
 
       Channel channelRequester = new ChannelRequester(multiplexer.asServerConnection(), payloadDecoder, StreamIdProvider.forServer(),
-              mtu, maxFrameLength, maxInboundPayloadSize, setupPayload.keepAliveInterval(), setupPayload.keepAliveMaxLifetime(),
+              mtu, maxFrameLength, maxInboundPayloadSize, reassemblyBudget, setupPayload.keepAliveInterval(), setupPayload.keepAliveMaxLifetime(),
               keepAliveHandler, interceptors::initRequesterRequestInterceptor, requesterLeaseTracker, requesterOnAllClosedSink,
               Mono.whenDelayError(responderOnAllClosedSink.asMono(), requesterOnAllClosedSink.asMono()));
 
@@ -434,7 +463,7 @@ public final class RemotingServer {
                         : null;
 
                 Channel channelResponder = new ChannelResponder(clientConnection, wrappedChannelHandler, payloadDecoder, responderLeaseTracker,
-                        mtu, maxFrameLength, maxInboundPayloadSize,
+                        mtu, maxFrameLength, maxInboundPayloadSize, reassemblyBudget,
                         leaseEnabled && leases.sender instanceof TrackingLeaseSender
                                 ? rSocket -> interceptors.initResponderRequestInterceptor(rSocket, (TrackingLeaseSender) leases.sender)
                                 : interceptors::initResponderRequestInterceptor, responderOnAllClosedSink);
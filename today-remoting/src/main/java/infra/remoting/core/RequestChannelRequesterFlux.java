@@ -809,6 +809,7 @@ final class RequestChannelRequesterFlux extends Flux<Payload>
             this.inboundSubscriber,
             this.payloadDecoder,
             this.allocator,
+            this.requesterResponderSupport.getReassemblyBudget(),
             this.maxInboundPayloadSize,
             frame,
             hasFollows,
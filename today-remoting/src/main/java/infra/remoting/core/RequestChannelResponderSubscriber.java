@@ -117,6 +117,21 @@ final class RequestChannelResponderSubscriber extends Flux<Payload>
           ByteBuf firstFrame,
           RequesterResponderSupport requesterResponderSupport,
           Channel handler) {
+    this(streamId, firstRequestN, requesterResponderSupport.getReassemblyBudget().newFrames(requesterResponderSupport.getAllocator()),
+            firstFrame, requesterResponderSupport, handler);
+  }
+
+  /**
+   * Reassembles into the given frames, which hold the reservation of the first fragment when
+   * it was taken at admission.
+   */
+  RequestChannelResponderSubscriber(
+          int streamId,
+          long firstRequestN,
+          CompositeByteBuf frames,
+          ByteBuf firstFrame,
+          RequesterResponderSupport requesterResponderSupport,
+          Channel handler) {
     this.streamId = streamId;
     this.allocator = requesterResponderSupport.getAllocator();
     this.mtu = requesterResponderSupport.getMtu();
@@ -129,9 +144,7 @@ final class RequestChannelResponderSubscriber extends Flux<Payload>
     this.handler = handler;
     this.firstRequest = firstRequestN;
 
-    this.frames =
-            ReassemblyUtils.addFollowingFrame(
-                    allocator.compositeBuffer(), firstFrame, true, maxInboundPayloadSize);
+    this.frames = ReassemblyUtils.addFollowingFrame(frames, firstFrame, true, maxInboundPayloadSize);
     STATE.lazySet(this, REASSEMBLING_FLAG);
   }
 
@@ -640,62 +653,64 @@ final class RequestChannelResponderSubscriber extends Flux<Payload>
     }
 
     CompositeByteBuf frames = this.frames;
-    if (frames == null) {
-      frames =
-              ReassemblyUtils.addFollowingFrame(
-                      this.allocator.compositeBuffer(), frame, hasFollows, this.maxInboundPayloadSize);
-      this.frames = frames;
-
-      long previousState = markReassembling(STATE, this);
-      if (isTerminated(previousState)) {
-        this.frames = null;
-        frames.release();
-        return;
-      }
-    }
-    else {
-      try {
+    try {
+      if (frames == null) {
+        // the first fragment may already exceed the reassembly budget of the connection
         frames =
                 ReassemblyUtils.addFollowingFrame(
-                        frames, frame, hasFollows, this.maxInboundPayloadSize);
-      }
-      catch (IllegalStateException e) {
-        if (isTerminated(this.state)) {
-          return;
-        }
+                        this.requesterResponderSupport.getReassemblyBudget().newFrames(this.allocator),
+                        frame, hasFollows, this.maxInboundPayloadSize);
+        this.frames = frames;
 
-        long previousState = this.tryTerminate(true);
+        long previousState = markReassembling(STATE, this);
         if (isTerminated(previousState)) {
-          Operators.onErrorDropped(e, this.inboundSubscriber.currentContext());
-          return;
-        }
-        else if (isOutboundTerminated(previousState)) {
-          final RequestInterceptor interceptor = this.requestInterceptor;
-          if (interceptor != null) {
-            interceptor.onTerminate(this.streamId, FrameType.REQUEST_CHANNEL, e);
-          }
-
-          Operators.onErrorDropped(e, this.inboundSubscriber.currentContext());
+          this.frames = null;
+          frames.release();
           return;
         }
+      }
+      else {
+        frames =
+                ReassemblyUtils.addFollowingFrame(
+                        frames, frame, hasFollows, this.maxInboundPayloadSize);
+      }
+    }
+    catch (IllegalStateException e) {
+      if (isTerminated(this.state)) {
+        return;
+      }
 
-        this.outboundDone = true;
-        // send error to terminate interaction
-        final int streamId = this.streamId;
-        final ByteBuf errorFrame =
-                ErrorFrameCodec.encode(
-                        this.allocator,
-                        streamId,
-                        new CanceledException("Failed to reassemble payload. Cause: " + e.getMessage()));
-        this.connection.sendFrame(streamId, errorFrame);
-
+      long previousState = this.tryTerminate(true);
+      if (isTerminated(previousState)) {
+        Operators.onErrorDropped(e, this.inboundSubscriber.currentContext());
+        return;
+      }
+      else if (isOutboundTerminated(previousState)) {
         final RequestInterceptor interceptor = this.requestInterceptor;
         if (interceptor != null) {
-          interceptor.onTerminate(streamId, FrameType.REQUEST_CHANNEL, e);
+          interceptor.onTerminate(this.streamId, FrameType.REQUEST_CHANNEL, e);
         }
 
+        Operators.onErrorDropped(e, this.inboundSubscriber.currentContext());
         return;
       }
+
+      this.outboundDone = true;
+      // send error to terminate interaction
+      final int streamId = this.streamId;
+      final ByteBuf errorFrame =
+              ErrorFrameCodec.encode(
+                      this.allocator,
+                      streamId,
+                      new CanceledException("Failed to reassemble payload. Cause: " + e.getMessage()));
+      this.connection.sendFrame(streamId, errorFrame);
+
+      final RequestInterceptor interceptor = this.requestInterceptor;
+      if (interceptor != null) {
+        interceptor.onTerminate(streamId, FrameType.REQUEST_CHANNEL, e);
+      }
+
+      return;
     }
 
     if (!hasFollows) {
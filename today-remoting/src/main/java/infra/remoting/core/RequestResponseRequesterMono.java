@@ -383,6 +383,7 @@ final class RequestResponseRequesterMono extends Mono<Payload>
             this.actual,
             this.payloadDecoder,
             this.allocator,
+            this.requesterResponderSupport.getReassemblyBudget(),
             this.maxInboundPayloadSize,
             frame,
             hasFollows,
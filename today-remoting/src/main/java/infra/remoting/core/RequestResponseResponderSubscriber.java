@@ -77,6 +77,20 @@ final class RequestResponseResponderSubscriber
           ByteBuf firstFrame,
           RequesterResponderSupport requesterResponderSupport,
           Channel handler) {
+    this(streamId, requesterResponderSupport.getReassemblyBudget().newFrames(requesterResponderSupport.getAllocator()),
+            firstFrame, requesterResponderSupport, handler);
+  }
+
+  /**
+   * Reassembles into the given frames, which hold the reservation of the first fragment when
+   * it was taken at admission.
+   */
+  RequestResponseResponderSubscriber(
+          int streamId,
+          CompositeByteBuf frames,
+          ByteBuf firstFrame,
+          RequesterResponderSupport requesterResponderSupport,
+          Channel handler) {
     this.streamId = streamId;
     this.allocator = requesterResponderSupport.getAllocator();
     this.mtu = requesterResponderSupport.getMtu();
@@ -88,9 +102,7 @@ final class RequestResponseResponderSubscriber
     this.requestInterceptor = requesterResponderSupport.getRequestInterceptor();
     this.handler = handler;
 
-    this.frames =
-            ReassemblyUtils.addFollowingFrame(
-                    allocator.compositeBuffer(), firstFrame, true, maxInboundPayloadSize);
+    this.frames = ReassemblyUtils.addFollowingFrame(frames, firstFrame, true, maxInboundPayloadSize);
   }
 
   public RequestResponseResponderSubscriber(
@@ -434,6 +434,7 @@ final class RequestStreamRequesterFlux extends Flux<Payload>
             this.inboundSubscriber,
             this.payloadDecoder,
             this.allocator,
+            this.requesterResponderSupport.getReassemblyBudget(),
             this.maxInboundPayloadSize,
             frame,
             hasFollows,
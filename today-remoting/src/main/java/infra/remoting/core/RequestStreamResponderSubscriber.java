@@ -80,6 +80,21 @@ final class RequestStreamResponderSubscriber
           ByteBuf firstFrame,
           RequesterResponderSupport requesterResponderSupport,
           Channel handler) {
+    this(streamId, firstRequest, requesterResponderSupport.getReassemblyBudget().newFrames(requesterResponderSupport.getAllocator()),
+            firstFrame, requesterResponderSupport, handler);
+  }
+
+  /**
+   * Reassembles into the given frames, which hold the reservation of the first fragment when
+   * it was taken at admission.
+   */
+  RequestStreamResponderSubscriber(
+          int streamId,
+          long firstRequest,
+          CompositeByteBuf frames,
+          ByteBuf firstFrame,
+          RequesterResponderSupport requesterResponderSupport,
+          Channel handler) {
     this.streamId = streamId;
     this.firstRequest = firstRequest;
     this.allocator = requesterResponderSupport.getAllocator();
@@ -91,9 +106,7 @@ final class RequestStreamResponderSubscriber
     this.payloadDecoder = requesterResponderSupport.getPayloadDecoder();
     this.requestInterceptor = requesterResponderSupport.getRequestInterceptor();
     this.handler = handler;
-    this.frames =
-            ReassemblyUtils.addFollowingFrame(
-                    allocator.compositeBuffer(), firstFrame, true, maxInboundPayloadSize);
+    this.frames = ReassemblyUtils.addFollowingFrame(frames, firstFrame, true, maxInboundPayloadSize);
   }
 
   public RequestStreamResponderSubscriber(
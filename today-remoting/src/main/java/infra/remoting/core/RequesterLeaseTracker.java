@@ -101,14 +101,12 @@ final class RequesterLeaseTracker implements Availability {
       int availableRequests = lease.numberOfRequests();
 
       this.currentLease = lease;
-      if (!queue.isEmpty()) {
-        do {
-          final LeasePermitHandler handler = queue.poll();
-          if (handler.handlePermit()) {
-            availableRequests--;
-          }
+      // an empty lease permits nothing, the awaiting requests keep waiting
+      while (availableRequests > 0 && !queue.isEmpty()) {
+        final LeasePermitHandler handler = queue.poll();
+        if (handler.handlePermit()) {
+          availableRequests--;
         }
-        while (availableRequests > 0 && !queue.isEmpty());
       }
 
       this.availableRequests = availableRequests;
@@ -133,7 +131,8 @@ final class RequesterLeaseTracker implements Availability {
   @Override
   public synchronized double availability() {
     final Lease lease = this.currentLease;
-    return lease != null ? this.availableRequests / (double) lease.numberOfRequests() : 0.0d;
+    return lease != null && lease.numberOfRequests() > 0
+            ? this.availableRequests / (double) lease.numberOfRequests() : 0.0d;
   }
 
   static boolean isExpired(Lease currentLease) {
@@ -17,7 +17,6 @@
 
 package infra.remoting.core;
 
-import java.util.Objects;
 import java.util.function.Function;
 
 import infra.lang.Nullable;
@@ -26,8 +25,6 @@ import infra.remoting.DuplexConnection;
 import infra.remoting.frame.decoder.PayloadDecoder;
 import infra.remoting.plugins.RequestInterceptor;
 import io.netty.buffer.ByteBufAllocator;
-import io.netty.util.collection.IntObjectHashMap;
-import io.netty.util.collection.IntObjectMap;
 
 class RequesterResponderSupport {
 
@@ -37,6 +34,8 @@ class RequesterResponderSupport {
 
   protected final int maxInboundPayloadSize;
 
+  protected final ReassemblyBudget reassemblyBudget;
+
   protected final PayloadDecoder payloadDecoder;
 
   protected final ByteBufAllocator allocator;
@@ -49,16 +48,17 @@ class RequesterResponderSupport {
   @Nullable
   protected final StreamIdProvider streamIdProvider;
 
-  protected final IntObjectMap<FrameHandler> activeStreams;
+  protected final StreamTable<FrameHandler> activeStreams;
 
   public RequesterResponderSupport(int mtu, int maxFrameLength, int maxInboundPayloadSize,
-          PayloadDecoder payloadDecoder, DuplexConnection connection, @Nullable StreamIdProvider streamIdProvider,
+          ReassemblyBudget reassemblyBudget, PayloadDecoder payloadDecoder, DuplexConnection connection, @Nullable StreamIdProvider streamIdProvider,
           Function<Channel, ? extends RequestInterceptor> requestInterceptorFunction) {
 
-    this.activeStreams = new IntObjectHashMap<>();
+    this.activeStreams = new StreamTable<>();
     this.mtu = mtu;
     this.maxFrameLength = maxFrameLength;
     this.maxInboundPayloadSize = maxInboundPayloadSize;
+    this.reassemblyBudget = reassemblyBudget;
     this.payloadDecoder = payloadDecoder;
     this.allocator = connection.alloc();
     this.streamIdProvider = streamIdProvider;
@@ -78,6 +78,10 @@ class RequesterResponderSupport {
     return maxInboundPayloadSize;
   }
 
+  public ReassemblyBudget getReassemblyBudget() {
+    return reassemblyBudget;
+  }
+
   public PayloadDecoder getPayloadDecoder() {
     return payloadDecoder;
   }
@@ -109,9 +113,7 @@ class RequesterResponderSupport {
   public int getNextStreamId() {
     final StreamIdProvider streamIdProvider = this.streamIdProvider;
     if (streamIdProvider != null) {
-      synchronized(this) {
-        return streamIdProvider.nextStreamId(this.activeStreams);
-      }
+      return streamIdProvider.nextStreamId(this.activeStreams);
     }
     else {
       throw new UnsupportedOperationException("Responder can not issue id");
@@ -128,27 +130,22 @@ class RequesterResponderSupport {
   public int addAndGetNextStreamId(FrameHandler frameHandler) {
     final StreamIdProvider streamIdProvider = this.streamIdProvider;
     if (streamIdProvider != null) {
-      final IntObjectMap<FrameHandler> activeStreams = this.activeStreams;
-      synchronized(this) {
-        final int streamId = streamIdProvider.nextStreamId(activeStreams);
-        activeStreams.put(streamId, frameHandler);
-        return streamId;
+      final StreamTable<FrameHandler> activeStreams = this.activeStreams;
+      int streamId;
+      do {
+        streamId = streamIdProvider.nextStreamId(activeStreams);
       }
+      // taken meanwhile by a long-lived stream, after a wrap around
+      while (activeStreams.putIfAbsent(streamId, frameHandler) != null);
+      return streamId;
     }
     else {
       throw new UnsupportedOperationException("Responder can not issue id");
     }
   }
 
-  public synchronized boolean add(int streamId, FrameHandler frameHandler) {
-    final IntObjectMap<FrameHandler> activeStreams = this.activeStreams;
-    // copy of Map.putIfAbsent(key, value) without `streamId` boxing
-    final FrameHandler previousHandler = activeStreams.get(streamId);
-    if (previousHandler == null) {
-      activeStreams.put(streamId, frameHandler);
-      return true;
-    }
-    return false;
+  public boolean add(int streamId, FrameHandler frameHandler) {
+    return activeStreams.putIfAbsent(streamId, frameHandler) == null;
   }
 
   /**
@@ -158,7 +155,7 @@ class RequesterResponderSupport {
    * @return {@link FrameHandler} or {@code null}
    */
   @Nullable
-  public synchronized FrameHandler get(int streamId) {
+  public FrameHandler get(int streamId) {
     return this.activeStreams.get(streamId);
   }
 
@@ -170,14 +167,7 @@ class RequesterResponderSupport {
    * @return {@code true} if there is {@link FrameHandler} for the given {@code streamId} and the
    * instance equals to the passed one
    */
-  public synchronized boolean remove(int streamId, FrameHandler frameHandler) {
-    final IntObjectMap<FrameHandler> activeStreams = this.activeStreams;
-    // copy of Map.remove(key, value) without `streamId` boxing
-    final FrameHandler curValue = activeStreams.get(streamId);
-    if (!Objects.equals(curValue, frameHandler)) {
-      return false;
-    }
-    activeStreams.remove(streamId);
-    return true;
+  public boolean remove(int streamId, FrameHandler frameHandler) {
+    return activeStreams.remove(streamId, frameHandler);
   }
 }
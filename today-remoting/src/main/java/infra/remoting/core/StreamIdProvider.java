@@ -17,19 +17,22 @@
 
 package infra.remoting.core;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import io.netty.util.collection.IntObjectMap;
 
 /**
- * This API is not thread-safe and must be strictly used in serialized fashion
+ * Issues the stream ids of one side of a connection, safe to use from
+ * concurrent requesters.
  */
 final class StreamIdProvider {
 
   private static final int MASK = 0x7FFFFFFF;
 
-  private long streamId;
+  private final AtomicLong streamId;
 
   public StreamIdProvider(int streamId) {
-    this.streamId = streamId;
+    this.streamId = new AtomicLong(streamId);
   }
 
   public static StreamIdProvider forClient() {
@@ -42,7 +45,8 @@ final class StreamIdProvider {
 
   /**
    * This methods provides new stream id and ensures there is no intersections with already running
-   * streams. This methods is not thread-safe.
+   * streams. Concurrent callers get distinct ids, an id may be in use again by the time
+   * it is inserted after a wrap around, see {@link RequesterResponderSupport#addAndGetNextStreamId}.
    *
    * @param streamIds currently running streams store
    * @return next stream id
@@ -50,15 +54,14 @@ final class StreamIdProvider {
   public int nextStreamId(IntObjectMap<?> streamIds) {
     int streamId;
     do {
-      this.streamId += 2;
-      streamId = (int) (this.streamId & MASK);
+      streamId = (int) (this.streamId.addAndGet(2) & MASK);
     }
     while (streamId == 0 || streamIds.containsKey(streamId));
     return streamId;
   }
 
   public boolean isBeforeOrCurrent(int streamId) {
-    return this.streamId >= streamId && streamId > 0;
+    return this.streamId.get() >= streamId && streamId > 0;
   }
 
 }
@@ -0,0 +1,497 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.remoting.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import io.netty.util.collection.IntObjectMap;
+
+/**
+ * Active streams of a connection by stream id, without boxing the ids.
+ * <p>
+ * Open addressing with linear probing over atomic arrays: a slot is claimed
+ * by a CAS of its key, then its value is set by a CAS; a removal clears the
+ * value then marks the key removed. Slots are never reused before the table
+ * is rebuilt, so a lookup is a few plain volatile reads, without lock.
+ * <p>
+ * Once removed slots fill half of the table, it is rebuilt without lock: the
+ * values of its slots are frozen one by one by a CAS to a moved marker, and
+ * the live ones copied to a new table, published by a CAS once every slot is
+ * moved. An operation meeting a moved slot helps moving the others, then
+ * carries on in the new table: no operation takes a lock, one only waits for
+ * the copy of the slots another thread has just frozen.
+ * <p>
+ * A stream id is never inserted by two threads at once: the requester ids are
+ * issued by the {@link StreamIdProvider}, the responder ids are added by the
+ * connection.
+ *
+ * @param <V> handler type
+ */
+final class StreamTable<V> extends AbstractMap<Integer, V> implements IntObjectMap<V> {
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<StreamTable, Table> TABLE =
+          AtomicReferenceFieldUpdater.newUpdater(StreamTable.class, Table.class, "table");
+
+  private static final int EMPTY = 0;
+
+  private static final int REMOVED = -1;
+
+  /** value of a slot moved to the table replacing it */
+  private static final Object MOVED = new Object();
+
+  private static final int MIN_CAPACITY = 16;
+
+  private final LongAdder size = new LongAdder();
+
+  private volatile Table table;
+
+  StreamTable() {
+    this(MIN_CAPACITY);
+  }
+
+  StreamTable(int initialCapacity) {
+    this.table = new Table(tableSizeFor(initialCapacity));
+  }
+
+  @Nullable
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    Table table = this.table;
+    retry:
+    for (;;) {
+      int mask = table.mask;
+      int index = index(key, mask);
+      for (int probes = 0; probes <= mask; probes++) {
+        int k = table.keys.get(index);
+        if (k == key) {
+          Object value = table.values.get(index);
+          if (value == MOVED) {
+            table = help(table);
+            continue retry;
+          }
+          if (value != null) {
+            return (V) value;
+          }
+        }
+        else if (k == EMPTY) {
+          return null;
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+  }
+
+  @Override
+  public boolean containsKey(int key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Associates the value with the key if it has none.
+   *
+   * @return the value already associated with the key, {@code null} if inserted
+   */
+  @Nullable
+  public V putIfAbsent(int key, V value) {
+    return insert(key, value, true);
+  }
+
+  @Nullable
+  @Override
+  public V put(int key, V value) {
+    return insert(key, value, false);
+  }
+
+  @Nullable
+  @Override
+  public V remove(int key) {
+    return delete(key, null);
+  }
+
+  /**
+   * Removes the entry of the key if its value is the given one.
+   */
+  public boolean remove(int key, Object value) {
+    return value != null && delete(key, value) != null;
+  }
+
+  @Override
+  public int size() {
+    return (int) size.sum();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size.sum() == 0;
+  }
+
+  @Override
+  public void clear() {
+    Table table = this.table;
+    while (!table.transfer.compareAndSet(null, new Transfer(new Table(MIN_CAPACITY), false))) {
+      // rebuilt meanwhile, the table replacing it is cleared
+      table = help(table);
+    }
+    help(table);
+  }
+
+  @Nullable
+  @Override
+  public V get(Object key) {
+    return key instanceof Integer id ? get(id.intValue()) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof Integer id && containsKey(id.intValue());
+  }
+
+  @Nullable
+  @Override
+  public V put(Integer key, V value) {
+    return put(key.intValue(), value);
+  }
+
+  @Nullable
+  @Override
+  public V remove(Object key) {
+    return key instanceof Integer id ? remove(id.intValue()) : null;
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    return key instanceof Integer id && remove(id.intValue(), value);
+  }
+
+  /**
+   * Returns a snapshot of the values.
+   */
+  @Override
+  public Collection<V> values() {
+    ArrayList<V> values = new ArrayList<>();
+    for (PrimitiveEntry<V> entry : entries()) {
+      values.add(entry.value());
+    }
+    return values;
+  }
+
+  /**
+   * Returns a snapshot of the entries.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterable<PrimitiveEntry<V>> entries() {
+    Table table = this.table;
+    retry:
+    for (;;) {
+      ArrayList<PrimitiveEntry<V>> entries = new ArrayList<>();
+      for (int i = 0; i <= table.mask; i++) {
+        int key = table.keys.get(i);
+        if (key != EMPTY && key != REMOVED) {
+          Object value = table.values.get(i);
+          if (value == MOVED) {
+            table = help(table);
+            continue retry;
+          }
+          if (value != null) {
+            entries.add(new StreamEntry<>(key, (V) value));
+          }
+        }
+      }
+      return entries;
+    }
+  }
+
+  /**
+   * Returns a snapshot of the entries.
+   */
+  @Override
+  public Set<Map.Entry<Integer, V>> entrySet() {
+    List<Map.Entry<Integer, V>> entries = new ArrayList<>();
+    for (PrimitiveEntry<V> entry : entries()) {
+      entries.add(new SimpleImmutableEntry<>(entry.key(), entry.value()));
+    }
+    return new AbstractSet<>() {
+
+      @Override
+      public Iterator<Map.Entry<Integer, V>> iterator() {
+        return entries.iterator();
+      }
+
+      @Override
+      public int size() {
+        return entries.size();
+      }
+    };
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private V insert(int key, V value, boolean onlyIfAbsent) {
+    Assert.isTrue(key != EMPTY && key != REMOVED, "Invalid stream id");
+    Assert.notNull(value, "value is required");
+    Table table = this.table;
+    retry:
+    for (;;) {
+      int mask = table.mask;
+      int index = index(key, mask);
+      for (int probes = 0; probes <= mask; probes++) {
+        int k = table.keys.get(index);
+        if (k == EMPTY) {
+          if (table.used.get() >= table.threshold) {
+            break;
+          }
+          if (table.keys.compareAndSet(index, EMPTY, key)) {
+            table.used.incrementAndGet();
+            if (table.values.compareAndSet(index, null, value)) {
+              size.increment();
+              return null;
+            }
+            // frozen by a rebuild, the key is inserted in the new table
+            table = help(table);
+            continue retry;
+          }
+          k = table.keys.get(index);
+        }
+        if (k == key) {
+          for (;;) {
+            Object existing = table.values.get(index);
+            if (existing == MOVED) {
+              table = help(table);
+              continue retry;
+            }
+            if (existing == null) {
+              // removed meanwhile, the key is inserted further
+              break;
+            }
+            if (onlyIfAbsent || table.values.compareAndSet(index, existing, value)) {
+              return (V) existing;
+            }
+          }
+        }
+        index = (index + 1) & mask;
+      }
+      table = rebuild(table);
+    }
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  private V delete(int key, @Nullable Object expected) {
+    Table table = this.table;
+    retry:
+    for (;;) {
+      int mask = table.mask;
+      int index = index(key, mask);
+      for (int probes = 0; probes <= mask; probes++) {
+        int k = table.keys.get(index);
+        if (k == key) {
+          for (;;) {
+            Object value = table.values.get(index);
+            if (value == MOVED) {
+              table = help(table);
+              continue retry;
+            }
+            if (value == null) {
+              break;
+            }
+            if (expected != null && value != expected) {
+              return null;
+            }
+            if (table.values.compareAndSet(index, value, null)) {
+              table.keys.set(index, REMOVED);
+              size.decrement();
+              return (V) value;
+            }
+          }
+        }
+        else if (k == EMPTY) {
+          return null;
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Replace the table by a new one sized for its live entries, dropping the
+   * removed slots.
+   *
+   * @return the table replacing the given one
+   */
+  private Table rebuild(Table table) {
+    if (table.transfer.get() == null) {
+      int live = 0;
+      for (int i = 0; i <= table.mask; i++) {
+        Object value = table.values.get(i);
+        if (value != null && value != MOVED) {
+          live++;
+        }
+      }
+      Table rebuilt = new Table(tableSizeFor(Math.max(MIN_CAPACITY, live * 4)));
+      table.transfer.compareAndSet(null, new Transfer(rebuilt, true));
+    }
+    return help(table);
+  }
+
+  /**
+   * Move the slots of the table being replaced, along with the other threads
+   * doing so, then publish the table replacing it.
+   *
+   * @return the table replacing the given one
+   */
+  private Table help(Table table) {
+    Transfer transfer = table.transfer.get();
+    Table target = transfer.target;
+    int capacity = table.mask + 1;
+    for (int i = 0; i < capacity; i++) {
+      for (;;) {
+        Object value = table.values.get(i);
+        if (value == MOVED) {
+          break;
+        }
+        if (table.values.compareAndSet(i, value, MOVED)) {
+          if (value != null) {
+            if (transfer.copy) {
+              copy(target, table.keys.get(i), value);
+            }
+            else {
+              size.decrement();
+            }
+          }
+          transfer.moved.incrementAndGet();
+          break;
+        }
+      }
+    }
+    // the slots frozen by the other threads may not be copied yet
+    while (transfer.moved.get() < capacity) {
+      Thread.onSpinWait();
+    }
+    TABLE.compareAndSet(this, table, target);
+    return target;
+  }
+
+  /**
+   * Copy an entry to a table not published yet, its keys are distinct.
+   */
+  private static void copy(Table target, int key, Object value) {
+    int index = index(key, target.mask);
+    while (!target.keys.compareAndSet(index, EMPTY, key)) {
+      index = (index + 1) & target.mask;
+    }
+    target.values.set(index, value);
+    target.used.incrementAndGet();
+  }
+
+  private static int index(int key, int mask) {
+    // stream ids of one side step by 2, spread them over all the slots
+    int hash = key * 0x9E3779B9;
+    return (hash ^ hash >>> 16) & mask;
+  }
+
+  private static int tableSizeFor(int capacity) {
+    return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+  }
+
+  private static final class Table {
+
+    final int mask;
+
+    /** claimed slots, removed ones included */
+    final AtomicInteger used = new AtomicInteger();
+
+    final int threshold;
+
+    final AtomicIntegerArray keys;
+
+    final AtomicReferenceArray<Object> values;
+
+    /** set once the table is being replaced */
+    final AtomicReference<Transfer> transfer = new AtomicReference<>();
+
+    Table(int capacity) {
+      this.mask = capacity - 1;
+      this.threshold = capacity >>> 1;
+      this.keys = new AtomicIntegerArray(capacity);
+      this.values = new AtomicReferenceArray<>(capacity);
+    }
+  }
+
+  private static final class Transfer {
+
+    final Table target;
+
+    /** copy the live entries, or drop them when clearing */
+    final boolean copy;
+
+    /** slots moved, the target is complete once all of them are */
+    final AtomicInteger moved = new AtomicInteger();
+
+    Transfer(Table target, boolean copy) {
+      this.target = target;
+      this.copy = copy;
+    }
+  }
+
+  private static final class StreamEntry<V> implements PrimitiveEntry<V> {
+
+    private final int key;
+
+    private final V value;
+
+    StreamEntry(int key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public int key() {
+      return key;
+    }
+
+    @Override
+    public V value() {
+      return value;
+    }
+
+    @Override
+    public void setValue(V value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
@@ -30,7 +30,14 @@ public class FrameLengthCodec {
 
   private FrameLengthCodec() { }
 
-  private static void encodeLength(final ByteBuf byteBuf, final int length) {
+  /**
+   * Writes the 3 byte length prefix of a frame into the given buffer.
+   *
+   * @param byteBuf the buffer to write to
+   * @param length the length of the frame that follows the prefix
+   * @throws IllegalArgumentException if the length does not fit into 24 bits
+   */
+  public static void encodeLength(final ByteBuf byteBuf, final int length) {
     if ((length & ~FRAME_LENGTH_MASK) != 0) {
       throw new IllegalArgumentException("Length is larger than 24 bits");
     }
@@ -67,13 +67,15 @@ class DefaultPayloadDecoder implements PayloadDecoder {
       default -> throw new IllegalArgumentException("unsupported frame type: " + type);
     };
 
+    // copied straight out of the frame, nioBuffer() would allocate a view, or
+    // merge the components of a reassembled frame, first
     ByteBuffer data = ByteBuffer.allocate(d.readableBytes());
-    data.put(d.nioBuffer());
+    d.getBytes(d.readerIndex(), data);
     data.flip();
 
     if (m != null) {
       ByteBuffer metadata = ByteBuffer.allocate(m.readableBytes());
-      metadata.put(m.nioBuffer());
+      m.getBytes(m.readerIndex(), metadata);
       metadata.flip();
 
       return DefaultPayload.create(data, metadata);
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.lease;
+
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.remoting.frame.FrameType;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Issues leases from a server wide concurrency limit estimated by a
+ * {@link GradientConcurrencyLimit}.
+ * <p>
+ * Each connection gets its own {@link TrackingLeaseSender}, which samples the
+ * latency of its request-response interactions and counts the requests of the
+ * requester. Every lease interval the capacity of the next interval, derived
+ * from the limit and the latency, is split across the connections in
+ * proportion to their demand, so requesters back off before the server
+ * is overloaded.
+ * <pre>{@code
+ * AdaptiveLeaseController leases = new AdaptiveLeaseController();
+ * RemotingServer.create(acceptor)
+ *     .lease(spec -> spec.sender(leases.newSender()))
+ *     .bind(transport);
+ * }</pre>
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 17:35
+ */
+public class AdaptiveLeaseController implements Disposable {
+
+  private final GradientConcurrencyLimit limit;
+
+  private final Duration leaseInterval;
+
+  private final Scheduler scheduler;
+
+  private final AtomicInteger inflight = new AtomicInteger();
+
+  private final CopyOnWriteArrayList<Sender> senders = new CopyOnWriteArrayList<>();
+
+  @Nullable
+  private Disposable ticker;
+
+  private volatile boolean disposed;
+
+  private volatile boolean revoked;
+
+  public AdaptiveLeaseController() {
+    this(new GradientConcurrencyLimit(), Duration.ofMillis(500), Schedulers.parallel());
+  }
+
+  /**
+   * @param limit the concurrency limit estimator
+   * @param leaseInterval the interval between leases, also the time to live of a lease
+   * @param scheduler the scheduler issuing the leases
+   */
+  public AdaptiveLeaseController(GradientConcurrencyLimit limit, Duration leaseInterval, Scheduler scheduler) {
+    Assert.notNull(limit, "GradientConcurrencyLimit is required");
+    Assert.notNull(scheduler, "Scheduler is required");
+    Assert.isTrue(leaseInterval != null && !leaseInterval.isNegative() && !leaseInterval.isZero(),
+            "leaseInterval must be positive");
+    this.limit = limit;
+    this.leaseInterval = leaseInterval;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Create the lease sender of a new connection.
+   */
+  public TrackingLeaseSender newSender() {
+    Assert.state(!disposed, "AdaptiveLeaseController has been disposed");
+    Sender sender = new Sender();
+    senders.add(sender);
+    if (revoked) {
+      sender.revoke();
+      return sender;
+    }
+    // a fair share until the next interval
+    sender.issue(Lease.create(leaseInterval, (int) Math.max(1, Math.min(Integer.MAX_VALUE, capacity() / senders.size()))));
+    synchronized(this) {
+      if (ticker == null && !disposed && !revoked) {
+        ticker = Flux.interval(leaseInterval, scheduler)
+                .subscribe(tick -> allocate());
+      }
+    }
+    return sender;
+  }
+
+  /**
+   * Stop issuing leases and send an empty lease to every connection, so the
+   * requesters stop sending new requests, for example before the server
+   * shuts down.
+   * <p>
+   * The empty lease is the last one a connection gets, a concurrent
+   * allocation cannot issue a lease after it.
+   */
+  public void revoke() {
+    Disposable ticker;
+    synchronized(this) {
+      revoked = true;
+      ticker = this.ticker;
+      this.ticker = null;
+    }
+    if (ticker != null) {
+      ticker.dispose();
+    }
+    for (Sender sender : senders) {
+      sender.revoke();
+    }
+  }
+
+  public boolean isRevoked() {
+    return revoked;
+  }
+
+  /**
+   * Split the capacity of the next lease interval across the connections.
+   */
+  void allocate() {
+    Sender[] senders = this.senders.toArray(new Sender[0]);
+    if (senders.length == 0 || revoked) {
+      return;
+    }
+    long capacity = capacity();
+
+    long totalDemand = 0;
+    long[] demands = new long[senders.length];
+    for (int i = 0; i < senders.length; i++) {
+      demands[i] = senders[i].drainDemand();
+      totalDemand += demands[i];
+    }
+
+    for (int i = 0; i < senders.length; i++) {
+      long share;
+      if (totalDemand == 0) {
+        share = capacity / senders.length;
+      }
+      else {
+        share = capacity * demands[i] / totalDemand;
+      }
+      // idle requesters keep a request to probe with
+      senders[i].issue(Lease.create(leaseInterval, (int) Math.max(1, Math.min(Integer.MAX_VALUE, share))));
+    }
+  }
+
+  /**
+   * Requests the server can serve in a lease interval, following
+   * Little's law: {@code limit * interval / latency}.
+   */
+  long capacity() {
+    int limit = this.limit.getLimit();
+    long rtt = this.limit.getRttNanos();
+    if (rtt <= 0) {
+      return limit;
+    }
+    return Math.max(limit, (long) ((double) limit * leaseInterval.toNanos() / rtt));
+  }
+
+  public GradientConcurrencyLimit getLimit() {
+    return limit;
+  }
+
+  /**
+   * Returns the number of requests in flight across the connections.
+   */
+  public int getInflight() {
+    return inflight.get();
+  }
+
+  @Override
+  public void dispose() {
+    Disposable ticker;
+    synchronized(this) {
+      disposed = true;
+      ticker = this.ticker;
+      this.ticker = null;
+    }
+    if (ticker != null) {
+      ticker.dispose();
+    }
+    for (Sender sender : senders) {
+      sender.dispose();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+
+  final class Sender implements TrackingLeaseSender {
+
+    private final Sinks.Many<Lease> leases = Sinks.many().replay().latest();
+
+    private final AtomicInteger demand = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    /** start time of the sampled requests, guarded by this */
+    private final IntObjectMap<Long> startTimes = new IntObjectHashMap<>();
+
+    /** serializes the emissions to the leases sink */
+    private final Object emitLock = new Object();
+
+    /** guarded by emitLock */
+    private boolean revoked;
+
+    private volatile boolean disposed;
+
+    @Override
+    public Flux<Lease> send() {
+      return leases.asFlux();
+    }
+
+    /**
+     * Issue the given lease, unless the leases of this connection have
+     * been revoked.
+     */
+    void issue(Lease lease) {
+      synchronized(emitLock) {
+        if (!revoked) {
+          // never FAIL_NON_SERIALIZED under the lock, fails only once terminated
+          leases.tryEmitNext(lease);
+        }
+      }
+    }
+
+    /**
+     * Issue an empty lease, the last one of this connection.
+     */
+    void revoke() {
+      synchronized(emitLock) {
+        if (!revoked) {
+          revoked = true;
+          leases.tryEmitNext(Lease.empty());
+        }
+      }
+    }
+
+    long drainDemand() {
+      return demand.getAndSet(0);
+    }
+
+    @Override
+    public void onStart(int streamId, FrameType requestType, @Nullable ByteBuf metadata) {
+      demand.incrementAndGet();
+      active.incrementAndGet();
+      inflight.incrementAndGet();
+      if (requestType == FrameType.REQUEST_RESPONSE) {
+        long now = System.nanoTime();
+        synchronized(this) {
+          startTimes.put(streamId, now);
+        }
+      }
+    }
+
+    @Override
+    public void onTerminate(int streamId, FrameType requestType, @Nullable Throwable t) {
+      int current = complete();
+      if (requestType == FrameType.REQUEST_RESPONSE) {
+        Long start;
+        synchronized(this) {
+          start = startTimes.remove(streamId);
+        }
+        if (start != null && t == null) {
+          limit.onSample(System.nanoTime() - start, current);
+        }
+      }
+    }
+
+    @Override
+    public void onCancel(int streamId, FrameType requestType) {
+      complete();
+      if (requestType == FrameType.REQUEST_RESPONSE) {
+        synchronized(this) {
+          startTimes.remove(streamId);
+        }
+      }
+    }
+
+    @Override
+    public void onReject(Throwable rejectionReason, FrameType requestType, @Nullable ByteBuf metadata) {
+      // requested beyond the lease, still a demand
+      demand.incrementAndGet();
+    }
+
+    @Override
+    public void dispose() {
+      if (!disposed) {
+        disposed = true;
+        senders.remove(this);
+        // streams never terminated on this connection
+        inflight.addAndGet(-active.getAndSet(0));
+        synchronized(this) {
+          startTimes.clear();
+        }
+        synchronized(emitLock) {
+          leases.tryEmitComplete();
+        }
+      }
+    }
+
+    /**
+     * @return the in flight requests of the server before this one completed
+     */
+    private int complete() {
+      for (; ; ) {
+        int current = active.get();
+        if (current <= 0) {
+          // already released by dispose
+          return inflight.get();
+        }
+        if (active.compareAndSet(current, current - 1)) {
+          return inflight.getAndDecrement();
+        }
+      }
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return disposed;
+    }
+
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.lease;
+
+import infra.lang.Assert;
+
+/**
+ * Estimates the concurrency a server can sustain from the observed
+ * latency, in the style of the gradient algorithms.
+ * <p>
+ * A long term latency average tracks the latency without queueing, a short
+ * term average tracks the current latency. Their ratio is the gradient: when
+ * the current latency grows over the long term one, requests are queueing,
+ * and the limit shrinks proportionally; otherwise the limit grows by a queue
+ * allowance of {@code sqrt(limit)}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 17:10
+ */
+public class GradientConcurrencyLimit {
+
+  private static final double SHORT_WINDOW_FACTOR = 2d / (10 + 1);
+
+  private static final double LONG_WINDOW_FACTOR = 2d / (600 + 1);
+
+  /**
+   * samples averaged before the long term latency switches to
+   * exponential averaging
+   */
+  private static final int WARMUP_SAMPLES = 10;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private final double smoothing;
+
+  private final double rttTolerance;
+
+  private volatile double estimatedLimit;
+
+  // guarded by this
+
+  private double shortRtt;
+
+  private double longRtt;
+
+  private long samples;
+
+  public GradientConcurrencyLimit() {
+    this(20, 1, 1000);
+  }
+
+  public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+    this(initialLimit, minLimit, maxLimit, 0.2, 1.5);
+  }
+
+  /**
+   * @param initialLimit the limit before any sample
+   * @param minLimit the lower bound of the limit
+   * @param maxLimit the upper bound of the limit
+   * @param smoothing weight of a new estimation, in {@code (0, 1]}
+   * @param rttTolerance latency increase tolerated before the limit shrinks,
+   * {@code 1.5} tolerates a 50% increase
+   */
+  public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double rttTolerance) {
+    Assert.isTrue(minLimit > 0, "minLimit must be greater than 0");
+    Assert.isTrue(maxLimit >= minLimit, "maxLimit must not be less than minLimit");
+    Assert.isTrue(initialLimit >= minLimit && initialLimit <= maxLimit, "initialLimit must be within [minLimit, maxLimit]");
+    Assert.isTrue(smoothing > 0 && smoothing <= 1, "smoothing must be within (0, 1]");
+    Assert.isTrue(rttTolerance >= 1, "rttTolerance must not be less than 1");
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.smoothing = smoothing;
+    this.rttTolerance = rttTolerance;
+    this.estimatedLimit = initialLimit;
+  }
+
+  /**
+   * Record the latency of a completed request.
+   *
+   * @param rttNanos the latency in nanoseconds
+   * @param inflight the number of requests in flight when the request completed
+   */
+  public synchronized void onSample(long rttNanos, int inflight) {
+    if (rttNanos <= 0) {
+      return;
+    }
+    long samples = ++this.samples;
+    if (samples == 1) {
+      shortRtt = rttNanos;
+      longRtt = rttNanos;
+    }
+    else {
+      shortRtt += (rttNanos - shortRtt) * SHORT_WINDOW_FACTOR;
+      if (samples <= WARMUP_SAMPLES) {
+        longRtt += (rttNanos - longRtt) / samples;
+      }
+      else {
+        longRtt += (rttNanos - longRtt) * LONG_WINDOW_FACTOR;
+      }
+    }
+
+    // latency dropped a lot, the long term average lags behind, let it recover faster
+    if (longRtt / shortRtt > 2) {
+      longRtt *= 0.95;
+    }
+
+    double limit = estimatedLimit;
+    // application limited, the latency tells nothing about the capacity
+    if (inflight < limit / 2) {
+      return;
+    }
+
+    double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+    double newLimit = limit * gradient + Math.sqrt(limit);
+    newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+  }
+
+  /**
+   * Returns the current concurrency limit.
+   */
+  public int getLimit() {
+    return (int) estimatedLimit;
+  }
+
+  /**
+   * Returns the short term average latency in nanoseconds, {@code 0} if no
+   * request has been sampled yet.
+   */
+  public synchronized long getRttNanos() {
+    return (long) shortRtt;
+  }
+
+  @Override
+  public String toString() {
+    return "GradientConcurrencyLimit{limit=" + getLimit() + ", rtt=" + getRttNanos() + "ns}";
+  }
+
+}
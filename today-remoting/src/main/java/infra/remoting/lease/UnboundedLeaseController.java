@@ -0,0 +1,218 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.lease;
+
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Issues unbounded leases that can be revoked.
+ * <p>
+ * The requests are not rationed, the leases only give the server a way to
+ * tell its requesters to stop sending, for example before it shuts down.
+ * A lease allows {@link Integer#MAX_VALUE} requests and is renewed at a fixed
+ * interval, so a busy connection never uses it up.
+ * <pre>{@code
+ * UnboundedLeaseController leases = new UnboundedLeaseController();
+ * RemotingServer.create(acceptor)
+ *     .lease(spec -> spec.sender(leases.newSender()))
+ *     .bind(transport);
+ * }</pre>
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 22:20
+ * @see AdaptiveLeaseController
+ */
+public class UnboundedLeaseController implements Disposable {
+
+  private final Duration renewInterval;
+
+  private final Scheduler scheduler;
+
+  private final CopyOnWriteArrayList<Sender> senders = new CopyOnWriteArrayList<>();
+
+  /** guarded by this */
+  @Nullable
+  private Disposable ticker;
+
+  private volatile boolean disposed;
+
+  private volatile boolean revoked;
+
+  public UnboundedLeaseController() {
+    this(Duration.ofSeconds(30), Schedulers.parallel());
+  }
+
+  /**
+   * @param renewInterval the interval the leases are renewed at
+   * @param scheduler the scheduler renewing the leases
+   */
+  public UnboundedLeaseController(Duration renewInterval, Scheduler scheduler) {
+    Assert.notNull(scheduler, "Scheduler is required");
+    Assert.isTrue(renewInterval != null && !renewInterval.isNegative() && !renewInterval.isZero(),
+            "renewInterval must be positive");
+    this.renewInterval = renewInterval;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Create the lease sender of a new connection.
+   */
+  public LeaseSender newSender() {
+    Assert.state(!disposed, "UnboundedLeaseController has been disposed");
+    Sender sender = new Sender();
+    senders.add(sender);
+    if (revoked) {
+      sender.revoke();
+      return sender;
+    }
+    sender.issue(lease());
+    synchronized(this) {
+      if (ticker == null && !disposed && !revoked) {
+        ticker = Flux.interval(renewInterval, scheduler)
+                .subscribe(tick -> renew());
+      }
+    }
+    return sender;
+  }
+
+  /**
+   * Stop renewing the leases and send an empty lease to every connection,
+   * so the requesters stop sending new requests.
+   * <p>
+   * The empty lease is the last one a connection gets, a concurrent
+   * renewal cannot issue a lease after it.
+   */
+  public void revoke() {
+    Disposable ticker;
+    synchronized(this) {
+      revoked = true;
+      ticker = this.ticker;
+      this.ticker = null;
+    }
+    if (ticker != null) {
+      ticker.dispose();
+    }
+    for (Sender sender : senders) {
+      sender.revoke();
+    }
+  }
+
+  public boolean isRevoked() {
+    return revoked;
+  }
+
+  /**
+   * Returns the number of connections holding a lease sender.
+   */
+  public int getConnectionCount() {
+    return senders.size();
+  }
+
+  void renew() {
+    if (!revoked) {
+      Lease lease = lease();
+      for (Sender sender : senders) {
+        sender.issue(lease);
+      }
+    }
+  }
+
+  /**
+   * Lives two renewal intervals, a late renewal does not let it expire.
+   */
+  private Lease lease() {
+    return Lease.create(renewInterval.multipliedBy(2), Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void dispose() {
+    Disposable ticker;
+    synchronized(this) {
+      disposed = true;
+      ticker = this.ticker;
+      this.ticker = null;
+    }
+    if (ticker != null) {
+      ticker.dispose();
+    }
+    for (Sender sender : senders) {
+      sender.complete();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+
+  final class Sender implements LeaseSender {
+
+    private final Sinks.Many<Lease> leases = Sinks.many().replay().latest();
+
+    /** serializes the emissions to the leases sink */
+    private final Object emitLock = new Object();
+
+    /** guarded by emitLock */
+    private boolean revoked;
+
+    @Override
+    public Flux<Lease> send() {
+      // the connection cancels when it closes
+      return leases.asFlux()
+              .doFinally(signal -> senders.remove(this));
+    }
+
+    void issue(Lease lease) {
+      synchronized(emitLock) {
+        if (!revoked) {
+          leases.tryEmitNext(lease);
+        }
+      }
+    }
+
+    /**
+     * Issue an empty lease, the last one of this connection.
+     */
+    void revoke() {
+      synchronized(emitLock) {
+        if (!revoked) {
+          revoked = true;
+          leases.tryEmitNext(Lease.empty());
+        }
+      }
+    }
+
+    void complete() {
+      senders.remove(this);
+      synchronized(emitLock) {
+        leases.tryEmitComplete();
+      }
+    }
+
+  }
+
+}
@@ -17,16 +17,384 @@
 
 package infra.remoting.protocol;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import infra.lang.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
 /**
+ * Frame metadata: entries of an integer key and a typed value.
+ * <p>
+ * Binary layout, one entry after another:
+ * <pre>
+ * entry     = tag value
+ * tag       = varint(key &lt;&lt; 3 | type)
+ * VARINT    = varint(zigzag(value))
+ * BYTES     = varint(length) bytes
+ * STRING    = varint(length) UTF-8 bytes
+ * TIMESTAMP = 8 bytes, epoch millis
+ * </pre>
+ * A {@code Metadata} is a flyweight over the bytes of a frame, nothing is decoded
+ * up front and reading a value allocates nothing but the value itself. Keys are
+ * looked up by a scan, if a key appears more than once the first entry wins.
+ * Instances are written with a {@link Builder} straight into the outgoing buffer.
+ *
  * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
  * @since 1.0 2025/7/29 11:41
  */
 public class Metadata {
 
-  public static final Metadata EMPTY = new Metadata();
+  public static final Metadata EMPTY = new Metadata(Unpooled.EMPTY_BUFFER);
+
+  /** largest key, the tag of an entry fits into an int varint */
+  public static final int MAX_KEY = Integer.MAX_VALUE >>> 3;
+
+  private static final int TYPE_BITS = 3;
 
+  private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+  private final ByteBuf content;
+
+  private Metadata(ByteBuf content) {
+    this.content = content;
+  }
+
+  /**
+   * Returns the value of the given key, a {@link Long}, {@link ByteBuf},
+   * {@link String} or {@link Instant} depending on its {@link Type}.
+   *
+   * @param key the key
+   * @return the value, or {@code null} if there is no entry for the key
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
   public <T> T get(int key) {
-    return null;
+    int offset = find(key);
+    if (offset < 0) {
+      return null;
+    }
+    return (T) switch (typeAt(offset)) {
+      case VARINT -> readLong(offset);
+      case BYTES -> readBytes(offset);
+      case STRING -> readString(offset);
+      case TIMESTAMP -> Instant.ofEpochMilli(content.getLong(valueIndex(offset)));
+    };
+  }
+
+  /**
+   * Returns the type of the value of the given key.
+   *
+   * @param key the key
+   * @return the type, or {@code null} if there is no entry for the key
+   */
+  @Nullable
+  public Type getType(int key) {
+    int offset = find(key);
+    return offset < 0 ? null : typeAt(offset);
+  }
+
+  public boolean contains(int key) {
+    return find(key) >= 0;
+  }
+
+  /**
+   * Returns the {@link Type#VARINT} value of the given key.
+   */
+  public long getLong(int key, long defaultValue) {
+    int offset = find(key);
+    if (offset < 0) {
+      return defaultValue;
+    }
+    checkType(key, offset, Type.VARINT);
+    return readLong(offset);
+  }
+
+  /**
+   * Returns the {@link Type#TIMESTAMP} value of the given key, as epoch millis.
+   */
+  public long getTimestamp(int key, long defaultValue) {
+    int offset = find(key);
+    if (offset < 0) {
+      return defaultValue;
+    }
+    checkType(key, offset, Type.TIMESTAMP);
+    return content.getLong(valueIndex(offset));
+  }
+
+  /**
+   * Returns the {@link Type#STRING} value of the given key.
+   */
+  @Nullable
+  public String getString(int key) {
+    int offset = find(key);
+    if (offset < 0) {
+      return null;
+    }
+    checkType(key, offset, Type.STRING);
+    return readString(offset);
+  }
+
+  /**
+   * Returns the {@link Type#BYTES} value of the given key, a slice of the
+   * metadata that is valid as long as the frame is.
+   */
+  @Nullable
+  public ByteBuf getBytes(int key) {
+    int offset = find(key);
+    if (offset < 0) {
+      return null;
+    }
+    checkType(key, offset, Type.BYTES);
+    return readBytes(offset);
+  }
+
+  public boolean isEmpty() {
+    return !content.isReadable();
+  }
+
+  /**
+   * Returns the encoded entries, not a copy.
+   */
+  public ByteBuf content() {
+    return content;
+  }
+
+  @Override
+  public String toString() {
+    return "Metadata{" + ByteBufUtil.hexDump(content) + "}";
+  }
+
+  // flyweight
+
+  /**
+   * Returns the index of the entry of the given key, or -1. The entries up to
+   * the one found are checked to lie within the metadata, so reading its value
+   * does not need to.
+   */
+  private int find(int key) {
+    final ByteBuf content = this.content;
+    final int end = content.writerIndex();
+    int offset = content.readerIndex();
+    while (offset < end) {
+      long tag = readVarint(content, offset, end);
+      int next = skipValue(content, offset + varintSize(tag), (int) tag & TYPE_MASK, end);
+      if ((int) tag >>> TYPE_BITS == key) {
+        return offset;
+      }
+      offset = next;
+    }
+    return -1;
+  }
+
+  private Type typeAt(int offset) {
+    return Type.forId((int) readVarint(content, offset, content.writerIndex()) & TYPE_MASK);
+  }
+
+  private int valueIndex(int offset) {
+    return offset + varintSize(readVarint(content, offset, content.writerIndex()));
+  }
+
+  private long readLong(int offset) {
+    long zigzag = readVarint(content, valueIndex(offset), content.writerIndex());
+    return (zigzag >>> 1) ^ -(zigzag & 1);
+  }
+
+  private ByteBuf readBytes(int offset) {
+    int index = valueIndex(offset);
+    long length = readVarint(content, index, content.writerIndex());
+    return content.slice(index + varintSize(length), (int) length);
+  }
+
+  private String readString(int offset) {
+    int index = valueIndex(offset);
+    long length = readVarint(content, index, content.writerIndex());
+    return content.toString(index + varintSize(length), (int) length, StandardCharsets.UTF_8);
+  }
+
+  private void checkType(int key, int offset, Type expected) {
+    Type type = typeAt(offset);
+    if (type != expected) {
+      throw new IllegalStateException("Metadata entry %d is %s, not %s".formatted(key, type, expected));
+    }
+  }
+
+  private static int skipValue(ByteBuf content, int index, int type, int end) {
+    int next = switch (Type.forId(type)) {
+      case VARINT -> index + varintSize(readVarint(content, index, end));
+      case TIMESTAMP -> index + Long.BYTES;
+      case BYTES, STRING -> {
+        long length = readVarint(content, index, end);
+        int start = index + varintSize(length);
+        if (length < 0 || length > end - start) {
+          throw new ProtocolParsingException("Metadata entry exceeds the metadata length");
+        }
+        yield start + (int) length;
+      }
+    };
+    if (next > end) {
+      throw new ProtocolParsingException("Metadata entry exceeds the metadata length");
+    }
+    return next;
+  }
+
+  static long readVarint(ByteBuf content, int index, int end) {
+    long result = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      if (index >= end) {
+        throw new ProtocolParsingException("Truncated metadata varint");
+      }
+      byte b = content.getByte(index++);
+      result |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return result;
+      }
+    }
+    throw new ProtocolParsingException("Malformed metadata varint");
+  }
+
+  static void writeVarint(ByteBuf out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  static int varintSize(long value) {
+    int size = 1;
+    while ((value & ~0x7FL) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  // factory
+
+  /**
+   * Wraps encoded entries without decoding them, the metadata is a view of
+   * the given buffer.
+   *
+   * @param content the encoded entries
+   * @return the metadata
+   */
+  public static Metadata wrap(ByteBuf content) {
+    return content.isReadable() ? new Metadata(content) : EMPTY;
+  }
+
+  /**
+   * Returns a builder that writes entries at the writer index of the given buffer.
+   *
+   * @param out the outgoing buffer
+   * @return a new builder
+   */
+  public static Builder builder(ByteBuf out) {
+    return new Builder(out);
+  }
+
+  /**
+   * Value types.
+   */
+  public enum Type {
+
+    /** a signed long, zigzag varint encoded */
+    VARINT(0),
+
+    /** length prefixed bytes */
+    BYTES(1),
+
+    /** length prefixed UTF-8 */
+    STRING(2),
+
+    /** epoch millis, 8 bytes */
+    TIMESTAMP(3);
+
+    private static final Type[] TYPES = values();
+
+    final int id;
+
+    Type(int id) {
+      this.id = id;
+    }
+
+    static Type forId(int id) {
+      if (id >= TYPES.length) {
+        throw new ProtocolParsingException("Unknown metadata type " + id);
+      }
+      return TYPES[id];
+    }
+  }
+
+  /**
+   * Writes entries straight into an outgoing buffer.
+   */
+  public static final class Builder {
+
+    private final ByteBuf out;
+
+    private final int start;
+
+    Builder(ByteBuf out) {
+      this.out = out;
+      this.start = out.writerIndex();
+    }
+
+    public Builder putLong(int key, long value) {
+      writeTag(key, Type.VARINT);
+      writeVarint(out, (value << 1) ^ (value >> 63));
+      return this;
+    }
+
+    public Builder putTimestamp(int key, long epochMillis) {
+      writeTag(key, Type.TIMESTAMP);
+      out.writeLong(epochMillis);
+      return this;
+    }
+
+    public Builder putTimestamp(int key, Instant timestamp) {
+      return putTimestamp(key, timestamp.toEpochMilli());
+    }
+
+    public Builder putString(int key, CharSequence value) {
+      writeTag(key, Type.STRING);
+      writeVarint(out, ByteBufUtil.utf8Bytes(value));
+      out.writeCharSequence(value, StandardCharsets.UTF_8);
+      return this;
+    }
+
+    /**
+     * Copies the readable bytes of the given value, its reader index is left unchanged.
+     */
+    public Builder putBytes(int key, ByteBuf value) {
+      writeTag(key, Type.BYTES);
+      writeVarint(out, value.readableBytes());
+      out.writeBytes(value, value.readerIndex(), value.readableBytes());
+      return this;
+    }
+
+    public Builder putBytes(int key, byte[] value) {
+      writeTag(key, Type.BYTES);
+      writeVarint(out, value.length);
+      out.writeBytes(value);
+      return this;
+    }
+
+    private void writeTag(int key, Type type) {
+      if (key < 0 || key > MAX_KEY) {
+        throw new IllegalArgumentException("Metadata key must be between 0 and " + MAX_KEY);
+      }
+      writeVarint(out, (long) key << TYPE_BITS | type.id);
+    }
+
+    /**
+     * Returns the metadata written so far, a view of the outgoing buffer.
+     */
+    public Metadata build() {
+      return wrap(out.slice(start, out.writerIndex() - start));
+    }
   }
 
 }
@@ -24,6 +24,7 @@ import infra.remoting.frame.FrameType;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 
 /**
@@ -54,11 +55,25 @@ public class ProtocolFrame {
 
   private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
 
+  private static final int METADATA_LENGTH_SIZE = 3;
+
+  private static final int METADATA_LENGTH_MASK = 0xFFFFFF;
+
   public final int streamId;
 
   public final FrameType frameType;
 
-  public final Metadata metadata;
+  /** metadata of a built frame, or of a parsed frame once accessed */
+  @Nullable
+  private Metadata metadata;
+
+  /** frame the metadata of a parsed frame is read from, on first access */
+  @Nullable
+  private final ByteBuf metadataSource;
+
+  private final int metadataIndex;
+
+  private final int metadataLength;
 
   @Nullable
   public final ByteBuf data;
@@ -77,6 +92,9 @@ public class ProtocolFrame {
     this.metadata = metadata;
     this.data = data;
     this.typeAndFlags = 0;
+    this.metadataSource = null;
+    this.metadataIndex = 0;
+    this.metadataLength = 0;
   }
 
   public ProtocolFrame(int streamId, FrameType frameType, int flags,
@@ -87,6 +105,21 @@ public class ProtocolFrame {
     this.typeAndFlags = typeAndFlags;
     this.metadata = metadata;
     this.data = data;
+    this.metadataSource = null;
+    this.metadataIndex = 0;
+    this.metadataLength = 0;
+  }
+
+  private ProtocolFrame(int streamId, FrameType frameType, int flags, int typeAndFlags,
+          @Nullable ByteBuf metadataSource, int metadataIndex, int metadataLength, ByteBuf data) {
+    this.streamId = streamId;
+    this.frameType = frameType;
+    this.flags = flags;
+    this.typeAndFlags = typeAndFlags;
+    this.data = data;
+    this.metadataSource = metadataSource;
+    this.metadataIndex = metadataIndex;
+    this.metadataLength = metadataLength;
   }
 
   public int getStreamId() {
@@ -119,7 +152,10 @@ public class ProtocolFrame {
   }
 
   public boolean hasMetadata() {
-    return metadata != Metadata.EMPTY;
+    if (metadataSource != null) {
+      return metadataLength > 0;
+    }
+    return metadata != null && !metadata.isEmpty();
   }
 
   public boolean hasFollows() {
@@ -130,30 +166,135 @@ public class ProtocolFrame {
     return hasFlag(flags, FLAGS_C);
   }
 
+  /**
+   * Returns the metadata, decoded lazily: a parsed frame wraps its metadata bytes
+   * on first access, frames that never read metadata pay nothing for it.
+   */
   public Metadata getMetadata() {
+    Metadata metadata = this.metadata;
+    if (metadata == null) {
+      if (metadataSource != null) {
+        metadata = Metadata.wrap(metadataSource.slice(metadataIndex, metadataLength));
+      }
+      else {
+        metadata = Metadata.EMPTY;
+      }
+      this.metadata = metadata;
+    }
     return metadata;
   }
 
   public int getLength() {
+    int length = HEADER_SIZE;
+    if (hasMetadata()) {
+      length += METADATA_LENGTH_SIZE + getMetadata().content().readableBytes();
+    }
     if (data != null) {
-      return HEADER_SIZE + data.readableBytes();
+      length += data.readableBytes();
     }
-    return HEADER_SIZE;
+    return length;
   }
 
+  /**
+   * Releases the data and the metadata, the data of a parsed frame holds
+   * the reference of its metadata too.
+   */
   public void release() {
     if (data != null) {
       data.release();
     }
+    if (metadataSource == null && metadata != null && !metadata.isEmpty()) {
+      metadata.content().release();
+    }
   }
 
+  /**
+   * Serializes this frame, the header followed by the length prefixed metadata, if any,
+   * and the data.
+   * <p>
+   * When the frame has no metadata and the data buffer reserves enough headroom in front
+   * of its reader index, see {@link #allocateData(ByteBufAllocator, int)}, the header is
+   * written in place and the data buffer itself is returned. Otherwise, the header, the
+   * metadata and the data are combined as components of a {@link CompositeByteBuf},
+   * nothing is copied.
+   * <p>
+   * The returned buffer takes over the references of {@link #data} and of the
+   * metadata, they are released if the frame cannot be serialized.
+   *
+   * @param allocator allocator for the header when it can't be written in place
+   * @return the serialized frame
+   */
   public ByteBuf serialize(ByteBufAllocator allocator) {
+    boolean hasMetadata = hasMetadata();
+    int flags = hasMetadata ? this.flags | FLAGS_M : this.flags & ~FLAGS_M;
     if (!frameType.canHaveMetadata() && ((flags & FLAGS_M) == FLAGS_M)) {
+      release();
       throw new IllegalStateException("bad value for metadata flag");
     }
+    if (hasMetadata && (getMetadata().content().readableBytes() & ~METADATA_LENGTH_MASK) != 0) {
+      release();
+      throw new IllegalStateException("Metadata length is larger than 24 bits");
+    }
 
     short typeAndFlags = (short) (frameType.getEncodedType() << FRAME_TYPE_SHIFT | (short) flags);
-    return allocator.buffer().writeInt(streamId).writeShort(typeAndFlags);
+    ByteBuf data = this.data;
+    boolean hasData = data != null && data.isReadable();
+    if (data != null && !hasData) {
+      data.release();
+    }
+
+    if (hasMetadata) {
+      ByteBuf metadata = getMetadata().content();
+      int length = metadata.readableBytes();
+      ByteBuf header = allocator.buffer(HEADER_SIZE + METADATA_LENGTH_SIZE, HEADER_SIZE + METADATA_LENGTH_SIZE)
+              .writeInt(streamId)
+              .writeShort(typeAndFlags)
+              .writeMedium(length);
+      // the metadata of a parsed frame is a slice of the frame its data holds
+      if (metadataSource != null) {
+        metadata = metadata.retainedSlice();
+      }
+      CompositeByteBuf frame = allocator.compositeBuffer(3).addComponents(true, header, metadata);
+      return hasData ? frame.addComponent(true, data) : frame;
+    }
+
+    if (!hasData) {
+      return allocator.buffer(HEADER_SIZE, HEADER_SIZE).writeInt(streamId).writeShort(typeAndFlags);
+    }
+
+    if (hasHeadroom(data)) {
+      int headerIndex = data.readerIndex() - HEADER_SIZE;
+      return data.setInt(headerIndex, streamId)
+              .setShort(headerIndex + Integer.BYTES, typeAndFlags)
+              .readerIndex(headerIndex);
+    }
+
+    ByteBuf header = allocator.buffer(HEADER_SIZE, HEADER_SIZE).writeInt(streamId).writeShort(typeAndFlags);
+    return allocator.compositeBuffer(2).addComponents(true, header, data);
+  }
+
+  /**
+   * The bytes in front of the reader index can be overwritten only if nobody else
+   * sees them: a writable root buffer that is not shared.
+   */
+  private static boolean hasHeadroom(ByteBuf data) {
+    return data.readerIndex() >= HEADER_SIZE
+            && data.refCnt() == 1
+            && data.unwrap() == null
+            && !data.isReadOnly();
+  }
+
+  /**
+   * Allocates a buffer for frame data that reserves headroom for the frame header, so
+   * {@link #serialize(ByteBufAllocator)} writes the header in place.
+   *
+   * @param allocator the allocator
+   * @param initialCapacity the initial capacity of the data
+   * @return an empty buffer, ready for writing the data
+   */
+  public static ByteBuf allocateData(ByteBufAllocator allocator, int initialCapacity) {
+    ByteBuf buffer = allocator.buffer(HEADER_SIZE + initialCapacity);
+    return buffer.setIndex(HEADER_SIZE, HEADER_SIZE);
   }
 
   @Override
@@ -189,19 +330,27 @@ public class ProtocolFrame {
    * @throws ProtocolParsingException protocol parsing errors
    */
   public static ProtocolFrame parse(ByteBuf frame) throws ProtocolParsingException {
-    int streamId = frame.readUnsignedShort();
+    int streamId = frame.readInt();
     int typeAndFlags = frame.readShort() & 0xFFFF;
     FrameType nativeFrameType = FrameType.forEncodedType(typeAndFlags >> FRAME_TYPE_SHIFT);
     final int flags = typeAndFlags & FRAME_FLAGS_MASK;
 
-    boolean hasMetadata = hasFlag(flags, FLAGS_M);
-    if (hasMetadata) {
-      int length = decodeLength(frame);
-      ByteBuf metadataBuf = frame.readSlice(length);
-
+    ByteBuf metadataSource = null;
+    int metadataIndex = 0;
+    int metadataLength = 0;
+    if (hasFlag(flags, FLAGS_M)) {
+      metadataLength = decodeLength(frame);
+      if (metadataLength > frame.readableBytes()) {
+        throw new ProtocolParsingException("Metadata length exceeds the frame length");
+      }
+      // decoded on first access, see getMetadata()
+      metadataSource = frame;
+      metadataIndex = frame.readerIndex();
+      frame.skipBytes(metadataLength);
     }
     ByteBuf data = frame.readableBytes() > 0 ? frame.readSlice(frame.readableBytes()) : Unpooled.EMPTY_BUFFER;
-    return new ProtocolFrame(streamId, nativeFrameType, flags, typeAndFlags, Metadata.EMPTY, data);
+    return new ProtocolFrame(streamId, nativeFrameType, flags, typeAndFlags,
+            metadataSource, metadataIndex, metadataLength, data);
   }
 
   private static int decodeLength(ByteBuf byteBuf) {
@@ -32,7 +32,25 @@ import io.netty.util.IllegalReferenceCountException;
 import io.netty.util.Recycler;
 import io.netty.util.Recycler.Handle;
 
+/**
+ * {@link Payload} over reference counted {@link ByteBuf}s. Instances are pooled per thread
+ * and go back to the pool once their reference count drops to zero, so a payload must not
+ * be touched after its last {@link #release()}.
+ * <p>
+ * Setting the system property {@value #RECYCLE_CHECK} to {@code true} turns on a debug mode
+ * for finding use-after-recycle bugs: released payloads are never handed out again and
+ * remember where they were released, any later access fails with an
+ * {@link IllegalReferenceCountException} caused by the release site. Without it, a stale
+ * reference may silently read another request's buffers. The property is read once, when
+ * this class is initialized.
+ */
 public final class ByteBufPayload extends AbstractReferenceCounted implements Payload {
+
+  public static final String RECYCLE_CHECK = "infra.remoting.payload.recycleCheck";
+
+  /** constant, so the check is folded away when disabled */
+  static final boolean recycleCheck = Boolean.getBoolean(RECYCLE_CHECK);
+
   private static final Recycler<ByteBufPayload> RECYCLER =
           new Recycler<ByteBufPayload>() {
             protected ByteBufPayload newObject(Handle<ByteBufPayload> handle) {
@@ -44,6 +62,10 @@ public final class ByteBufPayload extends AbstractReferenceCounted implements Pa
   private ByteBuf data;
   private ByteBuf metadata;
 
+  /** release site, recorded in recycle check mode only */
+  @Nullable
+  private Throwable releasedAt;
+
   private ByteBufPayload(final Handle<ByteBufPayload> handle) {
     this.handle = handle;
   }
@@ -198,7 +220,13 @@ public final class ByteBufPayload extends AbstractReferenceCounted implements Pa
       metadata.release();
       metadata = null;
     }
-    handle.recycle(this);
+    if (recycleCheck) {
+      // quarantined, never reused, so a stale reference can't see the next request
+      releasedAt = new Throwable("Payload released here");
+    }
+    else {
+      handle.recycle(this);
+    }
   }
 
   /**
@@ -207,7 +235,12 @@ public final class ByteBufPayload extends AbstractReferenceCounted implements Pa
    */
   void ensureAccessible() {
     if (!isAccessible()) {
-      throw new IllegalReferenceCountException(0);
+      IllegalReferenceCountException e = new IllegalReferenceCountException(0);
+      Throwable releasedAt = this.releasedAt;
+      if (releasedAt != null) {
+        e.initCause(releasedAt);
+      }
+      throw e;
     }
   }
 
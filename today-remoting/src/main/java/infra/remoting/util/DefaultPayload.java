@@ -30,6 +30,9 @@ import io.netty.buffer.Unpooled;
 /**
  * An implementation of {@link Payload}. This implementation is <b>not</b> thread-safe, and hence
  * any method can not be invoked concurrently.
+ * <p>
+ * Instances are not pooled: without a reference count, nothing tells when one is no longer
+ * used. The pooled payload is {@link ByteBufPayload}, see the zero copy payload decoder.
  */
 public final class DefaultPayload implements Payload {
   public static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocateDirect(0);
@@ -32,6 +32,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.stream.Stream;
 
@@ -42,6 +43,7 @@ import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCounted;
 import infra.remoting.Payload;
 import infra.remoting.Channel;
+import infra.remoting.Closeable;
 import infra.remoting.buffer.LeaksTrackingByteBufAllocator;
 import infra.remoting.exceptions.Exceptions;
 import infra.remoting.exceptions.RejectedException;
@@ -119,6 +121,7 @@ class ChannelLeaseTests {
                     0,
                     FRAME_LENGTH_MASK,
                     Integer.MAX_VALUE,
+                    ReassemblyBudget.UNLIMITED,
                     0,
                     0,
                     null,
@@ -192,6 +195,7 @@ class ChannelLeaseTests {
                     0,
                     FRAME_LENGTH_MASK,
                     Integer.MAX_VALUE,
+                    ReassemblyBudget.UNLIMITED,
                     __ -> null,
                     otherClosedSink);
   }
@@ -249,6 +253,68 @@ class ChannelLeaseTests {
     }
   }
 
+  @Test
+  void serverLeasesOnlyConnectionsHonoringLease() {
+    TestServerTransport transport = new TestServerTransport();
+    Closeable server = RemotingServer.create()
+            .acceptor((setup, sendingSocket) -> Mono.just(new Channel() { }))
+            .lease(spec -> spec.sender(() -> Flux.just(Lease.unbounded())))
+            .bind(transport)
+            .block();
+
+    TestDuplexConnection withoutLease = transport.connect();
+    withoutLease.addToReceivedBuffer(setupFrame(false));
+    Assertions.assertThat(withoutLease.getSent()).isEmpty();
+
+    TestDuplexConnection withLease = transport.connect();
+    withLease.addToReceivedBuffer(setupFrame(true));
+    Assertions.assertThat(withLease.getSent())
+            .hasSize(1)
+            .first()
+            .matches(bb -> FrameHeaderCodec.frameType(bb) == LEASE)
+            .matches(ReferenceCounted::release);
+
+    withoutLease.dispose();
+    withLease.dispose();
+    server.dispose();
+    transport.alloc().assertHasNoLeaks();
+  }
+
+  @Test
+  void emptyLeaseKeepsAwaitingRequestsWaiting() {
+    RequesterLeaseTracker tracker = new RequesterLeaseTracker(TAG, 1);
+    AtomicInteger permits = new AtomicInteger();
+    tracker.issue(new LeasePermitHandler() {
+      @Override
+      public boolean handlePermit() {
+        permits.incrementAndGet();
+        return true;
+      }
+
+      @Override
+      public void handlePermitError(Throwable t) {
+        throw new AssertionError(t);
+      }
+    });
+
+    ByteBuf empty = leaseFrame(0, 0, Unpooled.EMPTY_BUFFER);
+    tracker.handleLeaseFrame(empty);
+    Assertions.assertThat(permits).hasValue(0);
+    Assertions.assertThat(tracker.availability()).isZero();
+
+    ByteBuf lease = leaseFrame(5_000, 1, Unpooled.EMPTY_BUFFER);
+    tracker.handleLeaseFrame(lease);
+    Assertions.assertThat(permits).hasValue(1);
+
+    empty.release();
+    lease.release();
+  }
+
+  private static ByteBuf setupFrame(boolean lease) {
+    return SetupFrameCodec.encode(ByteBufAllocator.DEFAULT, lease, 1000, 30_000,
+            "application/octet-stream", "application/octet-stream", DefaultPayload.create(DefaultPayload.EMPTY_BUFFER));
+  }
+
   @ParameterizedTest
   @MethodSource("interactions")
   void requesterMissingLeaseRequestsAreRejected(
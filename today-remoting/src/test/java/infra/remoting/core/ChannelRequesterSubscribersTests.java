@@ -88,6 +88,7 @@ class ChannelRequesterSubscribersTests {
                     0,
                     FRAME_LENGTH_MASK,
                     Integer.MAX_VALUE,
+                    ReassemblyBudget.UNLIMITED,
                     0,
                     0,
                     null,
@@ -1495,6 +1495,7 @@ public class ChannelRequesterTests {
               0,
               maxFrameLength,
               maxInboundPayloadSize,
+              ReassemblyBudget.UNLIMITED,
               Integer.MAX_VALUE,
               Integer.MAX_VALUE,
               null,
@@ -1233,6 +1233,7 @@ public class ChannelResponderTests {
               0,
               maxFrameLength,
               maxInboundPayloadSize,
+              ReassemblyBudget.UNLIMITED,
               __ -> requestInterceptor,
               onCloseSink);
     }
@@ -580,6 +580,7 @@ public class ChannelTests {
                       0,
                       FRAME_LENGTH_MASK,
                       Integer.MAX_VALUE,
+                      ReassemblyBudget.UNLIMITED,
                       __ -> null,
                       otherClosedSink);
 
@@ -591,6 +592,7 @@ public class ChannelTests {
                       0,
                       FRAME_LENGTH_MASK,
                       Integer.MAX_VALUE,
+                      ReassemblyBudget.UNLIMITED,
                       0,
                       0,
                       null,
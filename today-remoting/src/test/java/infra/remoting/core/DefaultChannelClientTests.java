@@ -763,6 +763,7 @@ public class DefaultChannelClientTests {
               0,
               maxFrameLength,
               maxInboundPayloadSize,
+              ReassemblyBudget.UNLIMITED,
               Integer.MAX_VALUE,
               Integer.MAX_VALUE,
               null,
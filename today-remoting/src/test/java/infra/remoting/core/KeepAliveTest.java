@@ -82,6 +82,7 @@ public class KeepAliveTest {
                     0,
                     FRAME_LENGTH_MASK,
                     Integer.MAX_VALUE,
+                    ReassemblyBudget.UNLIMITED,
                     tickPeriod,
                     timeout,
                     new DefaultKeepAliveHandler(),
@@ -112,6 +113,7 @@ public class KeepAliveTest {
                     0,
                     FRAME_LENGTH_MASK,
                     Integer.MAX_VALUE,
+                    ReassemblyBudget.UNLIMITED,
                     tickPeriod,
                     timeout,
                     new ResumableKeepAliveHandler(
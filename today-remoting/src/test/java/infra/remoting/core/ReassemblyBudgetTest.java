@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.core;
+
+import org.junit.jupiter.api.Test;
+
+import infra.remoting.frame.PayloadFrameCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+public class ReassemblyBudgetTest {
+
+  final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  @Test
+  public void fragmentsAreAccountedUntilReleased() {
+    ReassemblyBudget budget = new ReassemblyBudget(1024);
+
+    ByteBuf first = fragment(true, 256);
+    ByteBuf following = fragment(true, 256);
+    CompositeByteBuf frames = ReassemblyUtils.addFollowingFrame(
+            budget.newFrames(allocator), first, true, Integer.MAX_VALUE);
+    ReassemblyUtils.addFollowingFrame(frames, following, true, Integer.MAX_VALUE);
+
+    // headers of following fragments are skipped
+    assertThat(budget.getHeldBytes()).isEqualTo(6 + 256 + 256);
+    assertThat(budget.hasRoom(1024)).isFalse();
+    assertThat(budget.hasRoom(256)).isTrue();
+
+    frames.release();
+    first.release();
+    following.release();
+    assertThat(budget.getHeldBytes()).isZero();
+  }
+
+  @Test
+  public void budgetIsSharedByAllStreamsOfConnection() {
+    ReassemblyBudget budget = new ReassemblyBudget(1024);
+
+    ByteBuf firstFragment = fragment(true, 600);
+    CompositeByteBuf first = ReassemblyUtils.addFollowingFrame(
+            budget.newFrames(allocator), firstFragment, true, Integer.MAX_VALUE);
+    CompositeByteBuf second = budget.newFrames(allocator);
+
+    ByteBuf fragment = fragment(true, 600);
+    assertThatIllegalStateException()
+            .isThrownBy(() -> ReassemblyUtils.addFollowingFrame(second, fragment, true, Integer.MAX_VALUE))
+            .withMessageContaining("1024");
+    assertThat(fragment.refCnt()).isOne();
+
+    first.release();
+    firstFragment.release();
+    ReassemblyUtils.addFollowingFrame(second, fragment, true, Integer.MAX_VALUE);
+    assertThat(budget.getHeldBytes()).isEqualTo(606);
+
+    second.release();
+    fragment.release();
+    assertThat(budget.getHeldBytes()).isZero();
+  }
+
+  @Test
+  public void fragmentsAreNeverConsolidated() {
+    CompositeByteBuf frames = ReassemblyBudget.UNLIMITED.newFrames(allocator);
+    ByteBuf first = fragment(true, 64);
+    ReassemblyUtils.addFollowingFrame(frames, first, true, Integer.MAX_VALUE);
+    first.release();
+    for (int i = 0; i < 99; i++) {
+      ByteBuf fragment = fragment(true, 64);
+      ReassemblyUtils.addFollowingFrame(frames, fragment, true, Integer.MAX_VALUE);
+      fragment.release();
+    }
+
+    assertThat(frames.numComponents()).isEqualTo(100);
+    assertThat(frames.readableBytes()).isEqualTo(6 + 100 * 64);
+    assertThat(ReassemblyBudget.UNLIMITED.getHeldBytes()).isZero();
+    frames.release();
+  }
+
+  @Test
+  public void admissionReservesFirstFragmentOnce() {
+    ReassemblyBudget budget = new ReassemblyBudget(1024);
+
+    ByteBuf first = fragment(true, 256);
+    ReassemblyBudget.Frames frames = budget.admit(allocator, first);
+    assertThat(frames).isNotNull();
+    assertThat(budget.getHeldBytes()).isEqualTo(6 + 256);
+
+    // the reservation taken at admission covers the first fragment
+    ReassemblyUtils.addFollowingFrame(frames, first, true, Integer.MAX_VALUE);
+    assertThat(budget.getHeldBytes()).isEqualTo(6 + 256);
+
+    ByteBuf following = fragment(true, 256);
+    ReassemblyUtils.addFollowingFrame(frames, following, true, Integer.MAX_VALUE);
+    assertThat(budget.getHeldBytes()).isEqualTo(6 + 256 + 256);
+
+    frames.release();
+    first.release();
+    following.release();
+    assertThat(budget.getHeldBytes()).isZero();
+  }
+
+  @Test
+  public void admissionDoesNotOvercommitBudget() {
+    ReassemblyBudget budget = new ReassemblyBudget(1024);
+
+    ByteBuf first = fragment(true, 600);
+    ByteBuf second = fragment(true, 600);
+    ReassemblyBudget.Frames admitted = budget.admit(allocator, first);
+    assertThat(admitted).isNotNull();
+    // both fitted on their own, only one of them is admitted
+    assertThat(budget.admit(allocator, second)).isNull();
+    assertThat(budget.getHeldBytes()).isEqualTo(606);
+
+    // a reservation never used for reassembly is given back on release
+    admitted.release();
+    assertThat(budget.getHeldBytes()).isZero();
+
+    first.release();
+    second.release();
+  }
+
+  private ByteBuf fragment(boolean follows, int size) {
+    return PayloadFrameCodec.encode(allocator, 1, follows, false, true, null,
+            Unpooled.wrappedBuffer(new byte[size]));
+  }
+
+}
@@ -84,6 +84,7 @@ public class SetupRejectionTest {
                     0,
                     FRAME_LENGTH_MASK,
                     Integer.MAX_VALUE,
+                    ReassemblyBudget.UNLIMITED,
                     0,
                     0,
                     null,
@@ -126,6 +127,7 @@ public class SetupRejectionTest {
                     0,
                     FRAME_LENGTH_MASK,
                     Integer.MAX_VALUE,
+                    ReassemblyBudget.UNLIMITED,
                     0,
                     0,
                     null,
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.remoting.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamTableTest {
+
+  @Test
+  public void putGetRemove() {
+    StreamTable<String> table = new StreamTable<>();
+    assertThat(table.putIfAbsent(1, "a")).isNull();
+    assertThat(table.putIfAbsent(1, "b")).isEqualTo("a");
+    assertThat(table.get(1)).isEqualTo("a");
+    assertThat(table.containsKey(1)).isTrue();
+    assertThat(table.containsKey(3)).isFalse();
+
+    assertThat(table.remove(1, "b")).isFalse();
+    assertThat(table.remove(1, "a")).isTrue();
+    assertThat(table.get(1)).isNull();
+    assertThat(table).isEmpty();
+
+    assertThat(table.put(3, "c")).isNull();
+    assertThat(table.put(3, "d")).isEqualTo("c");
+    assertThat(table).containsEntry(3, "d").hasSize(1);
+    assertThat(table.remove(3)).isEqualTo("d");
+    assertThat(table).isEmpty();
+  }
+
+  @Test
+  public void behavesLikeAMap() {
+    StreamTable<Object> table = new StreamTable<>();
+    HashMap<Integer, Object> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 200_000; i++) {
+      int key = 1 + random.nextInt(2000);
+      Object value = random.nextInt(3);
+      switch (random.nextInt(4)) {
+        case 0 -> assertThat(table.putIfAbsent(key, value)).isEqualTo(expected.putIfAbsent(key, value));
+        case 1 -> assertThat(table.remove(key)).isEqualTo(expected.remove(key));
+        case 2 -> assertThat(table.put(key, value)).isEqualTo(expected.put(key, value));
+        default -> assertThat(table.get(key)).isEqualTo(expected.get(key));
+      }
+    }
+    assertThat(table).hasSize(expected.size()).containsAllEntriesOf(expected);
+    assertThat(table.values()).containsExactlyInAnyOrderElementsOf(expected.values());
+  }
+
+  @Test
+  public void removedSlotsAreReclaimed() {
+    StreamTable<Object> table = new StreamTable<>();
+    Object handler = new Object();
+    for (int streamId = 1; streamId < 1_000_000; streamId += 2) {
+      table.put(streamId, handler);
+      assertThat(table.remove(streamId, handler)).isTrue();
+    }
+    assertThat(table).isEmpty();
+  }
+
+  @Test
+  public void concurrentRequesters() throws Exception {
+    StreamTable<Object> table = new StreamTable<>();
+    StreamIdProvider streamIdProvider = StreamIdProvider.forClient();
+    AtomicInteger failures = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          Object handler = new Object();
+          ArrayDeque<Integer> inFlight = new ArrayDeque<>();
+          for (int j = 0; j < 50_000; j++) {
+            int streamId;
+            do {
+              streamId = streamIdProvider.nextStreamId(table);
+            }
+            while (table.putIfAbsent(streamId, handler) != null);
+            inFlight.add(streamId);
+            if (table.get(streamId) != handler) {
+              failures.incrementAndGet();
+            }
+            if (inFlight.size() > 16 && !table.remove(inFlight.poll(), handler)) {
+              failures.incrementAndGet();
+            }
+          }
+          for (int streamId : inFlight) {
+            if (!table.remove(streamId, handler)) {
+              failures.incrementAndGet();
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    assertThat(failures).hasValue(0);
+    assertThat(table).isEmpty();
+  }
+
+  @Test
+  public void lookupsFollowConcurrentRebuilds() throws Exception {
+    StreamTable<Object> table = new StreamTable<>();
+    Object stable = new Object();
+    for (int streamId = 2; streamId <= 64; streamId += 2) {
+      table.put(streamId, stable);
+    }
+    AtomicInteger failures = new AtomicInteger();
+    AtomicBoolean running = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(6);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        int first = 1 + i * 2;
+        // churning the odd ids rebuilds the table over and over
+        futures.add(executor.submit(() -> {
+          Object handler = new Object();
+          for (int streamId = first; streamId < 400_000; streamId += 8) {
+            if (table.putIfAbsent(streamId, handler) != null || !table.remove(streamId, handler)) {
+              failures.incrementAndGet();
+            }
+          }
+        }));
+      }
+      List<Future<?>> readers = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        readers.add(executor.submit(() -> {
+          while (running.get()) {
+            for (int streamId = 2; streamId <= 64; streamId += 2) {
+              if (table.get(streamId) != stable) {
+                failures.incrementAndGet();
+              }
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      running.set(false);
+      for (Future<?> reader : readers) {
+        reader.get();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    assertThat(failures).hasValue(0);
+    assertThat(table).hasSize(32);
+    assertThat(table.values()).containsOnly(stable);
+  }
+
+  @Test
+  public void clearDropsEntries() {
+    StreamTable<Object> table = new StreamTable<>();
+    for (int streamId = 1; streamId < 1000; streamId += 2) {
+      table.put(streamId, "stream-" + streamId);
+    }
+    table.clear();
+    assertThat(table).isEmpty();
+    assertThat(table.get(1)).isNull();
+    assertThat(table.putIfAbsent(1, "a")).isNull();
+    assertThat(table).containsOnly(Map.entry(1, "a"));
+  }
+
+}
@@ -48,7 +48,7 @@ final class TestRequesterResponderSupport extends RequesterResponderSupport impl
 
   TestRequesterResponderSupport(@Nullable Throwable error, StreamIdProvider streamIdProvider, DuplexConnection connection,
           int mtu, int maxFrameLength, int maxInboundPayloadSize, @Nullable RequestInterceptor requestInterceptor) {
-    super(mtu, maxFrameLength, maxInboundPayloadSize, PayloadDecoder.ZERO_COPY, connection, streamIdProvider, (__) -> requestInterceptor);
+    super(mtu, maxFrameLength, maxInboundPayloadSize, ReassemblyBudget.UNLIMITED, PayloadDecoder.ZERO_COPY, connection, streamIdProvider, (__) -> requestInterceptor);
     this.error = error;
   }
 
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.lease;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import infra.remoting.frame.FrameType;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 18:20
+ */
+class AdaptiveLeaseControllerTests {
+
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+  private final AdaptiveLeaseController controller = new AdaptiveLeaseController(
+          new GradientConcurrencyLimit(10, 1, 100), Duration.ofSeconds(1), scheduler);
+
+  @Test
+  void leasesSplitInProportionToDemand() {
+    TrackingLeaseSender busy = controller.newSender();
+    TrackingLeaseSender idle = controller.newSender();
+
+    for (int i = 0; i < 30; i++) {
+      busy.onStart(i * 2 + 1, FrameType.REQUEST_FNF, null);
+    }
+    for (int i = 0; i < 10; i++) {
+      idle.onStart(i * 2 + 1, FrameType.REQUEST_FNF, null);
+    }
+    assertThat(controller.getInflight()).isEqualTo(40);
+    controller.allocate();
+
+    StepVerifier.create(busy.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isEqualTo(7))
+            .verifyComplete();
+    StepVerifier.create(idle.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isEqualTo(2))
+            .verifyComplete();
+  }
+
+  @Test
+  void newConnectionGetsFairShare() {
+    TrackingLeaseSender first = controller.newSender();
+    StepVerifier.create(first.send().take(1))
+            .assertNext(lease -> {
+              assertThat(lease.numberOfRequests()).isEqualTo(10);
+              assertThat(lease.timeToLiveInMillis()).isEqualTo(1000);
+            })
+            .verifyComplete();
+
+    TrackingLeaseSender second = controller.newSender();
+    StepVerifier.create(second.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isEqualTo(5))
+            .verifyComplete();
+  }
+
+  @Test
+  void idleConnectionsShareCapacity() {
+    TrackingLeaseSender first = controller.newSender();
+    TrackingLeaseSender second = controller.newSender();
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+
+    StepVerifier.create(first.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isEqualTo(5))
+            .verifyComplete();
+    StepVerifier.create(second.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isEqualTo(5))
+            .verifyComplete();
+    controller.dispose();
+  }
+
+  @Test
+  void capacityFollowsLatency() {
+    TrackingLeaseSender sender = controller.newSender();
+    sender.onStart(1, FrameType.REQUEST_RESPONSE, null);
+    sender.onTerminate(1, FrameType.REQUEST_RESPONSE, null);
+
+    assertThat(controller.getInflight()).isZero();
+    assertThat(controller.getLimit().getRttNanos()).isPositive();
+    long rtt = controller.getLimit().getRttNanos();
+    long expected = Math.max(10, 10 * TimeUnit.SECONDS.toNanos(1) / rtt);
+    assertThat(controller.capacity()).isEqualTo(expected);
+  }
+
+  @Test
+  void disposedSenderReleasesInflight() {
+    TrackingLeaseSender sender = controller.newSender();
+    sender.onStart(1, FrameType.REQUEST_RESPONSE, null);
+    sender.onStart(3, FrameType.REQUEST_STREAM, null);
+    assertThat(controller.getInflight()).isEqualTo(2);
+
+    sender.dispose();
+    assertThat(controller.getInflight()).isZero();
+    sender.onCancel(3, FrameType.REQUEST_STREAM);
+    assertThat(controller.getInflight()).isZero();
+
+    StepVerifier.create(sender.send())
+            .thenConsumeWhile(lease -> true)
+            .verifyComplete();
+    controller.dispose();
+  }
+
+  @Test
+  void revokeIssuesEmptyLeases() {
+    TrackingLeaseSender sender = controller.newSender();
+    controller.revoke();
+    assertThat(controller.isRevoked()).isTrue();
+
+    StepVerifier.create(sender.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isZero())
+            .verifyComplete();
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(5));
+    StepVerifier.create(sender.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isZero())
+            .verifyComplete();
+
+    StepVerifier.create(controller.newSender().send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isZero())
+            .verifyComplete();
+    controller.dispose();
+  }
+
+  @Test
+  void allocationAfterRevokeIsDropped() {
+    TrackingLeaseSender sender = controller.newSender();
+    controller.revoke();
+    // an allocation already running when revoked
+    controller.allocate();
+
+    StepVerifier.create(sender.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isZero())
+            .verifyComplete();
+    controller.dispose();
+  }
+
+  @Test
+  void terminationsAfterDisposeDoNotUnderflow() {
+    TrackingLeaseSender disposed = controller.newSender();
+    disposed.onStart(1, FrameType.REQUEST_FNF, null);
+    disposed.dispose();
+    disposed.onTerminate(1, FrameType.REQUEST_FNF, null);
+    disposed.onTerminate(3, FrameType.REQUEST_FNF, null);
+
+    TrackingLeaseSender sender = controller.newSender();
+    sender.onStart(1, FrameType.REQUEST_FNF, null);
+    assertThat(controller.getInflight()).isEqualTo(1);
+    sender.onTerminate(1, FrameType.REQUEST_FNF, null);
+    assertThat(controller.getInflight()).isZero();
+    controller.dispose();
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.lease;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 18:05
+ */
+class GradientConcurrencyLimitTests {
+
+  @Test
+  void limitGrowsWhileLatencyIsStable() {
+    GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 100);
+    for (int i = 0; i < 100; i++) {
+      limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), limit.getLimit());
+    }
+    assertThat(limit.getLimit()).isGreaterThan(10).isLessThanOrEqualTo(100);
+  }
+
+  @Test
+  void limitShrinksWhenLatencyIncreases() {
+    GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 1, 100);
+    for (int i = 0; i < 50; i++) {
+      limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), limit.getLimit());
+    }
+    int stable = limit.getLimit();
+    for (int i = 0; i < 20; i++) {
+      limit.onSample(TimeUnit.MILLISECONDS.toNanos(100), limit.getLimit());
+    }
+    assertThat(limit.getLimit()).isLessThan(stable);
+  }
+
+  @Test
+  void applicationLimitedSamplesDoNotChangeLimit() {
+    GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 1, 100);
+    for (int i = 0; i < 50; i++) {
+      limit.onSample(TimeUnit.MILLISECONDS.toNanos(10 + i), 1);
+    }
+    assertThat(limit.getLimit()).isEqualTo(20);
+    assertThat(limit.getRttNanos()).isPositive();
+  }
+
+  @Test
+  void limitStaysWithinBounds() {
+    GradientConcurrencyLimit limit = new GradientConcurrencyLimit(5, 2, 8);
+    for (int i = 0; i < 200; i++) {
+      limit.onSample(1000, limit.getLimit());
+    }
+    assertThat(limit.getLimit()).isEqualTo(8);
+    for (int i = 0; i < 200; i++) {
+      limit.onSample(1000L * (i + 2), limit.getLimit());
+    }
+    assertThat(limit.getLimit()).isGreaterThanOrEqualTo(2);
+  }
+
+  @Test
+  void invalidBounds() {
+    assertThatIllegalArgumentException().isThrownBy(() -> new GradientConcurrencyLimit(0, 0, 10));
+    assertThatIllegalArgumentException().isThrownBy(() -> new GradientConcurrencyLimit(20, 1, 10));
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.lease;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 22:40
+ */
+class UnboundedLeaseControllerTests {
+
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+  private final UnboundedLeaseController controller = new UnboundedLeaseController(Duration.ofSeconds(30), scheduler);
+
+  @Test
+  void unboundedLeaseIssued() {
+    LeaseSender sender = controller.newSender();
+    StepVerifier.create(sender.send().take(1))
+            .assertNext(lease -> {
+              assertThat(lease.numberOfRequests()).isEqualTo(Integer.MAX_VALUE);
+              assertThat(lease.timeToLiveInMillis()).isEqualTo(60_000);
+            })
+            .verifyComplete();
+    controller.dispose();
+  }
+
+  @Test
+  void leasesRenewed() {
+    LeaseSender sender = controller.newSender();
+    StepVerifier.withVirtualTime(() -> sender.send().take(3), () -> scheduler, Long.MAX_VALUE)
+            .expectNextCount(1)
+            .thenAwait(Duration.ofSeconds(60))
+            .expectNextCount(2)
+            .verifyComplete();
+    controller.dispose();
+  }
+
+  @Test
+  void revokeSendsEmptyLeaseLast() {
+    LeaseSender sender = controller.newSender();
+    controller.revoke();
+    controller.renew();
+
+    StepVerifier.create(sender.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isZero())
+            .verifyComplete();
+
+    // connections after the revoke get the empty lease only
+    LeaseSender late = controller.newSender();
+    StepVerifier.create(late.send().take(1))
+            .assertNext(lease -> assertThat(lease.numberOfRequests()).isZero())
+            .verifyComplete();
+    assertThat(controller.isRevoked()).isTrue();
+    controller.dispose();
+  }
+
+  @Test
+  void closedConnectionRemoved() {
+    LeaseSender sender = controller.newSender();
+    Disposable subscription = sender.send().subscribe();
+    assertThat(controller.getConnectionCount()).isEqualTo(1);
+
+    subscription.dispose();
+    assertThat(controller.getConnectionCount()).isZero();
+    controller.dispose();
+  }
+
+  @Test
+  void disposeCompletesSenders() {
+    LeaseSender sender = controller.newSender();
+    controller.dispose();
+
+    StepVerifier.create(sender.send())
+            .expectNextCount(1)
+            .verifyComplete();
+    assertThat(controller.getConnectionCount()).isZero();
+  }
+
+}
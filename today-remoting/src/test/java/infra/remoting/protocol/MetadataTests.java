@@ -17,7 +17,20 @@
 
 package infra.remoting.protocol;
 
-import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import infra.remoting.frame.FrameType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
@@ -25,4 +38,156 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class MetadataTests {
 
-}
\ No newline at end of file
+  static final int ROUTE = 1;
+  static final int TRACE_ID = 2;
+  static final int DEADLINE = 3;
+  static final int PRIORITY = 4;
+  static final int LARGE_KEY = Metadata.MAX_KEY;
+
+  @Test
+  void typedValues() {
+    ByteBuf out = Unpooled.buffer();
+    Metadata metadata = Metadata.builder(out)
+            .putString(ROUTE, "user.find")
+            .putBytes(TRACE_ID, new byte[] { 1, 2, 3 })
+            .putTimestamp(DEADLINE, 1_700_000_000_000L)
+            .putLong(PRIORITY, -42)
+            .putLong(LARGE_KEY, Long.MIN_VALUE)
+            .build();
+
+    assertThat(metadata.isEmpty()).isFalse();
+    assertThat(metadata.getString(ROUTE)).isEqualTo("user.find");
+    assertThat(metadata.getBytes(TRACE_ID)).isEqualTo(Unpooled.wrappedBuffer(new byte[] { 1, 2, 3 }));
+    assertThat(metadata.getTimestamp(DEADLINE, 0)).isEqualTo(1_700_000_000_000L);
+    assertThat(metadata.getLong(PRIORITY, 0)).isEqualTo(-42);
+    assertThat(metadata.getLong(LARGE_KEY, 0)).isEqualTo(Long.MIN_VALUE);
+
+    assertThat(metadata.<String>get(ROUTE)).isEqualTo("user.find");
+    assertThat(metadata.<Instant>get(DEADLINE)).isEqualTo(Instant.ofEpochMilli(1_700_000_000_000L));
+    assertThat(metadata.<Long>get(PRIORITY)).isEqualTo(-42L);
+    assertThat(metadata.getType(TRACE_ID)).isEqualTo(Metadata.Type.BYTES);
+  }
+
+  @Test
+  void missingKeys() {
+    Metadata metadata = Metadata.builder(Unpooled.buffer()).putLong(PRIORITY, 1).build();
+
+    assertThat(metadata.contains(ROUTE)).isFalse();
+    assertThat(metadata.<Object>get(ROUTE)).isNull();
+    assertThat(metadata.getType(ROUTE)).isNull();
+    assertThat(metadata.getString(ROUTE)).isNull();
+    assertThat(metadata.getLong(DEADLINE, 7)).isEqualTo(7);
+    assertThat(Metadata.EMPTY.<Object>get(ROUTE)).isNull();
+  }
+
+  @Test
+  void firstEntryWins() {
+    Metadata metadata = Metadata.builder(Unpooled.buffer())
+            .putLong(PRIORITY, 1)
+            .putLong(PRIORITY, 2)
+            .build();
+
+    assertThat(metadata.getLong(PRIORITY, 0)).isEqualTo(1);
+  }
+
+  @Test
+  void builderAppendsToOutgoingBuffer() {
+    ByteBuf out = Unpooled.buffer().writeInt(0xCAFE);
+    Metadata metadata = Metadata.builder(out).putString(ROUTE, "route").build();
+
+    assertThat(out.getInt(0)).isEqualTo(0xCAFE);
+    assertThat(metadata.content().readableBytes()).isEqualTo(out.readableBytes() - Integer.BYTES);
+    assertThat(Metadata.wrap(out.skipBytes(Integer.BYTES)).getString(ROUTE)).isEqualTo("route");
+  }
+
+  @Test
+  void wrongType() {
+    Metadata metadata = Metadata.builder(Unpooled.buffer()).putString(ROUTE, "route").build();
+
+    assertThatIllegalStateException().isThrownBy(() -> metadata.getLong(ROUTE, 0));
+  }
+
+  @Test
+  void invalidKey() {
+    Metadata.Builder builder = Metadata.builder(Unpooled.buffer());
+
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.putLong(-1, 0));
+    assertThatIllegalArgumentException().isThrownBy(() -> builder.putLong(Metadata.MAX_KEY + 1, 0));
+  }
+
+  @Test
+  void truncated() {
+    ByteBuf out = Unpooled.buffer();
+    Metadata.builder(out).putString(ROUTE, "route").putLong(PRIORITY, 1);
+    Metadata metadata = Metadata.wrap(out.slice(0, 4));
+
+    assertThatThrownBy(() -> metadata.getLong(PRIORITY, 0)).isInstanceOf(ProtocolParsingException.class);
+  }
+
+  @Test
+  void foundEntryBeyondEnd() {
+    ByteBuf string = Unpooled.buffer();
+    Metadata.builder(string).putLong(PRIORITY, 1).putString(ROUTE, "route");
+    Metadata truncatedString = Metadata.wrap(string.slice(0, string.readableBytes() - 1));
+    assertThatThrownBy(() -> truncatedString.getString(ROUTE)).isInstanceOf(ProtocolParsingException.class);
+    assertThatThrownBy(() -> truncatedString.get(ROUTE)).isInstanceOf(ProtocolParsingException.class);
+
+    ByteBuf bytes = Unpooled.buffer();
+    Metadata.builder(bytes).putBytes(TRACE_ID, new byte[] { 1, 2, 3 });
+    Metadata truncatedBytes = Metadata.wrap(bytes.slice(0, bytes.readableBytes() - 1));
+    assertThatThrownBy(() -> truncatedBytes.getBytes(TRACE_ID)).isInstanceOf(ProtocolParsingException.class);
+
+    ByteBuf timestamp = Unpooled.buffer();
+    Metadata.builder(timestamp).putTimestamp(DEADLINE, 1_700_000_000_000L);
+    Metadata truncatedTimestamp = Metadata.wrap(timestamp.slice(0, timestamp.readableBytes() - 1));
+    assertThatThrownBy(() -> truncatedTimestamp.getTimestamp(DEADLINE, 0)).isInstanceOf(ProtocolParsingException.class);
+  }
+
+  @Test
+  void negativeLength() {
+    ByteBuf out = Unpooled.buffer();
+    Metadata.writeVarint(out, (long) ROUTE << 3 | Metadata.Type.STRING.id);
+    // a 10 bytes varint, negative as a long
+    Metadata.writeVarint(out, -2);
+    out.writeBytes(new byte[] { 'a', 'b' });
+    Metadata metadata = Metadata.wrap(out);
+
+    assertThatThrownBy(() -> metadata.getString(ROUTE)).isInstanceOf(ProtocolParsingException.class);
+    assertThatThrownBy(() -> metadata.contains(PRIORITY)).isInstanceOf(ProtocolParsingException.class);
+  }
+
+  @Test
+  void metadataFlagClearedWithoutMetadata() {
+    ByteBuf data = Unpooled.copiedBuffer("data", StandardCharsets.UTF_8);
+    ByteBuf serialized = new ProtocolFrame(1, FrameType.PAYLOAD,
+            ProtocolFrame.FLAGS_M | ProtocolFrame.FLAGS_N, Metadata.EMPTY, data).serialize(ByteBufAllocator.DEFAULT);
+
+    ProtocolFrame frame = ProtocolFrame.parse(serialized);
+    assertThat(frame.hasMetadata()).isFalse();
+    assertThat(frame.data.toString(StandardCharsets.UTF_8)).isEqualTo("data");
+    serialized.release();
+  }
+
+  @Test
+  void parsedLazilyFromFrame() {
+    ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    ByteBuf content = Unpooled.buffer();
+    Metadata metadata = Metadata.builder(content)
+            .putString(ROUTE, "user.find")
+            .putLong(PRIORITY, 3)
+            .build();
+    ByteBuf data = Unpooled.copiedBuffer("data", StandardCharsets.UTF_8);
+
+    ByteBuf serialized = new ProtocolFrame(1, FrameType.PAYLOAD,
+            ProtocolFrame.FLAGS_N, metadata, data).serialize(allocator);
+
+    ProtocolFrame frame = ProtocolFrame.parse(serialized);
+    assertThat(frame.hasMetadata()).isTrue();
+    assertThat(frame.data.toString(StandardCharsets.UTF_8)).isEqualTo("data");
+    assertThat(frame.getMetadata()).isSameAs(frame.getMetadata());
+    assertThat(frame.getMetadata().getString(ROUTE)).isEqualTo("user.find");
+    assertThat(frame.getMetadata().getLong(PRIORITY, 0)).isEqualTo(3);
+    serialized.release();
+  }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.remoting.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import infra.remoting.frame.FrameType;
+import infra.remoting.test.LeaksTrackingByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 11:05
+ */
+class ProtocolFrameTests {
+
+  final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  @Test
+  void serializeWritesHeaderIntoHeadroom() throws ProtocolParsingException {
+    ByteBuf data = ProtocolFrame.allocateData(allocator, 16);
+    data.writeCharSequence("data", StandardCharsets.UTF_8);
+
+    ByteBuf serialized = new ProtocolFrame(5, FrameType.PAYLOAD,
+            ProtocolFrame.FLAGS_N, Metadata.EMPTY, data).serialize(allocator);
+
+    assertThat(serialized).isSameAs(data);
+    assertThat(serialized.readableBytes()).isEqualTo(6 + 4);
+
+    ProtocolFrame frame = ProtocolFrame.parse(serialized);
+    assertThat(frame.getStreamId()).isEqualTo(5);
+    assertThat(frame.syntheticFrameType()).isEqualTo(FrameType.NEXT);
+    assertThat(frame.data.toString(StandardCharsets.UTF_8)).isEqualTo("data");
+    serialized.release();
+  }
+
+  @Test
+  void serializeComposesHeaderWithoutCopying() throws ProtocolParsingException {
+    ByteBuf data = Unpooled.copiedBuffer("data", StandardCharsets.UTF_8);
+
+    ByteBuf serialized = new ProtocolFrame(7, FrameType.PAYLOAD,
+            ProtocolFrame.FLAGS_N | ProtocolFrame.FLAGS_C, Metadata.EMPTY, data).serialize(allocator);
+
+    assertThat(serialized).isInstanceOf(CompositeByteBuf.class);
+    assertThat(((CompositeByteBuf) serialized).component(1)).isSameAs(data);
+
+    ProtocolFrame frame = ProtocolFrame.parse(serialized);
+    assertThat(frame.getStreamId()).isEqualTo(7);
+    assertThat(frame.syntheticFrameType()).isEqualTo(FrameType.NEXT_COMPLETE);
+    assertThat(frame.data.toString(StandardCharsets.UTF_8)).isEqualTo("data");
+    serialized.release();
+    assertThat(data.refCnt()).isZero();
+  }
+
+  @Test
+  void sharedDataIsNeverOverwritten() {
+    ByteBuf data = ProtocolFrame.allocateData(allocator, 16);
+    data.writeCharSequence("data", StandardCharsets.UTF_8);
+    data.retain();
+
+    ByteBuf serialized = new ProtocolFrame(1, FrameType.PAYLOAD,
+            ProtocolFrame.FLAGS_N, Metadata.EMPTY, data).serialize(allocator);
+
+    assertThat(serialized).isNotSameAs(data);
+    assertThat(data.readerIndex()).isEqualTo(6);
+    serialized.release();
+    data.release();
+  }
+
+  @Test
+  void serializeReleasesBuffersWithFrame() {
+    LeaksTrackingByteBufAllocator allocator = LeaksTrackingByteBufAllocator.instrument(ByteBufAllocator.DEFAULT);
+    Metadata metadata = Metadata.builder(allocator.buffer())
+            .putString(1, "user.find")
+            .build();
+    ByteBuf data = allocator.buffer().writeBytes("data".getBytes(StandardCharsets.UTF_8));
+
+    ByteBuf serialized = new ProtocolFrame(1, FrameType.PAYLOAD,
+            ProtocolFrame.FLAGS_N, metadata, data).serialize(allocator);
+    serialized.release();
+    allocator.assertHasNoLeaks();
+  }
+
+  @Test
+  void metadataOnFrameWithoutMetadataReleasesBuffers() {
+    LeaksTrackingByteBufAllocator allocator = LeaksTrackingByteBufAllocator.instrument(ByteBufAllocator.DEFAULT);
+    Metadata metadata = Metadata.builder(allocator.buffer())
+            .putString(1, "user.find")
+            .build();
+    ByteBuf data = allocator.buffer().writeBytes("data".getBytes(StandardCharsets.UTF_8));
+
+    ProtocolFrame frame = new ProtocolFrame(1, FrameType.CANCEL, 0, metadata, data);
+    assertThatIllegalStateException().isThrownBy(() -> frame.serialize(allocator))
+            .withMessage("bad value for metadata flag");
+    allocator.assertHasNoLeaks();
+  }
+
+  @Test
+  void metadataTooLargeReleasesBuffers() {
+    LeaksTrackingByteBufAllocator allocator = LeaksTrackingByteBufAllocator.instrument(ByteBufAllocator.DEFAULT);
+    int length = 1 << 24;
+    Metadata metadata = Metadata.wrap(allocator.buffer(length).writerIndex(length));
+    ByteBuf data = allocator.buffer().writeBytes("data".getBytes(StandardCharsets.UTF_8));
+
+    ProtocolFrame frame = new ProtocolFrame(1, FrameType.PAYLOAD, ProtocolFrame.FLAGS_N, metadata, data);
+    assertThatIllegalStateException().isThrownBy(() -> frame.serialize(allocator))
+            .withMessage("Metadata length is larger than 24 bits");
+    allocator.assertHasNoLeaks();
+  }
+
+  @Test
+  void serializeWithoutData() {
+    ByteBuf serialized = new ProtocolFrame(1, FrameType.CANCEL, 0, Metadata.EMPTY, null).serialize(allocator);
+    assertThat(serialized.readableBytes()).isEqualTo(6);
+    assertThat(serialized.readInt()).isEqualTo(1);
+    serialized.release();
+  }
+
+}
@@ -19,6 +19,7 @@ package infra.remoting.util;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
 import io.netty.buffer.Unpooled;
 import io.netty.util.IllegalReferenceCountException;
@@ -79,4 +80,23 @@ public class ByteBufPayloadTests {
     Assertions.assertThatThrownBy(payload::getMetadataUtf8)
             .isInstanceOf(IllegalReferenceCountException.class);
   }
+
+  /**
+   * Run by the {@code recycleCheckTest} task, which sets the property.
+   */
+  @Test
+  @EnabledIfSystemProperty(named = ByteBufPayload.RECYCLE_CHECK, matches = "true")
+  public void shouldNotReuseReleasedPayloadInRecycleCheckMode() {
+    Payload payload = ByteBufPayload.create("data");
+    Assertions.assertThat(payload.release()).isTrue();
+
+    Payload next = ByteBufPayload.create("next");
+    Assertions.assertThat(next).isNotSameAs(payload);
+
+    Assertions.assertThatThrownBy(payload::data)
+            .isInstanceOf(IllegalReferenceCountException.class)
+            .hasRootCauseMessage("Payload released here");
+    Assertions.assertThat(next.getDataUtf8()).isEqualTo("next");
+    Assertions.assertThat(next.release()).isTrue();
+  }
 }
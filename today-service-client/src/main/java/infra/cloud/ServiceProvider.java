@@ -17,6 +17,8 @@
 
 package infra.cloud;
 
+import java.util.Collection;
+
 import infra.cloud.registry.ServiceNotFoundException;
 
 /**
@@ -35,4 +37,14 @@ public interface ServiceProvider {
    */
   <T> T getService(Class<T> serviceInterface);
 
+  /**
+   * Resolve the instances of the given services ahead of their first use,
+   * a provider may do it in one registry call. Failures are not fatal, the
+   * services are looked up again when they are used.
+   *
+   * @param serviceInterfaces service interface types
+   */
+  default void resolveAll(Collection<Class<?>> serviceInterfaces) {
+  }
+
 }
@@ -20,9 +20,15 @@ package infra.cloud.http;
 import java.util.List;
 
 import infra.beans.factory.ObjectProvider;
+import infra.cloud.RpcResponse;
 import infra.cloud.core.serialize.JdkSerialization;
 import infra.cloud.core.serialize.Serialization;
+import infra.cloud.protocol.DiscoveryCache;
+import infra.cloud.protocol.http.HttpServiceRegistry;
+import infra.cloud.protocol.remoting.RemotingServiceRegistry;
+import infra.cloud.registry.HttpRegistration;
 import infra.cloud.registry.RegistryProperties;
+import infra.cloud.registry.ServiceRegistry;
 import infra.cloud.serialize.ReturnValueSerialization;
 import infra.cloud.serialize.RpcArgumentSerialization;
 import infra.cloud.serialize.RpcRequestSerialization;
@@ -63,4 +69,30 @@ public class HttpServiceClientConfig {
     return new JdkSerialization<>();
   }
 
+  @MissingBean
+  static ServiceRegistry<HttpRegistration> serviceRegistry(RegistryProperties properties, Serialization<RpcResponse> serialization) {
+    return createServiceRegistry(properties, serialization);
+  }
+
+  /**
+   * Create the registry client configured by the given properties, over
+   * the remoting protocol if {@code registry.remoting.client} is set,
+   * otherwise over HTTP, keeping the last-known instances in the
+   * {@code registry.discovery-cache} if set.
+   */
+  public static ServiceRegistry<HttpRegistration> createServiceRegistry(RegistryProperties properties, Serialization<RpcResponse> serialization) {
+    RegistryProperties.Remoting remoting = properties.getRemoting();
+    if (remoting.isClient()) {
+      RemotingServiceRegistry registry = new RemotingServiceRegistry(remoting.getHost(), remoting.getPort());
+      registry.setWatch(properties.isWatch());
+      return registry;
+    }
+    HttpServiceRegistry registry = HttpServiceRegistry.ofURL(properties.getHttpUrl(), serialization);
+    registry.setWatch(properties.isWatch());
+    if (properties.getDiscoveryCache() != null) {
+      registry.setDiscoveryCache(DiscoveryCache.load(properties.getDiscoveryCache()));
+    }
+    return registry;
+  }
+
 }
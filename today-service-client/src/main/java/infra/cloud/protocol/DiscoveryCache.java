@@ -0,0 +1,373 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package infra.cloud.protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import infra.cloud.DefaultServiceInstance;
+import infra.cloud.ServiceInstance;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+
+/**
+ * Last-known instances of the services, kept in a local file so a client
+ * restarting while the registry is unreachable can still resolve them.
+ * <p>
+ * The file is read through a memory-mapped buffer when the cache is
+ * {@link #load loaded}, and rewritten to a temporary file renamed over it
+ * when the instances change, so a crash never leaves a partial cache.
+ * <p>
+ * The file is written in the background, once per {@link #setWriteDelay write
+ * delay} however many changes, never on the thread looking up the instances.
+ * {@link #close()} writes the pending changes.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 09:20
+ */
+public final class DiscoveryCache implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(DiscoveryCache.class);
+
+  private static final int MAGIC = 0x44434348;
+
+  private static final int FORMAT_VERSION = 1;
+
+  /** magic, version, body length, crc */
+  private static final int HEADER = 4 + 4 + 4 + 4;
+
+  private final Path file;
+
+  private final ConcurrentHashMap<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+  /** serializes the writes of the file */
+  private final Object writeLock = new Object();
+
+  private Duration writeDelay = Duration.ofSeconds(1);
+
+  /** guarded by this, created on the first change */
+  @Nullable
+  private ScheduledExecutorService writer;
+
+  /** a write is scheduled, guarded by this */
+  private boolean pending;
+
+  /** guarded by this */
+  private boolean closed;
+
+  private DiscoveryCache(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Set how long the changes are gathered before the file is written.
+   */
+  public void setWriteDelay(Duration writeDelay) {
+    Assert.notNull(writeDelay, "writeDelay is required");
+    this.writeDelay = writeDelay;
+  }
+
+  /**
+   * Returns the last-known instances of the given service.
+   *
+   * @return {@code null} if the service is not cached
+   */
+  @Nullable
+  public List<ServiceInstance> get(String serviceId) {
+    return instances.get(serviceId);
+  }
+
+  public boolean isEmpty() {
+    return instances.isEmpty();
+  }
+
+  /**
+   * Replace the instances of the given service, the file is rewritten
+   * later if they changed.
+   */
+  public void update(String serviceId, Collection<? extends ServiceInstance> instances) {
+    update(Map.of(serviceId, instances));
+  }
+
+  /**
+   * Replace the instances of the given services, the file is rewritten
+   * later if any of them changed. Services without instance are removed.
+   */
+  public synchronized void update(Map<String, ? extends Collection<? extends ServiceInstance>> resolved) {
+    boolean changed = false;
+    for (Map.Entry<String, ? extends Collection<? extends ServiceInstance>> entry : resolved.entrySet()) {
+      if (entry.getValue().isEmpty()) {
+        changed |= instances.remove(entry.getKey()) != null;
+      }
+      else {
+        List<ServiceInstance> copy = copyOf(entry.getValue());
+        List<ServiceInstance> previous = instances.put(entry.getKey(), copy);
+        changed |= previous == null || !sameAddresses(previous, copy);
+      }
+    }
+    if (changed) {
+      scheduleWrite();
+    }
+  }
+
+  /**
+   * Forget the given service, it is no longer registered.
+   */
+  public synchronized void remove(String serviceId) {
+    if (instances.remove(serviceId) != null) {
+      scheduleWrite();
+    }
+  }
+
+  /**
+   * Write the pending changes and stop writing in the background.
+   */
+  @Override
+  public void close() {
+    boolean write;
+    synchronized(this) {
+      closed = true;
+      write = pending;
+      pending = false;
+      if (writer != null) {
+        writer.shutdownNow();
+        writer = null;
+      }
+    }
+    if (write) {
+      store();
+    }
+  }
+
+  /** guarded by this, the changes after {@link #close()} are not written */
+  private void scheduleWrite() {
+    if (!closed && !pending) {
+      pending = true;
+      if (writer == null) {
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread thread = new Thread(r, "discovery-cache");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      writer.schedule(this::write, writeDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void write() {
+    synchronized(this) {
+      if (!pending) {
+        return;
+      }
+      pending = false;
+    }
+    store();
+  }
+
+  /**
+   * Write the current instances, the updates are not blocked meanwhile.
+   */
+  private void store() {
+    synchronized(writeLock) {
+      ByteBuffer buffer;
+      synchronized(this) {
+        buffer = encode();
+      }
+      Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      try {
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+          channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      }
+      catch (IOException e) {
+        log.warn("Discovery cache [{}] cannot be written", file, e);
+      }
+    }
+  }
+
+  /** guarded by this */
+  private ByteBuffer encode() {
+    ArrayList<byte[]> fields = new ArrayList<>();
+    int bodyLength = 4;
+    for (Map.Entry<String, List<ServiceInstance>> entry : instances.entrySet()) {
+      bodyLength += add(fields, entry.getKey()) + 4;
+      for (ServiceInstance instance : entry.getValue()) {
+        bodyLength += add(fields, instance.getInstanceId()) + add(fields, instance.getHost()) + 4;
+      }
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER + bodyLength);
+    buffer.position(HEADER);
+    buffer.putInt(instances.size());
+    int field = 0;
+    for (Map.Entry<String, List<ServiceInstance>> entry : instances.entrySet()) {
+      putString(buffer, fields.get(field++));
+      buffer.putInt(entry.getValue().size());
+      for (ServiceInstance instance : entry.getValue()) {
+        putString(buffer, fields.get(field++));
+        putString(buffer, fields.get(field++));
+        buffer.putInt(instance.getPort());
+      }
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.array(), HEADER, bodyLength);
+    buffer.putInt(0, MAGIC)
+            .putInt(4, FORMAT_VERSION)
+            .putInt(8, bodyLength)
+            .putInt(12, (int) crc.getValue());
+    return buffer.flip();
+  }
+
+  @Override
+  public String toString() {
+    return "DiscoveryCache[" + file + "]";
+  }
+
+  /**
+   * Load the cache from the given file. A missing, unreadable or corrupted
+   * file gives an empty cache, the file is rewritten on the first update.
+   *
+   * @param file cache file, its directory is created if necessary
+   */
+  public static DiscoveryCache load(Path file) {
+    Assert.notNull(file, "Discovery cache file is required");
+    DiscoveryCache cache = new DiscoveryCache(file.toAbsolutePath());
+    try {
+      Path directory = cache.file.getParent();
+      if (directory != null) {
+        Files.createDirectories(directory);
+      }
+      if (Files.exists(cache.file)) {
+        read(cache.file, cache.instances);
+        log.info("Discovery cache [{}] loaded, {} services", cache.file, cache.instances.size());
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      cache.instances.clear();
+      log.warn("Discovery cache [{}] cannot be read, starting empty", file, e);
+    }
+    return cache;
+  }
+
+  private static void read(Path file, Map<String, List<ServiceInstance>> instances) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+        throw new IOException("Not a discovery cache file");
+      }
+      int bodyLength = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (bodyLength < 4 || bodyLength != buffer.remaining()) {
+        throw new IOException("Truncated discovery cache file");
+      }
+      CRC32C crc = new CRC32C();
+      crc.update(buffer.slice(HEADER, bodyLength));
+      if ((int) crc.getValue() != checksum) {
+        throw new IOException("Corrupted discovery cache file");
+      }
+
+      int services = buffer.getInt();
+      for (int i = 0; i < services; i++) {
+        String serviceId = getString(buffer);
+        int count = buffer.getInt();
+        ArrayList<ServiceInstance> list = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+          String instanceId = getString(buffer);
+          String host = getString(buffer);
+          list.add(new DefaultServiceInstance(instanceId, serviceId, host, buffer.getInt()));
+        }
+        instances.put(serviceId, List.copyOf(list));
+      }
+    }
+  }
+
+  private static List<ServiceInstance> copyOf(Collection<? extends ServiceInstance> instances) {
+    ArrayList<ServiceInstance> copy = new ArrayList<>(instances.size());
+    for (ServiceInstance instance : instances) {
+      copy.add(new DefaultServiceInstance(instance.getInstanceId(), instance.getServiceId(), instance.getHost(), instance.getPort()));
+    }
+    return List.copyOf(copy);
+  }
+
+  private static boolean sameAddresses(List<ServiceInstance> previous, List<ServiceInstance> instances) {
+    if (previous.size() != instances.size()) {
+      return false;
+    }
+    for (int i = 0; i < previous.size(); i++) {
+      ServiceInstance one = previous.get(i);
+      ServiceInstance other = instances.get(i);
+      if (one.getPort() != other.getPort()
+              || !Objects.equals(one.getHost(), other.getHost())
+              || !Objects.equals(one.getInstanceId(), other.getInstanceId())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int add(List<byte[]> fields, @Nullable String value) {
+    byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    fields.add(bytes);
+    return bytes == null ? 4 : 4 + bytes.length;
+  }
+
+  private static void putString(ByteBuffer buffer, @Nullable byte[] value) {
+    if (value == null) {
+      buffer.putInt(-1);
+    }
+    else {
+      buffer.putInt(value.length).put(value);
+    }
+  }
+
+  @Nullable
+  private static String getString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
@@ -17,24 +17,41 @@
 
 package infra.cloud.protocol;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import infra.beans.factory.config.DependencyDescriptor;
 import infra.beans.factory.support.DependencyResolvingStrategy;
 import infra.cloud.ServiceProvider;
 import infra.cloud.client.ServiceReference;
 import infra.context.ApplicationContext;
+import infra.context.ApplicationEvent;
+import infra.context.ApplicationListener;
+import infra.context.ConfigurableApplicationContext;
+import infra.context.event.ContextRefreshedEvent;
 import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
 import infra.stereotype.Service;
 
 /**
  * for ServiceProvider
+ * <p>
+ * The services resolved while the context is refreshing are looked up
+ * together once it is refreshed, see {@link ServiceProvider#resolveAll}.
  *
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 1.0 2023/11/18 23:21
  */
-public class ServiceDependencyResolvingStrategy implements DependencyResolvingStrategy {
+public class ServiceDependencyResolvingStrategy implements DependencyResolvingStrategy, ApplicationListener<ApplicationEvent> {
+  private static final Logger log = LoggerFactory.getLogger(ServiceDependencyResolvingStrategy.class);
 
   private ServiceProvider serviceProvider;
 
+  /** services to resolve once the context is refreshed, {@code null} after that */
+  @Nullable
+  private Set<Class<?>> pending = new LinkedHashSet<>();
+
   private final ApplicationContext context;
 
   public ServiceDependencyResolvingStrategy(ApplicationContext context) {
@@ -52,6 +69,7 @@ public class ServiceDependencyResolvingStrategy implements DependencyResolvingSt
           serviceProvider = this.context.getBean(ServiceProvider.class);
         }
         if (serviceProvider != null) {
+          addPending(dependencyType);
           return serviceProvider.getService(dependencyType);
         }
       }
@@ -59,4 +77,39 @@ public class ServiceDependencyResolvingStrategy implements DependencyResolvingSt
     return null;
   }
 
+  private synchronized void addPending(Class<?> serviceInterface) {
+    Set<Class<?>> pending = this.pending;
+    if (pending != null) {
+      if (pending.isEmpty()) {
+        if (context instanceof ConfigurableApplicationContext configurable) {
+          configurable.addApplicationListener(this);
+        }
+        else {
+          this.pending = null;
+          return;
+        }
+      }
+      pending.add(serviceInterface);
+    }
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationEvent event) {
+    if (event instanceof ContextRefreshedEvent refreshed && refreshed.getApplicationContext() == context) {
+      Set<Class<?>> services;
+      synchronized(this) {
+        services = pending;
+        pending = null;
+      }
+      if (services != null && !services.isEmpty()) {
+        try {
+          serviceProvider.resolveAll(services);
+        }
+        catch (RuntimeException e) {
+          log.warn("Pre-resolving services failed, they will be resolved on first use", e);
+        }
+      }
+    }
+  }
+
 }
@@ -17,8 +17,12 @@
 
 package infra.cloud.protocol.http;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import infra.cloud.DefaultServiceInstance;
 import infra.cloud.RpcRequest;
@@ -26,32 +30,61 @@ import infra.cloud.RpcResponse;
 import infra.cloud.ServiceInstance;
 import infra.cloud.core.serialize.Serialization;
 import infra.cloud.registry.ServiceNotFoundException;
+import infra.cloud.registry.WatchResult;
 import infra.core.ParameterizedTypeReference;
 import infra.core.style.ToStringBuilder;
-import infra.http.HttpEntity;
+import infra.http.HttpHeaders;
 import infra.http.HttpMethod;
+import infra.http.HttpStatus;
+import infra.http.ResponseEntity;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
 import infra.web.client.HttpClientErrorException;
+import infra.web.client.HttpServerErrorException;
+import infra.web.client.ResourceAccessException;
 import infra.web.client.RestClient;
 import infra.web.client.RestClientException;
 import infra.web.client.RestTemplate;
 
 /**
+ * Registry operations go to one node of the registry cluster, the next
+ * node is used when it is unreachable or fails.
+ *
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 1.0 2023/8/14 17:46
  */
 final class HttpOperations {
+  private static final Logger log = LoggerFactory.getLogger(HttpOperations.class);
+
   private static final ParameterizedTypeReference<List<DefaultServiceInstance>> reference = new ParameterizedTypeReference<>() { };
 
+  private static final ParameterizedTypeReference<Map<String, List<DefaultServiceInstance>>> mappingReference = new ParameterizedTypeReference<>() { };
+
   private final Serialization<RpcResponse> serialization;
 
   private final RestTemplate restOperations = new RestTemplate();
 
   private final RestClient restClient = RestClient.create(restOperations);
 
-  private final String registryURL;
+  private final List<String> registryURLs;
+
+  /** index of the registry node in use */
+  private volatile int current;
+
+  private final ConcurrentHashMap<String, CachedInstances> instancesCache = new ConcurrentHashMap<>();
 
+  /**
+   * @param registryURL comma separated URLs of the registry nodes
+   */
   public HttpOperations(String registryURL, Serialization<RpcResponse> serialization) {
-    this.registryURL = registryURL;
+    this(parseURLs(registryURL), serialization);
+  }
+
+  public HttpOperations(List<String> registryURLs, Serialization<RpcResponse> serialization) {
+    Assert.notEmpty(registryURLs, "registryURLs is required");
+    this.registryURLs = List.copyOf(registryURLs);
     this.serialization = serialization;
   }
 
@@ -68,44 +101,170 @@ final class HttpOperations {
             });
   }
 
+  /**
+   * Look up the instances of the given service, the last result is
+   * revalidated with its entity tag.
+   */
   @SuppressWarnings("rawtypes")
   public List getInstances(String name) {
+    CachedInstances cached = instancesCache.get(name);
     try {
-      return restOperations.exchange(buildGetServiceDefinitionURL(name), HttpMethod.GET, HttpEntity.EMPTY, reference).getBody();
+      return withFailover(registryURL -> getInstances(registryURL, name, cached));
     }
     catch (HttpClientErrorException.NotFound e) {
+      instancesCache.remove(name);
       throw new ServiceNotFoundException(name, e);
     }
   }
 
-  private String buildGetServiceDefinitionURL(String serviceInterface) {
-    return registryURL + '/' + serviceInterface;
+  private List<DefaultServiceInstance> getInstances(String registryURL, String name, @Nullable CachedInstances cached) {
+    var request = restClient.get().uri(registryURL + '/' + name);
+    if (cached != null) {
+      request.header(HttpHeaders.IF_NONE_MATCH, cached.etag);
+    }
+    ResponseEntity<List<DefaultServiceInstance>> response = request.retrieve().toEntity(reference);
+    if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+      return cached.instances;
+    }
+    List<DefaultServiceInstance> instances = response.getBody();
+    String etag = response.getHeaders().getETag();
+    if (etag != null && instances != null) {
+      instancesCache.put(name, new CachedInstances(etag, instances));
+    }
+    else {
+      instancesCache.remove(name);
+    }
+    return instances;
+  }
+
+  /**
+   * Look up the instances of all the given services in one request,
+   * services without any instance are not in the result.
+   */
+  public Map<String, List<DefaultServiceInstance>> getInstances(Collection<String> names) throws RestClientException {
+    Map<String, List<DefaultServiceInstance>> instances = withFailover(registryURL -> restClient.post()
+            .uri(registryURL + "/lookup")
+            .body(names)
+            .retrieve()
+            .body(mappingReference));
+    return instances != null ? instances : Map.of();
   }
 
   public void register(Object body) throws RestClientException {
-    restClient.post()
-            .uri(registryURL)
-            .body(body)
-            .execute();
+    withFailover(registryURL -> {
+      restClient.post()
+              .uri(registryURL)
+              .body(body)
+              .execute();
+      return null;
+    });
   }
 
   public void delete(Object body) {
-    restClient.delete()
-            .uri(registryURL)
-            .body(body)
-            .execute();
+    withFailover(registryURL -> {
+      restClient.delete()
+              .uri(registryURL)
+              .body(body)
+              .execute();
+      return null;
+    });
+  }
+
+  /**
+   * @return {@code false} if the registry does not know the instance
+   */
+  public boolean heartbeat(String instanceId) throws RestClientException {
+    try {
+      withFailover(registryURL -> restClient.put()
+              .uri(registryURL + "/heartbeat/" + instanceId)
+              .retrieve()
+              .toBodilessEntity());
+      return true;
+    }
+    catch (HttpClientErrorException.NotFound e) {
+      return false;
+    }
+  }
+
+  /**
+   * Long-poll the registry changes after the given revision.
+   */
+  public WatchResult watch(long epoch, long revision, long timeoutMillis) throws RestClientException {
+    return withFailover(registryURL -> restClient.get()
+            .uri(registryURL + "/watch?epoch={epoch}&revision={revision}&timeout={timeout}", epoch, revision, timeoutMillis)
+            .retrieve()
+            .body(WatchResult.class));
   }
 
   public Map<String, Object> getServices() {
-    return restClient.get()
+    return withFailover(registryURL -> restClient.get()
             .uri(registryURL)
-            .retrieve().body(new ParameterizedTypeReference<Map<String, Object>>() { });
+            .retrieve().body(new ParameterizedTypeReference<Map<String, Object>>() { }));
+  }
+
+  /**
+   * Apply the operation to the registry node in use, then to the next
+   * ones until one answers. The node that answered stays in use.
+   */
+  private <T> T withFailover(Function<String, T> operation) {
+    int size = registryURLs.size();
+    int start = current;
+    RestClientException failure = null;
+    for (int i = 0; i < size; i++) {
+      int index = (start + i) % size;
+      try {
+        T result = operation.apply(registryURLs.get(index));
+        if (index != start) {
+          current = index;
+          log.info("Registry switched to [{}]", registryURLs.get(index));
+        }
+        return result;
+      }
+      catch (ResourceAccessException | HttpServerErrorException e) {
+        if (failure == null) {
+          failure = e;
+        }
+        else {
+          failure.addSuppressed(e);
+        }
+        if (size > 1) {
+          log.debug("Registry [{}] failed, trying the next one", registryURLs.get(index), e);
+        }
+      }
+    }
+    throw failure;
+  }
+
+  private static List<String> parseURLs(String registryURL) {
+    Assert.hasText(registryURL, "registryURL is required");
+    ArrayList<String> urls = new ArrayList<>();
+    for (String url : registryURL.split(",")) {
+      url = url.trim();
+      if (!url.isEmpty()) {
+        urls.add(url);
+      }
+    }
+    return urls;
   }
 
   @Override
   public String toString() {
     return ToStringBuilder.forInstance(this)
-            .append("registryURL", registryURL)
+            .append("registryURLs", registryURLs)
             .toString();
   }
+
+  private static final class CachedInstances {
+
+    final String etag;
+
+    final List<DefaultServiceInstance> instances;
+
+    CachedInstances(String etag, List<DefaultServiceInstance> instances) {
+      this.etag = etag;
+      this.instances = instances;
+    }
+
+  }
+
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import infra.cloud.DefaultServiceInstance;
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.RegistryChange;
+import infra.cloud.registry.RegistryEvent;
+import infra.cloud.registry.ServiceDefinition;
+import infra.cloud.registry.WatchResult;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+
+/**
+ * Keeps a local view of the registry up to date by long-polling its
+ * changes, so the instances are served without a request to the registry.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 22:40
+ */
+final class HttpRegistryWatcher implements Runnable {
+
+  private static final Logger log = LoggerFactory.getLogger(HttpRegistryWatcher.class);
+
+  private static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private final HttpOperations httpOperations;
+
+  private final long timeoutMillis;
+
+  /** service name to definitions, accessed by the watch thread only */
+  private final HashMap<String, LinkedHashSet<ServiceDefinition>> definitions = new HashMap<>();
+
+  private final ConcurrentHashMap<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+  private long epoch;
+
+  private long revision;
+
+  /** becomes true once the first result is applied */
+  private volatile boolean synced;
+
+  @Nullable
+  private volatile Thread thread;
+
+  HttpRegistryWatcher(HttpOperations httpOperations, long timeoutMillis) {
+    this.httpOperations = httpOperations;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  synchronized void start() {
+    if (thread == null) {
+      Thread thread = new Thread(this, "registry-watcher");
+      thread.setDaemon(true);
+      this.thread = thread;
+      thread.start();
+    }
+  }
+
+  synchronized void stop() {
+    Thread thread = this.thread;
+    if (thread != null) {
+      this.thread = null;
+      thread.interrupt();
+    }
+  }
+
+  boolean isSynced() {
+    return synced;
+  }
+
+  /**
+   * Returns the instances of the given service, {@code null} if the
+   * watcher is not synced yet.
+   */
+  @Nullable
+  List<ServiceInstance> getInstances(String serviceName) {
+    if (!synced) {
+      return null;
+    }
+    return instances.getOrDefault(serviceName, List.of());
+  }
+
+  Set<String> getServices() {
+    return instances.keySet();
+  }
+
+  @Override
+  public void run() {
+    long backoff = 0;
+    while (thread == Thread.currentThread()) {
+      try {
+        WatchResult result = httpOperations.watch(epoch, revision, timeoutMillis);
+        if (result != null) {
+          apply(result);
+        }
+        backoff = 0;
+      }
+      catch (RuntimeException e) {
+        backoff = Math.min(MAX_BACKOFF_MILLIS, Math.max(100, backoff * 2));
+        log.warn("Watching registry failed, retrying in {}ms", backoff, e);
+        try {
+          Thread.sleep(backoff);
+        }
+        catch (InterruptedException ex) {
+          return;
+        }
+      }
+    }
+  }
+
+  void apply(WatchResult result) {
+    HashSet<String> changed = new HashSet<>();
+    if (result.isReset()) {
+      changed.addAll(definitions.keySet());
+      definitions.clear();
+    }
+    for (RegistryChange change : result.getChanges()) {
+      ServiceDefinition definition = change.getDefinition();
+      String name = definition.getName();
+      if (change.getType() == RegistryEvent.Type.REGISTERED) {
+        definitions.computeIfAbsent(name, k -> new LinkedHashSet<>()).add(definition);
+      }
+      else {
+        LinkedHashSet<ServiceDefinition> set = definitions.get(name);
+        if (set != null) {
+          set.remove(definition);
+          if (set.isEmpty()) {
+            definitions.remove(name);
+          }
+        }
+      }
+      changed.add(name);
+    }
+
+    for (String name : changed) {
+      LinkedHashSet<ServiceDefinition> set = definitions.get(name);
+      if (set == null) {
+        instances.remove(name);
+      }
+      else {
+        ArrayList<ServiceInstance> list = new ArrayList<>(set.size());
+        for (ServiceDefinition definition : set) {
+          list.add(new DefaultServiceInstance(definition.getHost() + ":" + definition.getPort(),
+                  definition.getName(), definition.getHost(), definition.getPort()));
+        }
+        instances.put(name, List.copyOf(list));
+      }
+    }
+
+    this.epoch = result.getEpoch();
+    this.revision = result.getRevision();
+    this.synced = true;
+    if (!changed.isEmpty() && log.isDebugEnabled()) {
+      log.debug("Registry revision {}, changed services: {}", revision, changed);
+    }
+  }
+
+}
@@ -18,8 +18,19 @@
 package infra.cloud.protocol.http;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import infra.beans.factory.DisposableBean;
+import infra.cloud.DefaultServiceInstance;
 import infra.cloud.DiscoveryClient;
 import infra.cloud.JdkServiceProxy;
 import infra.cloud.RpcResponse;
@@ -29,16 +40,34 @@ import infra.cloud.ServiceProvider;
 import infra.cloud.ServiceProxy;
 import infra.cloud.core.serialize.JdkSerialization;
 import infra.cloud.core.serialize.Serialization;
+import infra.cloud.protocol.DiscoveryCache;
 import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.ServiceDefinition;
+import infra.cloud.registry.ServiceNotFoundException;
 import infra.cloud.registry.ServiceRegisterFailedException;
 import infra.cloud.registry.ServiceRegistry;
+import infra.context.SmartLifecycle;
 import infra.core.style.ToStringBuilder;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+import infra.web.client.HttpServerErrorException;
+import infra.web.client.ResourceAccessException;
 import infra.web.client.RestClientException;
 
 /**
+ * Registry client over HTTP.
+ * <p>
+ * As a lifecycle bean with {@link #setWatch watch} enabled, it keeps a local
+ * view of the registry updated by long-polling its changes while running.
+ *
  * @author TODAY 2021/7/3 23:48
  */
-public class HttpServiceRegistry implements ServiceRegistry<HttpRegistration>, ServiceProvider, DiscoveryClient {
+public class HttpServiceRegistry implements ServiceRegistry<HttpRegistration>, ServiceProvider, DiscoveryClient, SmartLifecycle, DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(HttpServiceRegistry.class);
+
+  /** how long a pre-resolved result is used before looking up again */
+  private static final long PRE_RESOLVED_TTL = TimeUnit.SECONDS.toNanos(60);
 
   private ServiceProxy serviceProxy;
 
@@ -46,6 +75,21 @@ public class HttpServiceRegistry implements ServiceRegistry<HttpRegistration>, S
 
   private final ServiceMethodInvoker methodInvoker;
 
+  @Nullable
+  private HttpRegistryWatcher watcher;
+
+  @Nullable
+  private DiscoveryCache discoveryCache;
+
+  private boolean watch;
+
+  /** results of {@link #resolveAll}, each one is used once */
+  private final ConcurrentHashMap<String, PreResolved> preResolved = new ConcurrentHashMap<>();
+
+  /** looks up the cached services in the background, guarded by this */
+  @Nullable
+  private ExecutorService refresher;
+
   public HttpServiceRegistry(String registryURL) {
     this.httpOperations = new HttpOperations(registryURL, new JdkSerialization<>());
     this.methodInvoker = new HttpServiceMethodInvoker(httpOperations);
@@ -76,6 +120,68 @@ public class HttpServiceRegistry implements ServiceRegistry<HttpRegistration>, S
     return new JdkServiceProxy();
   }
 
+  /**
+   * Keep the last-known instances in the given cache, they are used when
+   * the registry is unavailable.
+   */
+  public void setDiscoveryCache(@Nullable DiscoveryCache discoveryCache) {
+    this.discoveryCache = discoveryCache;
+  }
+
+  @Nullable
+  public DiscoveryCache getDiscoveryCache() {
+    return discoveryCache;
+  }
+
+  /**
+   * Keep a local view of the registry, updated by watching its changes,
+   * instead of looking up the registry on each request.
+   */
+  public synchronized void startWatching() {
+    if (watcher == null) {
+      HttpRegistryWatcher watcher = new HttpRegistryWatcher(httpOperations, TimeUnit.SECONDS.toMillis(30));
+      watcher.start();
+      this.watcher = watcher;
+    }
+  }
+
+  public synchronized void stopWatching() {
+    if (watcher != null) {
+      watcher.stop();
+      watcher = null;
+    }
+  }
+
+  /**
+   * Watch the registry while this bean is running.
+   *
+   * @see #startWatching()
+   */
+  public void setWatch(boolean watch) {
+    this.watch = watch;
+  }
+
+  public boolean isWatch() {
+    return watch;
+  }
+
+  @Override
+  public void start() {
+    if (watch) {
+      startWatching();
+    }
+  }
+
+  @Override
+  public void stop() {
+    stopWatching();
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return watcher != null;
+  }
+
   @Override
   public void register(HttpRegistration registration) {
     try {
@@ -91,15 +197,138 @@ public class HttpServiceRegistry implements ServiceRegistry<HttpRegistration>, S
     httpOperations.delete(registration);
   }
 
+  @Override
+  public boolean heartbeat(HttpRegistration registration) {
+    Set<String> instances = new LinkedHashSet<>();
+    for (ServiceDefinition definition : registration.getServiceDefinitions()) {
+      instances.add(HttpRegistration.instanceId(definition));
+    }
+    boolean registered = true;
+    for (String instanceId : instances) {
+      registered &= httpOperations.heartbeat(instanceId);
+    }
+    return registered;
+  }
+
   @Override
   public List<String> getServices() {
+    HttpRegistryWatcher watcher = this.watcher;
+    if (watcher != null && watcher.isSynced()) {
+      return new ArrayList<>(watcher.getServices());
+    }
     return new ArrayList<>(httpOperations.getServices().keySet());
   }
 
   @Override
   @SuppressWarnings("unchecked")
   public List<ServiceInstance> getInstances(String serviceId) {
-    return httpOperations.getInstances(serviceId);
+    HttpRegistryWatcher watcher = this.watcher;
+    if (watcher != null) {
+      List<ServiceInstance> instances = watcher.getInstances(serviceId);
+      if (instances != null) {
+        if (instances.isEmpty()) {
+          throw new ServiceNotFoundException(serviceId);
+        }
+        return instances;
+      }
+    }
+    PreResolved resolved = preResolved.remove(serviceId);
+    if (resolved != null && System.nanoTime() - resolved.resolvedAt < PRE_RESOLVED_TTL) {
+      return resolved.instances;
+    }
+    DiscoveryCache discoveryCache = this.discoveryCache;
+    if (discoveryCache == null) {
+      return httpOperations.getInstances(serviceId);
+    }
+    List<ServiceInstance> instances;
+    try {
+      instances = httpOperations.getInstances(serviceId);
+    }
+    catch (ServiceNotFoundException e) {
+      discoveryCache.remove(serviceId);
+      throw e;
+    }
+    catch (ResourceAccessException | HttpServerErrorException e) {
+      List<ServiceInstance> cached = discoveryCache.get(serviceId);
+      if (cached == null) {
+        throw e;
+      }
+      log.warn("Registry unavailable, using the last-known instances of [{}]", serviceId, e);
+      return cached;
+    }
+    if (instances != null) {
+      discoveryCache.update(serviceId, instances);
+    }
+    return instances;
+  }
+
+  /**
+   * Look up the given services in one registry call, so the first request
+   * to each of them does not have to. With a {@link DiscoveryCache}, the
+   * last-known instances are used right away and looked up in the background.
+   */
+  @Override
+  public void resolveAll(Collection<Class<?>> serviceInterfaces) {
+    if (watcher != null || serviceInterfaces.isEmpty()) {
+      return;
+    }
+    LinkedHashSet<String> names = new LinkedHashSet<>();
+    for (Class<?> serviceInterface : serviceInterfaces) {
+      names.add(serviceInterface.getName());
+    }
+    DiscoveryCache discoveryCache = this.discoveryCache;
+    if (discoveryCache != null && !discoveryCache.isEmpty()) {
+      long now = System.nanoTime();
+      for (String name : names) {
+        List<ServiceInstance> cached = discoveryCache.get(name);
+        if (cached != null) {
+          preResolved.putIfAbsent(name, new PreResolved(cached, now));
+        }
+      }
+      refresher().execute(() -> preResolve(names, discoveryCache));
+    }
+    else {
+      preResolve(names, discoveryCache);
+    }
+  }
+
+  private synchronized ExecutorService refresher() {
+    if (refresher == null) {
+      refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "discovery-refresh");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return refresher;
+  }
+
+  private void preResolve(Set<String> names, @Nullable DiscoveryCache discoveryCache) {
+    Map<String, List<DefaultServiceInstance>> resolved;
+    try {
+      resolved = httpOperations.getInstances(names);
+    }
+    catch (RestClientException e) {
+      log.warn("Pre-resolving {} services failed, they will be looked up on first use", names.size(), e);
+      return;
+    }
+    long now = System.nanoTime();
+    LinkedHashMap<String, List<DefaultServiceInstance>> latest = new LinkedHashMap<>();
+    for (String name : names) {
+      List<DefaultServiceInstance> instances = resolved.get(name);
+      if (instances == null || instances.isEmpty()) {
+        preResolved.remove(name);
+        latest.put(name, List.of());
+      }
+      else {
+        preResolved.put(name, new PreResolved(List.<ServiceInstance>copyOf(instances), now));
+        latest.put(name, instances);
+      }
+    }
+    if (discoveryCache != null) {
+      discoveryCache.update(latest);
+    }
+    log.debug("Pre-resolved {} of {} services", resolved.size(), names.size());
   }
 
   /**
@@ -114,6 +343,24 @@ public class HttpServiceRegistry implements ServiceRegistry<HttpRegistration>, S
     return getServiceProxy().getProxy(serviceInterface, this, methodInvoker);
   }
 
+  /**
+   * Stop looking up in the background and write the pending changes
+   * of the discovery cache.
+   */
+  @Override
+  public void destroy() {
+    stopWatching();
+    synchronized(this) {
+      if (refresher != null) {
+        refresher.shutdownNow();
+        refresher = null;
+      }
+    }
+    if (discoveryCache != null) {
+      discoveryCache.close();
+    }
+  }
+
   @Override
   public String toString() {
     return ToStringBuilder.forInstance(this)
@@ -135,4 +382,17 @@ public class HttpServiceRegistry implements ServiceRegistry<HttpRegistration>, S
     return new HttpServiceRegistry(new HttpOperations(registryURL, serialization), methodInvoker);
   }
 
+  private static final class PreResolved {
+
+    final List<ServiceInstance> instances;
+
+    final long resolvedAt;
+
+    PreResolved(List<ServiceInstance> instances, long resolvedAt) {
+      this.instances = instances;
+      this.resolvedAt = resolvedAt;
+    }
+
+  }
+
 }
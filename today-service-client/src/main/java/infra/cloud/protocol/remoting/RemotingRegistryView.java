@@ -0,0 +1,119 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol.remoting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import infra.cloud.DefaultServiceInstance;
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.RegistryEvent;
+import infra.cloud.registry.ServiceDefinition;
+import infra.cloud.registry.remoting.RegistryProtocol;
+import infra.lang.Nullable;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Local view of the registry, updated by the events of the watch stream.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 11:30
+ */
+final class RemotingRegistryView {
+
+  /** service name to definitions, guarded by this */
+  private final HashMap<String, LinkedHashSet<ServiceDefinition>> definitions = new HashMap<>();
+
+  private final ConcurrentHashMap<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+  /** becomes true once the first reset is applied */
+  private volatile boolean synced;
+
+  boolean isSynced() {
+    return synced;
+  }
+
+  /**
+   * Returns the instances of the given service, {@code null} if the
+   * view is not synced yet.
+   */
+  @Nullable
+  List<ServiceInstance> getInstances(String serviceName) {
+    if (!synced) {
+      return null;
+    }
+    return instances.getOrDefault(serviceName, List.of());
+  }
+
+  Set<String> getServices() {
+    return instances.keySet();
+  }
+
+  /**
+   * Apply an event of the watch stream.
+   */
+  synchronized void apply(ByteBuf event) {
+    RegistryEvent.Type type = RegistryProtocol.readEventType(event);
+    List<ServiceDefinition> changes = RegistryProtocol.readDefinitions(event);
+
+    HashSet<String> changed = new HashSet<>();
+    if (type == null) {
+      changed.addAll(definitions.keySet());
+      definitions.clear();
+    }
+    for (ServiceDefinition definition : changes) {
+      String name = definition.getName();
+      if (type == null || type == RegistryEvent.Type.REGISTERED) {
+        definitions.computeIfAbsent(name, k -> new LinkedHashSet<>()).add(definition);
+      }
+      else {
+        LinkedHashSet<ServiceDefinition> set = definitions.get(name);
+        if (set != null) {
+          set.remove(definition);
+          if (set.isEmpty()) {
+            definitions.remove(name);
+          }
+        }
+      }
+      changed.add(name);
+    }
+
+    for (String name : changed) {
+      LinkedHashSet<ServiceDefinition> set = definitions.get(name);
+      if (set == null) {
+        instances.remove(name);
+      }
+      else {
+        ArrayList<ServiceInstance> list = new ArrayList<>(set.size());
+        for (ServiceDefinition definition : set) {
+          list.add(new DefaultServiceInstance(HttpRegistration.instanceId(definition),
+                  definition.getName(), definition.getHost(), definition.getPort()));
+        }
+        instances.put(name, List.copyOf(list));
+      }
+    }
+    this.synced = true;
+  }
+
+}
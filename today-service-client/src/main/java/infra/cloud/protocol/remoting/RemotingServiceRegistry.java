@@ -0,0 +1,335 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol.remoting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import infra.beans.factory.DisposableBean;
+import infra.cloud.DiscoveryClient;
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.ServiceDefinition;
+import infra.cloud.registry.ServiceNotFoundException;
+import infra.cloud.registry.ServiceRegisterFailedException;
+import infra.cloud.registry.ServiceRegistry;
+import infra.cloud.registry.remoting.RegistryProtocol;
+import infra.context.SmartLifecycle;
+import infra.core.style.ToStringBuilder;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+import infra.remoting.Channel;
+import infra.remoting.Payload;
+import infra.remoting.core.ChannelConnector;
+import infra.remoting.transport.ClientTransport;
+import infra.remoting.transport.netty.client.TcpClientTransport;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Registry client over a single long-lived remoting connection, see
+ * {@link RegistryProtocol}.
+ * <p>
+ * Registrations and heartbeats are fire-and-forget. The registry asks to
+ * register again the instances it does not know when they heartbeat, after
+ * an eviction or its restart, the registrations sent by this client are
+ * kept for that. Lookups are request-response, unless {@link #startWatching()}
+ * keeps a local view updated by the watch stream of the registry. As a
+ * lifecycle bean with {@link #setWatch watch} enabled, it watches while running.
+ * <p>
+ * The connection is re-established with a backoff when it is lost.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 11:40
+ */
+public class RemotingServiceRegistry implements ServiceRegistry<HttpRegistration>, DiscoveryClient, SmartLifecycle, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(RemotingServiceRegistry.class);
+
+  private static final Retry RECONNECT = Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(100))
+          .maxBackoff(Duration.ofSeconds(10));
+
+  private final Mono<Channel> registry;
+
+  /** instance id to its definitions, registered through this client */
+  private final ConcurrentHashMap<String, Set<ServiceDefinition>> registrations = new ConcurrentHashMap<>();
+
+  private final RemotingRegistryView view = new RemotingRegistryView();
+
+  private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  private Duration timeout = Duration.ofSeconds(10);
+
+  @Nullable
+  private Disposable watch;
+
+  private boolean watchOnStart;
+
+  public RemotingServiceRegistry(String host, int port) {
+    this(TcpClientTransport.create(host, port));
+  }
+
+  public RemotingServiceRegistry(ClientTransport transport) {
+    Assert.notNull(transport, "ClientTransport is required");
+    this.registry = ChannelConnector.create()
+            .acceptor((setup, registry) -> Mono.just(new Channel() {
+              @Override
+              public Mono<Void> fireAndForget(Payload payload) {
+                return handleRequest(payload);
+              }
+            }))
+            .reconnect(RECONNECT)
+            .connect(transport);
+  }
+
+  public void setAllocator(ByteBufAllocator allocator) {
+    Assert.notNull(allocator, "ByteBufAllocator is required");
+    this.allocator = allocator;
+  }
+
+  /**
+   * Set the max time to wait for the registry.
+   */
+  public void setTimeout(Duration timeout) {
+    Assert.notNull(timeout, "timeout is required");
+    this.timeout = timeout;
+  }
+
+  /**
+   * Keep a local view of the registry, updated by its watch stream,
+   * instead of looking up the registry on each request.
+   */
+  public synchronized void startWatching() {
+    if (watch == null) {
+      watch = registry.flatMapMany(channel -> channel.requestStream(request(RegistryProtocol.WATCH, data -> { })))
+              .doOnNext(event -> {
+                try {
+                  view.apply(event.data());
+                }
+                finally {
+                  event.release();
+                }
+              })
+              .doOnError(error -> log.warn("Watching registry failed, retrying", error))
+              .retryWhen(RECONNECT)
+              .repeat()
+              .subscribe();
+    }
+  }
+
+  public synchronized void stopWatching() {
+    if (watch != null) {
+      watch.dispose();
+      watch = null;
+    }
+  }
+
+  /**
+   * Watch the registry while this bean is running.
+   *
+   * @see #startWatching()
+   */
+  public void setWatch(boolean watch) {
+    this.watchOnStart = watch;
+  }
+
+  public boolean isWatch() {
+    return watchOnStart;
+  }
+
+  @Override
+  public void start() {
+    if (watchOnStart) {
+      startWatching();
+    }
+  }
+
+  @Override
+  public void stop() {
+    stopWatching();
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return watch != null;
+  }
+
+  @Override
+  public void register(HttpRegistration registration) {
+    List<ServiceDefinition> definitions = registration.getServiceDefinitions();
+    remember(definitions);
+    try {
+      send(RegistryProtocol.REGISTER, definitions);
+    }
+    catch (RuntimeException e) {
+      throw new ServiceRegisterFailedException(registration, e);
+    }
+  }
+
+  @Override
+  public void unregister(HttpRegistration registration) {
+    List<ServiceDefinition> definitions = registration.getServiceDefinitions();
+    for (ServiceDefinition definition : definitions) {
+      Set<ServiceDefinition> registered = registrations.get(HttpRegistration.instanceId(definition));
+      if (registered != null) {
+        registered.remove(definition);
+      }
+    }
+    send(RegistryProtocol.UNREGISTER, definitions);
+  }
+
+  /**
+   * Sends the heartbeat without waiting for the registry, it asks to
+   * register again when it does not know the instance.
+   *
+   * @return always {@code true}
+   */
+  @Override
+  public boolean heartbeat(HttpRegistration registration) {
+    List<ServiceDefinition> definitions = registration.getServiceDefinitions();
+    remember(definitions);
+    Set<String> instanceIds = new LinkedHashSet<>();
+    for (ServiceDefinition definition : definitions) {
+      instanceIds.add(HttpRegistration.instanceId(definition));
+    }
+    fireAndForget(RegistryProtocol.HEARTBEAT, data -> RegistryProtocol.writeStrings(data, instanceIds))
+            .block(timeout);
+    return true;
+  }
+
+  @Override
+  public List<ServiceInstance> getInstances(String serviceId) {
+    List<ServiceInstance> instances = view.getInstances(serviceId);
+    if (instances == null) {
+      instances = requestResponse(RegistryProtocol.LOOKUP,
+              data -> RegistryProtocol.writeString(data, serviceId), RegistryProtocol::readInstances);
+    }
+    if (instances == null || instances.isEmpty()) {
+      throw new ServiceNotFoundException(serviceId);
+    }
+    return instances;
+  }
+
+  @Override
+  public List<String> getServices() {
+    if (view.isSynced()) {
+      return new ArrayList<>(view.getServices());
+    }
+    List<String> services = requestResponse(RegistryProtocol.SERVICES, data -> { }, RegistryProtocol::readStrings);
+    return services == null ? new ArrayList<>() : services;
+  }
+
+  @Override
+  public void destroy() {
+    stopWatching();
+    // the reconnecting connection closes the current channel
+    if (registry instanceof Disposable connection) {
+      connection.dispose();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder.forInstance(this)
+            .append("registrations", registrations.size())
+            .append("watching", watch != null)
+            .toString();
+  }
+
+  /**
+   * Handle the requests of the registry.
+   */
+  private Mono<Void> handleRequest(Payload payload) {
+    try {
+      if (RegistryProtocol.operation(payload) != RegistryProtocol.REREGISTER) {
+        return Mono.empty();
+      }
+      ArrayList<ServiceDefinition> definitions = new ArrayList<>();
+      for (String instanceId : RegistryProtocol.readStrings(payload.data())) {
+        Set<ServiceDefinition> registered = registrations.get(instanceId);
+        if (registered != null) {
+          definitions.addAll(registered);
+        }
+      }
+      if (!definitions.isEmpty()) {
+        log.info("Registry does not know the instances, registering again: {}", definitions);
+        fireAndForget(RegistryProtocol.REGISTER, data -> RegistryProtocol.writeDefinitions(data, definitions))
+                .subscribe(null, error -> log.warn("Registering again failed: {}", definitions, error));
+      }
+      return Mono.empty();
+    }
+    finally {
+      payload.release();
+    }
+  }
+
+  private void remember(List<ServiceDefinition> definitions) {
+    for (ServiceDefinition definition : definitions) {
+      registrations.computeIfAbsent(HttpRegistration.instanceId(definition), id -> new CopyOnWriteArraySet<>())
+              .add(definition);
+    }
+  }
+
+  private void send(byte operation, List<ServiceDefinition> definitions) {
+    fireAndForget(operation, data -> RegistryProtocol.writeDefinitions(data, definitions))
+            .block(timeout);
+  }
+
+  private Mono<Void> fireAndForget(byte operation, Consumer<ByteBuf> writer) {
+    return registry.flatMap(channel -> channel.fireAndForget(request(operation, writer)));
+  }
+
+  @Nullable
+  private <T> T requestResponse(byte operation, Consumer<ByteBuf> writer, Function<ByteBuf, T> reader) {
+    return registry.flatMap(channel -> channel.requestResponse(request(operation, writer)))
+            .map(response -> {
+              try {
+                return reader.apply(response.data());
+              }
+              finally {
+                response.release();
+              }
+            })
+            .block(timeout);
+  }
+
+  private Payload request(byte operation, Consumer<ByteBuf> writer) {
+    ByteBuf data = allocator.buffer();
+    try {
+      writer.accept(data);
+    }
+    catch (RuntimeException e) {
+      data.release();
+      throw e;
+    }
+    return RegistryProtocol.request(allocator, operation, data);
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.serialize;
+
+import java.io.IOException;
+
+import infra.cloud.core.serialize.DeserializeFailedException;
+import infra.core.MethodParameter;
+import infra.lang.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.protostuff.Input;
+import io.protostuff.Output;
+
+/**
+ * Serialization for {@link ByteBuf} arguments.
+ * <p>
+ * On the provider side the argument is exposed as a retained slice of the
+ * received frame, so large binary arguments are never copied to the heap.
+ * The slice is released by the provider once the invocation completes.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 10:21
+ */
+public class ByteBufArgumentSerialization implements RpcArgumentSerialization<ByteBuf> {
+
+  @Override
+  public boolean supportsArgument(MethodParameter parameter) {
+    return ByteBuf.class.isAssignableFrom(parameter.getParameterType());
+  }
+
+  @Override
+  public void serialize(MethodParameter parameter, @Nullable ByteBuf value, ByteBuf payload, Output output) throws IOException {
+    payload.writeBoolean(value != null);
+    if (value != null) {
+      payload.writeBytes(value, value.readerIndex(), value.readableBytes());
+    }
+  }
+
+  @Nullable
+  @Override
+  public ByteBuf deserialize(MethodParameter parameter, ByteBuf payload, Input input) throws DeserializeFailedException {
+    boolean present = payload.readBoolean();
+    if (!present) {
+      return null;
+    }
+    return payload.readRetainedSlice(payload.readableBytes());
+  }
+
+}
@@ -45,14 +45,18 @@ public class RpcRequestSerialization {
 //    output.writeString(1, request.getMethodName(), true);
 //    output.writeString(2, request.getServiceName(), true);
 
-    payload.writeInt(request.getMethodName().length());
-    payload.writeCharSequence(request.getMethodName(), StandardCharsets.UTF_8);
-
-    payload.writeInt(request.getServiceName().length());
-    payload.writeCharSequence(request.getServiceName(), StandardCharsets.UTF_8);
+    writeString(payload, request.getMethodName());
+    writeString(payload, request.getServiceName());
 
     RpcMethod rpcMethod = request.getRpcMethod();
 
+    // parameter types, identifies overloaded methods
+    Class<?>[] parameterTypes = rpcMethod.getMethod().getParameterTypes();
+    payload.writeShort(parameterTypes.length);
+    for (Class<?> parameterType : parameterTypes) {
+      writeString(payload, parameterType.getName());
+    }
+
     int idx = 0;
     Object[] arguments = request.getArguments();
 
@@ -60,11 +64,23 @@ public class RpcRequestSerialization {
     beforeSerializeArguments(output, arguments);
     for (MethodParameter parameter : rpcMethod.getParameters()) {
       var serialization = findArgumentSerialization(parameter);
+      // length-prefixed, so that the provider can locate and slice
+      // any argument without decoding the ones before it
+      int lengthIndex = payload.writerIndex();
+      payload.writeInt(0);
       serialization.serialize(parameter, arguments[idx++], payload, output);
+      payload.setInt(lengthIndex, payload.writerIndex() - lengthIndex - Integer.BYTES);
     }
     afterSerializeArguments(output, arguments);
   }
 
+  private static void writeString(ByteBuf payload, String value) {
+    int lengthIndex = payload.writerIndex();
+    payload.writeInt(0);
+    int length = payload.writeCharSequence(value, StandardCharsets.UTF_8);
+    payload.setInt(lengthIndex, length);
+  }
+
   private RpcArgumentSerialization findArgumentSerialization(MethodParameter parameter) {
     for (var argumentSerialization : argumentSerializations) {
       if (argumentSerialization.supportsArgument(parameter)) {
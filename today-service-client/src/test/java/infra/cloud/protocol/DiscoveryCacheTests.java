@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import infra.cloud.DefaultServiceInstance;
+import infra.cloud.ServiceInstance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 17:30
+ */
+class DiscoveryCacheTests {
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void updatesAreWrittenInBackground() {
+    Path file = directory.resolve("discovery.cache");
+    DiscoveryCache cache = DiscoveryCache.load(file);
+    cache.setWriteDelay(Duration.ofMillis(200));
+
+    cache.update(SERVICE, List.of(instance("10.0.0.1")));
+    // not on the calling thread
+    assertThat(file).doesNotExist();
+    cache.update(SERVICE, List.of(instance("10.0.0.1"), instance("10.0.0.2")));
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(file));
+    assertThat(DiscoveryCache.load(file).get(SERVICE)).extracting(ServiceInstance::getHost)
+            .containsExactly("10.0.0.1", "10.0.0.2");
+    cache.close();
+  }
+
+  @Test
+  void closeWritesPendingChanges() {
+    Path file = directory.resolve("discovery.cache");
+    DiscoveryCache cache = DiscoveryCache.load(file);
+    cache.setWriteDelay(Duration.ofMinutes(1));
+
+    cache.update(SERVICE, List.of(instance("10.0.0.1")));
+    cache.close();
+
+    assertThat(DiscoveryCache.load(file).get(SERVICE)).extracting(ServiceInstance::getHost)
+            .containsExactly("10.0.0.1");
+
+    // not written once closed
+    cache.remove(SERVICE);
+    assertThat(DiscoveryCache.load(file).get(SERVICE)).hasSize(1);
+  }
+
+  private static ServiceInstance instance(String host) {
+    return new DefaultServiceInstance(host + ":9001", SERVICE, host, 9001);
+  }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import infra.cloud.ServiceInstance;
+import infra.cloud.core.serialize.JdkSerialization;
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.cloud.registry.ServiceNotFoundException;
+import infra.web.client.HttpClientErrorException;
+import infra.web.client.HttpServerErrorException;
+import infra.web.client.ResourceAccessException;
+
+import static infra.cloud.protocol.http.HttpRegistryWatcherTests.SERVICE;
+import static infra.cloud.protocol.http.HttpRegistryWatcherTests.registration;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * {@link HttpOperations} against registry nodes served by {@link StubRegistryServer}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/20 00:40
+ */
+class HttpOperationsTests {
+
+  private final HttpServiceRegistryEndpoint endpoint = new HttpServiceRegistryEndpoint(Duration.ofSeconds(30), new ObjectMapper());
+
+  @AfterEach
+  void destroy() throws InterruptedException {
+    endpoint.destroy();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void lookupRevalidatedWithEntityTag() throws Exception {
+    try (StubRegistryServer server = new StubRegistryServer(endpoint)) {
+      HttpOperations operations = new HttpOperations(server.getURL(), new JdkSerialization<>());
+      endpoint.register(registration(SERVICE, "10.0.5.1"));
+
+      List<ServiceInstance> first = operations.getInstances(SERVICE);
+      assertThat(first).extracting(ServiceInstance::getHost).containsExactly("10.0.5.1");
+      // not modified, the cached result is used
+      assertThat(operations.getInstances(SERVICE)).isSameAs(first);
+
+      endpoint.register(registration(SERVICE, "10.0.5.2"));
+      List<ServiceInstance> changed = operations.getInstances(SERVICE);
+      assertThat(changed).isNotSameAs(first)
+              .extracting(ServiceInstance::getHost).containsExactlyInAnyOrder("10.0.5.1", "10.0.5.2");
+
+      endpoint.unregister(registration(SERVICE, "10.0.5.1"));
+      endpoint.unregister(registration(SERVICE, "10.0.5.2"));
+      assertThatExceptionOfType(ServiceNotFoundException.class)
+              .isThrownBy(() -> operations.getInstances(SERVICE));
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void failoverOnServerError() throws Exception {
+    endpoint.register(registration(SERVICE, "10.0.5.1"));
+    try (StubRegistryServer first = new StubRegistryServer(endpoint);
+            StubRegistryServer second = new StubRegistryServer(endpoint)) {
+      HttpOperations operations = new HttpOperations(List.of(first.getURL(), second.getURL()), new JdkSerialization<>());
+      first.failWith(503);
+
+      List<ServiceInstance> instances = operations.getInstances(SERVICE);
+      assertThat(instances).extracting(ServiceInstance::getHost).containsExactly("10.0.5.1");
+      assertThat(first.getRequests()).isOne();
+      assertThat(second.getRequests()).isOne();
+
+      // the node that answered stays in use
+      first.failWith(0);
+      assertThat(operations.heartbeat("10.0.5.1:9001")).isTrue();
+      assertThat(first.getRequests()).isOne();
+      assertThat(second.getRequests()).isEqualTo(2);
+
+      second.failWith(500);
+      assertThat(operations.heartbeat("10.0.5.1:9001")).isTrue();
+      assertThat(first.getRequests()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void failoverOnIoError() throws Exception {
+    endpoint.register(registration(SERVICE, "10.0.5.1"));
+    StubRegistryServer stopped = new StubRegistryServer(endpoint);
+    String unreachable = stopped.getURL();
+    stopped.close();
+    try (StubRegistryServer server = new StubRegistryServer(endpoint)) {
+      HttpOperations operations = new HttpOperations(unreachable + "," + server.getURL(), new JdkSerialization<>());
+
+      List<ServiceInstance> instances = operations.getInstances(SERVICE);
+      assertThat(instances).extracting(ServiceInstance::getHost).containsExactly("10.0.5.1");
+      assertThat(operations.getServices()).containsOnlyKeys(SERVICE);
+      assertThat(server.getRequests()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void clientErrorNotFailedOver() throws Exception {
+    try (StubRegistryServer first = new StubRegistryServer(endpoint);
+            StubRegistryServer second = new StubRegistryServer(endpoint)) {
+      HttpOperations operations = new HttpOperations(List.of(first.getURL(), second.getURL()), new JdkSerialization<>());
+
+      // the service is unknown, the other node would not know it either
+      assertThatExceptionOfType(ServiceNotFoundException.class)
+              .isThrownBy(() -> operations.getInstances(SERVICE));
+      assertThat(operations.heartbeat("10.0.5.1:9001")).isFalse();
+
+      first.failWith(400);
+      assertThatExceptionOfType(HttpClientErrorException.class)
+              .isThrownBy(() -> operations.getServices());
+      assertThat(second.getRequests()).isZero();
+    }
+  }
+
+  @Test
+  void allNodesFailing() throws Exception {
+    StubRegistryServer stopped = new StubRegistryServer(endpoint);
+    String unreachable = stopped.getURL();
+    stopped.close();
+    try (StubRegistryServer server = new StubRegistryServer(endpoint)) {
+      HttpOperations operations = new HttpOperations(List.of(server.getURL(), unreachable), new JdkSerialization<>());
+      server.failWith(503);
+
+      assertThatExceptionOfType(HttpServerErrorException.class)
+              .isThrownBy(() -> operations.getServices())
+              .satisfies(ex -> assertThat(ex.getSuppressed()).singleElement()
+                      .isInstanceOf(ResourceAccessException.class));
+    }
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import infra.cloud.ServiceInstance;
+import infra.cloud.core.serialize.JdkSerialization;
+import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.cloud.registry.ServiceDefinition;
+import infra.cloud.registry.WatchResult;
+import infra.lang.Nullable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * The local view of a {@link HttpRegistryWatcher} following the changes
+ * of a registry endpoint.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/20 00:10
+ */
+class HttpRegistryWatcherTests {
+
+  static final String SERVICE = "infra.cloud.samples.UserService";
+
+  private final HttpServiceRegistryEndpoint endpoint = new HttpServiceRegistryEndpoint(Duration.ofSeconds(30), new ObjectMapper());
+
+  private final HttpRegistryWatcher watcher = new HttpRegistryWatcher(
+          new HttpOperations("http://127.0.0.1:1/services", new JdkSerialization<>()), 1000);
+
+  @Nullable
+  private WatchResult last;
+
+  @AfterEach
+  void destroy() throws InterruptedException {
+    watcher.stop();
+    endpoint.destroy();
+  }
+
+  @Test
+  void viewFollowsChanges() {
+    assertThat(watcher.isSynced()).isFalse();
+    assertThat(watcher.getInstances(SERVICE)).isNull();
+
+    HttpRegistration first = registration(SERVICE, "10.0.4.1");
+    endpoint.register(first);
+    WatchResult result = sync();
+    assertThat(result.isReset()).isTrue();
+    assertThat(watcher.isSynced()).isTrue();
+    assertThat(hosts(SERVICE)).containsExactly("10.0.4.1");
+
+    HttpRegistration second = registration(SERVICE, "10.0.4.2");
+    endpoint.register(second);
+    assertThat(sync().isReset()).isFalse();
+    assertThat(hosts(SERVICE)).containsExactly("10.0.4.1", "10.0.4.2");
+
+    endpoint.unregister(first);
+    sync();
+    assertThat(hosts(SERVICE)).containsExactly("10.0.4.2");
+
+    endpoint.unregister(second);
+    sync();
+    assertThat(watcher.getInstances(SERVICE)).isEmpty();
+    assertThat(watcher.getServices()).doesNotContain(SERVICE);
+  }
+
+  @Test
+  void registryRestartResetsView() throws InterruptedException {
+    endpoint.register(registration(SERVICE, "10.0.4.1"));
+    sync();
+
+    // another run of the registry, with another epoch
+    HttpServiceRegistryEndpoint restarted = new HttpServiceRegistryEndpoint(Duration.ofSeconds(30), new ObjectMapper());
+    try {
+      restarted.register(registration(SERVICE + "2", "10.0.4.3"));
+      watcher.apply(restarted.watch(endpoint.getChangeLog().getEpoch(), 1, 0).join());
+      assertThat(watcher.getServices()).containsExactly(SERVICE + "2");
+      assertThat(watcher.getInstances(SERVICE)).isEmpty();
+    }
+    finally {
+      restarted.destroy();
+    }
+  }
+
+  @Test
+  void truncatedLogResetsView() {
+    HttpRegistration first = registration(SERVICE, "10.0.4.1");
+    endpoint.register(first);
+    sync();
+
+    // the un-registration falls out of the change log
+    endpoint.unregister(first);
+    ArrayList<ServiceDefinition> definitions = new ArrayList<>();
+    for (int i = 0; i < 8200; i++) {
+      definitions.add(registration(SERVICE + i, "10.0.4.4").getServiceDefinitions().get(0));
+    }
+    endpoint.register(new HttpRegistration(definitions));
+
+    assertThat(sync().isReset()).isTrue();
+    assertThat(watcher.getInstances(SERVICE)).isEmpty();
+    assertThat(watcher.getServices()).hasSize(8200);
+    assertThat(hosts(SERVICE + 0)).containsExactly("10.0.4.4");
+  }
+
+  @Test
+  void watchesOverHttp() throws Exception {
+    try (StubRegistryServer server = new StubRegistryServer(endpoint)) {
+      // unavailable at first, the watcher backs off and retries
+      server.failWith(503);
+      HttpServiceRegistry registry = HttpServiceRegistry.ofURL(server.getURL());
+      registry.setWatch(true);
+      registry.start();
+      await().atMost(Duration.ofSeconds(5)).until(() -> server.getRequests() >= 2);
+
+      endpoint.register(registration(SERVICE, "10.0.4.1"));
+      server.failWith(0);
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+              assertThat(registry.getInstances(SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.4.1"));
+
+      // delivered to the parked long-poll
+      endpoint.register(registration(SERVICE, "10.0.4.2"));
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+              assertThat(registry.getInstances(SERVICE)).extracting(ServiceInstance::getHost)
+                      .containsExactly("10.0.4.1", "10.0.4.2"));
+      assertThat(registry.getServices()).containsExactly(SERVICE);
+
+      registry.stop();
+      assertThat(registry.isRunning()).isFalse();
+    }
+  }
+
+  /**
+   * Apply the changes after the revision of the watcher, as its thread does.
+   */
+  private WatchResult sync() {
+    WatchResult last = this.last;
+    WatchResult result = last == null
+            ? endpoint.watch(0, 0, 0).join()
+            : endpoint.watch(last.getEpoch(), last.getRevision(), 0).join();
+    watcher.apply(result);
+    this.last = result;
+    return result;
+  }
+
+  private List<String> hosts(String service) {
+    List<ServiceInstance> instances = watcher.getInstances(service);
+    assertThat(instances).isNotNull();
+    return instances.stream().map(ServiceInstance::getHost).toList();
+  }
+
+  static HttpRegistration registration(String service, String host) {
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName(service);
+    definition.setHost(host);
+    definition.setPort(9001);
+    definition.setVersion("1.0");
+    return new HttpRegistration(List.of(definition));
+  }
+
+}
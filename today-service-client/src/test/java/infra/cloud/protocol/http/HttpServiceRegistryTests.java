@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import infra.cloud.DefaultServiceInstance;
+import infra.cloud.ServiceInstance;
+import infra.cloud.core.serialize.JdkSerialization;
+import infra.cloud.protocol.DiscoveryCache;
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.cloud.registry.ServiceNotFoundException;
+
+import static infra.cloud.protocol.http.HttpRegistryWatcherTests.registration;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * {@link HttpServiceRegistry#resolveAll} against a registry served by
+ * {@link StubRegistryServer}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/20 09:10
+ */
+class HttpServiceRegistryTests {
+
+  private static final String USER_SERVICE = UserService.class.getName();
+
+  private static final String ORDER_SERVICE = OrderService.class.getName();
+
+  private final HttpServiceRegistryEndpoint endpoint = new HttpServiceRegistryEndpoint(Duration.ofSeconds(30), new ObjectMapper());
+
+  @TempDir
+  Path directory;
+
+  @AfterEach
+  void destroy() throws InterruptedException {
+    endpoint.destroy();
+  }
+
+  @Test
+  void lookupAllInOneRequest() throws Exception {
+    endpoint.register(registration(USER_SERVICE, "10.0.6.1"));
+    try (StubRegistryServer server = new StubRegistryServer(endpoint)) {
+      HttpOperations operations = new HttpOperations(server.getURL(), new JdkSerialization<>());
+
+      Map<String, List<DefaultServiceInstance>> instances = operations.getInstances(Set.of(USER_SERVICE, ORDER_SERVICE));
+      // the unknown services are left out
+      assertThat(instances).containsOnlyKeys(USER_SERVICE);
+      assertThat(instances.get(USER_SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.6.1");
+      assertThat(server.getRequests()).isOne();
+    }
+  }
+
+  @Test
+  void resolveAllThenFirstUseWithoutLookup() throws Exception {
+    endpoint.register(registration(USER_SERVICE, "10.0.6.1"));
+    try (StubRegistryServer server = new StubRegistryServer(endpoint)) {
+      HttpServiceRegistry registry = new HttpServiceRegistry(new HttpOperations(server.getURL(), new JdkSerialization<>()));
+      registry.resolveAll(List.of(UserService.class, OrderService.class));
+      assertThat(server.getRequests()).isOne();
+
+      assertThat(registry.getInstances(USER_SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.6.1");
+      assertThat(server.getRequests()).isOne();
+
+      // used once, then looked up again
+      assertThat(registry.getInstances(USER_SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.6.1");
+      assertThat(server.getRequests()).isEqualTo(2);
+
+      assertThatExceptionOfType(ServiceNotFoundException.class)
+              .isThrownBy(() -> registry.getInstances(ORDER_SERVICE));
+      registry.destroy();
+    }
+  }
+
+  @Test
+  void resolveAllFailureLeavesLookupToFirstUse() throws Exception {
+    endpoint.register(registration(USER_SERVICE, "10.0.6.1"));
+    try (StubRegistryServer server = new StubRegistryServer(endpoint)) {
+      HttpServiceRegistry registry = new HttpServiceRegistry(new HttpOperations(server.getURL(), new JdkSerialization<>()));
+      server.failWith(503);
+      registry.resolveAll(List.of(UserService.class));
+
+      server.failWith(0);
+      assertThat(registry.getInstances(USER_SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.6.1");
+      assertThat(server.getRequests()).isEqualTo(2);
+      registry.destroy();
+    }
+  }
+
+  @Test
+  void cachedInstancesRefreshedInBackground() throws Exception {
+    DiscoveryCache cache = DiscoveryCache.load(directory.resolve("discovery.cache"));
+    cache.update(USER_SERVICE, List.of(new DefaultServiceInstance("10.0.6.9:9001", USER_SERVICE, "10.0.6.9", 9001)));
+    endpoint.register(registration(USER_SERVICE, "10.0.6.1"));
+    try (StubRegistryServer server = new StubRegistryServer(endpoint)) {
+      HttpServiceRegistry registry = new HttpServiceRegistry(new HttpOperations(server.getURL(), new JdkSerialization<>()));
+      registry.setDiscoveryCache(cache);
+
+      registry.resolveAll(List.of(UserService.class));
+      registry.resolveAll(List.of(UserService.class, OrderService.class));
+      await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+        assertThat(server.getRequests()).isEqualTo(2);
+        assertThat(cache.get(USER_SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.6.1");
+      });
+      // one thread for the lookups however many calls
+      assertThat(refreshThreads()).isOne();
+
+      assertThat(registry.getInstances(USER_SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.6.1");
+      assertThat(server.getRequests()).isEqualTo(2);
+
+      registry.destroy();
+      await().atMost(Duration.ofSeconds(5)).until(() -> refreshThreads() == 0);
+    }
+  }
+
+  private static long refreshThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("discovery-refresh"))
+            .count();
+  }
+
+  interface UserService {
+
+  }
+
+  interface OrderService {
+
+  }
+
+}
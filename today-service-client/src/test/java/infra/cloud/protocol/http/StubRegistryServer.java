@@ -0,0 +1,177 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol.http;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.cloud.registry.ServiceNotFoundException;
+import infra.http.HttpHeaders;
+import infra.http.ResponseEntity;
+import infra.lang.Nullable;
+
+/**
+ * Serves the HTTP API of a {@link HttpServiceRegistryEndpoint} on a local
+ * port, and can be told to answer every request with an error status.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 23:55
+ */
+final class StubRegistryServer implements AutoCloseable {
+
+  private static final String PATH = "/services";
+
+  private final HttpServiceRegistryEndpoint endpoint;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  private final HttpServer server;
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private volatile int failureStatus;
+
+  StubRegistryServer(HttpServiceRegistryEndpoint endpoint) throws IOException {
+    this.endpoint = endpoint;
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    // long polls hold their thread
+    server.setExecutor(executor);
+    server.createContext(PATH, this::handle);
+    server.start();
+  }
+
+  String getURL() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+  }
+
+  /**
+   * Answer every request with the given status, {@code 0} to serve them again.
+   */
+  void failWith(int status) {
+    this.failureStatus = status;
+  }
+
+  /**
+   * Returns the number of requests received.
+   */
+  int getRequests() {
+    return requests.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    try (exchange) {
+      int failureStatus = this.failureStatus;
+      if (failureStatus != 0) {
+        exchange.sendResponseHeaders(failureStatus, -1);
+        return;
+      }
+      String path = exchange.getRequestURI().getPath().substring(PATH.length());
+      String method = exchange.getRequestMethod();
+      try {
+        if (path.isEmpty() || path.equals("/")) {
+          switch (method) {
+            case "GET" -> send(exchange, 200, null, objectMapper.writeValueAsBytes(endpoint.services()));
+            case "POST" -> {
+              endpoint.register(objectMapper.readValue(exchange.getRequestBody(), HttpRegistration.class));
+              send(exchange, 200, null, null);
+            }
+            case "DELETE" -> {
+              endpoint.unregister(objectMapper.readValue(exchange.getRequestBody(), HttpRegistration.class));
+              send(exchange, 200, null, null);
+            }
+            default -> send(exchange, 405, null, null);
+          }
+        }
+        else if (path.equals("/watch")) {
+          Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+          var result = endpoint.watch(Long.parseLong(query.getOrDefault("epoch", "0")),
+                  Long.parseLong(query.getOrDefault("revision", "0")),
+                  Long.parseLong(query.getOrDefault("timeout", "30000"))).join();
+          send(exchange, 200, null, objectMapper.writeValueAsBytes(result));
+        }
+        else if (path.equals("/lookup") && method.equals("POST")) {
+          Set<String> names = objectMapper.readValue(exchange.getRequestBody(), new TypeReference<>() { });
+          send(exchange, 200, null, objectMapper.writeValueAsBytes(endpoint.lookupAll(names)));
+        }
+        else if (path.startsWith("/heartbeat/") && method.equals("PUT")) {
+          endpoint.heartbeat(path.substring("/heartbeat/".length()));
+          send(exchange, 200, null, null);
+        }
+        else {
+          ResponseEntity<byte[]> response = endpoint.lookup(path.substring(1),
+                  exchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+          send(exchange, response.getStatusCode().value(), response.getHeaders().getETag(), response.getBody());
+        }
+      }
+      catch (ServiceNotFoundException e) {
+        send(exchange, 404, null, null);
+      }
+    }
+  }
+
+  private static void send(HttpExchange exchange, int status, @Nullable String etag, @Nullable byte[] body) throws IOException {
+    if (etag != null) {
+      exchange.getResponseHeaders().set(HttpHeaders.ETAG, etag);
+    }
+    if (body == null || status == 304) {
+      exchange.sendResponseHeaders(status, -1);
+    }
+    else {
+      exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+      exchange.sendResponseHeaders(status, body.length);
+      exchange.getResponseBody().write(body);
+    }
+  }
+
+  private static Map<String, String> query(@Nullable String query) {
+    LinkedHashMap<String, String> ret = new LinkedHashMap<>();
+    if (query != null) {
+      for (String pair : query.split("&")) {
+        int idx = pair.indexOf('=');
+        if (idx > 0) {
+          ret.put(pair.substring(0, idx), pair.substring(idx + 1));
+        }
+      }
+    }
+    return ret;
+  }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.protocol.remoting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.cloud.registry.ServiceDefinition;
+import infra.cloud.registry.ServiceNotFoundException;
+import infra.cloud.registry.remoting.RegistryChannel;
+import infra.remoting.Closeable;
+import infra.remoting.core.RemotingServer;
+import infra.remoting.transport.local.LocalClientTransport;
+import infra.remoting.transport.local.LocalServerTransport;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * A {@link RemotingServiceRegistry} talking to a registry endpoint over
+ * the local transport.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 16:00
+ */
+class RemotingServiceRegistryTests {
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  private final HttpServiceRegistryEndpoint endpoint =
+          new HttpServiceRegistryEndpoint(Duration.ofSeconds(30), new ObjectMapper());
+
+  private final Scheduler scheduler = Schedulers.newSingle("remoting-registry-test");
+
+  private Closeable server;
+
+  private RemotingServiceRegistry registry;
+
+  @BeforeEach
+  void setup() {
+    server = RemotingServer.create((setup, client) -> Mono.just(new RegistryChannel(endpoint, client, 16, scheduler)))
+            .bindNow(LocalServerTransport.create("remoting-registry-test"));
+    registry = new RemotingServiceRegistry(LocalClientTransport.create("remoting-registry-test"));
+  }
+
+  @AfterEach
+  void destroy() throws InterruptedException {
+    registry.destroy();
+    server.dispose();
+    scheduler.dispose();
+    endpoint.destroy();
+  }
+
+  @Test
+  void registerThenLookup() {
+    HttpRegistration registration = registration("10.0.0.1");
+    registry.register(registration);
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThat(registry.getInstances(SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.0.1"));
+    assertThat(registry.getServices()).containsExactly(SERVICE);
+
+    registry.unregister(registration);
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThatExceptionOfType(ServiceNotFoundException.class).isThrownBy(() -> registry.getInstances(SERVICE)));
+  }
+
+  @Test
+  void watchKeepsViewUpdated() {
+    endpoint.register(registration("10.0.0.1"));
+    registry.setWatch(true);
+    registry.start();
+    assertThat(registry.isRunning()).isTrue();
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThat(registry.getInstances(SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.0.1"));
+
+    HttpRegistration registration = registration("10.0.0.2");
+    endpoint.register(registration);
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThat(registry.getInstances(SERVICE)).extracting(ServiceInstance::getHost)
+                    .containsExactlyInAnyOrder("10.0.0.1", "10.0.0.2"));
+
+    endpoint.unregister(registration);
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThat(registry.getInstances(SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.0.1"));
+
+    registry.stop();
+    assertThat(registry.isRunning()).isFalse();
+  }
+
+  @Test
+  void heartbeatRegistersAgainOnceForgotten() {
+    HttpRegistration registration = registration("10.0.0.3");
+    registry.register(registration);
+    await().atMost(Duration.ofSeconds(5)).until(() -> !instances().isEmpty());
+
+    // as after an eviction or a restart of the registry
+    endpoint.unregister(registration);
+    assertThat(instances()).isEmpty();
+
+    registry.heartbeat(registration);
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThat(instances()).extracting(ServiceInstance::getHost).containsExactly("10.0.0.3"));
+  }
+
+  private List<ServiceInstance> instances() {
+    try {
+      return endpoint.getInstances(SERVICE);
+    }
+    catch (ServiceNotFoundException e) {
+      return List.of();
+    }
+  }
+
+  private static HttpRegistration registration(String host) {
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName(SERVICE);
+    definition.setHost(host);
+    definition.setPort(9001);
+    definition.setVersion("1.0");
+    return new HttpRegistration(List.of(definition));
+  }
+
+}
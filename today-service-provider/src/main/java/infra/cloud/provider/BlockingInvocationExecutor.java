@@ -0,0 +1,327 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import infra.beans.factory.DisposableBean;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+import infra.remoting.exceptions.RejectedException;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Runs blocking service methods off the transport threads, one virtual
+ * thread per invocation.
+ * <p>
+ * The number of concurrent invocations of a service can be capped. A
+ * permit is taken before an invocation is handed to the executor, the
+ * invocations exceeding the cap wait in a bounded queue without occupying
+ * a thread, and are dispatched in arrival order as permits are returned.
+ * Invocations arriving when the queue is full, or cancelled by the requester
+ * while waiting, never run; the former are rejected with a
+ * {@link RejectedException}. When virtual threads are not available on the
+ * running JVM, a bounded pool of daemon platform threads with a bounded
+ * task queue is used instead.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 15:10
+ */
+public class BlockingInvocationExecutor implements DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(BlockingInvocationExecutor.class);
+
+  /**
+   * Maximum number of platform threads used when virtual threads are
+   * not available.
+   */
+  private static final int MAX_PLATFORM_THREADS = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+
+  /**
+   * Maximum number of invocations waiting for a platform thread.
+   */
+  private static final int MAX_PLATFORM_QUEUE_SIZE = MAX_PLATFORM_THREADS * 64;
+
+  private final Executor executor;
+
+  private final int maxConcurrency;
+
+  private final int maxQueueSize;
+
+  private final Map<String, Integer> serviceConcurrency;
+
+  private final ConcurrentHashMap<String, Optional<Permits>> permits = new ConcurrentHashMap<>();
+
+  private final Function<String, Optional<Permits>> permitsFactory = this::createPermits;
+
+  /**
+   * @param executor the executor running the invocations
+   * @param maxConcurrency default concurrency cap of a service, {@code 0} for unlimited
+   * @param maxQueueSize max invocations of a capped service waiting for a permit,
+   * {@code 0} to reject when the cap is reached
+   * @param serviceConcurrency concurrency cap keyed by service name
+   */
+  public BlockingInvocationExecutor(Executor executor, int maxConcurrency,
+          int maxQueueSize, Map<String, Integer> serviceConcurrency) {
+    Assert.notNull(executor, "Executor is required");
+    Assert.isTrue(maxConcurrency >= 0, "maxConcurrency must not be negative");
+    Assert.isTrue(maxQueueSize >= 0, "maxQueueSize must not be negative");
+    Assert.notNull(serviceConcurrency, "serviceConcurrency is required");
+    this.executor = executor;
+    this.maxConcurrency = maxConcurrency;
+    this.maxQueueSize = maxQueueSize;
+    this.serviceConcurrency = Map.copyOf(serviceConcurrency);
+  }
+
+  /**
+   * Invoke the given method on the executor, the arguments are released
+   * once the invocation completes.
+   *
+   * @param rpcMethod target method
+   * @param arguments method arguments
+   * @return the result
+   */
+  public Mono<Object> execute(InvocableRpcMethod rpcMethod, RpcArguments arguments) {
+    return Mono.<Mono<Object>>create(sink -> {
+      Permits permits = this.permits.computeIfAbsent(rpcMethod.getServiceName(), permitsFactory).orElse(null);
+      Invocation invocation = new Invocation(rpcMethod, arguments, sink, permits);
+      sink.onCancel(invocation::cancel);
+      if (permits != null) {
+        permits.submit(invocation);
+      }
+      else {
+        dispatch(invocation);
+      }
+    }).flatMap(Function.identity());
+  }
+
+  /**
+   * @return {@code false} if the executor rejected the invocation
+   */
+  private boolean dispatch(Invocation invocation) {
+    try {
+      executor.execute(invocation);
+      return true;
+    }
+    catch (RejectedExecutionException e) {
+      invocation.reject(new RejectedException("Blocking invocation of '%s' rejected by the executor"
+              .formatted(invocation.rpcMethod.getServiceName()), e));
+      return false;
+    }
+  }
+
+  private Optional<Permits> createPermits(String serviceName) {
+    int concurrency = serviceConcurrency.getOrDefault(serviceName, maxConcurrency);
+    if (concurrency > 0) {
+      return Optional.of(new Permits(serviceName, concurrency));
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public void destroy() {
+    if (executor instanceof ExecutorService executorService) {
+      executorService.shutdown();
+    }
+  }
+
+  /**
+   * Create a virtual thread per task executor, falls back to a bounded
+   * pool of platform threads if the running JVM does not support virtual
+   * threads.
+   */
+  public static ExecutorService createExecutor() {
+    ExecutorService executor = createVirtualThreadExecutor();
+    if (executor == null) {
+      log.warn("Virtual threads are not available, blocking service methods run on at most {} platform threads",
+              MAX_PLATFORM_THREADS);
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_PLATFORM_THREADS, MAX_PLATFORM_THREADS,
+              60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(MAX_PLATFORM_QUEUE_SIZE),
+              new DefaultThreadFactory("service-provider", true));
+      pool.allowCoreThreadTimeOut(true);
+      return pool;
+    }
+    return executor;
+  }
+
+  @Nullable
+  private static ExecutorService createVirtualThreadExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Concurrency permits of a service, invocations waiting for a permit
+   * are queued here rather than on a thread.
+   */
+  private final class Permits {
+
+    private final String serviceName;
+
+    private final int concurrency;
+
+    /** guarded by this */
+    private int active;
+
+    /** guarded by this */
+    private final ArrayDeque<Invocation> pending = new ArrayDeque<>();
+
+    Permits(String serviceName, int concurrency) {
+      this.serviceName = serviceName;
+      this.concurrency = concurrency;
+    }
+
+    void submit(Invocation invocation) {
+      boolean acquired;
+      synchronized(this) {
+        acquired = active < concurrency;
+        if (acquired) {
+          active++;
+        }
+        else if (pending.size() < maxQueueSize) {
+          pending.add(invocation);
+          return;
+        }
+      }
+      if (!acquired) {
+        invocation.reject(new RejectedException("Too many blocking invocations of service '%s'".formatted(serviceName)));
+      }
+      else if (!dispatch(invocation)) {
+        release();
+      }
+    }
+
+    /**
+     * Hand over the permit to the next queued invocation, or give it back.
+     */
+    void release() {
+      while (true) {
+        Invocation next;
+        synchronized(this) {
+          next = pending.poll();
+          if (next == null) {
+            active--;
+            return;
+          }
+        }
+        if (dispatch(next)) {
+          return;
+        }
+      }
+    }
+
+    synchronized void remove(Invocation invocation) {
+      pending.remove(invocation);
+    }
+  }
+
+  private static final class Invocation extends AtomicInteger implements Runnable {
+
+    static final int PENDING = 0;
+
+    static final int STARTED = 1;
+
+    static final int CANCELLED = 2;
+
+    private final InvocableRpcMethod rpcMethod;
+
+    private final RpcArguments arguments;
+
+    private final MonoSink<Mono<Object>> sink;
+
+    @Nullable
+    private final Permits permits;
+
+    Invocation(InvocableRpcMethod rpcMethod, RpcArguments arguments,
+            MonoSink<Mono<Object>> sink, @Nullable Permits permits) {
+      this.rpcMethod = rpcMethod;
+      this.arguments = arguments;
+      this.sink = sink;
+      this.permits = permits;
+    }
+
+    @Override
+    public void run() {
+      if (!compareAndSet(PENDING, STARTED)) {
+        // cancelled after it was handed to the executor
+        if (permits != null) {
+          permits.release();
+        }
+        return;
+      }
+      Object result;
+      try {
+        result = rpcMethod.invoke(arguments.toArray());
+      }
+      catch (Throwable e) {
+        arguments.release();
+        sink.error(e);
+        return;
+      }
+      finally {
+        if (permits != null) {
+          permits.release();
+        }
+      }
+      sink.success(ServiceProviderChannel.adaptResult(result, arguments));
+    }
+
+    /**
+     * Fail an invocation that never runs, the caller takes care of its permit.
+     */
+    void reject(RejectedException e) {
+      if (compareAndSet(PENDING, STARTED)) {
+        arguments.release();
+        sink.error(e);
+      }
+    }
+
+    void cancel() {
+      if (compareAndSet(PENDING, CANCELLED)) {
+        if (permits != null) {
+          permits.remove(this);
+        }
+        arguments.release();
+      }
+    }
+  }
+
+}
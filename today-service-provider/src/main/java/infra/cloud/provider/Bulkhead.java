@@ -0,0 +1,256 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.remoting.exceptions.RejectedException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Bounds the concurrent invocations of a service or a method, with a bounded
+ * wait queue.
+ * <p>
+ * An invocation arriving when both the concurrency limit and the queue are
+ * full is rejected immediately with a {@link RejectedException}, which is sent
+ * to the requester as an {@code ERROR} frame, so it can fail over to another
+ * instance.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 16:02
+ */
+public class Bulkhead {
+
+  private final String name;
+
+  private final int maxConcurrency;
+
+  private final int maxQueueSize;
+
+  /** guarded by this */
+  private int active;
+
+  /** guarded by this */
+  private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+
+  private final LongAdder rejected = new LongAdder();
+
+  private final LongAdder queued = new LongAdder();
+
+  private final LongAdder waitTimeNanos = new LongAdder();
+
+  /**
+   * @param name name of the service or method
+   * @param maxConcurrency max concurrent invocations
+   * @param maxQueueSize max invocations waiting for a permit, {@code 0} to reject
+   * when the concurrency limit is reached
+   */
+  public Bulkhead(String name, int maxConcurrency, int maxQueueSize) {
+    Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be greater than 0");
+    Assert.isTrue(maxQueueSize >= 0, "maxQueueSize must not be negative");
+    this.name = name;
+    this.maxConcurrency = maxConcurrency;
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  /**
+   * Run the given task once a permit is available, the permit is
+   * released when the task terminates or is cancelled.
+   * <p>
+   * The permit is released before the termination is passed on, so the
+   * permits of nested bulkheads are released innermost first and an
+   * invocation handed a permit of the outer bulkhead finds the inner one
+   * available.
+   *
+   * @param task the deferred task
+   * @return the result of the task, or a {@link RejectedException} error
+   */
+  public <T> Mono<T> execute(Mono<T> task) {
+    return Mono.defer(() -> {
+      Waiter waiter;
+      synchronized(this) {
+        if (active < maxConcurrency) {
+          active++;
+          return withPermit(task);
+        }
+        if (queue.size() >= maxQueueSize) {
+          waiter = null;
+        }
+        else {
+          waiter = new Waiter();
+          queue.add(waiter);
+        }
+      }
+      if (waiter == null) {
+        rejected.increment();
+        return Mono.error(new RejectedException("Bulkhead '%s' is full".formatted(name)));
+      }
+      queued.increment();
+      return Mono.<Void>create(waiter::await)
+              .then(withPermit(task));
+    });
+  }
+
+  private <T> Mono<T> withPermit(Mono<T> task) {
+    AtomicBoolean released = new AtomicBoolean();
+    Runnable release = () -> {
+      if (released.compareAndSet(false, true)) {
+        release();
+      }
+    };
+    return task.doOnTerminate(release)
+            .doOnCancel(release);
+  }
+
+  /**
+   * Hand over the permit to the next waiter, or give it back.
+   */
+  private void release() {
+    while (true) {
+      Waiter next;
+      synchronized(this) {
+        next = queue.poll();
+        if (next == null) {
+          active--;
+          return;
+        }
+      }
+      if (next.grant()) {
+        return;
+      }
+    }
+  }
+
+  private synchronized void remove(Waiter waiter) {
+    queue.remove(waiter);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+  /**
+   * Returns the number of invocations holding a permit.
+   */
+  public synchronized int getActiveCount() {
+    return active;
+  }
+
+  /**
+   * Returns the number of invocations waiting for a permit.
+   */
+  public synchronized int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * Returns the number of rejected invocations.
+   */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * Returns the number of invocations that had to wait for a permit.
+   */
+  public long getQueuedCount() {
+    return queued.sum();
+  }
+
+  /**
+   * Returns the total time spent waiting for a permit, in nanoseconds.
+   */
+  public long getWaitTimeNanos() {
+    return waitTimeNanos.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "Bulkhead '%s' [active=%d/%d, queue=%d/%d, rejected=%d]".formatted(name,
+            getActiveCount(), maxConcurrency, getQueueDepth(), maxQueueSize, getRejectedCount());
+  }
+
+  private final class Waiter extends AtomicInteger {
+
+    static final int WAITING = 0;
+
+    static final int GRANTED = 1;
+
+    static final int CANCELLED = 2;
+
+    private final long enqueuedAt = System.nanoTime();
+
+    @Nullable
+    private MonoSink<Void> sink;
+
+    void await(MonoSink<Void> sink) {
+      sink.onCancel(this::cancel);
+      synchronized(this) {
+        this.sink = sink;
+        if (get() != GRANTED) {
+          return;
+        }
+      }
+      sink.success();
+    }
+
+    /**
+     * @return {@code false} if the waiter has been cancelled
+     */
+    boolean grant() {
+      if (!compareAndSet(WAITING, GRANTED)) {
+        return false;
+      }
+      waitTimeNanos.add(System.nanoTime() - enqueuedAt);
+      MonoSink<Void> sink;
+      synchronized(this) {
+        sink = this.sink;
+      }
+      if (sink != null) {
+        sink.success();
+      }
+      return true;
+    }
+
+    void cancel() {
+      if (compareAndSet(WAITING, CANCELLED)) {
+        remove(this);
+      }
+      else if (get() == GRANTED) {
+        // granted but the task will never run
+        release();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import infra.cloud.provider.ServiceProviderProperties.BulkheadConfig;
+import infra.cloud.provider.ServiceProviderProperties.BulkheadLimit;
+import infra.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Holds the service and method {@link Bulkhead bulkheads} of the provider,
+ * created on first use from the configured limits.
+ * <p>
+ * An invocation takes a permit of its method bulkhead first, then one of
+ * its service bulkhead, so invocations queued on a slow method do not hold
+ * service permits needed by the other methods of the service. Method
+ * bulkheads are keyed by the full signature, overloads are isolated from
+ * each other.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 16:40
+ */
+public class BulkheadRegistry {
+
+  private final BulkheadConfig properties;
+
+  private final ConcurrentHashMap<String, Slot> services = new ConcurrentHashMap<>();
+
+  private final ConcurrentHashMap<MethodKey, Slot> methods = new ConcurrentHashMap<>();
+
+  public BulkheadRegistry(BulkheadConfig properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Run the invocation of the given method within its bulkheads.
+   * <p>
+   * The {@code onAbandon} callback runs if the invocation is rejected or
+   * cancelled before it starts, so the resources held for it can be released.
+   *
+   * @param rpcMethod the target method
+   * @param invocation the deferred invocation
+   * @param onAbandon callback for invocations that never start
+   * @return the result of the invocation
+   */
+  public <T> Mono<T> execute(InvocableRpcMethod rpcMethod, Mono<T> invocation, Runnable onAbandon) {
+    AtomicBoolean started = new AtomicBoolean();
+    Mono<T> task = Mono.defer(() -> started.compareAndSet(false, true) ? invocation : Mono.empty());
+
+    Bulkhead service = getServiceBulkhead(rpcMethod.getServiceName());
+    if (service != null) {
+      task = service.execute(task);
+    }
+    // outermost, the method permit is taken before the service permit
+    Bulkhead method = getMethodBulkhead(rpcMethod);
+    if (method != null) {
+      task = method.execute(task);
+    }
+    return task.doFinally(signal -> {
+      if (started.compareAndSet(false, true)) {
+        onAbandon.run();
+      }
+    });
+  }
+
+  @Nullable
+  public Bulkhead getServiceBulkhead(String serviceName) {
+    return services.computeIfAbsent(serviceName, name ->
+            createSlot(name, properties.getServices().getOrDefault(name, properties.getService()))).bulkhead;
+  }
+
+  @Nullable
+  public Bulkhead getMethodBulkhead(InvocableRpcMethod rpcMethod) {
+    return methods.computeIfAbsent(rpcMethod.getMethodKey(), key -> {
+      String name = key.toString();
+      return createSlot(name, properties.getMethods().getOrDefault(name, properties.getMethod()));
+    }).bulkhead;
+  }
+
+  /**
+   * Returns the method bulkheads created so far.
+   */
+  public Collection<Bulkhead> getMethodBulkheads() {
+    return bulkheads(methods.values());
+  }
+
+  /**
+   * Returns the service bulkheads created so far.
+   */
+  public Collection<Bulkhead> getServiceBulkheads() {
+    return bulkheads(services.values());
+  }
+
+  private static List<Bulkhead> bulkheads(Collection<Slot> slots) {
+    var ret = new ArrayList<Bulkhead>(slots.size());
+    for (Slot slot : slots) {
+      if (slot.bulkhead != null) {
+        ret.add(slot.bulkhead);
+      }
+    }
+    return ret;
+  }
+
+  private static Slot createSlot(String name, BulkheadLimit limit) {
+    if (limit.getMaxConcurrency() > 0) {
+      return new Slot(new Bulkhead(name, limit.getMaxConcurrency(), limit.getMaxQueueSize()));
+    }
+    return Slot.UNLIMITED;
+  }
+
+  /**
+   * Caches the absent bulkhead of an unlimited service or method.
+   */
+  private static final class Slot {
+
+    static final Slot UNLIMITED = new Slot(null);
+
+    @Nullable
+    final Bulkhead bulkhead;
+
+    Slot(@Nullable Bulkhead bulkhead) {
+      this.bulkhead = bulkhead;
+    }
+
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.time.Duration;
+
+/**
+ * Outcome of draining the {@link ServiceProviderChannel} before shutdown.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 19:10
+ */
+public final class DrainResult {
+
+  private final long drained;
+
+  private final int aborted;
+
+  private final long rejected;
+
+  private final Duration elapsed;
+
+  DrainResult(long drained, int aborted, long rejected, Duration elapsed) {
+    this.drained = drained;
+    this.aborted = aborted;
+    this.rejected = rejected;
+    this.elapsed = elapsed;
+  }
+
+  /**
+   * Returns the number of requests completed while draining.
+   */
+  public long getDrained() {
+    return drained;
+  }
+
+  /**
+   * Returns the number of requests still in flight when the drain timed out,
+   * those are aborted when the transport closes.
+   */
+  public int getAborted() {
+    return aborted;
+  }
+
+  /**
+   * Returns the number of new requests rejected while draining.
+   */
+  public long getRejected() {
+    return rejected;
+  }
+
+  /**
+   * Returns the time spent draining.
+   */
+  public Duration getElapsed() {
+    return elapsed;
+  }
+
+  @Override
+  public String toString() {
+    return "drained=%d, aborted=%d, rejected=%d, elapsed=%dms"
+            .formatted(drained, aborted, rejected, elapsed.toMillis());
+  }
+
+}
@@ -26,7 +26,7 @@ import infra.beans.factory.ObjectProvider;
 import infra.cloud.RpcResponse;
 import infra.cloud.core.serialize.JdkSerialization;
 import infra.cloud.core.serialize.Serialization;
-import infra.cloud.protocol.http.HttpServiceRegistry;
+import infra.cloud.http.HttpServiceClientConfig;
 import infra.cloud.registry.HttpRegistration;
 import infra.cloud.registry.RegistryProperties;
 import infra.cloud.registry.ServiceRegistry;
@@ -37,8 +37,10 @@ import infra.cloud.serialize.ThrowableSerialization;
 import infra.context.annotation.Configuration;
 import infra.context.annotation.Import;
 import infra.context.annotation.MissingBean;
+import infra.context.condition.ConditionalOnClass;
 import infra.context.properties.EnableConfigurationProperties;
 import infra.lang.TodayStrategies;
+import infra.remoting.lease.AdaptiveLeaseController;
 import infra.stereotype.Component;
 import infra.web.server.ServerProperties;
 
@@ -53,14 +55,14 @@ public @interface EnableServiceProvider {
 
 }
 
-@Import(ServicePublishConfig.class)
+@Import({ ServicePublishConfig.class, ServiceMetricsEndpointConfig.class })
 @Configuration(proxyBeanMethods = false)
-@EnableConfigurationProperties({ ServerProperties.class, RegistryProperties.class })
+@EnableConfigurationProperties({ ServerProperties.class, RegistryProperties.class, ServiceProviderProperties.class })
 class TcpServiceProviderConfig {
 
   @MissingBean
   static ServiceRegistry<HttpRegistration> serviceRegistry(RegistryProperties properties, Serialization<RpcResponse> serialization) {
-    return HttpServiceRegistry.ofURL(properties.getHttpUrl(), serialization);
+    return HttpServiceClientConfig.createServiceRegistry(properties, serialization);
   }
 
   @MissingBean
@@ -70,10 +72,13 @@ class TcpServiceProviderConfig {
 
   @Component
   @SuppressWarnings({ "rawtypes" })
-  static RpcRequestDeserializer rpcRequestDeserializer(ObjectProvider<RpcArgumentSerialization> serializations) {
+  static RpcRequestDeserializer rpcRequestDeserializer(ServiceProviderProperties properties,
+          ObjectProvider<RpcArgumentSerialization> serializations, LocalServiceHolder serviceHolder) {
     var list = TodayStrategies.find(RpcArgumentSerialization.class);
     serializations.addOrderedTo(list);
-    return new RpcRequestDeserializer(list);
+    RpcRequestDeserializer deserializer = new RpcRequestDeserializer(list, serviceHolder);
+    deserializer.setLazyArguments(properties.isLazyArguments());
+    return deserializer;
   }
 
   @Component
@@ -84,4 +89,45 @@ class TcpServiceProviderConfig {
     return new RpcResponseSerialization(list, new ThrowableSerialization());
   }
 
+  @Component
+  static ServiceProviderChannel serviceProviderChannel(RpcRequestDeserializer requestDeserializer,
+          RpcResponseSerialization responseSerialization, ServiceProviderProperties properties, ServiceMetrics metrics) {
+    var channel = new ServiceProviderChannel(requestDeserializer, responseSerialization);
+    channel.setMetrics(metrics);
+    if (properties.isVirtualThreads()) {
+      channel.setBlockingExecutor(new BlockingInvocationExecutor(BlockingInvocationExecutor.createExecutor(),
+              properties.getMaxConcurrency(), properties.getMaxQueueSize(), properties.getServiceConcurrency()));
+    }
+    if (properties.getBulkhead().isEnabled()) {
+      channel.setBulkheads(new BulkheadRegistry(properties.getBulkhead()));
+    }
+    return channel;
+  }
+
+  @Component
+  static ServiceMetrics serviceMetrics(ServiceProviderProperties properties, ObjectProvider<ServiceProviderChannel> channel) {
+    return new ServiceMetrics(() -> channel.getObject().getActiveCount(), properties.getMetricsInterval());
+  }
+
+  @Component
+  static ServiceProviderServer serviceProviderServer(ServiceProviderProperties properties, ServiceProviderChannel channel) {
+    var server = new ServiceProviderServer(properties.getPort(), channel);
+    server.setDrainTimeout(properties.getDrainTimeout());
+    if (properties.isAdaptiveLease()) {
+      server.setLeaseController(new AdaptiveLeaseController());
+    }
+    return server;
+  }
+
+}
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(name = "infra.web.annotation.RestController")
+class ServiceMetricsEndpointConfig {
+
+  @Component
+  static ServiceMetricsEndpoint serviceMetricsEndpoint(ServiceMetrics metrics, ServiceProviderChannel channel) {
+    return new ServiceMetricsEndpoint(metrics, channel.getBulkheads());
+  }
+
 }
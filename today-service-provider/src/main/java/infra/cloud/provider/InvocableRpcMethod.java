@@ -17,26 +17,104 @@
 
 package infra.cloud.provider;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
+
+import org.reactivestreams.Publisher;
 
 import infra.cloud.RpcMethod;
-import infra.reflect.MethodInvoker;
+import infra.util.ReflectionUtils;
+import infra.util.concurrent.Future;
 
 /**
+ * A service method bound to its local service instance, invoked
+ * through a {@link MethodHandle}.
+ *
  * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
  * @since 1.0 2024/12/20 21:49
  */
 public class InvocableRpcMethod extends RpcMethod {
 
-  private final MethodInvoker invoker;
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+  private final Object service;
+
+  private final String serviceName;
+
+  private final MethodKey methodKey;
 
-  public InvocableRpcMethod(Method method, MethodInvoker invoker) {
+  /**
+   * {@code (Object[])Object} handle, the service instance is bound and
+   * the arguments are spread
+   */
+  private final MethodHandle invoker;
+
+  private final boolean async;
+
+  public InvocableRpcMethod(String serviceName, Object service, Method method) {
     super(method);
-    this.invoker = invoker;
+    this.service = service;
+    this.serviceName = serviceName;
+    this.methodKey = MethodKey.of(serviceName, method);
+    this.invoker = createInvoker(service, method);
+    this.async = isAsync(method.getReturnType());
+  }
+
+  public Object getService() {
+    return service;
+  }
+
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  /**
+   * Returns the key of this method, unique across overloads.
+   */
+  MethodKey getMethodKey() {
+    return methodKey;
+  }
+
+  /**
+   * Returns {@code true} if the method returns a reactive or asynchronous
+   * result, such methods do not block the calling thread.
+   */
+  public boolean isAsync() {
+    return async;
+  }
+
+  /**
+   * Invoke the service method with the given arguments.
+   *
+   * @param args the method arguments
+   * @return the return value, {@code null} for {@code void} methods
+   * @throws Throwable exception thrown by the service method
+   */
+  public Object invoke(Object[] args) throws Throwable {
+    return invoker.invokeExact(args);
+  }
+
+  private static boolean isAsync(Class<?> returnType) {
+    return Publisher.class.isAssignableFrom(returnType)
+            || Future.class.isAssignableFrom(returnType)
+            || CompletionStage.class.isAssignableFrom(returnType);
   }
 
-  public Object invokeAndHandle(Object serviceInstance, Object[] args) throws Throwable {
-    return invoker.invoke(serviceInstance, args);
+  private static MethodHandle createInvoker(Object service, Method method) {
+    try {
+      ReflectionUtils.makeAccessible(method);
+      return MethodHandles.lookup()
+              .unreflect(method)
+              .bindTo(service)
+              .asSpreader(Object[].class, method.getParameterCount())
+              .asType(INVOKER_TYPE);
+    }
+    catch (IllegalAccessException e) {
+      throw new IllegalStateException("Cannot access service method: " + method, e);
+    }
   }
 
 }
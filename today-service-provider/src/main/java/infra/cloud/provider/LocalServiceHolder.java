@@ -17,8 +17,11 @@
 
 package infra.cloud.provider;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
@@ -46,6 +49,9 @@ public class LocalServiceHolder extends ApplicationObjectSupport implements Smar
 
   private final HashMap<String, Object> localServices = new HashMap<>();
 
+  /** exported methods, indexed at startup */
+  private final HashMap<MethodKey, InvocableRpcMethod> methods = new HashMap<>();
+
   private final ArrayList<ServiceDefinition> definitions = new ArrayList<>();
 
   public LocalServiceHolder(int port) {
@@ -69,6 +75,26 @@ public class LocalServiceHolder extends ApplicationObjectSupport implements Smar
     return localServices.get(serviceName);
   }
 
+  /**
+   * Get the exported method
+   *
+   * @param serviceName service interface name
+   * @param methodName method name
+   * @param paramTypes parameter type names
+   * @return the exported method or {@code null} if not found
+   */
+  @Nullable
+  public InvocableRpcMethod getMethod(String serviceName, String methodName, String[] paramTypes) {
+    return methods.get(new MethodKey(serviceName, methodName, paramTypes));
+  }
+
+  /**
+   * All exported methods
+   */
+  public Collection<InvocableRpcMethod> getMethods() {
+    return methods.values();
+  }
+
   @Override
   public void afterSingletonsInstantiated() {
     ApplicationContext context = obtainApplicationContext();
@@ -100,8 +126,20 @@ public class LocalServiceHolder extends ApplicationObjectSupport implements Smar
       logger.info("add service: [{}] to interface: [{}]", service, definition.getName());
       definitions.add(definition);
       localServices.put(interfaceToUse.getName(), service); // register object
+      registerMethods(interfaceToUse, service);
     }
 
   }
 
+  private void registerMethods(Class<?> serviceInterface, Object service) {
+    String serviceName = serviceInterface.getName();
+    for (Method method : serviceInterface.getMethods()) {
+      if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+        continue;
+      }
+      InvocableRpcMethod rpcMethod = new InvocableRpcMethod(serviceName, service, method);
+      methods.put(rpcMethod.getMethodKey(), rpcMethod);
+    }
+  }
+
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Identifies an exported method by its service and full signature,
+ * overloads of a method have different keys.
+ */
+final class MethodKey {
+
+  private final String serviceName;
+
+  private final String methodName;
+
+  private final String[] paramTypes;
+
+  private final int hash;
+
+  MethodKey(String serviceName, String methodName, String[] paramTypes) {
+    this.serviceName = serviceName;
+    this.methodName = methodName;
+    this.paramTypes = paramTypes;
+    this.hash = 31 * (31 * serviceName.hashCode() + methodName.hashCode()) + Arrays.hashCode(paramTypes);
+  }
+
+  static MethodKey of(String serviceName, Method method) {
+    String[] paramTypes = new String[method.getParameterCount()];
+    int i = 0;
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      paramTypes[i++] = parameterType.getName();
+    }
+    return new MethodKey(serviceName, method.getName(), paramTypes);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof MethodKey that))
+      return false;
+    return hash == that.hash
+            && methodName.equals(that.methodName)
+            && serviceName.equals(that.serviceName)
+            && Arrays.equals(paramTypes, that.paramTypes);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  /**
+   * Returns the signature in the 'service#method(paramType,...)' form.
+   */
+  @Override
+  public String toString() {
+    StringJoiner joiner = new StringJoiner(",", serviceName + "#" + methodName + "(", ")");
+    for (String paramType : paramTypes) {
+      joiner.add(paramType);
+    }
+    return joiner.toString();
+  }
+
+}
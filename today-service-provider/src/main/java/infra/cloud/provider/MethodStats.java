@@ -0,0 +1,203 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import infra.lang.Nullable;
+
+/**
+ * Latency and error statistics of a service method.
+ * <p>
+ * Latencies are recorded in microseconds into an HdrHistogram {@link Recorder},
+ * recording is wait-free and takes no lock. A {@link #snapshot() snapshot}
+ * swaps the interval histogram, the statistics cover the interval between
+ * two snapshots. Snapshots are taken by the {@link ServiceMetrics} roller,
+ * other readers use {@link #getLastSnapshot()}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 20:05
+ */
+public class MethodStats {
+
+  static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toMicros(10);
+
+  static final int SIGNIFICANT_DIGITS = 2;
+
+  private final String name;
+
+  private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+
+  private final LongAdder errors = new LongAdder();
+
+  /** reader side, guarded by this */
+  @Nullable
+  private Histogram intervalHistogram;
+
+  /** reader side, guarded by this */
+  private long intervalErrors;
+
+  /** reader side, guarded by this */
+  private long lastSnapshotNanos = System.nanoTime();
+
+  private volatile Snapshot lastSnapshot = Snapshot.EMPTY;
+
+  public MethodStats(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Record a completed invocation.
+   *
+   * @param latencyMicros the latency in microseconds
+   * @param error whether the invocation failed
+   */
+  public void record(long latencyMicros, boolean error) {
+    recorder.recordValue(Math.max(0, Math.min(latencyMicros, HIGHEST_TRACKABLE_LATENCY)));
+    if (error) {
+      errors.increment();
+    }
+  }
+
+  /**
+   * Take the statistics of the interval since the previous snapshot.
+   */
+  public Snapshot snapshot() {
+    return snapshot(null);
+  }
+
+  /**
+   * Take the statistics of the interval since the previous snapshot, and
+   * add the interval histogram to the given one.
+   */
+  synchronized Snapshot snapshot(@Nullable Histogram total) {
+    Histogram histogram = recorder.getIntervalHistogram(intervalHistogram);
+    this.intervalHistogram = histogram;
+    if (total != null) {
+      total.add(histogram);
+    }
+
+    long errors = this.errors.sum();
+    long intervalErrors = errors - this.intervalErrors;
+    this.intervalErrors = errors;
+
+    long now = System.nanoTime();
+    long elapsed = now - lastSnapshotNanos;
+    this.lastSnapshotNanos = now;
+
+    Snapshot snapshot = Snapshot.of(histogram, intervalErrors, elapsed);
+    this.lastSnapshot = snapshot;
+    return snapshot;
+  }
+
+  /**
+   * Returns the last taken snapshot.
+   */
+  public Snapshot getLastSnapshot() {
+    return lastSnapshot;
+  }
+
+  /**
+   * Statistics of an interval, latencies are in microseconds.
+   */
+  public static final class Snapshot {
+
+    static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0);
+
+    private final long p50;
+
+    private final long p99;
+
+    private final long p999;
+
+    private final long max;
+
+    private final long count;
+
+    private final long errors;
+
+    private final double throughput;
+
+    Snapshot(long p50, long p99, long p999, long max, long count, long errors, double throughput) {
+      this.p50 = p50;
+      this.p99 = p99;
+      this.p999 = p999;
+      this.max = max;
+      this.count = count;
+      this.errors = errors;
+      this.throughput = throughput;
+    }
+
+    static Snapshot of(Histogram histogram, long errors, long elapsedNanos) {
+      long count = histogram.getTotalCount();
+      if (count == 0) {
+        return new Snapshot(0, 0, 0, 0, 0, errors, 0);
+      }
+      double seconds = Math.max(elapsedNanos, 1) / 1e9;
+      return new Snapshot(histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+              histogram.getValueAtPercentile(99.9), histogram.getMaxValue(), count, errors, count / seconds);
+    }
+
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getP999() {
+      return p999;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    /**
+     * Returns the completed invocations per second.
+     */
+    public double getThroughput() {
+      return throughput;
+    }
+
+    @Override
+    public String toString() {
+      return "p50=%dus, p99=%dus, p999=%dus, max=%dus, count=%d, errors=%d, throughput=%.1f/s"
+              .formatted(p50, p99, p999, max, count, errors, throughput);
+    }
+
+  }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.util.Arrays;
+import java.util.List;
+
+import infra.cloud.RpcMethod;
+import infra.cloud.core.serialize.DeserializeFailedException;
+import infra.cloud.serialize.ByteBufInput;
+import infra.cloud.serialize.RpcArgumentSerialization;
+import infra.core.MethodParameter;
+import infra.lang.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * Arguments of a rpc invocation.
+ * <p>
+ * Arguments are either decoded up front, or decoded on first access from a
+ * retained slice of the request frame. Decoded arguments keep no reference to
+ * the request, except for reference counted arguments such as retained
+ * {@link ByteBuf} slices. Lazy arguments hold the retained slice of the request
+ * until {@link #release()} is called, which must happen once the invocation
+ * completes in either case.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 10:32
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public abstract class RpcArguments {
+
+  /**
+   * The number of arguments
+   */
+  public abstract int size();
+
+  /**
+   * Get the argument at the given index, decoding it if necessary.
+   *
+   * @param index the index of the argument
+   * @throws DeserializeFailedException argument cannot be decoded
+   */
+  @Nullable
+  public abstract Object get(int index) throws DeserializeFailedException;
+
+  /**
+   * Resolve all arguments into an array that can be passed to the target method.
+   *
+   * @throws DeserializeFailedException argument cannot be decoded
+   */
+  public Object[] toArray() throws DeserializeFailedException {
+    int size = size();
+    Object[] args = new Object[size];
+    for (int i = 0; i < size; i++) {
+      args[i] = get(i);
+    }
+    return args;
+  }
+
+  /**
+   * Release the request buffers, and any reference counted argument
+   * handed out to the target method.
+   */
+  public abstract void release();
+
+  // static
+
+  /**
+   * Decode all arguments from the given payload up front.
+   *
+   * @param rpcMethod the target method
+   * @param payload the arguments part of the request
+   * @param serializations serializations to decode the arguments
+   * @throws DeserializeFailedException argument cannot be decoded
+   */
+  public static RpcArguments decode(RpcMethod rpcMethod, ByteBuf payload,
+          List<RpcArgumentSerialization> serializations) throws DeserializeFailedException {
+    MethodParameter[] parameters = rpcMethod.getParameters();
+    Object[] args = new Object[parameters.length];
+    try {
+      for (int i = 0; i < parameters.length; i++) {
+        ByteBuf argument = payload.readSlice(readLength(payload));
+        args[i] = decode(parameters[i], argument, serializations);
+      }
+    }
+    catch (RuntimeException e) {
+      releaseArguments(args);
+      throw e;
+    }
+    return new Decoded(args);
+  }
+
+  /**
+   * Create lazily decoded arguments, only the argument boundaries are read,
+   * the bytes are kept in a retained slice of the given payload.
+   *
+   * @param rpcMethod the target method
+   * @param payload the arguments part of the request
+   * @param serializations serializations to decode the arguments
+   * @throws DeserializeFailedException malformed arguments
+   */
+  public static RpcArguments lazy(RpcMethod rpcMethod, ByteBuf payload, List<RpcArgumentSerialization> serializations) {
+    MethodParameter[] parameters = rpcMethod.getParameters();
+    ByteBuf arguments = payload.readRetainedSlice(payload.readableBytes());
+    int[] offsets = new int[parameters.length];
+    int offset = 0;
+    for (int i = 0; i < parameters.length; i++) {
+      if (offset + Integer.BYTES > arguments.writerIndex()) {
+        arguments.release();
+        throw new DeserializeFailedException("Missing argument at index " + i);
+      }
+      int length = arguments.getInt(offset);
+      if (length < 0 || (long) offset + Integer.BYTES + length > arguments.writerIndex()) {
+        arguments.release();
+        throw new DeserializeFailedException("Malformed argument length at index %d: %d".formatted(i, length));
+      }
+      offsets[i] = offset;
+      offset += Integer.BYTES + length;
+    }
+    return new Lazy(parameters, arguments, offsets, serializations);
+  }
+
+  @Nullable
+  static Object decode(MethodParameter parameter, ByteBuf argument,
+          List<RpcArgumentSerialization> serializations) throws DeserializeFailedException {
+    for (RpcArgumentSerialization serialization : serializations) {
+      if (serialization.supportsArgument(parameter)) {
+        return serialization.deserialize(parameter, argument, new ByteBufInput(argument));
+      }
+    }
+    throw new DeserializeFailedException("RpcArgumentSerialization for parameter %s not found".formatted(parameter));
+  }
+
+  private static int readLength(ByteBuf payload) {
+    int length = payload.readInt();
+    if (length < 0 || length > payload.readableBytes()) {
+      throw new DeserializeFailedException("Malformed argument length: " + length);
+    }
+    return length;
+  }
+
+  private static void releaseArguments(Object[] args) {
+    for (Object arg : args) {
+      if (arg instanceof ReferenceCounted counted && counted.refCnt() > 0) {
+        ReferenceCountUtil.safeRelease(counted);
+      }
+    }
+  }
+
+  static final class Decoded extends RpcArguments {
+
+    private final Object[] args;
+
+    Decoded(Object[] args) {
+      this.args = args;
+    }
+
+    @Override
+    public int size() {
+      return args.length;
+    }
+
+    @Nullable
+    @Override
+    public Object get(int index) {
+      return args[index];
+    }
+
+    @Override
+    public Object[] toArray() {
+      return args;
+    }
+
+    @Override
+    public void release() {
+      releaseArguments(args);
+    }
+
+  }
+
+  static final class Lazy extends RpcArguments {
+
+    private static final Object NOT_DECODED = new Object();
+
+    private final MethodParameter[] parameters;
+
+    private final ByteBuf arguments;
+
+    private final int[] offsets;
+
+    private final Object[] decoded;
+
+    private final List<RpcArgumentSerialization> serializations;
+
+    Lazy(MethodParameter[] parameters, ByteBuf arguments, int[] offsets, List<RpcArgumentSerialization> serializations) {
+      this.parameters = parameters;
+      this.arguments = arguments;
+      this.offsets = offsets;
+      this.serializations = serializations;
+      this.decoded = new Object[parameters.length];
+      Arrays.fill(decoded, NOT_DECODED);
+    }
+
+    @Override
+    public int size() {
+      return parameters.length;
+    }
+
+    @Nullable
+    @Override
+    public Object get(int index) throws DeserializeFailedException {
+      Object value = decoded[index];
+      if (value == NOT_DECODED) {
+        int offset = offsets[index];
+        int length = arguments.getInt(offset);
+        ByteBuf argument = arguments.slice(offset + Integer.BYTES, length);
+        value = decode(parameters[index], argument, serializations);
+        decoded[index] = value;
+      }
+      return value;
+    }
+
+    @Override
+    public void release() {
+      for (int i = 0; i < decoded.length; i++) {
+        if (decoded[i] == NOT_DECODED) {
+          decoded[i] = null;
+        }
+      }
+      releaseArguments(decoded);
+      arguments.release();
+    }
+
+  }
+
+}
@@ -17,116 +17,107 @@
 
 package infra.cloud.provider;
 
-import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 
+import infra.cloud.RpcMethod;
 import infra.cloud.RpcRequest;
 import infra.cloud.core.serialize.DeserializeFailedException;
+import infra.cloud.registry.ServiceNotFoundException;
 import infra.cloud.serialize.RpcArgumentSerialization;
-import infra.lang.Nullable;
-import infra.reflect.MethodInvoker;
-import infra.util.ClassUtils;
-import infra.util.MapCache;
 import io.netty.buffer.ByteBuf;
 
 /**
  * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
  * @since 1.0 2025/3/8 22:43
  */
-@SuppressWarnings({ "unchecked", "rawtypes" })
+@SuppressWarnings({ "rawtypes" })
 public class RpcRequestDeserializer {
 
   private final List<RpcArgumentSerialization> argumentSerializations;
 
-  /** fast method mapping cache */
-  private final MethodMapCache methodMapCache = new MethodMapCache();
+  private final LocalServiceHolder serviceHolder;
 
-  public RpcRequestDeserializer(List<RpcArgumentSerialization> argumentSerializations) {
+  /**
+   * Decode arguments on first access, from a retained slice of the request
+   */
+  private boolean lazyArguments;
+
+  public RpcRequestDeserializer(List<RpcArgumentSerialization> argumentSerializations, LocalServiceHolder serviceHolder) {
     this.argumentSerializations = argumentSerializations;
+    this.serviceHolder = serviceHolder;
   }
 
-  public RpcRequest deserialize(ByteBuf payload) throws DeserializeFailedException {
-    RpcRequest rpcRequest = new RpcRequest();
-//    ByteBufInput input = new ByteBufInput(payload);
-
-    rpcRequest.setMethodName(payload.readCharSequence(payload.readInt(), StandardCharsets.UTF_8).toString());
-    rpcRequest.setServiceName(payload.readCharSequence(payload.readInt(), StandardCharsets.UTF_8).toString());
-
-    InvocableRpcMethod rpcMethod = methodMapCache.get(new MethodCacheKey(rpcRequest), null);
-
-//    body.readInt();
-//    body.readCharSequence();
-
-    return rpcRequest;
+  /**
+   * Set whether the arguments are decoded only when they are read by the
+   * invocation, instead of up front.
+   * <p>
+   * In lazy mode the argument bytes are kept in a retained slice of the request
+   * frame, use {@link infra.remoting.frame.decoder.PayloadDecoder#ZERO_COPY} to
+   * avoid copying the frame first.
+   *
+   * @param lazyArguments lazy decoding
+   */
+  public void setLazyArguments(boolean lazyArguments) {
+    this.lazyArguments = lazyArguments;
   }
 
-  private static final class MethodMapCache extends MapCache<MethodCacheKey, InvocableRpcMethod, Object> {
-
-    @Nullable
-    @Override
-    protected InvocableRpcMethod createValue(MethodCacheKey key, @Nullable Object service) {
-      Method methodToUse = getMethod(key, service);
-      if (methodToUse == null) {
-        return null;
-      }
-      MethodInvoker methodInvoker = MethodInvoker.forMethod(methodToUse);
-      return new InvocableRpcMethod(methodToUse, methodInvoker);
-    }
-
-    private static Method getMethod(MethodCacheKey key, Object service) {
-      String method = key.method;
-      String[] paramTypes = key.paramTypes;
-      int parameterLength = paramTypes.length;
-
-      Class<Object> serviceImpl = ClassUtils.getUserClass(service);
-      for (Method serviceMethod : serviceImpl.getMethods()) {
-        if (Objects.equals(serviceMethod.getName(), method)
-                && parameterLength == serviceMethod.getParameterCount()) {
-          int current = 0;
-          boolean equals = true;
-          for (Class<?> parameterType : serviceMethod.getParameterTypes()) {
-            if (!parameterType.getName().equals(paramTypes[current++])) {
-              // not target method
-              equals = false;
-              break;
-            }
-          }
-          if (equals) {
-            return serviceMethod;
-          }
-        }
-      }
-      return null;
-    }
+  public boolean isLazyArguments() {
+    return lazyArguments;
   }
 
-  private static class MethodCacheKey {
-    public final String method;
+  /**
+   * Read the request header and resolve the target method, the payload
+   * reader index is left at the start of the arguments.
+   *
+   * @param payload request payload
+   * @throws ServiceNotFoundException the target method is not exported
+   * @throws DeserializeFailedException malformed request
+   */
+  public RpcRequest deserialize(ByteBuf payload) throws DeserializeFailedException {
+    RpcRequest rpcRequest = new RpcRequest();
+    rpcRequest.setMethodName(readString(payload));
+    rpcRequest.setServiceName(readString(payload));
 
-    public final String[] paramTypes;
+    int parameterCount = payload.readUnsignedShort();
+    String[] paramTypes = new String[parameterCount];
+    for (int i = 0; i < parameterCount; i++) {
+      paramTypes[i] = readString(payload);
+    }
+    rpcRequest.setParamTypes(paramTypes);
 
-    MethodCacheKey(RpcRequest request) {
-      this.method = request.getMethodName();
-      this.paramTypes = request.getParamTypes();
+    InvocableRpcMethod rpcMethod = serviceHolder.getMethod(
+            rpcRequest.getServiceName(), rpcRequest.getMethodName(), paramTypes);
+    if (rpcMethod == null) {
+      throw new ServiceNotFoundException("%s#%s%s".formatted(rpcRequest.getServiceName(),
+              rpcRequest.getMethodName(), Arrays.toString(paramTypes)));
     }
+    rpcRequest.setRpcMethod(rpcMethod);
+    return rpcRequest;
+  }
 
-    @Override
-    public boolean equals(Object o) {
-      if (this == o)
-        return true;
-      if (!(o instanceof MethodCacheKey that))
-        return false;
-      return Objects.equals(method, that.method)
-              && Arrays.equals(paramTypes, that.paramTypes);
+  /**
+   * Read the arguments of the given method, the returned arguments must be
+   * {@link RpcArguments#release() released} once the invocation completes.
+   *
+   * @param rpcMethod target method
+   * @param payload the arguments part of the request
+   * @throws DeserializeFailedException arguments cannot be decoded
+   */
+  public RpcArguments deserializeArguments(RpcMethod rpcMethod, ByteBuf payload) throws DeserializeFailedException {
+    if (lazyArguments) {
+      return RpcArguments.lazy(rpcMethod, payload, argumentSerializations);
     }
+    return RpcArguments.decode(rpcMethod, payload, argumentSerializations);
+  }
 
-    @Override
-    public int hashCode() {
-      return 31 * Objects.hash(method) + Arrays.hashCode(paramTypes);
+  private static String readString(ByteBuf payload) {
+    int length = payload.readInt();
+    if (length < 0 || length > payload.readableBytes()) {
+      throw new DeserializeFailedException("Malformed request, string length: " + length);
     }
+    return payload.readCharSequence(length, StandardCharsets.UTF_8).toString();
   }
 
 }
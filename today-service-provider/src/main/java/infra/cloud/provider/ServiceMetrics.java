@@ -0,0 +1,192 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+import infra.cloud.provider.MethodStats.Snapshot;
+import infra.context.SmartLifecycle;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Holds the {@link MethodStats} of the exported methods.
+ * <p>
+ * The statistics are {@link #roll() rolled} at a fixed interval while
+ * running, readers get the last completed interval. The statistics are
+ * served by the {@link ServiceMetricsEndpoint}, they are not sent to the
+ * clients.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 20:30
+ */
+public class ServiceMetrics implements SmartLifecycle {
+
+  private final ConcurrentHashMap<InvocableRpcMethod, MethodStats> methods = new ConcurrentHashMap<>();
+
+  private final Function<InvocableRpcMethod, MethodStats> statsFactory = method -> new MethodStats(nameOf(method));
+
+  private final IntSupplier pending;
+
+  /** guarded by this */
+  private final Histogram total = new Histogram(MethodStats.HIGHEST_TRACKABLE_LATENCY, MethodStats.SIGNIFICANT_DIGITS);
+
+  private final Duration interval;
+
+  private volatile Snapshot lastTotal = Snapshot.EMPTY;
+
+  private volatile Map<String, Snapshot> lastMethods = Collections.emptyMap();
+
+  @Nullable
+  private Disposable roller;
+
+  /**
+   * @param pending supplies the number of requests in flight
+   * @param interval the interval the statistics are rolled at
+   */
+  public ServiceMetrics(IntSupplier pending, Duration interval) {
+    Assert.isTrue(interval != null && !interval.isNegative() && !interval.isZero(), "interval must be positive");
+    this.pending = pending;
+    this.interval = interval;
+  }
+
+  /**
+   * Returns the statistics of the given method.
+   */
+  public MethodStats getStats(InvocableRpcMethod rpcMethod) {
+    MethodStats stats = methods.get(rpcMethod);
+    if (stats == null) {
+      stats = methods.computeIfAbsent(rpcMethod, statsFactory);
+    }
+    return stats;
+  }
+
+  public Collection<MethodStats> getMethodStats() {
+    return methods.values();
+  }
+
+  /**
+   * Close the current interval, its statistics replace the ones
+   * returned by {@link #getSnapshots()} and {@link #getTotal()}.
+   */
+  public synchronized void roll() {
+    total.reset();
+    long errors = 0;
+    double throughput = 0;
+    var ret = new LinkedHashMap<String, Snapshot>();
+    for (MethodStats stats : methods.values()) {
+      Snapshot snapshot = stats.snapshot(total);
+      errors += snapshot.getErrors();
+      throughput += snapshot.getThroughput();
+      ret.put(stats.getName(), snapshot);
+    }
+
+    long count = total.getTotalCount();
+    if (count == 0) {
+      lastTotal = new Snapshot(0, 0, 0, 0, 0, errors, 0);
+    }
+    else {
+      lastTotal = new Snapshot(total.getValueAtPercentile(50), total.getValueAtPercentile(99),
+              total.getValueAtPercentile(99.9), total.getMaxValue(), count, errors, throughput);
+    }
+    lastMethods = Collections.unmodifiableMap(ret);
+  }
+
+  /**
+   * Returns the statistics of the methods in the last completed interval,
+   * keyed by method name.
+   */
+  public Map<String, Snapshot> getSnapshots() {
+    return lastMethods;
+  }
+
+  /**
+   * Returns the statistics of the whole provider in the last completed interval.
+   */
+  public Snapshot getTotal() {
+    return lastTotal;
+  }
+
+  /**
+   * Returns the number of requests in flight.
+   */
+  public int pending() {
+    return pending.getAsInt();
+  }
+
+  /**
+   * Returns the ratio of the invocations that succeeded in the last
+   * completed interval, {@code 1.0} when there was none.
+   */
+  public double availability() {
+    Snapshot total = lastTotal;
+    if (total.getCount() == 0) {
+      return 1.0;
+    }
+    return 1.0 - Math.min(1.0, (double) total.getErrors() / total.getCount());
+  }
+
+  @Override
+  public synchronized void start() {
+    if (roller == null) {
+      roller = Flux.interval(interval, Schedulers.parallel())
+              .subscribe(tick -> roll());
+    }
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (roller != null) {
+      roller.dispose();
+      roller = null;
+    }
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return roller != null;
+  }
+
+  static String nameOf(InvocableRpcMethod rpcMethod) {
+    StringBuilder name = new StringBuilder(rpcMethod.getServiceName())
+            .append('#')
+            .append(rpcMethod.getMethod().getName())
+            .append('(');
+    Class<?>[] parameterTypes = rpcMethod.getMethod().getParameterTypes();
+    for (int i = 0; i < parameterTypes.length; i++) {
+      if (i > 0) {
+        name.append(',');
+      }
+      name.append(parameterTypes[i].getSimpleName());
+    }
+    return name.append(')').toString();
+  }
+
+}
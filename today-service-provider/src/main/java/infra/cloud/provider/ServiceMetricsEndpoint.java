@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import infra.http.MediaType;
+import infra.lang.Nullable;
+import infra.web.annotation.GET;
+import infra.web.annotation.RequestMapping;
+import infra.web.annotation.RestController;
+
+/**
+ * Exposes the {@link ServiceMetrics} of the provider, and the state of
+ * its {@link BulkheadRegistry bulkheads} if enabled.
+ * <p>
+ * Scrapes return the statistics of the last interval completed by the
+ * {@link ServiceMetrics} roller, they do not affect each other. Bulkhead
+ * counters are cumulative since startup.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 20:50
+ */
+@RestController
+@RequestMapping("${service.provider.metrics-uri:/service-metrics}")
+public class ServiceMetricsEndpoint {
+
+  private final ServiceMetrics metrics;
+
+  @Nullable
+  private final BulkheadRegistry bulkheads;
+
+  public ServiceMetricsEndpoint(ServiceMetrics metrics) {
+    this(metrics, null);
+  }
+
+  public ServiceMetricsEndpoint(ServiceMetrics metrics, @Nullable BulkheadRegistry bulkheads) {
+    this.metrics = metrics;
+    this.bulkheads = bulkheads;
+  }
+
+  @GET(produces = MediaType.APPLICATION_JSON_VALUE)
+  public Map<String, Object> metrics() {
+    var methods = metrics.getSnapshots();
+    var ret = new LinkedHashMap<String, Object>();
+    ret.put("total", metrics.getTotal());
+    ret.put("pending", metrics.pending());
+    ret.put("availability", metrics.availability());
+    ret.put("methods", methods);
+
+    BulkheadRegistry bulkheads = this.bulkheads;
+    if (bulkheads != null) {
+      var state = new LinkedHashMap<String, Object>();
+      state.put("services", describe(bulkheads.getServiceBulkheads()));
+      state.put("methods", describe(bulkheads.getMethodBulkheads()));
+      ret.put("bulkheads", state);
+    }
+    return ret;
+  }
+
+  private static Map<String, Object> describe(Collection<Bulkhead> bulkheads) {
+    var ret = new LinkedHashMap<String, Object>();
+    for (Bulkhead bulkhead : bulkheads) {
+      var state = new LinkedHashMap<String, Object>();
+      state.put("active", bulkhead.getActiveCount());
+      state.put("maxConcurrency", bulkhead.getMaxConcurrency());
+      state.put("queueDepth", bulkhead.getQueueDepth());
+      state.put("maxQueueSize", bulkhead.getMaxQueueSize());
+      state.put("queued", bulkhead.getQueuedCount());
+      state.put("rejected", bulkhead.getRejectedCount());
+      state.put("waitTimeMillis", TimeUnit.NANOSECONDS.toMillis(bulkhead.getWaitTimeNanos()));
+      ret.put(bulkhead.getName(), state);
+    }
+    return ret;
+  }
+
+}
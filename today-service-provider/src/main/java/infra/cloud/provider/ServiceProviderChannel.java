@@ -0,0 +1,283 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.reactivestreams.Publisher;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import infra.beans.factory.DisposableBean;
+import infra.cloud.RpcRequest;
+import infra.cloud.RpcResponse;
+import infra.cloud.serialize.RpcResponseSerialization;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.remoting.Channel;
+import infra.remoting.Payload;
+import infra.remoting.exceptions.RejectedException;
+import infra.remoting.util.ByteBufPayload;
+import infra.util.ExceptionUtils;
+import infra.util.concurrent.Future;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Provider side {@link Channel}, dispatches request-response interactions
+ * to the exported local services.
+ * <p>
+ * The target method is resolved from the {@link LocalServiceHolder} index, the
+ * arguments are decoded via the serializer chain, and the result is encoded
+ * with {@link RpcResponseSerialization} into a pooled buffer. Exceptions thrown
+ * by the service method are sent back in the response, failures to decode the
+ * request are sent as an {@code ERROR} frame.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 14:05
+ */
+public class ServiceProviderChannel implements Channel, DisposableBean {
+
+  private final RpcRequestDeserializer requestDeserializer;
+
+  private final RpcResponseSerialization responseSerialization;
+
+  private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  @Nullable
+  private BlockingInvocationExecutor blockingExecutor;
+
+  @Nullable
+  private BulkheadRegistry bulkheads;
+
+  @Nullable
+  private ServiceMetrics metrics;
+
+  /** requests in flight */
+  private final AtomicInteger active = new AtomicInteger();
+
+  private final LongAdder completed = new LongAdder();
+
+  private final LongAdder rejectedWhileDraining = new LongAdder();
+
+  private volatile boolean draining;
+
+  public ServiceProviderChannel(RpcRequestDeserializer requestDeserializer, RpcResponseSerialization responseSerialization) {
+    this.requestDeserializer = requestDeserializer;
+    this.responseSerialization = responseSerialization;
+  }
+
+  /**
+   * Set the allocator for response buffers, pooled by default.
+   */
+  public void setAllocator(ByteBufAllocator allocator) {
+    Assert.notNull(allocator, "ByteBufAllocator is required");
+    this.allocator = allocator;
+  }
+
+  /**
+   * Set the executor for the methods returning a blocking result,
+   * {@code null} to invoke all methods on the transport threads.
+   */
+  public void setBlockingExecutor(@Nullable BlockingInvocationExecutor blockingExecutor) {
+    this.blockingExecutor = blockingExecutor;
+  }
+
+  /**
+   * Set the bulkheads limiting the concurrent invocations,
+   * {@code null} for unlimited.
+   */
+  public void setBulkheads(@Nullable BulkheadRegistry bulkheads) {
+    this.bulkheads = bulkheads;
+  }
+
+  @Nullable
+  public BulkheadRegistry getBulkheads() {
+    return bulkheads;
+  }
+
+  /**
+   * Set the metrics recording the latency of the methods,
+   * {@code null} to disable recording.
+   */
+  public void setMetrics(@Nullable ServiceMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public Mono<Payload> requestResponse(Payload payload) {
+    if (draining) {
+      payload.release();
+      rejectedWhileDraining.increment();
+      return Mono.error(new RejectedException("Service provider is shutting down"));
+    }
+
+    InvocableRpcMethod rpcMethod;
+    RpcArguments arguments;
+    try {
+      ByteBuf data = payload.data();
+      RpcRequest rpcRequest = requestDeserializer.deserialize(data);
+      rpcMethod = (InvocableRpcMethod) rpcRequest.getRpcMethod();
+      arguments = requestDeserializer.deserializeArguments(rpcMethod, data);
+    }
+    catch (Throwable e) {
+      return Mono.error(e);
+    }
+    finally {
+      payload.release();
+    }
+
+    Mono<Payload> response;
+    BulkheadRegistry bulkheads = this.bulkheads;
+    if (bulkheads != null) {
+      // rejections are sent as ERROR frame
+      response = bulkheads.execute(rpcMethod, Mono.defer(() -> respond(rpcMethod, arguments)), arguments::release);
+    }
+    else {
+      response = respond(rpcMethod, arguments);
+    }
+    return response.doOnSubscribe(s -> active.incrementAndGet())
+            .doFinally(signal -> {
+              active.decrementAndGet();
+              completed.increment();
+            });
+  }
+
+  /**
+   * Reject new requests, then wait until the requests in flight complete
+   * or the timeout elapses.
+   *
+   * @param timeout max time to wait for the requests in flight
+   * @return the drain outcome
+   */
+  public Mono<DrainResult> drain(Duration timeout) {
+    return Mono.defer(() -> {
+      draining = true;
+      long start = System.nanoTime();
+      long completedBefore = completed.sum();
+      long rejectedBefore = rejectedWhileDraining.sum();
+      return Flux.interval(Duration.ZERO, Duration.ofMillis(50))
+              .takeUntil(tick -> active.get() <= 0)
+              .then()
+              .timeout(timeout, Mono.empty())
+              .then(Mono.fromSupplier(() -> new DrainResult(completed.sum() - completedBefore,
+                      Math.max(0, active.get()), rejectedWhileDraining.sum() - rejectedBefore,
+                      Duration.ofNanos(System.nanoTime() - start))));
+    });
+  }
+
+  public boolean isDraining() {
+    return draining;
+  }
+
+  /**
+   * Returns the number of requests in flight.
+   */
+  public int getActiveCount() {
+    return active.get();
+  }
+
+  private Mono<Payload> respond(InvocableRpcMethod rpcMethod, RpcArguments arguments) {
+    Mono<RpcResponse> response = invoke(rpcMethod, arguments)
+            .map(result -> new RpcResponse(rpcMethod, result))
+            .defaultIfEmpty(new RpcResponse(rpcMethod, null))
+            .onErrorResume(ex -> Mono.just(RpcResponse.ofThrowable(rpcMethod, ex)));
+
+    ServiceMetrics metrics = this.metrics;
+    if (metrics != null) {
+      MethodStats stats = metrics.getStats(rpcMethod);
+      long start = System.nanoTime();
+      response = response.doOnNext(result ->
+              stats.record((System.nanoTime() - start) / 1000, result.getException() != null));
+    }
+    return response.map(this::encode);
+  }
+
+  /**
+   * Invoke the service method, the arguments are released once the
+   * invocation completes.
+   * <p>
+   * Methods returning a reactive or asynchronous result are invoked inline,
+   * the others are dispatched to the blocking executor if configured.
+   *
+   * @param rpcMethod target method
+   * @param arguments method arguments
+   * @return the result
+   */
+  protected Mono<Object> invoke(InvocableRpcMethod rpcMethod, RpcArguments arguments) {
+    BlockingInvocationExecutor blockingExecutor = this.blockingExecutor;
+    if (blockingExecutor != null && !rpcMethod.isAsync()) {
+      return blockingExecutor.execute(rpcMethod, arguments);
+    }
+    Object result;
+    try {
+      result = rpcMethod.invoke(arguments.toArray());
+    }
+    catch (Throwable e) {
+      arguments.release();
+      return Mono.error(e);
+    }
+    return adaptResult(result, arguments);
+  }
+
+  /**
+   * Adapt the return value of the service method, reactive and asynchronous
+   * results keep the arguments until they complete.
+   */
+  @SuppressWarnings("unchecked")
+  static Mono<Object> adaptResult(Object result, RpcArguments arguments) {
+    if (result instanceof Publisher<?> publisher) {
+      return Mono.from((Publisher<Object>) publisher)
+              .doFinally(signal -> arguments.release());
+    }
+    if (result instanceof Future<?> future) {
+      return Mono.fromFuture(((Future<Object>) future).completable())
+              .doFinally(signal -> arguments.release());
+    }
+    if (result instanceof CompletionStage<?> stage) {
+      return Mono.fromCompletionStage((CompletionStage<Object>) stage)
+              .doFinally(signal -> arguments.release());
+    }
+    arguments.release();
+    return Mono.justOrEmpty(result);
+  }
+
+  @Override
+  public void destroy() {
+    if (blockingExecutor != null) {
+      blockingExecutor.destroy();
+    }
+  }
+
+  private Payload encode(RpcResponse response) {
+    ByteBuf buffer = allocator.buffer();
+    try {
+      responseSerialization.serialize(response, buffer);
+      return ByteBufPayload.create(buffer);
+    }
+    catch (IOException | RuntimeException e) {
+      buffer.release();
+      throw ExceptionUtils.sneakyThrow(e);
+    }
+  }
+
+}
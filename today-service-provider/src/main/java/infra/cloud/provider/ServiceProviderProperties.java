@@ -17,6 +17,10 @@
 
 package infra.cloud.provider;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import infra.context.properties.ConfigurationProperties;
 
 /**
@@ -26,4 +30,231 @@ import infra.context.properties.ConfigurationProperties;
 @ConfigurationProperties("service.provider")
 public class ServiceProviderProperties {
 
+  /**
+   * Port of the service provider server.
+   */
+  private int port = 9001;
+
+  /**
+   * Decode service method arguments only when the invocation reads them,
+   * binary arguments are exposed as retained slices of the request frame.
+   */
+  private boolean lazyArguments = false;
+
+  /**
+   * Invoke the methods returning a blocking result on virtual threads
+   * instead of the transport threads. Reactive results are always
+   * handled on the transport threads.
+   */
+  private boolean virtualThreads = false;
+
+  /**
+   * Max concurrent blocking invocations of a service, {@code 0} for unlimited.
+   */
+  private int maxConcurrency = 0;
+
+  /**
+   * Max blocking invocations of a service waiting for a permit once its
+   * concurrency limit is reached, the excess is rejected.
+   */
+  private int maxQueueSize = 256;
+
+  /**
+   * Max concurrent blocking invocations keyed by service name, overrides
+   * {@link #maxConcurrency}.
+   */
+  private Map<String, Integer> serviceConcurrency = new LinkedHashMap<>();
+
+  private final BulkheadConfig bulkhead = new BulkheadConfig();
+
+  /**
+   * Issue leases to the requesters from a concurrency limit estimated
+   * from the observed latency.
+   */
+  private boolean adaptiveLease = false;
+
+  /**
+   * Max time to wait for the requests in flight on shutdown. Requesters
+   * connected with leasing are sent an empty lease, the new requests of
+   * the others are rejected while draining.
+   */
+  private Duration drainTimeout = Duration.ofSeconds(20);
+
+  /**
+   * Interval of the method latency statistics.
+   */
+  private Duration metricsInterval = Duration.ofSeconds(10);
+
+  public void setLazyArguments(boolean lazyArguments) {
+    this.lazyArguments = lazyArguments;
+  }
+
+  public boolean isLazyArguments() {
+    return lazyArguments;
+  }
+
+  public void setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public void setMaxConcurrency(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public void setMaxQueueSize(int maxQueueSize) {
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  public int getMaxQueueSize() {
+    return maxQueueSize;
+  }
+
+  public void setServiceConcurrency(Map<String, Integer> serviceConcurrency) {
+    this.serviceConcurrency = serviceConcurrency;
+  }
+
+  public Map<String, Integer> getServiceConcurrency() {
+    return serviceConcurrency;
+  }
+
+  public BulkheadConfig getBulkhead() {
+    return bulkhead;
+  }
+
+  public void setAdaptiveLease(boolean adaptiveLease) {
+    this.adaptiveLease = adaptiveLease;
+  }
+
+  public boolean isAdaptiveLease() {
+    return adaptiveLease;
+  }
+
+  public void setDrainTimeout(Duration drainTimeout) {
+    this.drainTimeout = drainTimeout;
+  }
+
+  public Duration getDrainTimeout() {
+    return drainTimeout;
+  }
+
+  public void setMetricsInterval(Duration metricsInterval) {
+    this.metricsInterval = metricsInterval;
+  }
+
+  public Duration getMetricsInterval() {
+    return metricsInterval;
+  }
+
+  public void setPort(int port) {
+    this.port = port;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  /**
+   * Bulkheads of the services and methods, invocations are rejected when
+   * both the concurrency limit and the wait queue are full.
+   */
+  public static class BulkheadConfig {
+
+    /**
+     * Whether to enable the bulkheads.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Default limit of a service.
+     */
+    private final BulkheadLimit service = new BulkheadLimit();
+
+    /**
+     * Default limit of a method.
+     */
+    private final BulkheadLimit method = new BulkheadLimit();
+
+    /**
+     * Limits keyed by service name, overrides {@link #service}.
+     */
+    private Map<String, BulkheadLimit> services = new LinkedHashMap<>();
+
+    /**
+     * Limits keyed by method signature 'service#method(paramType,...)',
+     * overrides {@link #method}.
+     */
+    private Map<String, BulkheadLimit> methods = new LinkedHashMap<>();
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public BulkheadLimit getService() {
+      return service;
+    }
+
+    public BulkheadLimit getMethod() {
+      return method;
+    }
+
+    public void setServices(Map<String, BulkheadLimit> services) {
+      this.services = services;
+    }
+
+    public Map<String, BulkheadLimit> getServices() {
+      return services;
+    }
+
+    public void setMethods(Map<String, BulkheadLimit> methods) {
+      this.methods = methods;
+    }
+
+    public Map<String, BulkheadLimit> getMethods() {
+      return methods;
+    }
+
+  }
+
+  public static class BulkheadLimit {
+
+    /**
+     * Max concurrent invocations, {@code 0} for unlimited.
+     */
+    private int maxConcurrency = 0;
+
+    /**
+     * Max invocations waiting for a permit.
+     */
+    private int maxQueueSize = 0;
+
+    public void setMaxConcurrency(int maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMaxConcurrency() {
+      return maxConcurrency;
+    }
+
+    public void setMaxQueueSize(int maxQueueSize) {
+      this.maxQueueSize = maxQueueSize;
+    }
+
+    public int getMaxQueueSize() {
+      return maxQueueSize;
+    }
+
+  }
+
 }
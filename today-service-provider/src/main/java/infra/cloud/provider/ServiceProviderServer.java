@@ -0,0 +1,210 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.time.Duration;
+
+import infra.context.SmartLifecycle;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+import infra.remoting.ChannelAcceptor;
+import infra.remoting.core.RemotingServer;
+import infra.remoting.frame.decoder.PayloadDecoder;
+import infra.remoting.lease.AdaptiveLeaseController;
+import infra.remoting.lease.UnboundedLeaseController;
+import infra.remoting.transport.netty.server.CloseableChannel;
+import infra.remoting.transport.netty.server.TcpServerTransport;
+import reactor.core.publisher.Mono;
+
+/**
+ * Binds the {@link ServiceProviderChannel} to a TCP port.
+ * <p>
+ * Starts before the services are registered to the registry and stops
+ * after they are un-registered. Stopping drains the server: the leases are
+ * revoked, new requests are rejected with an {@code ERROR} frame, the requests
+ * in flight are given the drain timeout to complete, then the transport
+ * is closed.
+ * <p>
+ * Every connection set up with leasing gets leases, from the
+ * {@link #setLeaseController lease controller} if set, unbounded ones
+ * otherwise, so the revoke tells all of those requesters to stop sending
+ * with an empty lease. {@code LEASE} frames are only valid on connections set
+ * up with leasing, the other requesters learn about the drain from the
+ * rejections of their new requests, which are retryable.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 14:20
+ */
+public class ServiceProviderServer implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(ServiceProviderServer.class);
+
+  private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+  private final int port;
+
+  private final ServiceProviderChannel channel;
+
+  private Duration drainTimeout = Duration.ofSeconds(20);
+
+  @Nullable
+  private AdaptiveLeaseController leaseController;
+
+  /** leases of the connections without a lease controller */
+  @Nullable
+  private volatile UnboundedLeaseController unboundedLeases;
+
+  @Nullable
+  private volatile CloseableChannel server;
+
+  public ServiceProviderServer(int port, ServiceProviderChannel channel) {
+    this.port = port;
+    this.channel = channel;
+  }
+
+  /**
+   * Set the max time to wait for the requests in flight on stop.
+   */
+  public void setDrainTimeout(Duration drainTimeout) {
+    Assert.notNull(drainTimeout, "drainTimeout is required");
+    this.drainTimeout = drainTimeout;
+  }
+
+  /**
+   * Set the controller issuing adaptive leases to the requesters,
+   * {@code null} to issue unbounded leases, which are only revoked
+   * when the server drains.
+   */
+  public void setLeaseController(@Nullable AdaptiveLeaseController leaseController) {
+    this.leaseController = leaseController;
+  }
+
+  @Override
+  public void start() {
+    if (server == null) {
+      RemotingServer remotingServer = RemotingServer.create(ChannelAcceptor.with(channel))
+              .payloadDecoder(PayloadDecoder.ZERO_COPY);
+      AdaptiveLeaseController leaseController = this.leaseController;
+      if (leaseController != null) {
+        remotingServer.lease(spec -> spec.sender(leaseController.newSender()));
+      }
+      else {
+        UnboundedLeaseController unboundedLeases = new UnboundedLeaseController();
+        remotingServer.lease(spec -> spec.sender(unboundedLeases.newSender()));
+        this.unboundedLeases = unboundedLeases;
+      }
+      CloseableChannel server = remotingServer.bindNow(TcpServerTransport.create(port));
+      log.info("Service provider server started on: [{}]", server.address());
+      this.server = server;
+    }
+  }
+
+  @Override
+  public void stop() {
+    CloseableChannel server = this.server;
+    if (server != null) {
+      this.server = null;
+      revokeLeases();
+      log(channel.drain(drainTimeout).block());
+      close(server).block();
+    }
+  }
+
+  @Override
+  public void stop(Runnable callback) {
+    CloseableChannel server = this.server;
+    if (server == null) {
+      callback.run();
+      return;
+    }
+    this.server = null;
+    revokeLeases();
+    // the drain completes on a timer thread, nothing below may block
+    channel.drain(drainTimeout)
+            .doOnNext(this::log)
+            .onErrorResume(error -> {
+              log.error("Service provider drain failed", error);
+              return Mono.empty();
+            })
+            .then(Mono.defer(() -> close(server)))
+            .doFinally(signal -> callback.run())
+            .subscribe();
+  }
+
+  @Override
+  public boolean isRunning() {
+    CloseableChannel server = this.server;
+    return server != null && !server.isDisposed();
+  }
+
+  /**
+   * Lower than the registering lifecycle, the server is ready before the
+   * services are published.
+   */
+  @Override
+  public int getPhase() {
+    return Integer.MAX_VALUE - 1024;
+  }
+
+  private void revokeLeases() {
+    AdaptiveLeaseController leaseController = this.leaseController;
+    if (leaseController != null) {
+      leaseController.revoke();
+    }
+    UnboundedLeaseController unboundedLeases = this.unboundedLeases;
+    if (unboundedLeases != null) {
+      unboundedLeases.revoke();
+    }
+  }
+
+  private void log(@Nullable DrainResult result) {
+    if (result != null) {
+      if (result.getAborted() > 0) {
+        log.warn("Service provider drain timed out: [{}]", result);
+      }
+      else {
+        log.info("Service provider drained: [{}]", result);
+      }
+    }
+  }
+
+  private Mono<Void> close(CloseableChannel server) {
+    log.info("Stopping service provider server: [{}]", server.address());
+    server.dispose();
+    return server.onClose()
+            .timeout(CLOSE_TIMEOUT)
+            .onErrorResume(error -> {
+              log.warn("Service provider server not closed in time", error);
+              return Mono.empty();
+            })
+            .doFinally(signal -> {
+              AdaptiveLeaseController leaseController = this.leaseController;
+              if (leaseController != null) {
+                leaseController.dispose();
+              }
+              UnboundedLeaseController unboundedLeases = this.unboundedLeases;
+              if (unboundedLeases != null) {
+                this.unboundedLeases = null;
+                unboundedLeases.dispose();
+              }
+            });
+  }
+
+}
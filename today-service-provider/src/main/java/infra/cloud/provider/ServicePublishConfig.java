@@ -17,12 +17,18 @@
 
 package infra.cloud.provider;
 
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.RegistryProperties;
 import infra.cloud.registry.ServiceRegistry;
 import infra.context.SmartLifecycle;
 import infra.context.annotation.Configuration;
+import infra.lang.Nullable;
 import infra.logging.Logger;
 import infra.logging.LoggerFactory;
 import infra.stereotype.Component;
@@ -38,13 +44,14 @@ class ServicePublishConfig {
   private static final Logger log = LoggerFactory.getLogger(ServicePublishConfig.class);
 
   @Singleton
-  static LocalServiceHolder localServiceHolder() {
-    return new LocalServiceHolder(9001);
+  static LocalServiceHolder localServiceHolder(ServiceProviderProperties properties) {
+    return new LocalServiceHolder(properties.getPort());
   }
 
   @Component
-  static ServiceProviderLifecycle serviceProviderLifecycle(ServiceRegistry<HttpRegistration> serviceRegistry, LocalServiceHolder serviceHolder) {
-    return new ServiceProviderLifecycle(serviceRegistry, serviceHolder);
+  static ServiceProviderLifecycle serviceProviderLifecycle(ServiceRegistry<HttpRegistration> serviceRegistry,
+          LocalServiceHolder serviceHolder, RegistryProperties properties) {
+    return new ServiceProviderLifecycle(serviceRegistry, serviceHolder, properties.getHeartbeatInterval());
   }
 
   static class ServiceProviderLifecycle implements SmartLifecycle {
@@ -52,18 +59,55 @@ class ServicePublishConfig {
 
     final ServiceRegistry<HttpRegistration> serviceRegistry;
 
+    private final Duration heartbeatInterval;
+
     private final AtomicBoolean started = new AtomicBoolean();
 
-    ServiceProviderLifecycle(ServiceRegistry<HttpRegistration> serviceRegistry, LocalServiceHolder serviceHolder) {
+    @Nullable
+    private ScheduledExecutorService heartbeatExecutor;
+
+    ServiceProviderLifecycle(ServiceRegistry<HttpRegistration> serviceRegistry,
+            LocalServiceHolder serviceHolder, Duration heartbeatInterval) {
       this.serviceRegistry = serviceRegistry;
       this.serviceHolder = serviceHolder;
+      this.heartbeatInterval = heartbeatInterval;
     }
 
     @Override
     public void start() {
       if (started.compareAndSet(false, true)) {
         log.info("Registering services to registry: [{}]", serviceRegistry);
-        serviceRegistry.register(new HttpRegistration(serviceHolder.getServices())); // register to registry
+        HttpRegistration registration = new HttpRegistration(serviceHolder.getServices());
+        serviceRegistry.register(registration); // register to registry
+        startHeartbeat(registration);
+      }
+    }
+
+    /**
+     * Renew the lease of the registration, register again if
+     * the registry has evicted it.
+     */
+    private void startHeartbeat(HttpRegistration registration) {
+      long interval = heartbeatInterval.toMillis();
+      if (interval > 0) {
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread thread = new Thread(r, "registry-heartbeat");
+          thread.setDaemon(true);
+          return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(() -> heartbeat(registration), interval, interval, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    private void heartbeat(HttpRegistration registration) {
+      try {
+        if (!serviceRegistry.heartbeat(registration)) {
+          log.warn("Registration evicted by registry: [{}], registering again", serviceRegistry);
+          serviceRegistry.register(registration);
+        }
+      }
+      catch (RuntimeException e) {
+        log.warn("Heartbeat to registry: [{}] failed", serviceRegistry, e);
       }
     }
 
@@ -78,6 +122,10 @@ class ServicePublishConfig {
     @Override
     public void stop(Runnable callback) {
       if (started.compareAndSet(true, false)) {
+        if (heartbeatExecutor != null) {
+          heartbeatExecutor.shutdownNow();
+          heartbeatExecutor = null;
+        }
         log.info("Un-Registering services: [{}]", serviceRegistry);
         try {
           HttpRegistration registration = new HttpRegistration(serviceHolder.getServices());
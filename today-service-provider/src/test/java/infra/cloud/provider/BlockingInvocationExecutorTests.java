@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import infra.cloud.provider.ServiceProviderChannelTests.TrackingArguments;
+import infra.remoting.exceptions.RejectedException;
+import infra.util.ReflectionUtils;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 21:10
+ */
+class BlockingInvocationExecutorTests {
+
+  private final ExecutorService threads = Executors.newCachedThreadPool();
+
+  private final Gate gate = new Gate();
+
+  private final InvocableRpcMethod pass = new InvocableRpcMethod("gate", gate,
+          ReflectionUtils.findMethod(Gate.class, "pass", String.class));
+
+  @AfterEach
+  void shutdown() {
+    gate.open();
+    threads.shutdownNow();
+  }
+
+  @Test
+  void invocationsBeyondQueueRejected() {
+    BlockingInvocationExecutor executor = new BlockingInvocationExecutor(threads, 1, 1, Map.of());
+    TrackingArguments rejected = new TrackingArguments("third");
+
+    Disposable first = executor.execute(pass, new TrackingArguments("first")).subscribe();
+    Disposable second = executor.execute(pass, new TrackingArguments("second")).subscribe();
+    StepVerifier.create(executor.execute(pass, rejected))
+            .expectErrorSatisfies(ex -> assertThat(ex).isInstanceOf(RejectedException.class)
+                    .hasMessageContaining("'gate'"))
+            .verify(Duration.ofSeconds(5));
+
+    assertThat(rejected.released).isEqualTo(1);
+    await().untilAsserted(() -> assertThat(gate.calls).containsExactly("first"));
+
+    gate.open();
+    await().untilAsserted(() -> assertThat(gate.calls).containsExactly("first", "second"));
+    first.dispose();
+    second.dispose();
+  }
+
+  @Test
+  void permitsHandedOverInArrivalOrder() {
+    BlockingInvocationExecutor executor = new BlockingInvocationExecutor(threads, 1, 8, Map.of());
+    List<String> results = new CopyOnWriteArrayList<>();
+    for (String name : List.of("first", "a", "b", "c")) {
+      executor.execute(pass, new TrackingArguments(name)).subscribe(result -> results.add((String) result));
+    }
+    await().untilAsserted(() -> assertThat(gate.calls).containsExactly("first"));
+
+    gate.open();
+    await().untilAsserted(() -> assertThat(results).containsExactly("first", "a", "b", "c"));
+    assertThat(gate.calls).containsExactly("first", "a", "b", "c");
+  }
+
+  @Test
+  void cancelledInvocationLeavesQueue() {
+    BlockingInvocationExecutor executor = new BlockingInvocationExecutor(threads, 1, 1, Map.of());
+    TrackingArguments cancelled = new TrackingArguments("cancelled");
+
+    executor.execute(pass, new TrackingArguments("first")).subscribe();
+    await().untilAsserted(() -> assertThat(gate.calls).containsExactly("first"));
+
+    executor.execute(pass, cancelled).subscribe().dispose();
+    assertThat(cancelled.released).isEqualTo(1);
+
+    // the queue slot is free again
+    List<Object> results = new CopyOnWriteArrayList<>();
+    executor.execute(pass, new TrackingArguments("last")).subscribe(results::add);
+
+    gate.open();
+    await().untilAsserted(() -> assertThat(results).containsExactly("last"));
+    assertThat(gate.calls).containsExactly("first", "last");
+  }
+
+  @Test
+  void serviceConcurrencyOverridesDefault() {
+    BlockingInvocationExecutor executor = new BlockingInvocationExecutor(threads, 1, 0, Map.of("gate", 2));
+
+    executor.execute(pass, new TrackingArguments("first")).subscribe();
+    executor.execute(pass, new TrackingArguments("second")).subscribe();
+    await().untilAsserted(() -> assertThat(gate.calls).containsExactlyInAnyOrder("first", "second"));
+
+    StepVerifier.create(executor.execute(pass, new TrackingArguments("third")))
+            .expectError(RejectedException.class)
+            .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void executorRejectionReleasesPermit() {
+    BlockingInvocationExecutor executor = new BlockingInvocationExecutor(command -> {
+      throw new RejectedExecutionException("full");
+    }, 1, 0, Map.of());
+
+    TrackingArguments arguments = new TrackingArguments("first");
+    StepVerifier.create(executor.execute(pass, arguments))
+            .expectError(RejectedException.class)
+            .verify(Duration.ofSeconds(5));
+    assertThat(arguments.released).isEqualTo(1);
+
+    // not rejected by the cap
+    StepVerifier.create(executor.execute(pass, new TrackingArguments("second")))
+            .expectErrorSatisfies(ex -> assertThat(ex).hasMessageContaining("rejected by the executor"))
+            .verify(Duration.ofSeconds(5));
+  }
+
+  static class Gate {
+
+    final List<String> calls = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    public String pass(String name) throws InterruptedException {
+      calls.add(name);
+      latch.await();
+      return name;
+    }
+
+    void open() {
+      latch.countDown();
+    }
+
+  }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import infra.cloud.provider.ServiceProviderProperties.BulkheadConfig;
+import infra.cloud.provider.ServiceProviderProperties.BulkheadLimit;
+import infra.remoting.exceptions.RejectedException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 21:40
+ */
+class BulkheadRegistryTests {
+
+  private static final String SERVICE = GreetingService.class.getName();
+
+  private final LocalServiceHolder serviceHolder = LocalServiceHolderTests.export(GreetingService.create());
+
+  private final InvocableRpcMethod greet = serviceHolder.getMethod(SERVICE, "greet", new String[] { "java.lang.String" });
+
+  private final InvocableRpcMethod greetRepeated = serviceHolder.getMethod(SERVICE, "greet", new String[] { "java.lang.String", "int" });
+
+  private final BulkheadConfig config = new BulkheadConfig();
+
+  private final AtomicInteger abandoned = new AtomicInteger();
+
+  @Test
+  void methodPermitTakenBeforeServicePermit() {
+    limit(config.getService(), 1, 0);
+    limit(config.getMethod(), 1, 4);
+    BulkheadRegistry registry = new BulkheadRegistry(config);
+
+    Sinks.One<String> first = Sinks.one();
+    Disposable running = registry.execute(greet, first.asMono(), abandoned::incrementAndGet).subscribe();
+
+    // waits for the method permit without holding a service permit,
+    // the service bulkhead would reject it otherwise
+    List<String> results = new CopyOnWriteArrayList<>();
+    registry.execute(greet, Mono.just("second"), abandoned::incrementAndGet).subscribe(results::add);
+
+    Bulkhead service = registry.getServiceBulkhead(SERVICE);
+    Bulkhead method = registry.getMethodBulkhead(greet);
+    assertThat(service.getActiveCount()).isEqualTo(1);
+    assertThat(service.getRejectedCount()).isZero();
+    assertThat(method.getActiveCount()).isEqualTo(1);
+    assertThat(method.getQueueDepth()).isEqualTo(1);
+
+    // the handed over method permit finds the service permit released
+    first.tryEmitValue("first");
+    assertThat(results).containsExactly("second");
+    assertThat(service.getRejectedCount()).isZero();
+
+    assertThat(service.getActiveCount()).isZero();
+    assertThat(method.getActiveCount()).isZero();
+    assertThat(abandoned).hasValue(0);
+    running.dispose();
+  }
+
+  @Test
+  void permitsReleasedOnError() {
+    limit(config.getService(), 1, 0);
+    limit(config.getMethod(), 1, 0);
+    BulkheadRegistry registry = new BulkheadRegistry(config);
+
+    StepVerifier.create(registry.execute(greet, Mono.error(new IllegalStateException("broken")), abandoned::incrementAndGet))
+            .expectError(IllegalStateException.class)
+            .verify(Duration.ofSeconds(5));
+
+    assertThat(registry.getServiceBulkhead(SERVICE).getActiveCount()).isZero();
+    assertThat(registry.getMethodBulkhead(greet).getActiveCount()).isZero();
+    assertThat(abandoned).hasValue(0);
+  }
+
+  @Test
+  void permitsReleasedOnCancel() {
+    limit(config.getService(), 1, 0);
+    limit(config.getMethod(), 1, 1);
+    BulkheadRegistry registry = new BulkheadRegistry(config);
+
+    Disposable running = registry.execute(greet, Mono.never(), abandoned::incrementAndGet).subscribe();
+    Disposable waiting = registry.execute(greet, Mono.never(), abandoned::incrementAndGet).subscribe();
+    Bulkhead method = registry.getMethodBulkhead(greet);
+    assertThat(method.getQueueDepth()).isEqualTo(1);
+
+    // never started, its resources are released by the caller
+    waiting.dispose();
+    assertThat(method.getQueueDepth()).isZero();
+    assertThat(abandoned).hasValue(1);
+
+    running.dispose();
+    assertThat(method.getActiveCount()).isZero();
+    assertThat(registry.getServiceBulkhead(SERVICE).getActiveCount()).isZero();
+    assertThat(abandoned).hasValue(1);
+  }
+
+  @Test
+  void rejectedWhenFull() {
+    limit(config.getMethod(), 1, 0);
+    BulkheadRegistry registry = new BulkheadRegistry(config);
+
+    Disposable running = registry.execute(greet, Mono.never(), abandoned::incrementAndGet).subscribe();
+    StepVerifier.create(registry.execute(greet, Mono.just("second"), abandoned::incrementAndGet))
+            .expectError(RejectedException.class)
+            .verify(Duration.ofSeconds(5));
+
+    assertThat(registry.getMethodBulkhead(greet).getRejectedCount()).isEqualTo(1);
+    assertThat(abandoned).hasValue(1);
+    running.dispose();
+  }
+
+  @Test
+  void methodBulkheadsKeyedBySignature() {
+    BulkheadLimit repeated = limit(new BulkheadLimit(), 2, 3);
+    config.getMethods().put(SERVICE + "#greet(java.lang.String,int)", repeated);
+    BulkheadRegistry registry = new BulkheadRegistry(config);
+
+    // unlimited by default
+    assertThat(registry.getServiceBulkhead(SERVICE)).isNull();
+    assertThat(registry.getMethodBulkhead(greet)).isNull();
+
+    Bulkhead bulkhead = registry.getMethodBulkhead(greetRepeated);
+    assertThat(bulkhead).isNotNull().isSameAs(registry.getMethodBulkhead(greetRepeated));
+    assertThat(bulkhead.getName()).isEqualTo(SERVICE + "#greet(java.lang.String,int)");
+    assertThat(bulkhead.getMaxConcurrency()).isEqualTo(2);
+    assertThat(bulkhead.getMaxQueueSize()).isEqualTo(3);
+    assertThat(registry.getMethodBulkheads()).containsExactly(bulkhead);
+  }
+
+  @Test
+  void overloadsIsolated() {
+    limit(config.getMethod(), 1, 0);
+    BulkheadRegistry registry = new BulkheadRegistry(config);
+
+    Disposable running = registry.execute(greet, Mono.never(), abandoned::incrementAndGet).subscribe();
+    StepVerifier.create(registry.execute(greetRepeated, Mono.just("other"), abandoned::incrementAndGet))
+            .expectNext("other")
+            .verifyComplete();
+    assertThat(registry.getMethodBulkhead(greet)).isNotSameAs(registry.getMethodBulkhead(greetRepeated));
+    running.dispose();
+  }
+
+  private static BulkheadLimit limit(BulkheadLimit limit, int maxConcurrency, int maxQueueSize) {
+    limit.setMaxConcurrency(maxConcurrency);
+    limit.setMaxQueueSize(maxQueueSize);
+    return limit;
+  }
+
+}
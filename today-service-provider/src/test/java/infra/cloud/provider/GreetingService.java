@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import infra.util.concurrent.Future;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service exported in the provider tests.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 20:30
+ */
+interface GreetingService {
+
+  String greet(String name);
+
+  String greet(String name, int times);
+
+  Mono<String> greetLater(String name);
+
+  Flux<String> greetEach(String name);
+
+  Future<String> greetFuture(String name);
+
+  CompletionStage<String> greetStage(String name);
+
+  void ping();
+
+  String fail(String message);
+
+  default String greetTwice(String name) {
+    return greet(name, 2);
+  }
+
+  static GreetingService create() {
+    return new DefaultGreetingService();
+  }
+
+  class DefaultGreetingService implements GreetingService {
+
+    @Override
+    public String greet(String name) {
+      return "Hello " + name;
+    }
+
+    @Override
+    public String greet(String name, int times) {
+      return ("Hello " + name + " ").repeat(times).trim();
+    }
+
+    @Override
+    public Mono<String> greetLater(String name) {
+      return Mono.fromSupplier(() -> greet(name));
+    }
+
+    @Override
+    public Flux<String> greetEach(String name) {
+      return Flux.just(greet(name), greet(name, 2));
+    }
+
+    @Override
+    public Future<String> greetFuture(String name) {
+      return Future.ok(greet(name));
+    }
+
+    @Override
+    public CompletionStage<String> greetStage(String name) {
+      return CompletableFuture.supplyAsync(() -> greet(name));
+    }
+
+    @Override
+    public void ping() {
+    }
+
+    @Override
+    public String fail(String message) {
+      throw new IllegalStateException(message);
+    }
+
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import infra.context.ApplicationContext;
+import infra.stereotype.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 20:36
+ */
+class LocalServiceHolderTests {
+
+  private static final String SERVICE = GreetingService.class.getName();
+
+  private final GreetingService service = GreetingService.create();
+
+  private final LocalServiceHolder serviceHolder = export(service);
+
+  @Test
+  void servicesExported() {
+    assertThat(serviceHolder.getService(SERVICE)).isSameAs(service);
+    assertThat(serviceHolder.getServices()).singleElement().satisfies(definition -> {
+      assertThat(definition.getName()).isEqualTo(SERVICE);
+      assertThat(definition.getHost()).isEqualTo("127.0.0.1");
+      assertThat(definition.getPort()).isEqualTo(9001);
+    });
+  }
+
+  @Test
+  void overloadsResolvedByParameterTypes() throws Throwable {
+    InvocableRpcMethod single = serviceHolder.getMethod(SERVICE, "greet", new String[] { "java.lang.String" });
+    InvocableRpcMethod repeated = serviceHolder.getMethod(SERVICE, "greet", new String[] { "java.lang.String", "int" });
+
+    assertThat(single).isNotNull();
+    assertThat(repeated).isNotNull().isNotSameAs(single);
+    assertThat(single.getServiceName()).isEqualTo(SERVICE);
+    assertThat(single.invoke(new Object[] { "TODAY" })).isEqualTo("Hello TODAY");
+    assertThat(repeated.invoke(new Object[] { "TODAY", 2 })).isEqualTo("Hello TODAY Hello TODAY");
+  }
+
+  @Test
+  void defaultAndStaticMethodsNotExported() {
+    assertThat(serviceHolder.getMethod(SERVICE, "greetTwice", new String[] { "java.lang.String" })).isNull();
+    assertThat(serviceHolder.getMethod(SERVICE, "create", new String[0])).isNull();
+    assertThat(serviceHolder.getMethods()).extracting(method -> method.getMethod().getName())
+            .doesNotContain("greetTwice", "create");
+  }
+
+  @Test
+  void unknownMethodNotFound() {
+    assertThat(serviceHolder.getMethod(SERVICE, "greet", new String[] { "java.lang.Integer" })).isNull();
+    assertThat(serviceHolder.getMethod(SERVICE, "farewell", new String[] { "java.lang.String" })).isNull();
+    assertThat(serviceHolder.getMethod("infra.cloud.UnknownService", "greet", new String[] { "java.lang.String" })).isNull();
+  }
+
+  @Test
+  void asyncMethodsDetected() {
+    assertThat(serviceHolder.getMethods()).filteredOn(InvocableRpcMethod::isAsync)
+            .extracting(method -> method.getMethod().getName())
+            .containsExactlyInAnyOrder("greetLater", "greetEach", "greetFuture", "greetStage");
+  }
+
+  /**
+   * Export the given services as if they were the {@link Service} beans of the context.
+   */
+  static LocalServiceHolder export(Object... services) {
+    ApplicationContext context = mock(ApplicationContext.class);
+    doReturn(List.of(services)).when(context).getAnnotatedBeans(Service.class);
+    LocalServiceHolder serviceHolder = new LocalServiceHolder(9001);
+    serviceHolder.setLocalHostName("127.0.0.1");
+    serviceHolder.setApplicationContext(context);
+    serviceHolder.afterSingletonsInstantiated();
+    return serviceHolder;
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import infra.cloud.provider.MethodStats.Snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 22:40
+ */
+class MethodStatsTests {
+
+  private static final String SERVICE = GreetingService.class.getName();
+
+  @Test
+  void percentiles() {
+    MethodStats stats = new MethodStats("greet");
+    for (int latency = 1; latency <= 100; latency++) {
+      stats.record(latency, latency % 10 == 0);
+    }
+
+    Snapshot snapshot = stats.snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(100);
+    assertThat(snapshot.getErrors()).isEqualTo(10);
+    assertThat(snapshot.getP50()).isEqualTo(50);
+    assertThat(snapshot.getP99()).isEqualTo(99);
+    assertThat(snapshot.getP999()).isEqualTo(100);
+    assertThat(snapshot.getMax()).isEqualTo(100);
+    assertThat(snapshot.getThroughput()).isPositive();
+    assertThat(stats.getLastSnapshot()).isSameAs(snapshot);
+  }
+
+  @Test
+  void snapshotCoversInterval() {
+    MethodStats stats = new MethodStats("greet");
+    stats.record(1000, true);
+    assertThat(stats.snapshot().getCount()).isEqualTo(1);
+
+    Snapshot empty = stats.snapshot();
+    assertThat(empty.getCount()).isZero();
+    assertThat(empty.getErrors()).isZero();
+    assertThat(empty.getP99()).isZero();
+    assertThat(empty.getThroughput()).isZero();
+
+    stats.record(10, false);
+    stats.record(20, false);
+    Snapshot next = stats.snapshot();
+    assertThat(next.getCount()).isEqualTo(2);
+    assertThat(next.getErrors()).isZero();
+    assertThat(next.getMax()).isEqualTo(20);
+  }
+
+  @Test
+  void latencyClamped() {
+    MethodStats stats = new MethodStats("greet");
+    stats.record(-5, false);
+    stats.record(Long.MAX_VALUE, false);
+
+    Snapshot snapshot = stats.snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(2);
+    assertThat(snapshot.getP50()).isZero();
+    assertThat(snapshot.getMax()).isCloseTo(MethodStats.HIGHEST_TRACKABLE_LATENCY, withinPercentage(1));
+  }
+
+  @Test
+  void rollAggregatesMethods() {
+    LocalServiceHolder holder = LocalServiceHolderTests.export(GreetingService.create());
+    InvocableRpcMethod greet = holder.getMethod(SERVICE, "greet", new String[] { "java.lang.String" });
+    InvocableRpcMethod ping = holder.getMethod(SERVICE, "ping", new String[0]);
+
+    ServiceMetrics metrics = new ServiceMetrics(() -> 3, Duration.ofSeconds(10));
+    assertThat(metrics.getStats(greet)).isSameAs(metrics.getStats(greet));
+    assertThat(metrics.availability()).isEqualTo(1.0);
+
+    for (int latency = 1; latency <= 50; latency++) {
+      metrics.getStats(greet).record(latency, false);
+      metrics.getStats(ping).record(latency + 50, latency > 40);
+    }
+    // readers see the last completed interval only
+    assertThat(metrics.getSnapshots()).isEmpty();
+    assertThat(metrics.getTotal().getCount()).isZero();
+
+    metrics.roll();
+    assertThat(metrics.getSnapshots()).containsOnlyKeys(
+            SERVICE + "#greet(String)", SERVICE + "#ping()");
+    assertThat(metrics.getSnapshots().get(SERVICE + "#greet(String)").getP99()).isEqualTo(50);
+
+    Snapshot total = metrics.getTotal();
+    assertThat(total.getCount()).isEqualTo(100);
+    assertThat(total.getErrors()).isEqualTo(10);
+    assertThat(total.getP50()).isEqualTo(50);
+    assertThat(total.getP99()).isEqualTo(99);
+    assertThat(total.getMax()).isEqualTo(100);
+    assertThat(metrics.availability()).isCloseTo(0.9, withinPercentage(0.01));
+    assertThat(metrics.pending()).isEqualTo(3);
+
+    metrics.roll();
+    assertThat(metrics.getTotal().getCount()).isZero();
+    assertThat(metrics.availability()).isEqualTo(1.0);
+  }
+
+  @Test
+  void rollerLifecycle() {
+    ServiceMetrics metrics = new ServiceMetrics(() -> 0, Duration.ofSeconds(10));
+    assertThat(metrics.isRunning()).isFalse();
+    metrics.start();
+    assertThat(metrics.isRunning()).isTrue();
+    metrics.stop();
+    assertThat(metrics.isRunning()).isFalse();
+  }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import infra.cloud.RpcMethod;
+import infra.cloud.core.serialize.DeserializeFailedException;
+import infra.cloud.serialize.ByteBufArgumentSerialization;
+import infra.cloud.serialize.RpcArgumentSerialization;
+import infra.remoting.test.LeaksTrackingByteBufAllocator;
+import infra.util.ReflectionUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 20:05
+ */
+@SuppressWarnings("rawtypes")
+class RpcArgumentsTests {
+
+  private final LeaksTrackingByteBufAllocator allocator =
+          LeaksTrackingByteBufAllocator.instrument(UnpooledByteBufAllocator.DEFAULT);
+
+  private final List<RpcArgumentSerialization> serializations = List.of(new ByteBufArgumentSerialization());
+
+  private final RpcMethod rpcMethod = new RpcMethod(
+          ReflectionUtils.findMethod(Storage.class, "write", ByteBuf.class, ByteBuf.class));
+
+  @AfterEach
+  void noLeaks() {
+    allocator.assertHasNoLeaks();
+  }
+
+  @Test
+  void decodedArgumentsReleased() {
+    ByteBuf payload = payload(argument("first"), argument("second"));
+    RpcArguments arguments = RpcArguments.decode(rpcMethod, payload, serializations);
+    payload.release();
+
+    Object[] args = arguments.toArray();
+    assertThat(content(args[0])).isEqualTo("first");
+    assertThat(content(args[1])).isEqualTo("second");
+    // the argument slices outlive the request payload
+    assertThat(payload.refCnt()).isEqualTo(2);
+
+    arguments.release();
+    assertThat(payload.refCnt()).isZero();
+  }
+
+  @Test
+  void lazyArgumentsReleased() {
+    ByteBuf payload = payload(argument("first"), argument("second"));
+    RpcArguments arguments = RpcArguments.lazy(rpcMethod, payload, serializations);
+    payload.release();
+
+    assertThat(arguments.size()).isEqualTo(2);
+    assertThat(content(arguments.get(1))).isEqualTo("second");
+    assertThat(arguments.get(1)).isSameAs(arguments.get(1));
+
+    // the first argument is never decoded
+    arguments.release();
+    assertThat(payload.refCnt()).isZero();
+  }
+
+  @Test
+  void decodeReleasesArgumentsOnError() {
+    // the second argument has no presence flag
+    ByteBuf payload = payload(argument("first"), new byte[0]);
+
+    assertThatThrownBy(() -> RpcArguments.decode(rpcMethod, payload, serializations))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    payload.release();
+    assertThat(payload.refCnt()).isZero();
+  }
+
+  @Test
+  void lazyReleasesArgumentsOnDecodeError() {
+    ByteBuf payload = payload(argument("first"), new byte[0]);
+    RpcArguments arguments = RpcArguments.lazy(rpcMethod, payload, serializations);
+    payload.release();
+
+    assertThat(content(arguments.get(0))).isEqualTo("first");
+    assertThatThrownBy(() -> arguments.get(1)).isInstanceOf(IndexOutOfBoundsException.class);
+
+    arguments.release();
+    assertThat(payload.refCnt()).isZero();
+  }
+
+  @Test
+  void decodeRejectsMalformedLength() {
+    ByteBuf payload = allocator.buffer();
+    writeArgument(payload, argument("first"));
+    payload.writeInt(Integer.MAX_VALUE).writeBoolean(true);
+
+    assertThatThrownBy(() -> RpcArguments.decode(rpcMethod, payload, serializations))
+            .isInstanceOf(DeserializeFailedException.class)
+            .hasMessageContaining("Malformed argument length");
+    payload.release();
+  }
+
+  @Test
+  void lazyRejectsNegativeLength() {
+    ByteBuf payload = allocator.buffer();
+    writeArgument(payload, argument("first"));
+    payload.writeInt(-1).writeBoolean(true);
+
+    assertThatThrownBy(() -> RpcArguments.lazy(rpcMethod, payload, serializations))
+            .isInstanceOf(DeserializeFailedException.class)
+            .hasMessageContaining("Malformed argument length at index 1");
+    payload.release();
+  }
+
+  @Test
+  void lazyRejectsLengthBeyondPayload() {
+    ByteBuf payload = allocator.buffer();
+    writeArgument(payload, argument("first"));
+    payload.writeInt(64).writeBoolean(true);
+
+    assertThatThrownBy(() -> RpcArguments.lazy(rpcMethod, payload, serializations))
+            .isInstanceOf(DeserializeFailedException.class)
+            .hasMessageContaining("Malformed argument length at index 1");
+    payload.release();
+  }
+
+  @Test
+  void lazyRejectsMissingArgument() {
+    ByteBuf payload = payload(argument("first"));
+
+    assertThatThrownBy(() -> RpcArguments.lazy(rpcMethod, payload, serializations))
+            .isInstanceOf(DeserializeFailedException.class)
+            .hasMessageContaining("Missing argument at index 1");
+    payload.release();
+  }
+
+  private ByteBuf payload(byte[]... arguments) {
+    ByteBuf payload = allocator.buffer();
+    for (byte[] argument : arguments) {
+      writeArgument(payload, argument);
+    }
+    return payload;
+  }
+
+  private static void writeArgument(ByteBuf payload, byte[] argument) {
+    payload.writeInt(argument.length);
+    payload.writeBytes(argument);
+  }
+
+  private static byte[] argument(String content) {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    byte[] argument = new byte[bytes.length + 1];
+    argument[0] = 1;
+    System.arraycopy(bytes, 0, argument, 1, bytes.length);
+    return argument;
+  }
+
+  private static String content(Object argument) {
+    return ((ByteBuf) argument).toString(StandardCharsets.UTF_8);
+  }
+
+  interface Storage {
+
+    int write(ByteBuf first, ByteBuf second);
+
+  }
+
+}
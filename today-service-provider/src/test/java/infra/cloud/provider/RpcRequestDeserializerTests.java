@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import infra.cloud.RpcRequest;
+import infra.cloud.core.serialize.DeserializeFailedException;
+import infra.cloud.registry.ServiceNotFoundException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 20:44
+ */
+class RpcRequestDeserializerTests {
+
+  private static final String SERVICE = GreetingService.class.getName();
+
+  private final RpcRequestDeserializer deserializer = new RpcRequestDeserializer(
+          List.of(), LocalServiceHolderTests.export(GreetingService.create()));
+
+  @Test
+  void overloadResolved() {
+    ByteBuf payload = request(SERVICE, "greet", "java.lang.String", "int");
+    payload.writeInt(42);
+
+    RpcRequest request = deserializer.deserialize(payload);
+    assertThat(request.getServiceName()).isEqualTo(SERVICE);
+    assertThat(request.getMethodName()).isEqualTo("greet");
+    assertThat(request.getParamTypes()).containsExactly("java.lang.String", "int");
+    assertThat(request.getRpcMethod().getMethod().getParameterTypes()).containsExactly(String.class, int.class);
+
+    // left at the arguments
+    assertThat(payload.readInt()).isEqualTo(42);
+    payload.release();
+  }
+
+  @Test
+  void unknownMethod() {
+    ByteBuf payload = request(SERVICE, "greet", "java.lang.Integer");
+    assertThatThrownBy(() -> deserializer.deserialize(payload))
+            .isInstanceOf(ServiceNotFoundException.class)
+            .hasMessageContaining(SERVICE + "#greet[java.lang.Integer]");
+    payload.release();
+  }
+
+  @Test
+  void defaultMethodNotFound() {
+    ByteBuf payload = request(SERVICE, "greetTwice", "java.lang.String");
+    assertThatThrownBy(() -> deserializer.deserialize(payload))
+            .isInstanceOf(ServiceNotFoundException.class);
+    payload.release();
+  }
+
+  @Test
+  void malformedHeader() {
+    ByteBuf payload = Unpooled.buffer().writeInt(1024);
+    assertThatThrownBy(() -> deserializer.deserialize(payload))
+            .isInstanceOf(DeserializeFailedException.class)
+            .hasMessageContaining("string length: 1024");
+    payload.release();
+  }
+
+  static ByteBuf request(String serviceName, String methodName, String... paramTypes) {
+    ByteBuf payload = Unpooled.buffer();
+    writeString(payload, methodName);
+    writeString(payload, serviceName);
+    payload.writeShort(paramTypes.length);
+    for (String paramType : paramTypes) {
+      writeString(payload, paramType);
+    }
+    return payload;
+  }
+
+  private static void writeString(ByteBuf payload, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    payload.writeInt(bytes.length);
+    payload.writeBytes(bytes);
+  }
+
+}
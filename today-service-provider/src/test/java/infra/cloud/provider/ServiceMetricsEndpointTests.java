@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import infra.cloud.provider.ServiceProviderProperties.BulkheadConfig;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 21:58
+ */
+class ServiceMetricsEndpointTests {
+
+  private static final String SERVICE = GreetingService.class.getName();
+
+  private final ServiceMetrics metrics = new ServiceMetrics(() -> 0, Duration.ofSeconds(10));
+
+  @Test
+  void bulkheadsOmittedWhenDisabled() {
+    assertThat(new ServiceMetricsEndpoint(metrics).metrics())
+            .containsKeys("total", "pending", "availability", "methods")
+            .doesNotContainKey("bulkheads");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void bulkheadsExposed() {
+    BulkheadConfig config = new BulkheadConfig();
+    config.getMethod().setMaxConcurrency(1);
+    config.getMethod().setMaxQueueSize(0);
+    BulkheadRegistry bulkheads = new BulkheadRegistry(config);
+
+    InvocableRpcMethod greet = LocalServiceHolderTests.export(GreetingService.create())
+            .getMethod(SERVICE, "greet", new String[] { "java.lang.String" });
+    Disposable running = bulkheads.execute(greet, Mono.never(), () -> { }).subscribe();
+    bulkheads.execute(greet, Mono.just("rejected"), () -> { }).subscribe(result -> { }, error -> { });
+
+    var ret = new ServiceMetricsEndpoint(metrics, bulkheads).metrics();
+    var state = (Map<String, Map<String, Map<String, Object>>>) ret.get("bulkheads");
+    assertThat(state.get("services")).isEmpty();
+    assertThat(state.get("methods").get(SERVICE + "#greet(java.lang.String)"))
+            .containsEntry("active", 1)
+            .containsEntry("maxConcurrency", 1)
+            .containsEntry("queueDepth", 0)
+            .containsEntry("rejected", 1L);
+    running.dispose();
+  }
+
+}
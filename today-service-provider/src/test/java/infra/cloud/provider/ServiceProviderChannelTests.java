@@ -0,0 +1,246 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.provider;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import infra.cloud.serialize.RpcResponseSerialization;
+import infra.lang.Nullable;
+import infra.remoting.Payload;
+import infra.remoting.exceptions.RejectedException;
+import infra.remoting.util.ByteBufPayload;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 20:52
+ */
+class ServiceProviderChannelTests {
+
+  private static final String SERVICE = GreetingService.class.getName();
+
+  private final LocalServiceHolder serviceHolder = LocalServiceHolderTests.export(GreetingService.create());
+
+  private final ServiceProviderChannel channel = new ServiceProviderChannel(
+          mock(RpcRequestDeserializer.class), mock(RpcResponseSerialization.class));
+
+  @Test
+  void syncResult() {
+    TrackingArguments arguments = new TrackingArguments("TODAY", 2);
+    StepVerifier.create(channel.invoke(method("greet", "java.lang.String", "int"), arguments))
+            .expectNext("Hello TODAY Hello TODAY")
+            .verifyComplete();
+    assertThat(arguments.released).isEqualTo(1);
+  }
+
+  @Test
+  void voidResult() {
+    TrackingArguments arguments = new TrackingArguments();
+    StepVerifier.create(channel.invoke(method("ping"), arguments))
+            .verifyComplete();
+    assertThat(arguments.released).isEqualTo(1);
+  }
+
+  @Test
+  void exceptionThrown() {
+    TrackingArguments arguments = new TrackingArguments("broken");
+    StepVerifier.create(channel.invoke(method("fail", "java.lang.String"), arguments))
+            .expectErrorSatisfies(ex -> assertThat(ex).isInstanceOf(IllegalStateException.class).hasMessage("broken"))
+            .verify();
+    assertThat(arguments.released).isEqualTo(1);
+  }
+
+  @Test
+  void monoResult() {
+    TrackingArguments arguments = new TrackingArguments("TODAY");
+    Mono<Object> result = channel.invoke(method("greetLater", "java.lang.String"), arguments);
+    // kept until the publisher completes
+    assertThat(arguments.released).isZero();
+
+    StepVerifier.create(result)
+            .expectNext("Hello TODAY")
+            .verifyComplete();
+    assertThat(arguments.released).isEqualTo(1);
+  }
+
+  @Test
+  void fluxResultTakesFirst() {
+    TrackingArguments arguments = new TrackingArguments("TODAY");
+    StepVerifier.create(channel.invoke(method("greetEach", "java.lang.String"), arguments))
+            .expectNext("Hello TODAY")
+            .verifyComplete();
+    assertThat(arguments.released).isEqualTo(1);
+  }
+
+  @Test
+  void futureResult() {
+    TrackingArguments arguments = new TrackingArguments("TODAY");
+    StepVerifier.create(channel.invoke(method("greetFuture", "java.lang.String"), arguments))
+            .expectNext("Hello TODAY")
+            .verifyComplete();
+    assertThat(arguments.released).isEqualTo(1);
+  }
+
+  @Test
+  void completionStageResult() {
+    TrackingArguments arguments = new TrackingArguments("TODAY");
+    StepVerifier.create(channel.invoke(method("greetStage", "java.lang.String"), arguments))
+            .expectNext("Hello TODAY")
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+    // released after the completion is signalled, on the completing thread
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(arguments.released).isEqualTo(1));
+  }
+
+  @Test
+  void reactiveMethodsInvokedInline() {
+    AtomicInteger dispatched = new AtomicInteger();
+    channel.setBlockingExecutor(new BlockingInvocationExecutor(command -> {
+      dispatched.incrementAndGet();
+      command.run();
+    }, 0, 0, Map.of()));
+
+    StepVerifier.create(channel.invoke(method("greetLater", "java.lang.String"), new TrackingArguments("TODAY")))
+            .expectNext("Hello TODAY")
+            .verifyComplete();
+    StepVerifier.create(channel.invoke(method("greetEach", "java.lang.String"), new TrackingArguments("TODAY")))
+            .expectNext("Hello TODAY")
+            .verifyComplete();
+    assertThat(dispatched).hasValue(0);
+
+    StepVerifier.create(channel.invoke(method("greet", "java.lang.String"), new TrackingArguments("TODAY")))
+            .expectNext("Hello TODAY")
+            .verifyComplete();
+    assertThat(dispatched).hasValue(1);
+  }
+
+  @Test
+  void drainWaitsForRequestsInFlight() {
+    Sinks.One<Object> result = Sinks.one();
+    ServiceProviderChannel channel = pendingChannel(result);
+
+    AtomicInteger responses = new AtomicInteger();
+    channel.requestResponse(ping()).subscribe(payload -> {
+      payload.release();
+      responses.incrementAndGet();
+    });
+    assertThat(channel.getActiveCount()).isOne();
+
+    StepVerifier.create(channel.drain(Duration.ofSeconds(5)))
+            .then(() -> {
+              assertThat(channel.isDraining()).isTrue();
+              StepVerifier.create(channel.requestResponse(ping()))
+                      .expectError(RejectedException.class)
+                      .verify();
+              result.tryEmitValue("pong");
+            })
+            .assertNext(drain -> {
+              assertThat(drain.getDrained()).isOne();
+              assertThat(drain.getRejected()).isOne();
+              assertThat(drain.getAborted()).isZero();
+            })
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+    assertThat(responses).hasValue(1);
+    assertThat(channel.getActiveCount()).isZero();
+  }
+
+  @Test
+  void drainTimeoutReportsAborted() {
+    Sinks.One<Object> result = Sinks.one();
+    ServiceProviderChannel channel = pendingChannel(result);
+    Disposable inFlight = channel.requestResponse(ping()).subscribe(Payload::release);
+
+    StepVerifier.create(channel.drain(Duration.ofMillis(200)))
+            .assertNext(drain -> {
+              assertThat(drain.getDrained()).isZero();
+              assertThat(drain.getRejected()).isZero();
+              assertThat(drain.getAborted()).isOne();
+              assertThat(drain.getElapsed()).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+            })
+            .expectComplete()
+            .verify(Duration.ofSeconds(5));
+
+    inFlight.dispose();
+    assertThat(channel.getActiveCount()).isZero();
+  }
+
+  private ServiceProviderChannel pendingChannel(Sinks.One<Object> result) {
+    RpcRequestDeserializer deserializer = new RpcRequestDeserializer(List.of(), serviceHolder);
+    return new ServiceProviderChannel(deserializer, mock(RpcResponseSerialization.class)) {
+
+      @Override
+      protected Mono<Object> invoke(InvocableRpcMethod rpcMethod, RpcArguments arguments) {
+        arguments.release();
+        return result.asMono();
+      }
+    };
+  }
+
+  private static Payload ping() {
+    return ByteBufPayload.create(RpcRequestDeserializerTests.request(SERVICE, "ping"));
+  }
+
+  private InvocableRpcMethod method(String name, String... paramTypes) {
+    InvocableRpcMethod method = serviceHolder.getMethod(SERVICE, name, paramTypes);
+    assertThat(method).isNotNull();
+    return method;
+  }
+
+  static class TrackingArguments extends RpcArguments {
+
+    private final Object[] args;
+
+    volatile int released;
+
+    TrackingArguments(Object... args) {
+      this.args = args;
+    }
+
+    @Override
+    public int size() {
+      return args.length;
+    }
+
+    @Nullable
+    @Override
+    public Object get(int index) {
+      return args[index];
+    }
+
+    @Override
+    public void release() {
+      released++;
+    }
+
+  }
+
+}
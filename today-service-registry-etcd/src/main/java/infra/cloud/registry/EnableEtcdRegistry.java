@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.charset.StandardCharsets;
+
+import infra.context.annotation.Import;
+import infra.context.annotation.MissingBean;
+import infra.context.properties.EnableConfigurationProperties;
+import infra.stereotype.Component;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.Client;
+import io.etcd.jetcd.ClientBuilder;
+
+/**
+ * Enable the etcd registry: the registrations of this process are written
+ * to etcd by an {@link EtcdServiceRegistry}, the lookups served by an
+ * {@link EtcdDiscoveryClient}, closed with the application context.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 16:30
+ * @see EtcdRegistryProperties
+ */
+@Import(EtcdRegistryConfig.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface EnableEtcdRegistry {
+
+}
+
+@EnableConfigurationProperties(EtcdRegistryProperties.class)
+final class EtcdRegistryConfig {
+
+  @MissingBean
+  static Client etcdClient(EtcdRegistryProperties properties) {
+    ClientBuilder builder = Client.builder().endpoints(properties.getEndpoints());
+    if (properties.getUsername() != null) {
+      builder.user(ByteSequence.from(properties.getUsername(), StandardCharsets.UTF_8));
+    }
+    if (properties.getPassword() != null) {
+      builder.password(ByteSequence.from(properties.getPassword(), StandardCharsets.UTF_8));
+    }
+    return builder.build();
+  }
+
+  @Component
+  static EtcdServiceRegistry etcdServiceRegistry(Client client, EtcdRegistryProperties properties) {
+    EtcdServiceRegistry registry = new EtcdServiceRegistry(client.getKVClient(),
+            client.getLeaseClient(), properties.getPrefix(), properties.getTtl());
+    registry.setTimeout(properties.getTimeout());
+    return registry;
+  }
+
+  /**
+   * Loaded before it is injected, the lookups never see an empty index.
+   */
+  @Component
+  static EtcdDiscoveryClient etcdDiscoveryClient(Client client, EtcdRegistryProperties properties) {
+    EtcdDiscoveryClient discoveryClient = new EtcdDiscoveryClient(client.getKVClient(),
+            client.getWatchClient(), properties.getPrefix());
+    discoveryClient.setTimeout(properties.getTimeout());
+    discoveryClient.start();
+    return discoveryClient;
+  }
+
+}
@@ -17,25 +17,284 @@
 
 package infra.cloud.registry;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import infra.cloud.DefaultServiceInstance;
 import infra.cloud.DiscoveryClient;
 import infra.cloud.ServiceInstance;
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.common.exception.CompactedException;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.options.GetOption;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.watch.WatchResponse;
 
 /**
+ * {@link DiscoveryClient} serving the lookups from a local index of the
+ * registrations, without a call to etcd.
+ * <p>
+ * {@link #start()} loads the registration prefix, then watches it from the
+ * revision of the load, so no change is missed in between. A broken watch is
+ * resumed from the last revision applied, or reloaded if etcd compacted it.
+ * <p>
+ * Only {@link KV} and {@link Watch} of the jetcd client are used, an
+ * in-process stand-in of them is enough for tests.
+ *
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 1.0 2023/11/19 21:19
  */
-public class EtcdDiscoveryClient implements DiscoveryClient {
+public class EtcdDiscoveryClient implements DiscoveryClient, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(EtcdDiscoveryClient.class);
+
+  private static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private final KV kv;
+
+  private final Watch watch;
+
+  private final EtcdServiceKeys keys;
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "etcd-discovery");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** service name to instance id to instance, guarded by this */
+  private final HashMap<String, LinkedHashMap<String, ServiceInstance>> index = new HashMap<>();
+
+  private final ConcurrentHashMap<String, List<ServiceInstance>> instances = new ConcurrentHashMap<>();
+
+  private Duration timeout = Duration.ofSeconds(10);
+
+  /** guarded by this */
+  private long revision;
+
+  /** guarded by this */
+  private long backoff;
+
+  /** guarded by this */
+  @Nullable
+  private Watch.Watcher watcher;
+
+  /** guarded by this */
+  private boolean closed;
+
+  private volatile boolean synced;
+
+  /**
+   * @param kv KV client of etcd
+   * @param watch Watch client of etcd
+   * @param prefix prefix of the registration keys
+   */
+  public EtcdDiscoveryClient(KV kv, Watch watch, String prefix) {
+    Assert.notNull(kv, "KV is required");
+    Assert.notNull(watch, "Watch is required");
+    Assert.hasText(prefix, "prefix is required");
+    this.kv = kv;
+    this.watch = watch;
+    this.keys = new EtcdServiceKeys(prefix);
+  }
+
+  /**
+   * Set the max time to wait for the initial load.
+   */
+  public void setTimeout(Duration timeout) {
+    Assert.notNull(timeout, "timeout is required");
+    this.timeout = timeout;
+  }
+
+  /**
+   * Load the registrations and start watching their changes.
+   *
+   * @throws IllegalStateException the registrations cannot be loaded
+   */
+  public void start() {
+    try {
+      GetResponse response = kv.get(keys.prefix(), GetOption.newBuilder().isPrefix(true).build())
+              .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      load(response);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted loading the registrations", e);
+    }
+    catch (Exception e) {
+      throw new IllegalStateException("Cannot load the registrations from etcd", e);
+    }
+  }
+
+  /**
+   * Whether the registrations are loaded.
+   */
+  public boolean isSynced() {
+    return synced;
+  }
 
   @Override
   public List<ServiceInstance> getInstances(String serviceId) {
-    return null;
+    return instances.getOrDefault(serviceId, List.of());
   }
 
   @Override
   public List<String> getServices() {
-    return null;
+    return new ArrayList<>(instances.keySet());
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    if (watcher != null) {
+      watcher.close();
+      watcher = null;
+    }
+    executor.shutdownNow();
+  }
+
+  /**
+   * Replace the index with the loaded registrations and watch from there.
+   */
+  private synchronized void load(GetResponse response) {
+    if (closed) {
+      return;
+    }
+    HashSet<String> changed = new HashSet<>(index.keySet());
+    index.clear();
+    for (KeyValue keyValue : response.getKvs()) {
+      ServiceDefinition definition = keys.parse(keyValue);
+      if (definition != null) {
+        put(definition);
+        changed.add(definition.getName());
+      }
+    }
+    revision = response.getHeader().getRevision();
+    rebuild(changed);
+    synced = true;
+    log.info("Loaded {} services from etcd at revision {}", index.size(), revision);
+    watchFrom(revision + 1);
+  }
+
+  /** guarded by this */
+  private void watchFrom(long startRevision) {
+    if (watcher != null) {
+      watcher.close();
+    }
+    WatchOption option = WatchOption.newBuilder()
+            .isPrefix(true)
+            .withRevision(startRevision)
+            .build();
+    watcher = watch.watch(keys.prefix(), option, Watch.listener(this::apply, this::onWatchError));
+  }
+
+  private synchronized void apply(WatchResponse response) {
+    if (closed) {
+      return;
+    }
+    HashSet<String> changed = new HashSet<>();
+    long applied = revision;
+    for (WatchEvent event : response.getEvents()) {
+      KeyValue keyValue = event.getKeyValue();
+      if (keyValue.getModRevision() <= applied) {
+        // delivered by a watcher replaced meanwhile
+        continue;
+      }
+      revision = Math.max(revision, keyValue.getModRevision());
+      ServiceDefinition definition = keys.parse(keyValue.getKey(), null);
+      if (definition == null) {
+        continue;
+      }
+      switch (event.getEventType()) {
+        case PUT -> {
+          put(keys.parse(keyValue));
+          changed.add(definition.getName());
+        }
+        case DELETE -> {
+          LinkedHashMap<String, ServiceInstance> service = index.get(definition.getName());
+          if (service != null && service.remove(HttpRegistration.instanceId(definition)) != null) {
+            if (service.isEmpty()) {
+              index.remove(definition.getName());
+            }
+            changed.add(definition.getName());
+          }
+        }
+        default -> { }
+      }
+    }
+    backoff = 0;
+    rebuild(changed);
+  }
+
+  private synchronized void onWatchError(Throwable error) {
+    if (closed) {
+      return;
+    }
+    backoff = Math.min(MAX_BACKOFF_MILLIS, Math.max(100, backoff * 2));
+    if (error instanceof CompactedException) {
+      log.warn("Etcd watch revision {} compacted, reloading in {}ms", revision + 1, backoff);
+      executor.schedule(this::reload, backoff, TimeUnit.MILLISECONDS);
+    }
+    else {
+      log.warn("Etcd watch failed, resuming from revision {} in {}ms", revision + 1, backoff, error);
+      executor.schedule(this::resume, backoff, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private synchronized void resume() {
+    if (!closed) {
+      watchFrom(revision + 1);
+    }
+  }
+
+  private void reload() {
+    kv.get(keys.prefix(), GetOption.newBuilder().isPrefix(true).build())
+            .whenComplete((response, error) -> {
+              if (error != null) {
+                onWatchError(error);
+              }
+              else {
+                load(response);
+              }
+            });
+  }
+
+  /** guarded by this */
+  private void put(@Nullable ServiceDefinition definition) {
+    if (definition != null) {
+      index.computeIfAbsent(definition.getName(), name -> new LinkedHashMap<>())
+              .put(HttpRegistration.instanceId(definition), new DefaultServiceInstance(HttpRegistration.instanceId(definition),
+                      definition.getName(), definition.getHost(), definition.getPort()));
+    }
+  }
+
+  /** guarded by this */
+  private void rebuild(Set<String> changed) {
+    for (String name : changed) {
+      LinkedHashMap<String, ServiceInstance> service = index.get(name);
+      if (service == null || service.isEmpty()) {
+        instances.remove(name);
+      }
+      else {
+        instances.put(name, List.copyOf(service.values()));
+      }
+    }
   }
 
 }
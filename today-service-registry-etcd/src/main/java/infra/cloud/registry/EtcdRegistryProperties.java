@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.time.Duration;
+
+import infra.context.properties.ConfigurationProperties;
+import infra.lang.Nullable;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 16:30
+ * @see EnableEtcdRegistry
+ */
+@ConfigurationProperties("registry.etcd")
+public class EtcdRegistryProperties {
+
+  /**
+   * Etcd server endpoints.
+   */
+  private String[] endpoints = { "http://localhost:2379" };
+
+  /**
+   * Etcd server user name.
+   */
+  @Nullable
+  private String username;
+
+  /**
+   * Etcd server user password.
+   */
+  @Nullable
+  private String password;
+
+  /**
+   * Prefix of the registration keys.
+   */
+  private String prefix = "/services/";
+
+  /**
+   * Time to live of the lease of this process, its registrations expire
+   * with it when the process dies.
+   */
+  private Duration ttl = Duration.ofSeconds(30);
+
+  /**
+   * Max time to wait for etcd.
+   */
+  private Duration timeout = Duration.ofSeconds(10);
+
+  public void setEndpoints(String[] endpoints) {
+    this.endpoints = endpoints;
+  }
+
+  public String[] getEndpoints() {
+    return endpoints;
+  }
+
+  public void setUsername(@Nullable String username) {
+    this.username = username;
+  }
+
+  @Nullable
+  public String getUsername() {
+    return username;
+  }
+
+  public void setPassword(@Nullable String password) {
+    this.password = password;
+  }
+
+  @Nullable
+  public String getPassword() {
+    return password;
+  }
+
+  public void setPrefix(String prefix) {
+    this.prefix = prefix;
+  }
+
+  public String getPrefix() {
+    return prefix;
+  }
+
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+}
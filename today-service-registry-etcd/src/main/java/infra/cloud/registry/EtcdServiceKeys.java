@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.nio.charset.StandardCharsets;
+
+import infra.lang.Nullable;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KeyValue;
+
+/**
+ * Layout of the registrations in etcd: one key per service definition,
+ * {@code <prefix><service name>/<host>:<port>}, its value is the version
+ * of the service, empty if not set.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 13:10
+ */
+final class EtcdServiceKeys {
+
+  private final String prefix;
+
+  /**
+   * @param prefix prefix of the registration keys, ends with '/'
+   */
+  EtcdServiceKeys(String prefix) {
+    this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+  }
+
+  ByteSequence prefix() {
+    return ByteSequence.from(prefix, StandardCharsets.UTF_8);
+  }
+
+  ByteSequence key(ServiceDefinition definition) {
+    return ByteSequence.from(prefix + definition.getName() + '/' + HttpRegistration.instanceId(definition), StandardCharsets.UTF_8);
+  }
+
+  ByteSequence value(ServiceDefinition definition) {
+    String version = definition.getVersion();
+    return ByteSequence.from(version == null ? "" : version, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Parse the definition of the given key.
+   *
+   * @return {@code null} if the key is not a registration
+   */
+  @Nullable
+  ServiceDefinition parse(ByteSequence key, @Nullable ByteSequence value) {
+    String path = key.toString(StandardCharsets.UTF_8);
+    if (!path.startsWith(prefix)) {
+      return null;
+    }
+    int nameEnd = path.lastIndexOf('/');
+    int portStart = path.lastIndexOf(':');
+    if (nameEnd <= prefix.length() || portStart <= nameEnd + 1) {
+      return null;
+    }
+
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName(path.substring(prefix.length(), nameEnd));
+    definition.setHost(path.substring(nameEnd + 1, portStart));
+    try {
+      definition.setPort(Integer.parseInt(path.substring(portStart + 1)));
+    }
+    catch (NumberFormatException e) {
+      return null;
+    }
+    if (value != null && !value.isEmpty()) {
+      definition.setVersion(value.toString(StandardCharsets.UTF_8));
+    }
+    return definition;
+  }
+
+  @Nullable
+  ServiceDefinition parse(KeyValue keyValue) {
+    return parse(keyValue.getKey(), keyValue.getValue());
+  }
+
+}
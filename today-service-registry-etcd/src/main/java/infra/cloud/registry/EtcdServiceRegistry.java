@@ -0,0 +1,241 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.Lease;
+import io.etcd.jetcd.lease.LeaseKeepAliveResponse;
+import io.etcd.jetcd.options.PutOption;
+import io.etcd.jetcd.support.CloseableClient;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Registers the service definitions to etcd, attached to a lease of this
+ * process kept alive by the client, so the registrations of a process that
+ * dies expire with its lease.
+ * <p>
+ * If the lease is lost, after a network partition longer than its TTL, a new
+ * lease is granted and the registrations are written again.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 13:40
+ * @see EtcdDiscoveryClient
+ */
+public class EtcdServiceRegistry implements ServiceRegistry<HttpRegistration>, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(EtcdServiceRegistry.class);
+
+  private final KV kv;
+
+  private final Lease lease;
+
+  private final EtcdServiceKeys keys;
+
+  private final long ttlSeconds;
+
+  private final Set<ServiceDefinition> registrations = new CopyOnWriteArraySet<>();
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "etcd-registry-lease");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private Duration timeout = Duration.ofSeconds(10);
+
+  /** guarded by this, {@code 0} no lease */
+  private long leaseId;
+
+  /** guarded by this */
+  @Nullable
+  private CloseableClient keepAlive;
+
+  /** guarded by this */
+  private boolean closed;
+
+  /**
+   * @param kv KV client of etcd
+   * @param lease Lease client of etcd
+   * @param prefix prefix of the registration keys
+   * @param ttl time to live of the lease
+   */
+  public EtcdServiceRegistry(KV kv, Lease lease, String prefix, Duration ttl) {
+    Assert.notNull(kv, "KV is required");
+    Assert.notNull(lease, "Lease is required");
+    Assert.hasText(prefix, "prefix is required");
+    Assert.isTrue(ttl != null && ttl.toSeconds() > 0, "ttl must be at least 1 second");
+    this.kv = kv;
+    this.lease = lease;
+    this.keys = new EtcdServiceKeys(prefix);
+    this.ttlSeconds = ttl.toSeconds();
+  }
+
+  /**
+   * Set the max time to wait for etcd.
+   */
+  public void setTimeout(Duration timeout) {
+    Assert.notNull(timeout, "timeout is required");
+    this.timeout = timeout;
+  }
+
+  @Override
+  public void register(HttpRegistration registration) {
+    try {
+      long leaseId = obtainLease();
+      put(registration.getServiceDefinitions(), leaseId);
+      registrations.addAll(registration.getServiceDefinitions());
+    }
+    catch (Exception e) {
+      throw new ServiceRegisterFailedException(registration, e);
+    }
+  }
+
+  @Override
+  public void unregister(HttpRegistration registration) {
+    registrations.removeAll(registration.getServiceDefinitions());
+    ArrayList<CompletableFuture<?>> futures = new ArrayList<>();
+    for (ServiceDefinition definition : registration.getServiceDefinitions()) {
+      futures.add(kv.delete(keys.key(definition)));
+    }
+    await(futures);
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    executor.shutdownNow();
+    if (keepAlive != null) {
+      keepAlive.close();
+      keepAlive = null;
+    }
+    if (leaseId != 0) {
+      // the registrations are deleted with the lease
+      lease.revoke(leaseId);
+      leaseId = 0;
+    }
+  }
+
+  /**
+   * Returns the lease of this process, granted and kept alive on first use.
+   */
+  private synchronized long obtainLease() throws Exception {
+    Assert.state(!closed, "EtcdServiceRegistry is closed");
+    if (leaseId == 0) {
+      long leaseId = lease.grant(ttlSeconds).get(timeout.toMillis(), TimeUnit.MILLISECONDS).getID();
+      this.keepAlive = lease.keepAlive(leaseId, new KeepAliveObserver(leaseId));
+      this.leaseId = leaseId;
+      log.info("Etcd lease {} granted, ttl {}s", Long.toHexString(leaseId), ttlSeconds);
+    }
+    return leaseId;
+  }
+
+  /**
+   * The keep-alive of the given lease ended, the lease may expire.
+   */
+  private synchronized void onLeaseLost(long lost, Throwable error) {
+    if (closed || leaseId != lost) {
+      return;
+    }
+    log.warn("Etcd lease {} keep-alive ended, registering again", Long.toHexString(lost), error);
+    if (keepAlive != null) {
+      keepAlive.close();
+      keepAlive = null;
+    }
+    leaseId = 0;
+    executor.execute(this::registerAgain);
+  }
+
+  private void registerAgain() {
+    try {
+      put(new ArrayList<>(registrations), obtainLease());
+    }
+    catch (Exception e) {
+      log.warn("Registering again failed, retrying in 1s", e);
+      synchronized(this) {
+        if (!closed) {
+          executor.schedule(this::registerAgain, 1, TimeUnit.SECONDS);
+        }
+      }
+    }
+  }
+
+  private void put(List<ServiceDefinition> definitions, long leaseId) {
+    PutOption option = PutOption.newBuilder().withLeaseId(leaseId).build();
+    ArrayList<CompletableFuture<?>> futures = new ArrayList<>(definitions.size());
+    for (ServiceDefinition definition : definitions) {
+      futures.add(kv.put(keys.key(definition), keys.value(definition), option));
+    }
+    await(futures);
+  }
+
+  private void await(List<CompletableFuture<?>> futures) {
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+              .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for etcd", e);
+    }
+    catch (Exception e) {
+      throw new IllegalStateException("Etcd operation failed", e);
+    }
+  }
+
+  private final class KeepAliveObserver implements StreamObserver<LeaseKeepAliveResponse> {
+
+    private final long leaseId;
+
+    KeepAliveObserver(long leaseId) {
+      this.leaseId = leaseId;
+    }
+
+    @Override
+    public void onNext(LeaseKeepAliveResponse response) {
+      if (response.getTTL() <= 0) {
+        onLeaseLost(leaseId, new IllegalStateException("Lease expired"));
+      }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      onLeaseLost(leaseId, error);
+    }
+
+    @Override
+    public void onCompleted() {
+      onLeaseLost(leaseId, new IllegalStateException("Keep-alive completed"));
+    }
+
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.test.InMemoryEtcd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 17:00
+ */
+class EtcdDiscoveryClientTests {
+
+  private static final String PREFIX = "/services/";
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  private final InMemoryEtcd etcd = new InMemoryEtcd();
+
+  private final EtcdDiscoveryClient client = new EtcdDiscoveryClient(etcd.kv(), etcd.watch(), PREFIX);
+
+  @AfterEach
+  void destroy() {
+    client.close();
+    etcd.close();
+  }
+
+  @Test
+  void initialLoadThenWatch() {
+    register("10.0.0.1");
+    etcd.put("/other/key", "ignored", 0);
+    assertThat(client.isSynced()).isFalse();
+
+    client.start();
+    assertThat(client.isSynced()).isTrue();
+    assertThat(hosts()).containsExactly("10.0.0.1");
+    assertThat(client.getServices()).containsExactly(SERVICE);
+
+    register("10.0.0.2");
+    await().atMost(Duration.ofSeconds(5)).until(() -> hosts().size() == 2);
+
+    unregister("10.0.0.1");
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(hosts()).containsExactly("10.0.0.2"));
+
+    unregister("10.0.0.2");
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(client.getServices()).isEmpty());
+  }
+
+  @Test
+  void resumeAfterWatchError() {
+    register("10.0.0.1");
+    client.start();
+
+    etcd.failWatches(new IllegalStateException("connection lost"));
+    // changed while no watch is open
+    register("10.0.0.2");
+    unregister("10.0.0.1");
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(hosts()).containsExactly("10.0.0.2"));
+
+    // the resumed watch keeps going
+    register("10.0.0.3");
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThat(hosts()).containsExactlyInAnyOrder("10.0.0.2", "10.0.0.3"));
+  }
+
+  @Test
+  void reloadOnCompactedException() {
+    register("10.0.0.1");
+    client.start();
+
+    etcd.failWatches(new IllegalStateException("connection lost"));
+    register("10.0.0.2");
+    unregister("10.0.0.1");
+    // the changes missed can only be learnt by a reload
+    etcd.compact();
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(hosts()).containsExactly("10.0.0.2"));
+
+    register("10.0.0.3");
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThat(hosts()).containsExactlyInAnyOrder("10.0.0.2", "10.0.0.3"));
+  }
+
+  private List<String> hosts() {
+    return client.getInstances(SERVICE).stream().map(ServiceInstance::getHost).toList();
+  }
+
+  private void register(String host) {
+    etcd.put(PREFIX + SERVICE + '/' + host + ":9001", "1.0", 0);
+  }
+
+  private void unregister(String host) {
+    etcd.delete(PREFIX + SERVICE + '/' + host + ":9001");
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import infra.cloud.registry.test.InMemoryEtcd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 17:10
+ */
+class EtcdServiceRegistryTests {
+
+  private static final String PREFIX = "/services/";
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  private static final String KEY = PREFIX + SERVICE + "/10.0.0.1:9001";
+
+  private final InMemoryEtcd etcd = new InMemoryEtcd();
+
+  private final EtcdServiceRegistry registry = new EtcdServiceRegistry(etcd.kv(), etcd.lease(), PREFIX, Duration.ofSeconds(10));
+
+  @AfterEach
+  void destroy() {
+    registry.close();
+    etcd.close();
+  }
+
+  @Test
+  void registerUnderLease() {
+    HttpRegistration registration = registration();
+    registry.register(registration);
+
+    assertThat(etcd.values(PREFIX)).containsEntry(KEY, "1.0").hasSize(1);
+    assertThat(etcd.leaseOf(KEY)).isNotZero();
+
+    registry.unregister(registration);
+    assertThat(etcd.values(PREFIX)).isEmpty();
+  }
+
+  @Test
+  void registerAgainAfterKeepAliveLoss() {
+    registry.register(registration());
+    long lost = etcd.leaseOf(KEY);
+
+    etcd.expire(lost);
+    assertThat(etcd.values(PREFIX)).isEmpty();
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+      assertThat(etcd.values(PREFIX)).containsEntry(KEY, "1.0");
+      assertThat(etcd.leaseOf(KEY)).isNotZero().isNotEqualTo(lost);
+    });
+  }
+
+  @Test
+  void closeRevokesLease() {
+    registry.register(registration());
+    registry.close();
+    assertThat(etcd.values(PREFIX)).isEmpty();
+  }
+
+  private static HttpRegistration registration() {
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName(SERVICE);
+    definition.setHost("10.0.0.1");
+    definition.setPort(9001);
+    definition.setVersion("1.0");
+    return new HttpRegistration(List.of(definition));
+  }
+
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry.test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import infra.lang.Nullable;
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Lease;
+import io.etcd.jetcd.Response;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.common.exception.EtcdExceptionFactory;
+import io.etcd.jetcd.kv.DeleteResponse;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.kv.PutResponse;
+import io.etcd.jetcd.lease.LeaseGrantResponse;
+import io.etcd.jetcd.lease.LeaseKeepAliveResponse;
+import io.etcd.jetcd.lease.LeaseRevokeResponse;
+import io.etcd.jetcd.options.GetOption;
+import io.etcd.jetcd.options.PutOption;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.support.CloseableClient;
+import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.watch.WatchResponse;
+import io.grpc.stub.StreamObserver;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * In-process stand-in of the etcd {@link KV}, {@link Watch} and
+ * {@link Lease} clients: a revisioned key space with its history,
+ * prefix ranges and watches, and leases. Watch events and errors are
+ * delivered on a thread of their own, as the jetcd client does. The
+ * range reads can be held back, as when etcd is unreachable.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 16:40
+ */
+public final class InMemoryEtcd implements AutoCloseable {
+
+  private final ExecutorService events = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "in-memory-etcd");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** guarded by this */
+  private final TreeMap<String, Entry> data = new TreeMap<>();
+
+  /** guarded by this */
+  private final ArrayList<Change> history = new ArrayList<>();
+
+  /** guarded by this */
+  private final ArrayList<Watcher> watchers = new ArrayList<>();
+
+  /** lease id to its keep-alive observer, guarded by this */
+  private final HashMap<Long, StreamObserver<LeaseKeepAliveResponse>> keepAlives = new HashMap<>();
+
+  /** range reads waiting for {@link #releaseReads()}, guarded by this */
+  private final ArrayList<Runnable> heldReads = new ArrayList<>();
+
+  /** guarded by this */
+  private long revision = 1;
+
+  /** guarded by this */
+  private long compactedRevision;
+
+  /** guarded by this */
+  private long lastLeaseId;
+
+  /** guarded by this */
+  private boolean holdReads;
+
+  private final KV kv = mock(KV.class);
+
+  private final Watch watch = mock(Watch.class);
+
+  private final Lease lease = mock(Lease.class);
+
+  public InMemoryEtcd() {
+    when(kv.get(any(ByteSequence.class), any(GetOption.class))).thenAnswer(invocation -> {
+      ByteSequence prefix = invocation.getArgument(0);
+      CompletableFuture<GetResponse> future = new CompletableFuture<>();
+      synchronized(this) {
+        if (holdReads) {
+          heldReads.add(() -> future.complete(range(prefix)));
+          return future;
+        }
+      }
+      future.complete(range(prefix));
+      return future;
+    });
+    when(kv.put(any(ByteSequence.class), any(ByteSequence.class), any(PutOption.class)))
+            .thenAnswer(invocation -> {
+              PutOption option = invocation.getArgument(2);
+              put(string(invocation.getArgument(0)), string(invocation.getArgument(1)), option.getLeaseId());
+              return CompletableFuture.completedFuture(mock(PutResponse.class));
+            });
+    when(kv.delete(any(ByteSequence.class)))
+            .thenAnswer(invocation -> {
+              delete(string(invocation.getArgument(0)));
+              return CompletableFuture.completedFuture(mock(DeleteResponse.class));
+            });
+
+    when(watch.watch(any(ByteSequence.class), any(WatchOption.class), any(Watch.Listener.class)))
+            .thenAnswer(invocation -> {
+              WatchOption option = invocation.getArgument(1);
+              return watch(string(invocation.getArgument(0)), option.getRevision(), invocation.getArgument(2));
+            });
+
+    when(lease.grant(anyLong())).thenAnswer(invocation -> {
+      LeaseGrantResponse response = mock(LeaseGrantResponse.class);
+      long leaseId = grant();
+      when(response.getID()).thenReturn(leaseId);
+      return CompletableFuture.completedFuture(response);
+    });
+    when(lease.keepAlive(anyLong(), any())).thenAnswer(invocation -> {
+      long leaseId = invocation.getArgument(0);
+      synchronized(this) {
+        keepAlives.put(leaseId, invocation.getArgument(1));
+      }
+      CloseableClient client = mock(CloseableClient.class);
+      doAnswer(close -> {
+        synchronized(this) {
+          keepAlives.remove(leaseId);
+        }
+        return null;
+      }).when(client).close();
+      return client;
+    });
+    when(lease.revoke(anyLong())).thenAnswer(invocation -> {
+      revoke(invocation.getArgument(0));
+      return CompletableFuture.completedFuture(mock(LeaseRevokeResponse.class));
+    });
+  }
+
+  public KV kv() {
+    return kv;
+  }
+
+  public Watch watch() {
+    return watch;
+  }
+
+  public Lease lease() {
+    return lease;
+  }
+
+  public synchronized long revision() {
+    return revision;
+  }
+
+  /**
+   * Returns the keys under the given prefix and their values.
+   */
+  public synchronized Map<String, String> values(String prefix) {
+    TreeMap<String, String> values = new TreeMap<>();
+    for (Map.Entry<String, Entry> entry : data.entrySet()) {
+      if (entry.getKey().startsWith(prefix)) {
+        values.put(entry.getKey(), entry.getValue().value);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the lease the given key is attached to, {@code 0} if none.
+   */
+  public synchronized long leaseOf(String key) {
+    Entry entry = data.get(key);
+    return entry == null ? 0 : entry.leaseId;
+  }
+
+  public void put(String key, String value) {
+    put(key, value, 0);
+  }
+
+  public synchronized void put(String key, String value, long leaseId) {
+    long modRevision = ++revision;
+    data.put(key, new Entry(value, modRevision, leaseId));
+    publish(new Change(WatchEvent.EventType.PUT, key, value, modRevision));
+  }
+
+  public synchronized void delete(String key) {
+    if (data.remove(key) != null) {
+      long modRevision = ++revision;
+      publish(new Change(WatchEvent.EventType.DELETE, key, "", modRevision));
+    }
+  }
+
+  /**
+   * Discard the history up to the current revision, the watches starting
+   * before fail with a {@code CompactedException}.
+   */
+  public synchronized void compact() {
+    compactedRevision = revision;
+    history.clear();
+  }
+
+  /**
+   * Break all the watches with the given error, as a lost connection does.
+   */
+  public synchronized void failWatches(Throwable error) {
+    for (Watcher watcher : watchers) {
+      events.execute(() -> watcher.listener.onError(error));
+    }
+    watchers.clear();
+  }
+
+  /**
+   * Expire the given lease: its keys are deleted, its keep-alive fails.
+   */
+  public void expire(long leaseId) {
+    StreamObserver<LeaseKeepAliveResponse> observer;
+    synchronized(this) {
+      revoke(leaseId);
+      observer = keepAlives.remove(leaseId);
+    }
+    if (observer != null) {
+      events.execute(() -> observer.onError(new IllegalStateException("lease " + leaseId + " expired")));
+    }
+  }
+
+  /**
+   * Hold back the range reads until {@link #releaseReads()}.
+   */
+  public synchronized void holdReads() {
+    holdReads = true;
+  }
+
+  public void releaseReads() {
+    List<Runnable> reads;
+    synchronized(this) {
+      holdReads = false;
+      reads = List.copyOf(heldReads);
+      heldReads.clear();
+    }
+    reads.forEach(Runnable::run);
+  }
+
+  @Override
+  public void close() {
+    events.shutdownNow();
+  }
+
+  private synchronized long grant() {
+    return ++lastLeaseId;
+  }
+
+  private synchronized void revoke(long leaseId) {
+    ArrayList<String> keys = new ArrayList<>();
+    for (Map.Entry<String, Entry> entry : data.entrySet()) {
+      if (entry.getValue().leaseId == leaseId) {
+        keys.add(entry.getKey());
+      }
+    }
+    for (String key : keys) {
+      delete(key);
+    }
+  }
+
+  private synchronized GetResponse range(ByteSequence prefix) {
+    String start = string(prefix);
+    ArrayList<KeyValue> kvs = new ArrayList<>();
+    for (Map.Entry<String, Entry> entry : data.entrySet()) {
+      if (entry.getKey().startsWith(start)) {
+        kvs.add(keyValue(entry.getKey(), entry.getValue().value, entry.getValue().modRevision));
+      }
+    }
+    Response.Header header = mock(Response.Header.class);
+    when(header.getRevision()).thenReturn(revision);
+    GetResponse response = mock(GetResponse.class);
+    when(response.getKvs()).thenReturn(kvs);
+    when(response.getHeader()).thenReturn(header);
+    return response;
+  }
+
+  private synchronized Watch.Watcher watch(String prefix, long startRevision, Watch.Listener listener) {
+    Watcher watcher = new Watcher(prefix, listener);
+    if (startRevision <= compactedRevision) {
+      events.execute(() -> listener.onError(EtcdExceptionFactory.newCompactedException(compactedRevision)));
+      return watcher.handle();
+    }
+    // replay the changes since the start revision
+    ArrayList<Change> changes = new ArrayList<>();
+    for (Change change : history) {
+      if (change.modRevision >= startRevision && change.key.startsWith(prefix)) {
+        changes.add(change);
+      }
+    }
+    if (!changes.isEmpty()) {
+      deliver(watcher, changes);
+    }
+    watchers.add(watcher);
+    return watcher.handle();
+  }
+
+  /** guarded by this */
+  private void publish(Change change) {
+    history.add(change);
+    for (Watcher watcher : watchers) {
+      if (change.key.startsWith(watcher.prefix)) {
+        deliver(watcher, List.of(change));
+      }
+    }
+  }
+
+  private void deliver(Watcher watcher, List<Change> changes) {
+    ArrayList<WatchEvent> events = new ArrayList<>(changes.size());
+    for (Change change : changes) {
+      WatchEvent event = mock(WatchEvent.class);
+      when(event.getEventType()).thenReturn(change.type);
+      KeyValue keyValue = keyValue(change.key, change.value, change.modRevision);
+      when(event.getKeyValue()).thenReturn(keyValue);
+      events.add(event);
+    }
+    WatchResponse response = mock(WatchResponse.class);
+    when(response.getEvents()).thenReturn(events);
+    this.events.execute(() -> {
+      if (!watcher.closed) {
+        watcher.listener.onNext(response);
+      }
+    });
+  }
+
+  private static KeyValue keyValue(String key, String value, long modRevision) {
+    KeyValue keyValue = mock(KeyValue.class);
+    when(keyValue.getKey()).thenReturn(bytes(key));
+    when(keyValue.getValue()).thenReturn(bytes(value));
+    when(keyValue.getModRevision()).thenReturn(modRevision);
+    return keyValue;
+  }
+
+  public static ByteSequence bytes(String value) {
+    return ByteSequence.from(value, StandardCharsets.UTF_8);
+  }
+
+  public static String string(ByteSequence bytes) {
+    return bytes.toString(StandardCharsets.UTF_8);
+  }
+
+  private static final class Entry {
+
+    final String value;
+
+    final long modRevision;
+
+    final long leaseId;
+
+    Entry(String value, long modRevision, long leaseId) {
+      this.value = value;
+      this.modRevision = modRevision;
+      this.leaseId = leaseId;
+    }
+
+  }
+
+  private static final class Change {
+
+    final WatchEvent.EventType type;
+
+    final String key;
+
+    final String value;
+
+    final long modRevision;
+
+    Change(WatchEvent.EventType type, String key, String value, long modRevision) {
+      this.type = type;
+      this.key = key;
+      this.value = value;
+      this.modRevision = modRevision;
+    }
+
+  }
+
+  private final class Watcher {
+
+    final String prefix;
+
+    final Watch.Listener listener;
+
+    volatile boolean closed;
+
+    Watcher(String prefix, Watch.Listener listener) {
+      this.prefix = prefix;
+      this.listener = listener;
+    }
+
+    Watch.Watcher handle() {
+      Watch.Watcher handle = mock(Watch.Watcher.class);
+      doAnswer(invocation -> {
+        closed = true;
+        synchronized(InMemoryEtcd.this) {
+          watchers.remove(this);
+        }
+        return null;
+      }).when(handle).close();
+      return handle;
+    }
+
+  }
+
+}
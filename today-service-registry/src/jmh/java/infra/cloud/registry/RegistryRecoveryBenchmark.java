@@ -0,0 +1,220 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Recovery time of a registry holding 50k instances, from the write-ahead
+ * log only and from a compacted snapshot.
+ * <p>
+ * Both the {@link RegistryStore} recovery alone and the whole restart of a
+ * {@link HttpServiceRegistryEndpoint} are measured, the latter includes
+ * rebuilding the leases and the serialized lookup snapshots. A restart
+ * compacts the store when stopped, so it runs on a copy of the directory.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 00:20
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RegistryRecoveryBenchmark {
+
+  @Param({ "50000" })
+  int instances;
+
+  /** write-ahead log only */
+  Path logDirectory;
+
+  /** compacted snapshot */
+  Path snapshotDirectory;
+
+  /** copy of a directory for a restart */
+  Path copy;
+
+  final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    List<ServiceDefinition> definitions = definitions(instances);
+    logDirectory = Files.createTempDirectory("registry-recovery");
+    RegistryStore store = new RegistryStore(logDirectory);
+    store.recover();
+    long version = System.currentTimeMillis();
+    for (int i = 0; i < definitions.size(); i += 100) {
+      store.append(RegistryStore.REGISTER, definitions.subList(i, Math.min(i + 100, definitions.size())), version++);
+    }
+    // some churn, replayed from the log
+    store.append(RegistryStore.UNREGISTER, definitions.subList(0, instances / 10), version++);
+    store.append(RegistryStore.REGISTER, definitions.subList(0, instances / 10), version);
+    store.close();
+
+    snapshotDirectory = copy(logDirectory);
+    store = new RegistryStore(snapshotDirectory);
+    Map<ServiceDefinition, Long> recovered = store.recover();
+    store.writeSnapshot(store.rotate(), recovered);
+    store.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    delete(logDirectory);
+    delete(snapshotDirectory);
+  }
+
+  @State(Scope.Benchmark)
+  public static class LogCopy {
+
+    Path directory;
+
+    @Setup(Level.Invocation)
+    public void setup(RegistryRecoveryBenchmark benchmark) throws IOException {
+      directory = copy(benchmark.logDirectory);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+      delete(directory);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class SnapshotCopy {
+
+    Path directory;
+
+    @Setup(Level.Invocation)
+    public void setup(RegistryRecoveryBenchmark benchmark) throws IOException {
+      directory = copy(benchmark.snapshotDirectory);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+      delete(directory);
+    }
+  }
+
+  @Benchmark
+  public int logReplay(LogCopy copy) throws IOException {
+    return recover(copy.directory);
+  }
+
+  @Benchmark
+  public int snapshotLoad(SnapshotCopy copy) throws IOException {
+    return recover(copy.directory);
+  }
+
+  @Benchmark
+  public int logRestart(LogCopy copy) throws InterruptedException {
+    return restart(copy.directory);
+  }
+
+  @Benchmark
+  public int snapshotRestart(SnapshotCopy copy) throws InterruptedException {
+    return restart(copy.directory);
+  }
+
+  private int recover(Path directory) throws IOException {
+    RegistryStore store = new RegistryStore(directory);
+    try {
+      return check(store.recover().size());
+    }
+    finally {
+      store.close();
+    }
+  }
+
+  private int restart(Path directory) throws InterruptedException {
+    HttpServiceRegistryEndpoint endpoint = new HttpServiceRegistryEndpoint(
+            Duration.ofSeconds(30), objectMapper, new RegistryStore(directory));
+    try {
+      return check(endpoint.services().values().stream().mapToInt(List::size).sum());
+    }
+    finally {
+      endpoint.destroy();
+    }
+  }
+
+  private int check(int recovered) {
+    if (recovered != instances) {
+      throw new IllegalStateException("Recovered %d of %d instances".formatted(recovered, instances));
+    }
+    return recovered;
+  }
+
+  private static Path copy(Path directory) throws IOException {
+    Path copy = Files.createTempDirectory("registry-recovery");
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path path : files.toList()) {
+        Files.copy(path, copy.resolve(path.getFileName()));
+      }
+    }
+    return copy;
+  }
+
+  private static void delete(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private static List<ServiceDefinition> definitions(int instances) {
+    ArrayList<ServiceDefinition> definitions = new ArrayList<>(instances);
+    for (int i = 0; i < instances; i++) {
+      ServiceDefinition definition = new ServiceDefinition();
+      definition.setName("infra.cloud.samples.UserService" + (i % 500));
+      definition.setHost("10.%d.%d.%d".formatted(i >> 16 & 0xff, i >> 8 & 0xff, i & 0xff));
+      definition.setPort(9001);
+      definition.setVersion("1.0");
+      definitions.add(definition);
+    }
+    return definitions;
+  }
+
+}
@@ -17,12 +17,16 @@
 
 package infra.cloud.registry;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import infra.beans.factory.ObjectProvider;
 import infra.context.annotation.Import;
+import infra.context.properties.EnableConfigurationProperties;
 import infra.stereotype.Component;
 
 /**
@@ -37,11 +41,30 @@ public @interface EnableHttpRegistry {
 
 }
 
+@EnableConfigurationProperties(RegistryProperties.class)
 final class HttpRegistryConfig {
 
   @Component
-  public HttpServiceRegistryEndpoint serviceRegistryEndpoint() {
-    return new HttpServiceRegistryEndpoint();
+  public HttpServiceRegistryEndpoint serviceRegistryEndpoint(RegistryProperties properties, ObjectProvider<ObjectMapper> objectMapper) {
+    RegistryStore store = null;
+    RegistryProperties.Persistence persistence = properties.getPersistence();
+    if (persistence.getDirectory() != null) {
+      store = new RegistryStore(persistence.getDirectory());
+      store.setSyncInterval(persistence.getSyncInterval());
+      store.setSnapshotInterval(persistence.getSnapshotInterval());
+      store.setRecoveryGrace(persistence.getRecoveryGrace());
+    }
+    HttpServiceRegistryEndpoint endpoint = new HttpServiceRegistryEndpoint(properties.getLeaseTtl(), objectMapper.getIfAvailable(ObjectMapper::new), store);
+
+    RegistryProperties.Cluster cluster = properties.getCluster();
+    if (!cluster.getPeers().isEmpty()) {
+      PeerReplicator replicator = new PeerReplicator(cluster.getPeers(), new HttpPeerTransport());
+      replicator.setBatchSize(cluster.getBatchSize());
+      replicator.setMaxPending(cluster.getMaxPending());
+      replicator.setInterval(cluster.getReplicationInterval());
+      endpoint.setReplicator(replicator);
+    }
+    return endpoint;
   }
 
 }
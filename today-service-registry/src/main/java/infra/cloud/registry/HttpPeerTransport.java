@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.util.List;
+
+import infra.core.ParameterizedTypeReference;
+import infra.web.client.RestClient;
+
+/**
+ * Replicates over the HTTP endpoint of the peer.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 09:20
+ */
+public class HttpPeerTransport implements PeerTransport {
+
+  private static final ParameterizedTypeReference<List<String>> reference = new ParameterizedTypeReference<>() { };
+
+  private final RestClient restClient;
+
+  public HttpPeerTransport() {
+    this(RestClient.create());
+  }
+
+  public HttpPeerTransport(RestClient restClient) {
+    this.restClient = restClient;
+  }
+
+  @Override
+  public List<String> replicate(String peer, List<ReplicationDelta> deltas) {
+    List<String> unknown = restClient.post()
+            .uri(peer + "/replication")
+            .body(deltas)
+            .retrieve()
+            .body(reference);
+    return unknown == null ? List.of() : unknown;
+  }
+
+}
@@ -43,4 +43,12 @@ public class HttpRegistration implements Registration {
     return serviceDefinitions;
   }
 
+  /**
+   * Returns the id of the instance exposing the given service, its leases
+   * are renewed by heartbeats.
+   */
+  public static String instanceId(ServiceDefinition definition) {
+    return definition.getHost() + ":" + definition.getPort();
+  }
+
 }
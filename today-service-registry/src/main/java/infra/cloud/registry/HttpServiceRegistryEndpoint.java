@@ -17,79 +17,725 @@
 
 package infra.cloud.registry;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import infra.beans.factory.DisposableBean;
 import infra.cloud.DefaultServiceInstance;
 import infra.cloud.ServiceInstance;
+import infra.http.HttpHeaders;
 import infra.http.HttpStatus;
 import infra.http.MediaType;
+import infra.http.ResponseEntity;
+import infra.lang.Assert;
+import infra.lang.Nullable;
 import infra.logging.Logger;
 import infra.logging.LoggerFactory;
-import infra.util.CollectionUtils;
-import infra.util.MultiValueMap;
 import infra.web.annotation.DELETE;
 import infra.web.annotation.ExceptionHandler;
 import infra.web.annotation.GET;
 import infra.web.annotation.POST;
+import infra.web.annotation.PUT;
 import infra.web.annotation.PathVariable;
 import infra.web.annotation.RequestBody;
+import infra.web.annotation.RequestHeader;
 import infra.web.annotation.RequestMapping;
+import infra.web.annotation.RequestParam;
 import infra.web.annotation.ResponseStatus;
 import infra.web.annotation.RestController;
 
 /**
+ * Registrations are held with a TTL lease per instance, renewed by heartbeats.
+ * Instances missing their heartbeats are evicted.
+ * <p>
+ * Lookups are served from an immutable per-service snapshot holding the
+ * serialized response, rebuilt only when the instances of the service change,
+ * clients revalidate it with its entity tag.
+ * <p>
+ * With a {@link RegistryStore} the registrations survive a restart, the
+ * recovered instances get a lease extended by the recovery grace.
+ * <p>
+ * Several nodes form a cluster with a {@link PeerReplicator}: the changes
+ * accepted by a node are replicated to its peers asynchronously, stamped with
+ * a version per definition, so a delayed delta never overrides a newer change.
+ * Clients may use any node.
+ *
  * @author TODAY 2021/7/9 23:08
  */
 @RestController
 @RequestMapping("${registry.services.uri}")
-public class HttpServiceRegistryEndpoint implements ServiceRegistry<HttpRegistration> {
+public class HttpServiceRegistryEndpoint implements ServiceRegistry<HttpRegistration>, DisposableBean {
 
   private static final Logger log = LoggerFactory.getLogger(HttpServiceRegistryEndpoint.class);
 
-  private final MultiValueMap<String, ServiceDefinition> serviceMapping
-          = MultiValueMap.forAdaption(new ConcurrentHashMap<>());
+  private static final long MAX_WATCH_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+  /** registered definitions by service name, changed under the monitor of this */
+  private final ConcurrentHashMap<String, ServiceDefinitions> serviceMapping = new ConcurrentHashMap<>();
+
+  private final ConcurrentHashMap<String, InstanceLease> leases = new ConcurrentHashMap<>();
+
+  private final CopyOnWriteArrayList<RegistryListener> listeners = new CopyOnWriteArrayList<>();
+
+  private final long ttlNanos;
+
+  private final LeaseExpiryWheel expiryWheel;
+
+  private final ScheduledExecutorService expiryExecutor;
+
+  private final RegistryChangeLog changeLog = new RegistryChangeLog(8192, this::definitions);
+
+  private final ConcurrentHashMap<String, ServiceSnapshot> snapshots = new ConcurrentHashMap<>();
+
+  private final ObjectMapper objectMapper;
+
+  @Nullable
+  private final RegistryStore store;
+
+  @Nullable
+  private volatile PeerReplicator replicator;
+
+  /** version of the registered definitions, guarded by this */
+  private final HashMap<ServiceDefinition, Long> versions = new HashMap<>();
+
+  /** version of the removed definitions, guarded by this */
+  private final HashMap<ServiceDefinition, Long> tombstones = new HashMap<>();
+
+  /** guarded by this */
+  private long lastVersion;
+
+  /** {@link System#nanoTime()} of the last tombstone purge */
+  private long lastPurge = System.nanoTime();
+
+  public HttpServiceRegistryEndpoint() {
+    this(Duration.ofSeconds(30), new ObjectMapper());
+  }
+
+  /**
+   * @param leaseTtl time to live of an instance without heartbeat
+   * @param objectMapper serializes the lookup snapshots
+   */
+  public HttpServiceRegistryEndpoint(Duration leaseTtl, ObjectMapper objectMapper) {
+    this(leaseTtl, objectMapper, null);
+  }
+
+  /**
+   * @param leaseTtl time to live of an instance without heartbeat
+   * @param objectMapper serializes the lookup snapshots
+   * @param store persists the registrations, {@code null} to keep them in memory only
+   */
+  public HttpServiceRegistryEndpoint(Duration leaseTtl, ObjectMapper objectMapper, @Nullable RegistryStore store) {
+    Assert.isTrue(leaseTtl != null && leaseTtl.toMillis() > 0, "leaseTtl must be positive");
+    Assert.notNull(objectMapper, "ObjectMapper is required");
+    this.objectMapper = objectMapper;
+    this.ttlNanos = leaseTtl.toNanos();
+    long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(100), ttlNanos / 32);
+    this.expiryWheel = new LeaseExpiryWheel(tickNanos, 512, System.nanoTime());
+    this.store = store != null && restore(store) ? store : null;
+    this.expiryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "registry-maintenance");
+      thread.setDaemon(true);
+      return thread;
+    });
+    expiryExecutor.scheduleWithFixedDelay(this::evictExpired, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    if (this.store != null) {
+      long syncNanos = this.store.getSyncInterval().toNanos();
+      long snapshotNanos = this.store.getSnapshotInterval().toNanos();
+      expiryExecutor.scheduleWithFixedDelay(this::syncStore, syncNanos, syncNanos, TimeUnit.NANOSECONDS);
+      expiryExecutor.scheduleWithFixedDelay(this::compact, snapshotNanos, snapshotNanos, TimeUnit.NANOSECONDS);
+    }
+    listeners.add(changeLog);
+  }
+
+  /**
+   * Replicate the changes accepted by this node to the peers of the cluster.
+   *
+   * @param replicator the replicator, {@code null} to stop replicating
+   */
+  public void setReplicator(@Nullable PeerReplicator replicator) {
+    PeerReplicator previous = this.replicator;
+    if (previous != null) {
+      previous.stop();
+    }
+    this.replicator = replicator;
+    if (replicator != null) {
+      replicator.start(this::registrationOf);
+    }
+  }
+
+  @Nullable
+  public PeerReplicator getReplicator() {
+    return replicator;
+  }
+
+  /**
+   * Add a listener of the registry changes.
+   */
+  public void addListener(RegistryListener listener) {
+    Assert.notNull(listener, "RegistryListener is required");
+    listeners.add(listener);
+  }
+
+  /**
+   * Add a listener of the registry changes, the definitions registered when
+   * it is added are passed to the given consumer first, so the listener starts
+   * exactly after them.
+   */
+  public synchronized void addListener(RegistryListener listener, Consumer<Collection<ServiceDefinition>> registered) {
+    Assert.notNull(listener, "RegistryListener is required");
+    registered.accept(definitions());
+    listeners.add(listener);
+  }
+
+  public void removeListener(RegistryListener listener) {
+    listeners.remove(listener);
+  }
 
   @GET(produces = MediaType.APPLICATION_JSON_VALUE)
-  public MultiValueMap<String, ServiceDefinition> services() {
-    return serviceMapping;
+  public Map<String, List<ServiceDefinition>> services() {
+    LinkedHashMap<String, List<ServiceDefinition>> services = new LinkedHashMap<>(serviceMapping.size());
+    for (Map.Entry<String, ServiceDefinitions> entry : serviceMapping.entrySet()) {
+      services.put(entry.getKey(), entry.getValue().list());
+    }
+    return services;
+  }
+
+  /**
+   * Long-poll the changes after the given revision.
+   *
+   * @param epoch epoch of the last result, {@code 0} for the first watch
+   * @param revision revision of the last result
+   * @param timeout max time to wait for a change, in milliseconds
+   */
+  @GET(value = "/watch", produces = MediaType.APPLICATION_JSON_VALUE)
+  public CompletableFuture<WatchResult> watch(@RequestParam(defaultValue = "0") long epoch,
+          @RequestParam(defaultValue = "0") long revision, @RequestParam(defaultValue = "30000") long timeout) {
+    return changeLog.watch(epoch, revision, Duration.ofMillis(Math.max(0, Math.min(timeout, MAX_WATCH_TIMEOUT))));
+  }
+
+  public RegistryChangeLog getChangeLog() {
+    return changeLog;
   }
 
   @GET("/{name}")
-  public List<ServiceInstance> lookup(@PathVariable String name) {
-    List<ServiceDefinition> serviceDefinitions = serviceMapping.get(name);
-    if (CollectionUtils.isEmpty(serviceDefinitions)) {
+  public ResponseEntity<byte[]> lookup(@PathVariable String name,
+          @Nullable @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    ServiceSnapshot snapshot = snapshots.get(name);
+    if (snapshot == null) {
+      throw new ServiceNotFoundException(name);
+    }
+    if (ifNoneMatch != null && snapshot.matches(ifNoneMatch)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+              .eTag(snapshot.etag)
+              .build();
+    }
+    return ResponseEntity.ok()
+            .eTag(snapshot.etag)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(snapshot.json);
+  }
+
+  /**
+   * Returns the instances of the given service.
+   *
+   * @throws ServiceNotFoundException no instance of the service
+   */
+  public List<ServiceInstance> getInstances(String name) {
+    ServiceSnapshot snapshot = snapshots.get(name);
+    if (snapshot == null) {
       throw new ServiceNotFoundException(name);
     }
+    return snapshot.instances;
+  }
 
-    ArrayList<ServiceInstance> instances = new ArrayList<>();
-    for (ServiceDefinition definition : serviceDefinitions) {
-      var instance = new DefaultServiceInstance(definition.getHost() + ":" + definition.getPort(),
-              definition.getName(), definition.getHost(), definition.getPort());
-      instances.add(instance);
+  /**
+   * Resolves the instances of all the given services in one call, services
+   * without any instance are left out of the result.
+   *
+   * @param names names of the services
+   */
+  @POST("/lookup")
+  public Map<String, List<ServiceInstance>> lookupAll(@RequestBody Set<String> names) {
+    LinkedHashMap<String, List<ServiceInstance>> result = new LinkedHashMap<>(names.size());
+    for (String name : names) {
+      ServiceSnapshot snapshot = snapshots.get(name);
+      if (snapshot != null) {
+        result.put(name, snapshot.instances);
+      }
     }
-    return instances;
+    return result;
   }
 
   @POST
   @Override
-  public void register(@RequestBody HttpRegistration registration) {
+  public synchronized void register(@RequestBody HttpRegistration registration) {
+    long expiresAt = System.nanoTime() + ttlNanos;
+    long version = nextVersion();
+    ArrayList<ServiceDefinition> registered = new ArrayList<>();
     for (ServiceDefinition definition : registration.getServiceDefinitions()) {
-      log.info("Registering service: [{}] ", definition);
-      serviceMapping.add(definition.getName(), definition);
+      versions.put(definition, version);
+      tombstones.remove(definition);
+      if (addDefinition(definition, expiresAt)) {
+        log.info("Registering service: [{}] ", definition);
+        registered.add(definition);
+      }
     }
+    // the version of the definitions registered already is bumped too
+    persist(RegistryStore.REGISTER, registration.getServiceDefinitions(), version);
+    publish(RegistryEvent.Type.REGISTERED, registered);
+    rebuildSnapshots(registered);
+    replicateToPeers(ReplicationDelta.Action.REGISTER, registration.getServiceDefinitions(), version);
   }
 
   @DELETE
   @Override
-  public void unregister(@RequestBody HttpRegistration registration) {
+  public synchronized void unregister(@RequestBody HttpRegistration registration) {
+    long version = nextVersion();
+    ArrayList<ServiceDefinition> unregistered = new ArrayList<>();
     for (ServiceDefinition definition : registration.getServiceDefinitions()) {
-      List<ServiceDefinition> serviceDefinitions = serviceMapping.get(definition.getName());
-      if (CollectionUtils.isNotEmpty(serviceDefinitions)
-              && serviceDefinitions.removeIf(def -> Objects.equals(def, definition))) {
+      versions.remove(definition);
+      tombstones.put(definition, version);
+      if (removeRegistration(definition)) {
         log.info("un-register service: [{}] ", definition);
+        unregistered.add(definition);
+      }
+    }
+    persist(RegistryStore.UNREGISTER, unregistered, version);
+    publish(RegistryEvent.Type.UNREGISTERED, unregistered);
+    rebuildSnapshots(unregistered);
+    replicateToPeers(ReplicationDelta.Action.UNREGISTER, registration.getServiceDefinitions(), version);
+  }
+
+  /**
+   * Renew the lease of the given instance.
+   *
+   * @param instanceId {@code host:port} of the instance
+   * @throws ServiceNotFoundException the instance is not registered or has been evicted,
+   * it has to register again
+   */
+  @PUT("/heartbeat/{instanceId}")
+  public void heartbeat(@PathVariable String instanceId) {
+    InstanceLease lease = leases.get(instanceId);
+    // fails if the lease is evicted concurrently
+    if (lease == null || !lease.renew(System.nanoTime() + ttlNanos)) {
+      throw new ServiceNotFoundException(instanceId);
+    }
+    PeerReplicator replicator = this.replicator;
+    if (replicator != null) {
+      replicator.replicate(ReplicationDelta.heartbeat(instanceId));
+    }
+  }
+
+  /**
+   * Apply the deltas replicated by a peer node, they are not replicated
+   * further. A delta older than the version held for a definition is ignored.
+   *
+   * @return the instances of the heartbeats unknown to this node
+   */
+  @POST("/replication")
+  public synchronized List<String> replicate(@RequestBody List<ReplicationDelta> deltas) {
+    long expiresAt = System.nanoTime() + ttlNanos;
+    ArrayList<String> unknown = new ArrayList<>();
+    ArrayList<ServiceDefinition> changed = new ArrayList<>();
+    for (ReplicationDelta delta : deltas) {
+      long version = delta.getVersion();
+      lastVersion = Math.max(lastVersion, version);
+      switch (delta.getAction()) {
+        case REGISTER -> {
+          ArrayList<ServiceDefinition> accepted = new ArrayList<>();
+          ArrayList<ServiceDefinition> registered = new ArrayList<>();
+          for (ServiceDefinition definition : delta.getDefinitions()) {
+            if (!isStale(definition, version)) {
+              versions.put(definition, version);
+              tombstones.remove(definition);
+              accepted.add(definition);
+              if (addDefinition(definition, expiresAt)) {
+                registered.add(definition);
+              }
+            }
+          }
+          persist(RegistryStore.REGISTER, accepted, version);
+          publish(RegistryEvent.Type.REGISTERED, registered);
+          changed.addAll(registered);
+        }
+        case UNREGISTER -> {
+          ArrayList<ServiceDefinition> unregistered = new ArrayList<>();
+          for (ServiceDefinition definition : delta.getDefinitions()) {
+            if (!isStale(definition, version)) {
+              versions.remove(definition);
+              tombstones.put(definition, version);
+              if (removeRegistration(definition)) {
+                unregistered.add(definition);
+              }
+            }
+          }
+          persist(RegistryStore.UNREGISTER, unregistered, version);
+          publish(RegistryEvent.Type.UNREGISTERED, unregistered);
+          changed.addAll(unregistered);
+        }
+        case HEARTBEAT -> {
+          InstanceLease lease = leases.get(delta.getInstanceId());
+          if (lease == null || !lease.renew(expiresAt)) {
+            unknown.add(delta.getInstanceId());
+          }
+        }
+      }
+    }
+    rebuildSnapshots(changed);
+    return unknown;
+  }
+
+  /**
+   * Returns the registration deltas of the given instance, for a peer
+   * not knowing it.
+   */
+  synchronized List<ReplicationDelta> registrationOf(String instanceId) {
+    InstanceLease lease = leases.get(instanceId);
+    if (lease == null || lease.removed) {
+      return List.of();
+    }
+    ArrayList<ReplicationDelta> deltas = new ArrayList<>(lease.definitions.size());
+    for (ServiceDefinition definition : lease.definitions) {
+      Long version = versions.get(definition);
+      deltas.add(new ReplicationDelta(ReplicationDelta.Action.REGISTER,
+              instanceId, List.of(definition), version == null ? 0 : version));
+    }
+    return deltas;
+  }
+
+  /**
+   * Evict the instances whose lease expired.
+   */
+  void evictExpired() {
+    try {
+      long now = System.nanoTime();
+      for (InstanceLease lease : expiryWheel.advance(now)) {
+        evict(lease, now);
+      }
+      if (now - lastPurge > ttlNanos) {
+        lastPurge = now;
+        purgeTombstones();
+      }
+    }
+    catch (Throwable e) {
+      log.error("Lease expiry failed", e);
+    }
+  }
+
+  private synchronized void evict(InstanceLease lease, long now) {
+    if (!lease.expire(now)) {
+      // renewed or un-registered meanwhile
+      if (!lease.removed) {
+        expiryWheel.schedule(lease);
+      }
+      return;
+    }
+    leases.remove(lease.instanceId, lease);
+
+    ArrayList<ServiceDefinition> evicted = new ArrayList<>();
+    long evictedVersion = 0;
+    for (ServiceDefinition definition : lease.definitions) {
+      if (removeDefinition(definition)) {
+        evicted.add(definition);
+      }
+      // a registration older than the evicted one stays ignored
+      Long version = versions.remove(definition);
+      if (version != null) {
+        tombstones.put(definition, version);
+        evictedVersion = Math.max(evictedVersion, version);
+      }
+    }
+    log.warn("Instance [{}] missed its heartbeats, evicted services: {}", lease.instanceId, evicted);
+    persist(RegistryStore.UNREGISTER, evicted, evictedVersion);
+    publish(RegistryEvent.Type.EVICTED, evicted);
+    rebuildSnapshots(evicted);
+    replicateEviction(evicted);
+  }
+
+  /**
+   * Replicate the eviction at the version of each evicted registration,
+   * a peer holding a newer registration ignores it.
+   */
+  private void replicateEviction(List<ServiceDefinition> evicted) {
+    PeerReplicator replicator = this.replicator;
+    if (replicator != null) {
+      for (ServiceDefinition definition : evicted) {
+        Long version = tombstones.get(definition);
+        if (version != null) {
+          replicator.replicate(new ReplicationDelta(ReplicationDelta.Action.UNREGISTER,
+                  HttpRegistration.instanceId(definition), List.of(definition), version));
+        }
+      }
+    }
+  }
+
+  /**
+   * Flush the write-ahead log of the store to the disk.
+   */
+  void syncStore() {
+    try {
+      if (store != null) {
+        store.sync();
+      }
+    }
+    catch (Throwable e) {
+      log.error("Registry log sync failed", e);
+    }
+  }
+
+  /**
+   * Write a compacted snapshot of the registry to the store, replacing
+   * the write-ahead log written so far.
+   */
+  void compact() {
+    RegistryStore store = this.store;
+    if (store == null) {
+      return;
+    }
+    try {
+      long generation;
+      LinkedHashMap<ServiceDefinition, Long> definitions = new LinkedHashMap<>();
+      synchronized(this) {
+        generation = store.rotate();
+        if (generation < 0) {
+          return;
+        }
+        for (ServiceDefinition definition : definitions()) {
+          definitions.put(definition, versions.getOrDefault(definition, 0L));
+        }
+      }
+      store.writeSnapshot(generation, definitions);
+    }
+    catch (Throwable e) {
+      log.error("Registry snapshot failed", e);
+    }
+  }
+
+  /**
+   * Restore the persisted registrations.
+   *
+   * @return {@code false} the store is unusable
+   */
+  private boolean restore(RegistryStore store) {
+    long start = System.nanoTime();
+    Map<ServiceDefinition, Long> definitions;
+    try {
+      definitions = store.recover();
+    }
+    catch (IOException e) {
+      log.error("Cannot restore the registry from [{}], registrations are kept in memory only", store.getDirectory(), e);
+      return false;
+    }
+
+    long expiresAt = System.nanoTime() + ttlNanos + store.getRecoveryGrace().toNanos();
+    ArrayList<ServiceDefinition> restored = new ArrayList<>(definitions.size());
+    for (Map.Entry<ServiceDefinition, Long> entry : definitions.entrySet()) {
+      ServiceDefinition definition = entry.getKey();
+      long version = entry.getValue();
+      // conflicts with the peers are resolved against the persisted versions
+      versions.put(definition, version);
+      lastVersion = Math.max(lastVersion, version);
+      if (addDefinition(definition, expiresAt)) {
+        restored.add(definition);
+      }
+    }
+    rebuildSnapshots(restored);
+    log.info("Restored {} service definitions from [{}] in {} ms", restored.size(),
+            store.getDirectory(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return true;
+  }
+
+  /**
+   * @return {@code true} the definition was not registered
+   */
+  private boolean addDefinition(ServiceDefinition definition, long expiresAt) {
+    String instanceId = HttpRegistration.instanceId(definition);
+    InstanceLease lease = leases.get(instanceId);
+    if (lease == null) {
+      lease = new InstanceLease(instanceId, expiresAt);
+      leases.put(instanceId, lease);
+      expiryWheel.schedule(lease);
+    }
+    else {
+      lease.renew(expiresAt);
+    }
+
+    lease.definitions.addIfAbsent(definition);
+    return serviceMapping.computeIfAbsent(definition.getName(), name -> new ServiceDefinitions()).add(definition);
+  }
+
+  /**
+   * Remove the given definition and its lease if it was the last one
+   * of the instance.
+   *
+   * @return {@code true} the definition was registered
+   */
+  private boolean removeRegistration(ServiceDefinition definition) {
+    String instanceId = HttpRegistration.instanceId(definition);
+    InstanceLease lease = leases.get(instanceId);
+    if (lease != null) {
+      lease.definitions.remove(definition);
+      if (lease.definitions.isEmpty()) {
+        lease.remove();
+        leases.remove(instanceId);
+      }
+    }
+    return removeDefinition(definition);
+  }
+
+  /** guarded by this */
+  private boolean isStale(ServiceDefinition definition, long version) {
+    Long current = versions.get(definition);
+    if (current == null) {
+      current = tombstones.get(definition);
+    }
+    return current != null && current > version;
+  }
+
+  /**
+   * Versions are wall clock based to stay comparable between the nodes,
+   * and never go backward on a node.
+   */
+  private long nextVersion() {
+    lastVersion = Math.max(lastVersion + 1, System.currentTimeMillis());
+    return lastVersion;
+  }
+
+  /**
+   * Forget the removed definitions after a while, no delta of them is in
+   * flight anymore.
+   */
+  private synchronized void purgeTombstones() {
+    long expired = System.currentTimeMillis() - 2 * TimeUnit.NANOSECONDS.toMillis(ttlNanos);
+    tombstones.values().removeIf(version -> version < expired);
+  }
+
+  private void replicateToPeers(ReplicationDelta.Action action, List<ServiceDefinition> definitions, long version) {
+    PeerReplicator replicator = this.replicator;
+    if (replicator != null && !definitions.isEmpty()) {
+      LinkedHashMap<String, List<ServiceDefinition>> instances = new LinkedHashMap<>();
+      for (ServiceDefinition definition : definitions) {
+        instances.computeIfAbsent(HttpRegistration.instanceId(definition), id -> new ArrayList<>()).add(definition);
+      }
+      for (Map.Entry<String, List<ServiceDefinition>> entry : instances.entrySet()) {
+        replicator.replicate(new ReplicationDelta(action, entry.getKey(), entry.getValue(), version));
+      }
+    }
+  }
+
+  private void persist(byte operation, List<ServiceDefinition> definitions, long version) {
+    if (store != null && !definitions.isEmpty()) {
+      try {
+        store.append(operation, definitions, version);
+      }
+      catch (IOException e) {
+        log.error("Cannot append to the registry log, operation: {}, services: {}", operation, definitions, e);
+      }
+    }
+  }
+
+  /** guarded by this */
+  private void rebuildSnapshots(List<ServiceDefinition> changed) {
+    if (changed.isEmpty()) {
+      return;
+    }
+    Set<String> names = new HashSet<>();
+    for (ServiceDefinition definition : changed) {
+      names.add(definition.getName());
+    }
+    String etag = "\"%x-%d\"".formatted(changeLog.getEpoch(), changeLog.getRevision());
+    for (String name : names) {
+      ServiceDefinitions definitions = serviceMapping.get(name);
+      if (definitions == null || definitions.isEmpty()) {
+        snapshots.remove(name);
+      }
+      else {
+        snapshots.put(name, createSnapshot(definitions.list(), etag));
+      }
+    }
+  }
+
+  private ServiceSnapshot createSnapshot(List<ServiceDefinition> definitions, String etag) {
+    ArrayList<ServiceInstance> instances = new ArrayList<>(definitions.size());
+    for (ServiceDefinition definition : definitions) {
+      instances.add(new DefaultServiceInstance(HttpRegistration.instanceId(definition),
+              definition.getName(), definition.getHost(), definition.getPort()));
+    }
+    try {
+      return new ServiceSnapshot(List.copyOf(instances), objectMapper.writeValueAsBytes(instances), etag);
+    }
+    catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot serialize service instances", e);
+    }
+  }
+
+  private Collection<ServiceDefinition> definitions() {
+    ArrayList<ServiceDefinition> ret = new ArrayList<>();
+    for (ServiceDefinitions definitions : serviceMapping.values()) {
+      ret.addAll(definitions.list());
+    }
+    return ret;
+  }
+
+  private boolean removeDefinition(ServiceDefinition definition) {
+    ServiceDefinitions definitions = serviceMapping.get(definition.getName());
+    if (definitions != null && definitions.remove(definition)) {
+      if (definitions.isEmpty()) {
+        serviceMapping.remove(definition.getName(), definitions);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private void publish(RegistryEvent.Type type, List<ServiceDefinition> definitions) {
+    if (!definitions.isEmpty() && !listeners.isEmpty()) {
+      RegistryEvent event = new RegistryEvent(type, definitions);
+      for (RegistryListener listener : listeners) {
+        try {
+          listener.onEvent(event);
+        }
+        catch (RuntimeException e) {
+          log.error("Registry listener [{}] failed on: [{}]", listener, event, e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    PeerReplicator replicator = this.replicator;
+    if (replicator != null) {
+      replicator.stop();
+    }
+    // no interrupt, it closes the file channels of the store
+    expiryExecutor.shutdown();
+    if (store != null) {
+      expiryExecutor.awaitTermination(10, TimeUnit.SECONDS);
+      compact();
+      try {
+        store.close();
+      }
+      catch (IOException e) {
+        log.error("Cannot close the registry store", e);
       }
     }
   }
@@ -100,4 +746,65 @@ public class HttpServiceRegistryEndpoint implements ServiceRegistry<HttpRegistra
 
   }
 
+  /**
+   * Definitions of a service keyed by themselves, that is by instance and
+   * version, so adding or removing one does not copy the others. The list
+   * view is built on read and kept until the next change.
+   */
+  private static final class ServiceDefinitions {
+
+    private final ConcurrentHashMap<ServiceDefinition, ServiceDefinition> definitions = new ConcurrentHashMap<>();
+
+    private volatile long modCount;
+
+    @Nullable
+    private volatile Published published;
+
+    /** guarded by the endpoint */
+    boolean add(ServiceDefinition definition) {
+      if (definitions.putIfAbsent(definition, definition) == null) {
+        modCount++;
+        return true;
+      }
+      return false;
+    }
+
+    /** guarded by the endpoint */
+    boolean remove(ServiceDefinition definition) {
+      if (definitions.remove(definition) != null) {
+        modCount++;
+        return true;
+      }
+      return false;
+    }
+
+    boolean isEmpty() {
+      return definitions.isEmpty();
+    }
+
+    List<ServiceDefinition> list() {
+      Published published = this.published;
+      long modCount = this.modCount;
+      if (published == null || published.modCount != modCount) {
+        // a change made while copying is seen by the next read
+        published = new Published(modCount, List.copyOf(definitions.values()));
+        this.published = published;
+      }
+      return published.definitions;
+    }
+
+    private static final class Published {
+
+      final long modCount;
+
+      final List<ServiceDefinition> definitions;
+
+      Published(long modCount, List<ServiceDefinition> definitions) {
+        this.modCount = modCount;
+        this.definitions = definitions;
+      }
+    }
+
+  }
+
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * TTL lease of a registered instance, renewed by heartbeats.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 21:10
+ */
+final class InstanceLease {
+
+  final String instanceId;
+
+  final CopyOnWriteArrayList<ServiceDefinition> definitions = new CopyOnWriteArrayList<>();
+
+  /** {@link System#nanoTime()} deadline */
+  volatile long expiresAt;
+
+  /** removed from the registry, the wheel drops it, changed under the monitor of this */
+  volatile boolean removed;
+
+  InstanceLease(String instanceId, long expiresAt) {
+    this.instanceId = instanceId;
+    this.expiresAt = expiresAt;
+  }
+
+  /**
+   * Move the deadline of the lease, a removed lease is not renewed.
+   *
+   * @return {@code false} the lease has been removed, the instance has to register again
+   */
+  synchronized boolean renew(long expiresAt) {
+    if (removed) {
+      return false;
+    }
+    this.expiresAt = expiresAt;
+    return true;
+  }
+
+  /**
+   * Remove the lease if it is expired. A concurrent renewal either
+   * happens before and keeps the lease, or fails.
+   *
+   * @return {@code true} the lease has been removed
+   */
+  synchronized boolean expire(long now) {
+    if (removed || !isExpired(now)) {
+      return false;
+    }
+    removed = true;
+    return true;
+  }
+
+  synchronized void remove() {
+    removed = true;
+  }
+
+  boolean isExpired(long now) {
+    return now - expiresAt >= 0;
+  }
+
+  @Override
+  public String toString() {
+    return "InstanceLease{" + instanceId + ", definitions=" + definitions.size() + "}";
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import infra.lang.Assert;
+
+/**
+ * Hashed timer wheel for the lease deadlines.
+ * <p>
+ * A lease is put in the bucket of its deadline tick. Renewing a lease only
+ * moves its deadline, the wheel is not touched: when the bucket comes up, the
+ * leases that are not yet expired are moved to the bucket of their new deadline.
+ * Each tick only visits one bucket, so the expiry cost does not depend on the
+ * number of registered instances.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 21:20
+ */
+final class LeaseExpiryWheel {
+
+  private final long tickNanos;
+
+  private final int mask;
+
+  private final ArrayDeque<InstanceLease>[] buckets;
+
+  private final long startNanos;
+
+  /** guarded by this */
+  private long currentTick;
+
+  @SuppressWarnings("unchecked")
+  LeaseExpiryWheel(long tickNanos, int ticksPerWheel, long startNanos) {
+    Assert.isTrue(tickNanos > 0, "tickNanos must be positive");
+    Assert.isTrue(ticksPerWheel > 0 && (ticksPerWheel & (ticksPerWheel - 1)) == 0, "ticksPerWheel must be a power of 2");
+    this.tickNanos = tickNanos;
+    this.mask = ticksPerWheel - 1;
+    this.startNanos = startNanos;
+    this.buckets = new ArrayDeque[ticksPerWheel];
+    for (int i = 0; i < ticksPerWheel; i++) {
+      buckets[i] = new ArrayDeque<>();
+    }
+  }
+
+  synchronized void schedule(InstanceLease lease) {
+    long deadlineTick = (lease.expiresAt - startNanos + tickNanos - 1) / tickNanos;
+    buckets[(int) (Math.max(deadlineTick, currentTick + 1) & mask)].add(lease);
+  }
+
+  /**
+   * Advance the wheel to the given time.
+   *
+   * @param now {@link System#nanoTime()}
+   * @return the expired leases
+   */
+  synchronized List<InstanceLease> advance(long now) {
+    List<InstanceLease> expired = null;
+    long targetTick = (now - startNanos) / tickNanos;
+    while (currentTick < targetTick) {
+      currentTick++;
+      ArrayDeque<InstanceLease> bucket = buckets[(int) (currentTick & mask)];
+      // leases whose deadline is beyond the wheel span go back to the same bucket
+      for (int i = bucket.size(); i > 0; i--) {
+        InstanceLease lease = bucket.poll();
+        if (lease.removed) {
+          continue;
+        }
+        if (lease.isExpired(now)) {
+          if (expired == null) {
+            expired = new ArrayList<>();
+          }
+          expired.add(lease);
+        }
+        else {
+          schedule(lease);
+        }
+      }
+    }
+    return expired == null ? List.of() : expired;
+  }
+
+  synchronized int size() {
+    int size = 0;
+    for (ArrayDeque<InstanceLease> bucket : buckets) {
+      size += bucket.size();
+    }
+    return size;
+  }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+
+/**
+ * Replicates the changes accepted by this registry node to its peers,
+ * asynchronously and in batches.
+ * <p>
+ * Each peer has its own queue, a slow or unreachable peer delays only
+ * itself. Deltas of an unreachable peer are kept up to the max pending
+ * count and sent again once it is back, the oldest are dropped beyond.
+ * The cluster is eventually consistent nevertheless: heartbeats are
+ * replicated, a peer not knowing the instance of a heartbeat gets its
+ * registration again, and a registration missing its un-registration
+ * expires without heartbeats.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 09:30
+ */
+public class PeerReplicator {
+
+  private static final Logger log = LoggerFactory.getLogger(PeerReplicator.class);
+
+  private final List<Peer> peers;
+
+  private final PeerTransport transport;
+
+  private int batchSize = 500;
+
+  private int maxPending = 100_000;
+
+  private Duration interval = Duration.ofMillis(100);
+
+  @Nullable
+  private ScheduledExecutorService executor;
+
+  @Nullable
+  private Function<String, List<ReplicationDelta>> registrations;
+
+  /**
+   * @param peers URLs of the other registry nodes
+   * @param transport sends the deltas to a peer
+   */
+  public PeerReplicator(List<String> peers, PeerTransport transport) {
+    Assert.notEmpty(peers, "peers is required");
+    Assert.notNull(transport, "PeerTransport is required");
+    this.transport = transport;
+    this.peers = new ArrayList<>(peers.size());
+    for (String peer : peers) {
+      this.peers.add(new Peer(peer));
+    }
+  }
+
+  /**
+   * Set the max number of deltas sent in a request.
+   */
+  public void setBatchSize(int batchSize) {
+    Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Set the max number of deltas kept for a peer.
+   */
+  public void setMaxPending(int maxPending) {
+    Assert.isTrue(maxPending > 0, "maxPending must be greater than 0");
+    this.maxPending = maxPending;
+  }
+
+  /**
+   * Set the delay between two replication rounds of a peer.
+   */
+  public void setInterval(Duration interval) {
+    Assert.isTrue(interval != null && interval.toMillis() > 0, "interval must be positive");
+    this.interval = interval;
+  }
+
+  /**
+   * Start replicating.
+   *
+   * @param registrations supplies the current registration deltas of an
+   * instance, to send to a peer not knowing it
+   */
+  public synchronized void start(Function<String, List<ReplicationDelta>> registrations) {
+    Assert.notNull(registrations, "registrations is required");
+    if (executor == null) {
+      this.registrations = registrations;
+      AtomicInteger counter = new AtomicInteger();
+      ScheduledExecutorService executor = Executors.newScheduledThreadPool(Math.min(peers.size(), 4), r -> {
+        Thread thread = new Thread(r, "registry-replication-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      long intervalNanos = interval.toNanos();
+      for (Peer peer : peers) {
+        executor.scheduleWithFixedDelay(() -> flush(peer), intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+      }
+      this.executor = executor;
+    }
+  }
+
+  public synchronized void stop() {
+    ScheduledExecutorService executor = this.executor;
+    if (executor != null) {
+      this.executor = null;
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Queue the given delta for all the peers.
+   */
+  public void replicate(ReplicationDelta delta) {
+    for (Peer peer : peers) {
+      peer.offer(delta, maxPending);
+    }
+  }
+
+  /**
+   * Returns the number of deltas not yet sent to the given peer.
+   */
+  public int getPending(String peer) {
+    for (Peer candidate : peers) {
+      if (candidate.url.equals(peer)) {
+        return candidate.size();
+      }
+    }
+    throw new IllegalArgumentException("Unknown peer: " + peer);
+  }
+
+  /**
+   * Send the pending deltas to the given peer, until its queue is empty
+   * or the peer fails.
+   */
+  void flush(Peer peer) {
+    while (true) {
+      List<ReplicationDelta> batch = peer.poll(batchSize);
+      if (batch.isEmpty()) {
+        return;
+      }
+      List<String> unknown;
+      try {
+        unknown = transport.replicate(peer.url, batch);
+      }
+      catch (Throwable e) {
+        peer.requeue(batch, maxPending);
+        if (peer.available) {
+          peer.available = false;
+          log.warn("Registry peer [{}] unavailable, {} deltas pending", peer.url, peer.size(), e);
+        }
+        return;
+      }
+
+      if (!peer.available) {
+        peer.available = true;
+        log.info("Registry peer [{}] available again", peer.url);
+      }
+      Function<String, List<ReplicationDelta>> registrations = this.registrations;
+      if (registrations != null && unknown != null) {
+        for (String instanceId : unknown) {
+          for (ReplicationDelta delta : registrations.apply(instanceId)) {
+            peer.offer(delta, maxPending);
+          }
+        }
+      }
+      if (batch.size() < batchSize) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PeerReplicator" + peers;
+  }
+
+  static final class Peer {
+
+    final String url;
+
+    /** guarded by this */
+    private final ArrayDeque<ReplicationDelta> pending = new ArrayDeque<>();
+
+    /** guarded by this */
+    private long dropped;
+
+    /** accessed by its flush task only */
+    boolean available = true;
+
+    Peer(String url) {
+      this.url = url;
+    }
+
+    synchronized void offer(ReplicationDelta delta, int maxPending) {
+      if (pending.size() >= maxPending) {
+        pending.pollFirst();
+        if (dropped++ % maxPending == 0) {
+          log.warn("Replication queue of peer [{}] is full, {} deltas dropped", url, dropped);
+        }
+      }
+      pending.addLast(delta);
+    }
+
+    /**
+     * Take up to the given number of deltas, the repeated heartbeats
+     * of an instance are sent once.
+     */
+    synchronized List<ReplicationDelta> poll(int max) {
+      ArrayList<ReplicationDelta> batch = new ArrayList<>(Math.min(max, pending.size()));
+      HashSet<String> heartbeats = new HashSet<>();
+      while (batch.size() < max) {
+        ReplicationDelta delta = pending.pollFirst();
+        if (delta == null) {
+          break;
+        }
+        if (delta.getAction() != ReplicationDelta.Action.HEARTBEAT || heartbeats.add(delta.getInstanceId())) {
+          batch.add(delta);
+        }
+      }
+      return batch;
+    }
+
+    /**
+     * Put back a batch failed to send, in front of the newer deltas.
+     */
+    synchronized void requeue(List<ReplicationDelta> batch, int maxPending) {
+      for (int i = batch.size() - 1; i >= 0 && pending.size() < maxPending; i--) {
+        pending.addFirst(batch.get(i));
+      }
+    }
+
+    synchronized int size() {
+      return pending.size();
+    }
+
+    @Override
+    public String toString() {
+      return url;
+    }
+
+  }
+
+}
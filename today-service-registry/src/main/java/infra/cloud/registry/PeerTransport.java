@@ -0,0 +1,43 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.util.List;
+
+/**
+ * Sends the replication deltas to a peer registry node, the nodes of a
+ * cluster in the same JVM can be connected directly to their endpoints.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 09:15
+ * @see HttpServiceRegistryEndpoint#replicate(List)
+ */
+@FunctionalInterface
+public interface PeerTransport {
+
+  /**
+   * Send the deltas to the given peer.
+   *
+   * @param peer URL of the peer registry
+   * @param deltas batch of deltas, in the order they were accepted
+   * @return the heartbeat instances unknown to the peer
+   * @throws Exception the peer is unreachable, the batch will be sent again
+   */
+  List<String> replicate(String peer, List<ReplicationDelta> deltas) throws Exception;
+
+}
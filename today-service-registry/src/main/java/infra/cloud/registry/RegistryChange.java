@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import infra.core.style.ToStringBuilder;
+
+/**
+ * A revisioned change of a service definition.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 22:05
+ */
+public class RegistryChange {
+
+  private long revision;
+
+  private RegistryEvent.Type type;
+
+  private ServiceDefinition definition;
+
+  public RegistryChange() { }
+
+  public RegistryChange(long revision, RegistryEvent.Type type, ServiceDefinition definition) {
+    this.revision = revision;
+    this.type = type;
+    this.definition = definition;
+  }
+
+  public void setRevision(long revision) {
+    this.revision = revision;
+  }
+
+  public long getRevision() {
+    return revision;
+  }
+
+  public void setType(RegistryEvent.Type type) {
+    this.type = type;
+  }
+
+  public RegistryEvent.Type getType() {
+    return type;
+  }
+
+  public void setDefinition(ServiceDefinition definition) {
+    this.definition = definition;
+  }
+
+  public ServiceDefinition getDefinition() {
+    return definition;
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder.forInstance(this)
+            .append("revision", revision)
+            .append("type", type)
+            .append("definition", definition)
+            .toString();
+  }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import infra.lang.Assert;
+
+/**
+ * Keeps the recent changes of the registry under a monotonically increasing
+ * revision, and answers watchers with the changes after their revision.
+ * <p>
+ * A watcher that is up to date is parked until the next change or its
+ * timeout, so the load of the registry grows with the change rate, not
+ * with the number of watchers.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 22:15
+ */
+public class RegistryChangeLog implements RegistryListener {
+
+  private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+  private final RegistryChange[] changes;
+
+  private final Supplier<Collection<ServiceDefinition>> definitions;
+
+  /** guarded by this */
+  private long revision;
+
+  /** guarded by this */
+  private HashSet<CompletableFuture<WatchResult>> waiters = new HashSet<>();
+
+  /**
+   * @param capacity number of changes kept
+   * @param definitions supplies all the registered definitions, to reset the watchers
+   */
+  public RegistryChangeLog(int capacity, Supplier<Collection<ServiceDefinition>> definitions) {
+    Assert.isTrue(capacity > 0, "capacity must be greater than 0");
+    Assert.notNull(definitions, "definitions is required");
+    this.changes = new RegistryChange[capacity];
+    this.definitions = definitions;
+  }
+
+  public long getEpoch() {
+    return epoch;
+  }
+
+  public synchronized long getRevision() {
+    return revision;
+  }
+
+  @Override
+  public void onEvent(RegistryEvent event) {
+    HashSet<CompletableFuture<WatchResult>> waiters;
+    WatchResult result;
+    synchronized(this) {
+      long from = revision;
+      for (ServiceDefinition definition : event.getDefinitions()) {
+        long revision = ++this.revision;
+        changes[(int) (revision % changes.length)] = new RegistryChange(revision, event.getType(), definition);
+      }
+      if (this.waiters.isEmpty()) {
+        return;
+      }
+      // parked watchers are all up to date with the previous revision
+      result = changesSince(from);
+      waiters = this.waiters;
+      this.waiters = new HashSet<>();
+    }
+    for (CompletableFuture<WatchResult> waiter : waiters) {
+      waiter.complete(result);
+    }
+  }
+
+  /**
+   * Watch the changes after the given revision, completes immediately if
+   * there are changes, otherwise on the next change, or with no change
+   * after the timeout.
+   *
+   * @param epoch epoch of the watcher revision, {@code 0} for a new watcher
+   * @param revision revision of the watcher
+   * @param timeout max time to wait for a change
+   */
+  public CompletableFuture<WatchResult> watch(long epoch, long revision, Duration timeout) {
+    CompletableFuture<WatchResult> future;
+    synchronized(this) {
+      if (epoch != this.epoch || revision > this.revision) {
+        return CompletableFuture.completedFuture(reset());
+      }
+      if (revision < this.revision) {
+        return CompletableFuture.completedFuture(changesSince(revision));
+      }
+      future = new CompletableFuture<>();
+      waiters.add(future);
+    }
+    WatchResult empty = new WatchResult(this.epoch, revision, false, List.of());
+    future.completeOnTimeout(empty, timeout.toMillis(), TimeUnit.MILLISECONDS)
+            .whenComplete((result, ex) -> removeWaiter(future));
+    return future;
+  }
+
+  private synchronized void removeWaiter(CompletableFuture<WatchResult> future) {
+    waiters.remove(future);
+  }
+
+  /** guarded by this */
+  private WatchResult changesSince(long from) {
+    long oldest = Math.max(1, revision - changes.length + 1);
+    if (from + 1 < oldest) {
+      return reset();
+    }
+    ArrayList<RegistryChange> ret = new ArrayList<>((int) (revision - from));
+    for (long i = from + 1; i <= revision; i++) {
+      ret.add(changes[(int) (i % changes.length)]);
+    }
+    return new WatchResult(epoch, revision, false, ret);
+  }
+
+  /** guarded by this */
+  private WatchResult reset() {
+    ArrayList<RegistryChange> ret = new ArrayList<>();
+    for (ServiceDefinition definition : definitions.get()) {
+      ret.add(new RegistryChange(revision, RegistryEvent.Type.REGISTERED, definition));
+    }
+    return new WatchResult(epoch, revision, true, ret);
+  }
+
+}
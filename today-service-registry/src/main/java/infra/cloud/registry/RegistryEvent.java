@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.util.List;
+
+/**
+ * Change of the service instances held by the registry.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 21:35
+ */
+public class RegistryEvent {
+
+  private final Type type;
+
+  private final List<ServiceDefinition> definitions;
+
+  public RegistryEvent(Type type, List<ServiceDefinition> definitions) {
+    this.type = type;
+    this.definitions = definitions;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public List<ServiceDefinition> getDefinitions() {
+    return definitions;
+  }
+
+  @Override
+  public String toString() {
+    return type + " " + definitions;
+  }
+
+  public enum Type {
+
+    REGISTERED,
+
+    UNREGISTERED,
+
+    /**
+     * The lease of the instance expired without heartbeat.
+     */
+    EVICTED
+
+  }
+
+}
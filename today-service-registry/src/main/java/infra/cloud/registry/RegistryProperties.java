@@ -17,7 +17,13 @@
 
 package infra.cloud.registry;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import infra.context.properties.ConfigurationProperties;
+import infra.lang.Nullable;
 
 /**
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
@@ -27,7 +33,8 @@ import infra.context.properties.ConfigurationProperties;
 public class RegistryProperties {
 
   /**
-   * Service Registry HTTP URL
+   * Service Registry HTTP URL, comma separated URLs of the nodes of a
+   * registry cluster, the next one is used when a node fails.
    */
   private String httpUrl;
 
@@ -36,6 +43,45 @@ public class RegistryProperties {
    */
   private final Services services = new Services();
 
+  /**
+   * Time to live of a registered instance without heartbeat, the registry
+   * evicts it afterward.
+   */
+  private Duration leaseTtl = Duration.ofSeconds(30);
+
+  /**
+   * Interval of the heartbeats renewing the lease of a provider.
+   */
+  private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+  /**
+   * Keep a local view of the registry on the clients, updated by watching
+   * its changes, instead of looking it up on each request.
+   */
+  private boolean watch = true;
+
+  /**
+   * File keeping the last-known instances of the services for the clients,
+   * used when the registry is unavailable. Not kept if not set.
+   */
+  @Nullable
+  private Path discoveryCache;
+
+  /**
+   * Persistence of the registrations.
+   */
+  private final Persistence persistence = new Persistence();
+
+  /**
+   * Replication between the nodes of a registry cluster.
+   */
+  private final Cluster cluster = new Cluster();
+
+  /**
+   * Registry over the remoting protocol.
+   */
+  private final Remoting remoting = new Remoting();
+
   public void setHttpUrl(String httpUrl) {
     this.httpUrl = httpUrl;
   }
@@ -48,6 +94,51 @@ public class RegistryProperties {
     return services;
   }
 
+  public void setLeaseTtl(Duration leaseTtl) {
+    this.leaseTtl = leaseTtl;
+  }
+
+  public Duration getLeaseTtl() {
+    return leaseTtl;
+  }
+
+  public void setHeartbeatInterval(Duration heartbeatInterval) {
+    this.heartbeatInterval = heartbeatInterval;
+  }
+
+  public Duration getHeartbeatInterval() {
+    return heartbeatInterval;
+  }
+
+  public void setWatch(boolean watch) {
+    this.watch = watch;
+  }
+
+  public boolean isWatch() {
+    return watch;
+  }
+
+  public void setDiscoveryCache(@Nullable Path discoveryCache) {
+    this.discoveryCache = discoveryCache;
+  }
+
+  @Nullable
+  public Path getDiscoveryCache() {
+    return discoveryCache;
+  }
+
+  public Persistence getPersistence() {
+    return persistence;
+  }
+
+  public Cluster getCluster() {
+    return cluster;
+  }
+
+  public Remoting getRemoting() {
+    return remoting;
+  }
+
   /**
    * Services
    */
@@ -67,4 +158,182 @@ public class RegistryProperties {
     }
   }
 
+  /**
+   * Persistence of the registrations, survives a restart of the registry.
+   */
+  public static class Persistence {
+
+    /**
+     * Directory of the write-ahead log and the snapshots, registrations
+     * are kept in memory only if not set.
+     */
+    @Nullable
+    private Path directory;
+
+    /**
+     * Interval forcing the write-ahead log to the disk.
+     */
+    private Duration syncInterval = Duration.ofSeconds(1);
+
+    /**
+     * Interval of the compacted snapshots.
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(1);
+
+    /**
+     * Time added to the lease of the recovered instances.
+     */
+    private Duration recoveryGrace = Duration.ofSeconds(30);
+
+    public void setDirectory(@Nullable Path directory) {
+      this.directory = directory;
+    }
+
+    @Nullable
+    public Path getDirectory() {
+      return directory;
+    }
+
+    public void setSyncInterval(Duration syncInterval) {
+      this.syncInterval = syncInterval;
+    }
+
+    public Duration getSyncInterval() {
+      return syncInterval;
+    }
+
+    public void setSnapshotInterval(Duration snapshotInterval) {
+      this.snapshotInterval = snapshotInterval;
+    }
+
+    public Duration getSnapshotInterval() {
+      return snapshotInterval;
+    }
+
+    public void setRecoveryGrace(Duration recoveryGrace) {
+      this.recoveryGrace = recoveryGrace;
+    }
+
+    public Duration getRecoveryGrace() {
+      return recoveryGrace;
+    }
+  }
+
+  /**
+   * Replication between the nodes of a registry cluster.
+   */
+  public static class Cluster {
+
+    /**
+     * Registry URLs of the other nodes of the cluster, this node
+     * does not replicate if empty.
+     */
+    private List<String> peers = new ArrayList<>();
+
+    /**
+     * Max number of changes sent to a peer in a request.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Max number of changes kept for an unreachable peer.
+     */
+    private int maxPending = 100_000;
+
+    /**
+     * Delay between two replication rounds of a peer.
+     */
+    private Duration replicationInterval = Duration.ofMillis(100);
+
+    public void setPeers(List<String> peers) {
+      this.peers = peers;
+    }
+
+    public List<String> getPeers() {
+      return peers;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setMaxPending(int maxPending) {
+      this.maxPending = maxPending;
+    }
+
+    public int getMaxPending() {
+      return maxPending;
+    }
+
+    public void setReplicationInterval(Duration replicationInterval) {
+      this.replicationInterval = replicationInterval;
+    }
+
+    public Duration getReplicationInterval() {
+      return replicationInterval;
+    }
+  }
+
+  /**
+   * Registry over the remoting protocol.
+   */
+  public static class Remoting {
+
+    /**
+     * Clients reach the registry over the remoting protocol instead of HTTP.
+     */
+    private boolean client = false;
+
+    /**
+     * Host of the remoting registry, for the clients.
+     */
+    private String host = "localhost";
+
+    /**
+     * Port of the remoting registry.
+     */
+    private int port = 9091;
+
+    /**
+     * Max number of watch events buffered for a slow client.
+     */
+    private int maxPendingEvents = 8192;
+
+    public void setClient(boolean client) {
+      this.client = client;
+    }
+
+    public boolean isClient() {
+      return client;
+    }
+
+    public void setHost(String host) {
+      this.host = host;
+    }
+
+    public String getHost() {
+      return host;
+    }
+
+    public void setPort(int port) {
+      this.port = port;
+    }
+
+    public int getPort() {
+      return port;
+    }
+
+    public void setMaxPendingEvents(int maxPendingEvents) {
+      this.maxPendingEvents = maxPendingEvents;
+    }
+
+    public int getMaxPendingEvents() {
+      return maxPendingEvents;
+    }
+  }
+
 }
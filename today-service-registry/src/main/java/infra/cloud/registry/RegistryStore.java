@@ -0,0 +1,495 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+import infra.lang.Assert;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+
+/**
+ * Persists the registered service definitions, so a restarted registry
+ * serves them before the providers come back.
+ * <p>
+ * Register and un-register operations are appended to a write-ahead log,
+ * periodically folded into a compacted snapshot written through a
+ * memory-mapped file. Each snapshot starts a new log generation, recovery
+ * loads the latest snapshot and replays the logs of its generation onward.
+ * Each definition is persisted with its replication version, so a recovered
+ * node still resolves conflicts with its peers.
+ * <p>
+ * The log is written to the page cache on each operation and forced to the
+ * disk every {@link #setSyncInterval sync interval}: a registry process crash
+ * loses nothing, a machine crash at most one interval of operations, which the
+ * heartbeats of the providers repair.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 23:40
+ */
+public class RegistryStore implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(RegistryStore.class);
+
+  public static final byte REGISTER = 1;
+
+  public static final byte UNREGISTER = 2;
+
+  private static final int SNAPSHOT_MAGIC = 0x52474953;
+
+  /** 2 adds the replication version to the records */
+  private static final int FORMAT_VERSION = 2;
+
+  /** magic, version, generation, count */
+  private static final int SNAPSHOT_HEADER = 4 + 4 + 8 + 4;
+
+  /** body length, crc */
+  private static final int RECORD_HEADER = 4 + 4;
+
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+  private static final String SNAPSHOT_SUFFIX = ".dat";
+
+  private static final String LOG_PREFIX = "wal-";
+
+  private static final String LOG_SUFFIX = ".log";
+
+  private final Path directory;
+
+  private Duration syncInterval = Duration.ofSeconds(1);
+
+  private Duration snapshotInterval = Duration.ofMinutes(1);
+
+  private Duration recoveryGrace = Duration.ofSeconds(30);
+
+  /** guarded by this */
+  @Nullable
+  private FileChannel logChannel;
+
+  /** guarded by this */
+  private long generation;
+
+  /** records of the current log generation, guarded by this */
+  private long appended;
+
+  /** guarded by this */
+  private boolean dirty;
+
+  public RegistryStore(Path directory) {
+    Assert.notNull(directory, "directory is required");
+    this.directory = directory;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Set the interval forcing the write-ahead log to the disk.
+   */
+  public void setSyncInterval(Duration syncInterval) {
+    Assert.isTrue(syncInterval != null && syncInterval.toMillis() > 0, "syncInterval must be positive");
+    this.syncInterval = syncInterval;
+  }
+
+  public Duration getSyncInterval() {
+    return syncInterval;
+  }
+
+  /**
+   * Set the interval of the compacted snapshots.
+   */
+  public void setSnapshotInterval(Duration snapshotInterval) {
+    Assert.isTrue(snapshotInterval != null && snapshotInterval.toMillis() > 0, "snapshotInterval must be positive");
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  public Duration getSnapshotInterval() {
+    return snapshotInterval;
+  }
+
+  /**
+   * Set the time added to the lease of the recovered instances, leaving
+   * the providers time to heartbeat the restarted registry.
+   */
+  public void setRecoveryGrace(Duration recoveryGrace) {
+    Assert.isTrue(recoveryGrace != null && !recoveryGrace.isNegative(), "recoveryGrace must not be negative");
+    this.recoveryGrace = recoveryGrace;
+  }
+
+  public Duration getRecoveryGrace() {
+    return recoveryGrace;
+  }
+
+  /**
+   * Rebuild the persisted definitions and open a new log generation,
+   * must be called before {@link #append}.
+   *
+   * @return the registered definitions with their replication version,
+   * in registration order
+   */
+  public synchronized Map<ServiceDefinition, Long> recover() throws IOException {
+    Files.createDirectories(directory);
+    deleteTemporaryFiles();
+
+    LinkedHashMap<ServiceDefinition, Long> state = new LinkedHashMap<>();
+    TreeMap<Long, Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    TreeMap<Long, Path> logs = list(LOG_PREFIX, LOG_SUFFIX);
+
+    long snapshotGeneration = 0;
+    if (!snapshots.isEmpty()) {
+      snapshotGeneration = snapshots.lastKey();
+      readSnapshot(snapshots.lastEntry().getValue(), snapshotGeneration, state);
+    }
+
+    long replayed = 0;
+    for (Map.Entry<Long, Path> entry : logs.tailMap(snapshotGeneration, true).entrySet()) {
+      replayed += replayLog(entry.getValue(), state);
+    }
+
+    long last = logs.isEmpty() ? snapshotGeneration : Math.max(snapshotGeneration, logs.lastKey());
+    openLog(last + 1);
+    // fold the replayed operations into the next snapshot
+    this.appended = replayed;
+    return state;
+  }
+
+  /**
+   * Append the given operation on the definitions to the log.
+   *
+   * @param operation {@link #REGISTER} or {@link #UNREGISTER}
+   * @param version replication version of the operation
+   */
+  public synchronized void append(byte operation, List<ServiceDefinition> definitions, long version) throws IOException {
+    Assert.isTrue(operation == REGISTER || operation == UNREGISTER, "Unknown operation");
+    FileChannel channel = this.logChannel;
+    Assert.state(channel != null, "RegistryStore is not recovered or closed");
+    if (definitions.isEmpty()) {
+      return;
+    }
+
+    ArrayList<byte[]> records = new ArrayList<>(definitions.size());
+    int size = 0;
+    for (ServiceDefinition definition : definitions) {
+      byte[] record = encode(operation, definition, version);
+      records.add(record);
+      size += record.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (byte[] record : records) {
+      buffer.put(record);
+    }
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    appended += records.size();
+    dirty = true;
+  }
+
+  /**
+   * Force the appended operations to the disk.
+   */
+  public synchronized void sync() throws IOException {
+    FileChannel channel = this.logChannel;
+    if (channel != null && dirty) {
+      channel.force(false);
+      dirty = false;
+    }
+  }
+
+  /**
+   * Start a new log generation for a snapshot, the caller captures the
+   * definitions before any further {@link #append} and passes them to
+   * {@link #writeSnapshot}.
+   *
+   * @return generation of the snapshot, {@code -1} nothing changed since the last one
+   */
+  public synchronized long rotate() throws IOException {
+    Assert.state(logChannel != null, "RegistryStore is not recovered or closed");
+    if (appended == 0) {
+      return -1;
+    }
+    openLog(generation + 1);
+    return generation;
+  }
+
+  /**
+   * Write the compacted snapshot of the given generation and delete the
+   * files it replaces.
+   *
+   * @param generation generation from {@link #rotate()}
+   * @param definitions all the registered definitions when rotated, with their replication version
+   */
+  public void writeSnapshot(long generation, Map<ServiceDefinition, Long> definitions) throws IOException {
+    ArrayList<byte[]> records = new ArrayList<>(definitions.size());
+    long size = SNAPSHOT_HEADER;
+    for (Map.Entry<ServiceDefinition, Long> entry : definitions.entrySet()) {
+      byte[] record = encode(REGISTER, entry.getKey(), entry.getValue());
+      records.add(record);
+      size += record.length;
+    }
+    Assert.state(size <= Integer.MAX_VALUE, "Registry snapshot too large");
+
+    Path target = directory.resolve(fileName(SNAPSHOT_PREFIX, generation, SNAPSHOT_SUFFIX));
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.putInt(SNAPSHOT_MAGIC)
+              .putInt(FORMAT_VERSION)
+              .putLong(generation)
+              .putInt(records.size());
+      for (byte[] record : records) {
+        buffer.put(record);
+      }
+      buffer.force();
+    }
+    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    syncDirectory();
+
+    // older generations are covered by this snapshot
+    for (Path path : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(generation).values()) {
+      Files.deleteIfExists(path);
+    }
+    for (Path path : list(LOG_PREFIX, LOG_SUFFIX).headMap(generation).values()) {
+      Files.deleteIfExists(path);
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Registry snapshot [{}] written, {} definitions, {} bytes", target, records.size(), size);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    FileChannel channel = this.logChannel;
+    if (channel != null) {
+      this.logChannel = null;
+      try {
+        channel.force(false);
+      }
+      finally {
+        channel.close();
+      }
+    }
+  }
+
+  /** guarded by this */
+  private void openLog(long generation) throws IOException {
+    Path path = directory.resolve(fileName(LOG_PREFIX, generation, LOG_SUFFIX));
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    FileChannel previous = this.logChannel;
+    this.logChannel = channel;
+    this.generation = generation;
+    this.appended = 0;
+    this.dirty = false;
+    if (previous != null) {
+      try {
+        previous.force(false);
+      }
+      finally {
+        previous.close();
+      }
+    }
+  }
+
+  private static void readSnapshot(Path path, long generation, Map<ServiceDefinition, Long> state) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < SNAPSHOT_HEADER
+              || buffer.getInt() != SNAPSHOT_MAGIC
+              || buffer.getInt() > FORMAT_VERSION
+              || buffer.getLong() != generation) {
+        throw new IOException("Invalid registry snapshot: " + path);
+      }
+      int count = buffer.getInt();
+      int read = replay(buffer, state);
+      if (read != count || buffer.hasRemaining()) {
+        throw new IOException("Corrupted registry snapshot: %s, %d of %d definitions readable"
+                .formatted(path, read, count));
+      }
+    }
+  }
+
+  /**
+   * @return number of the replayed records
+   */
+  private static int replayLog(Path path, Map<ServiceDefinition, Long> state) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      int replayed = replay(buffer, state);
+      if (buffer.hasRemaining()) {
+        // torn write of a crash, the operation never got acknowledged durably
+        log.warn("Truncating registry log [{}] at {}, {} trailing bytes unreadable",
+                path, buffer.position(), buffer.remaining());
+        channel.truncate(buffer.position());
+      }
+      return replayed;
+    }
+  }
+
+  /**
+   * Apply the records to the state, up to the first incomplete or corrupted one.
+   */
+  private static int replay(ByteBuffer buffer, Map<ServiceDefinition, Long> state) {
+    int records = 0;
+    CRC32C crc = new CRC32C();
+    while (buffer.remaining() >= RECORD_HEADER) {
+      int start = buffer.position();
+      int bodyLength = buffer.getInt(start);
+      if (bodyLength <= 0 || bodyLength > buffer.remaining() - RECORD_HEADER) {
+        break;
+      }
+      crc.reset();
+      crc.update(buffer.slice(start + RECORD_HEADER, bodyLength));
+      if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+        break;
+      }
+
+      buffer.position(start + RECORD_HEADER);
+      byte operation = buffer.get();
+      ServiceDefinition definition = new ServiceDefinition();
+      definition.setName(getString(buffer));
+      definition.setHost(getString(buffer));
+      definition.setPort(buffer.getInt());
+      definition.setVersion(getString(buffer));
+      // records of the first format have no replication version
+      long version = buffer.position() + Long.BYTES <= start + RECORD_HEADER + bodyLength ? buffer.getLong() : 0;
+      buffer.position(start + RECORD_HEADER + bodyLength);
+
+      if (operation == REGISTER) {
+        state.put(definition, version);
+      }
+      else {
+        state.remove(definition);
+      }
+      records++;
+    }
+    return records;
+  }
+
+  private static byte[] encode(byte operation, ServiceDefinition definition, long replicationVersion) {
+    byte[] name = getBytes(definition.getName());
+    byte[] host = getBytes(definition.getHost());
+    byte[] version = getBytes(definition.getVersion());
+    int bodyLength = 1 + sizeOf(name) + sizeOf(host) + 4 + sizeOf(version) + 8;
+
+    ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + bodyLength);
+    buffer.putInt(bodyLength)
+            .putInt(0)
+            .put(operation);
+    putString(buffer, name);
+    putString(buffer, host);
+    buffer.putInt(definition.getPort());
+    putString(buffer, version);
+    buffer.putLong(replicationVersion);
+
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.array(), RECORD_HEADER, bodyLength);
+    buffer.putInt(4, (int) crc.getValue());
+    return buffer.array();
+  }
+
+  @Nullable
+  private static byte[] getBytes(@Nullable String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int sizeOf(@Nullable byte[] value) {
+    return value == null ? 4 : 4 + value.length;
+  }
+
+  private static void putString(ByteBuffer buffer, @Nullable byte[] value) {
+    if (value == null) {
+      buffer.putInt(-1);
+    }
+    else {
+      buffer.putInt(value.length).put(value);
+    }
+  }
+
+  @Nullable
+  private static String getString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private TreeMap<Long, Path> list(String prefix, String suffix) throws IOException {
+    TreeMap<Long, Path> files = new TreeMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+      for (Path path : stream) {
+        String fileName = path.getFileName().toString();
+        try {
+          files.put(Long.parseLong(fileName.substring(prefix.length(), fileName.length() - suffix.length()), 16), path);
+        }
+        catch (NumberFormatException ignored) {
+          // not ours
+        }
+      }
+    }
+    return files;
+  }
+
+  private void deleteTemporaryFiles() throws IOException {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*.tmp")) {
+      for (Path path : stream) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  /**
+   * Persist the renames of the directory, not supported on every platform.
+   */
+  private void syncDirectory() {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    }
+    catch (IOException ignored) {
+    }
+  }
+
+  private static String fileName(String prefix, long generation, String suffix) {
+    return prefix + "%016x".formatted(generation) + suffix;
+  }
+
+}
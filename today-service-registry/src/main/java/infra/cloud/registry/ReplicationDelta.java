@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.util.List;
+
+/**
+ * Change replicated between the registry nodes, stamped with the version
+ * given by the node that accepted it. A node applies a delta only if it
+ * holds no newer version of the definitions.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 09:10
+ */
+public class ReplicationDelta {
+
+  private Action action;
+
+  private String instanceId;
+
+  private List<ServiceDefinition> definitions = List.of();
+
+  private long version;
+
+  public ReplicationDelta() { }
+
+  public ReplicationDelta(Action action, String instanceId, List<ServiceDefinition> definitions, long version) {
+    this.action = action;
+    this.instanceId = instanceId;
+    this.definitions = definitions;
+    this.version = version;
+  }
+
+  public void setAction(Action action) {
+    this.action = action;
+  }
+
+  public Action getAction() {
+    return action;
+  }
+
+  public void setInstanceId(String instanceId) {
+    this.instanceId = instanceId;
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  public void setDefinitions(List<ServiceDefinition> definitions) {
+    this.definitions = definitions;
+  }
+
+  public List<ServiceDefinition> getDefinitions() {
+    return definitions;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  @Override
+  public String toString() {
+    return action + " " + instanceId + " v" + version + " " + definitions;
+  }
+
+  public static ReplicationDelta heartbeat(String instanceId) {
+    return new ReplicationDelta(Action.HEARTBEAT, instanceId, List.of(), 0);
+  }
+
+  public enum Action {
+
+    REGISTER,
+
+    UNREGISTER,
+
+    /**
+     * Renews the lease, the receiving node answers the instances
+     * it does not know, the sender replicates their registration.
+     */
+    HEARTBEAT
+
+  }
+
+}
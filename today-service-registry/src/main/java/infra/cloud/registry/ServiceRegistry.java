@@ -40,4 +40,15 @@ public interface ServiceRegistry<R extends Registration> {
    */
   void unregister(R registration);
 
+  /**
+   * Renew the lease of the registration.
+   *
+   * @param registration registration meta data
+   * @return {@code false} if the registry does not hold the registration
+   * anymore, it has to be registered again
+   */
+  default boolean heartbeat(R registration) {
+    return true;
+  }
+
 }
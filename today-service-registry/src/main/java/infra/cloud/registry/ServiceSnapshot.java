@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.util.List;
+
+import infra.cloud.ServiceInstance;
+
+/**
+ * Immutable lookup result of a service, rebuilt when its instances change,
+ * holds the serialized response and its entity tag.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 23:05
+ */
+final class ServiceSnapshot {
+
+  final List<ServiceInstance> instances;
+
+  final byte[] json;
+
+  final String etag;
+
+  ServiceSnapshot(List<ServiceInstance> instances, byte[] json, String etag) {
+    this.instances = instances;
+    this.json = json;
+    this.etag = etag;
+  }
+
+  /**
+   * Whether the given {@code If-None-Match} header value matches this snapshot.
+   */
+  boolean matches(String ifNoneMatch) {
+    if (ifNoneMatch.equals("*")) {
+      return true;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
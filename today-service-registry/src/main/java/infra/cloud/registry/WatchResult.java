@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import java.util.List;
+
+/**
+ * Answer of a registry watch, the changes after the revision of the watcher.
+ * <p>
+ * If the registry can not tell the changes, because it restarted or its
+ * change log does not go back far enough, the result is a {@link #isReset() reset}:
+ * the changes hold all the registered definitions, the watcher has to
+ * drop its state.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/18 22:08
+ */
+public class WatchResult {
+
+  private long epoch;
+
+  private long revision;
+
+  private boolean reset;
+
+  private List<RegistryChange> changes = List.of();
+
+  public WatchResult() { }
+
+  public WatchResult(long epoch, long revision, boolean reset, List<RegistryChange> changes) {
+    this.epoch = epoch;
+    this.revision = revision;
+    this.reset = reset;
+    this.changes = changes;
+  }
+
+  /**
+   * Returns the id of the registry run, the revisions of different
+   * runs are not comparable.
+   */
+  public long getEpoch() {
+    return epoch;
+  }
+
+  public void setEpoch(long epoch) {
+    this.epoch = epoch;
+  }
+
+  /**
+   * Returns the revision of the registry, to watch from next time.
+   */
+  public long getRevision() {
+    return revision;
+  }
+
+  public void setRevision(long revision) {
+    this.revision = revision;
+  }
+
+  public boolean isReset() {
+    return reset;
+  }
+
+  public void setReset(boolean reset) {
+    this.reset = reset;
+  }
+
+  public List<RegistryChange> getChanges() {
+    return changes;
+  }
+
+  public void setChanges(List<RegistryChange> changes) {
+    this.changes = changes;
+  }
+
+  @Override
+  public String toString() {
+    return "WatchResult{epoch=%d, revision=%d, reset=%s, changes=%d}".formatted(epoch, revision, reset, changes.size());
+  }
+
+}
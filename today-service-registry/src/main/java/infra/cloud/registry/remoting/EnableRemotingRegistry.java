@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry.remoting;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import infra.cloud.registry.EnableHttpRegistry;
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.cloud.registry.RegistryProperties;
+import infra.context.annotation.Import;
+import infra.stereotype.Component;
+
+/**
+ * Serves the registry enabled by {@link EnableHttpRegistry} over the
+ * remoting protocol too.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 11:05
+ */
+@EnableHttpRegistry
+@Import(RemotingRegistryConfig.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface EnableRemotingRegistry {
+
+}
+
+final class RemotingRegistryConfig {
+
+  @Component
+  public RemotingRegistryServer remotingRegistryServer(RegistryProperties properties, HttpServiceRegistryEndpoint registry) {
+    RegistryProperties.Remoting remoting = properties.getRemoting();
+    RemotingRegistryServer server = new RemotingRegistryServer(remoting.getPort(), registry);
+    server.setMaxPendingEvents(remoting.getMaxPendingEvents());
+    return server;
+  }
+
+}
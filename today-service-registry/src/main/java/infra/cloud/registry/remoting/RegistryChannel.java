@@ -0,0 +1,217 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry.remoting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.cloud.registry.RegistryListener;
+import infra.cloud.registry.ServiceDefinition;
+import infra.cloud.registry.ServiceNotFoundException;
+import infra.lang.Assert;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+import infra.remoting.Channel;
+import infra.remoting.Payload;
+import infra.remoting.exceptions.InvalidException;
+import infra.remoting.exceptions.RejectedException;
+import infra.remoting.util.ByteBufPayload;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCounted;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Responder of a client connection, serves the {@link RegistryProtocol}
+ * from the registry endpoint.
+ * <p>
+ * Registrations, un-registrations and heartbeats lock the endpoint and may
+ * write to its store, they run on the given scheduler instead of the I/O
+ * thread. A single threaded scheduler keeps them in the order received.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 10:40
+ */
+public class RegistryChannel implements Channel {
+
+  private static final Logger log = LoggerFactory.getLogger(RegistryChannel.class);
+
+  private final HttpServiceRegistryEndpoint registry;
+
+  /** sends the requests of the registry to the client */
+  private final Channel client;
+
+  private final int maxPendingEvents;
+
+  private final Scheduler scheduler;
+
+  private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  /**
+   * @param registry registry state
+   * @param client requester of the client connection
+   * @param maxPendingEvents max number of watch events buffered for a slow client,
+   * its watch is terminated beyond, and resets on the next one
+   * @param scheduler runs the operations changing the registry
+   */
+  public RegistryChannel(HttpServiceRegistryEndpoint registry, Channel client, int maxPendingEvents, Scheduler scheduler) {
+    Assert.notNull(registry, "registry is required");
+    Assert.notNull(client, "client is required");
+    Assert.isTrue(maxPendingEvents > 0, "maxPendingEvents must be greater than 0");
+    Assert.notNull(scheduler, "Scheduler is required");
+    this.registry = registry;
+    this.client = client;
+    this.maxPendingEvents = maxPendingEvents;
+    this.scheduler = scheduler;
+  }
+
+  public void setAllocator(ByteBufAllocator allocator) {
+    Assert.notNull(allocator, "ByteBufAllocator is required");
+    this.allocator = allocator;
+  }
+
+  @Override
+  public Mono<Void> fireAndForget(Payload payload) {
+    try {
+      // decoded on the I/O thread, the payload is released here
+      ByteBuf data = payload.data();
+      Runnable operation;
+      switch (RegistryProtocol.operation(payload)) {
+        case RegistryProtocol.REGISTER -> {
+          HttpRegistration registration = new HttpRegistration(RegistryProtocol.readDefinitions(data));
+          operation = () -> registry.register(registration);
+        }
+        case RegistryProtocol.UNREGISTER -> {
+          HttpRegistration registration = new HttpRegistration(RegistryProtocol.readDefinitions(data));
+          operation = () -> registry.unregister(registration);
+        }
+        case RegistryProtocol.HEARTBEAT -> {
+          List<String> instanceIds = RegistryProtocol.readStrings(data);
+          operation = () -> heartbeat(instanceIds);
+        }
+        default -> {
+          return Mono.error(new InvalidException("Unsupported fire-and-forget operation"));
+        }
+      }
+      return Mono.fromRunnable(operation)
+              .subscribeOn(scheduler)
+              .then();
+    }
+    catch (RuntimeException e) {
+      return Mono.error(e);
+    }
+    finally {
+      payload.release();
+    }
+  }
+
+  @Override
+  public Mono<Payload> requestResponse(Payload payload) {
+    try {
+      ByteBuf data = allocator.buffer();
+      try {
+        switch (RegistryProtocol.operation(payload)) {
+          case RegistryProtocol.LOOKUP -> RegistryProtocol.writeInstances(data, lookup(RegistryProtocol.readString(payload.data())));
+          case RegistryProtocol.SERVICES -> RegistryProtocol.writeStrings(data, registry.services().keySet());
+          default -> {
+            data.release();
+            return Mono.error(new InvalidException("Unsupported request-response operation"));
+          }
+        }
+      }
+      catch (RuntimeException e) {
+        data.release();
+        throw e;
+      }
+      return Mono.just(ByteBufPayload.create(data));
+    }
+    catch (RuntimeException e) {
+      return Mono.error(e);
+    }
+    finally {
+      payload.release();
+    }
+  }
+
+  @Override
+  public Flux<Payload> requestStream(Payload payload) {
+    byte operation = RegistryProtocol.operation(payload);
+    payload.release();
+    if (operation != RegistryProtocol.WATCH) {
+      return Flux.error(new InvalidException("Unsupported request-stream operation"));
+    }
+
+    Sinks.Many<Payload> sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<Payload>get(maxPendingEvents).get());
+    RegistryListener listener = event -> emit(sink, RegistryProtocol.eventType(event.getType()), event.getDefinitions());
+    registry.addListener(listener, registered -> emit(sink, RegistryProtocol.RESET, registered));
+    return sink.asFlux()
+            .doFinally(signal -> registry.removeListener(listener))
+            .doOnDiscard(ReferenceCounted.class, ReferenceCounted::release);
+  }
+
+  private void heartbeat(List<String> instanceIds) {
+    ArrayList<String> unknown = new ArrayList<>();
+    for (String instanceId : instanceIds) {
+      try {
+        registry.heartbeat(instanceId);
+      }
+      catch (ServiceNotFoundException e) {
+        unknown.add(instanceId);
+      }
+    }
+    if (!unknown.isEmpty()) {
+      ByteBuf data = allocator.buffer();
+      RegistryProtocol.writeStrings(data, unknown);
+      client.fireAndForget(RegistryProtocol.request(allocator, RegistryProtocol.REREGISTER, data))
+              .subscribe(null, error -> log.warn("Cannot ask the client to register again: {}", unknown, error));
+    }
+  }
+
+  private List<ServiceInstance> lookup(String name) {
+    try {
+      return registry.getInstances(name);
+    }
+    catch (ServiceNotFoundException e) {
+      // an empty list, the client throws its own exception
+      return List.of();
+    }
+  }
+
+  private void emit(Sinks.Many<Payload> sink, byte type, Collection<ServiceDefinition> definitions) {
+    ByteBuf data = allocator.buffer();
+    RegistryProtocol.writeEvent(data, type, definitions);
+    Payload event = ByteBufPayload.create(data);
+    Sinks.EmitResult result = sink.tryEmitNext(event);
+    if (result.isFailure()) {
+      event.release();
+      if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+        // the client resets on its next watch
+        sink.tryEmitError(new RejectedException("Too many pending watch events"));
+      }
+    }
+  }
+
+}
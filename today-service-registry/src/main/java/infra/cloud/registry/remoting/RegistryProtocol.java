@@ -0,0 +1,209 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry.remoting;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import infra.cloud.DefaultServiceInstance;
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.RegistryEvent;
+import infra.cloud.registry.ServiceDefinition;
+import infra.lang.Nullable;
+import infra.remoting.Payload;
+import infra.remoting.util.ByteBufPayload;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * Binary registry protocol over the remoting channel.
+ * <p>
+ * The metadata of a request is its operation byte, the data its arguments:
+ * <ul>
+ * <li>{@link #REGISTER}, {@link #UNREGISTER}: fire-and-forget, definitions</li>
+ * <li>{@link #HEARTBEAT}: fire-and-forget, instance ids</li>
+ * <li>{@link #LOOKUP}: request-response, service name to instances</li>
+ * <li>{@link #SERVICES}: request-response, service names</li>
+ * <li>{@link #WATCH}: request-stream of events, starting with a {@link #RESET}
+ * holding all the definitions</li>
+ * <li>{@link #REREGISTER}: fire-and-forget from the registry to a client, the
+ * registry does not know the instance ids the client heartbeats</li>
+ * </ul>
+ * Strings are written as an int length and the UTF-8 bytes, {@code -1} for null,
+ * lists as an int count and the elements.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 10:20
+ */
+public abstract class RegistryProtocol {
+
+  public static final byte REGISTER = 1;
+
+  public static final byte UNREGISTER = 2;
+
+  public static final byte HEARTBEAT = 3;
+
+  public static final byte LOOKUP = 4;
+
+  public static final byte SERVICES = 5;
+
+  public static final byte WATCH = 6;
+
+  public static final byte REREGISTER = 7;
+
+  /** watch event replacing the whole view of the client */
+  public static final byte RESET = 0;
+
+  public static Payload request(ByteBufAllocator allocator, byte operation, ByteBuf data) {
+    return ByteBufPayload.create(data, allocator.buffer(1).writeByte(operation));
+  }
+
+  /**
+   * Read the operation of a request.
+   *
+   * @return the operation, {@code -1} if the metadata is missing
+   */
+  public static byte operation(Payload payload) {
+    ByteBuf metadata = payload.metadata();
+    return metadata.isReadable() ? metadata.getByte(metadata.readerIndex()) : -1;
+  }
+
+  public static void writeDefinitions(ByteBuf buffer, Collection<ServiceDefinition> definitions) {
+    buffer.writeInt(definitions.size());
+    for (ServiceDefinition definition : definitions) {
+      writeString(buffer, definition.getName());
+      writeString(buffer, definition.getHost());
+      buffer.writeInt(definition.getPort());
+      writeString(buffer, definition.getVersion());
+    }
+  }
+
+  public static List<ServiceDefinition> readDefinitions(ByteBuf buffer) {
+    int count = readCount(buffer);
+    ArrayList<ServiceDefinition> definitions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ServiceDefinition definition = new ServiceDefinition();
+      definition.setName(readString(buffer));
+      definition.setHost(readString(buffer));
+      definition.setPort(buffer.readInt());
+      definition.setVersion(readString(buffer));
+      definitions.add(definition);
+    }
+    return definitions;
+  }
+
+  public static void writeInstances(ByteBuf buffer, Collection<ServiceInstance> instances) {
+    buffer.writeInt(instances.size());
+    for (ServiceInstance instance : instances) {
+      writeString(buffer, instance.getInstanceId());
+      writeString(buffer, instance.getServiceId());
+      writeString(buffer, instance.getHost());
+      buffer.writeInt(instance.getPort());
+    }
+  }
+
+  public static List<ServiceInstance> readInstances(ByteBuf buffer) {
+    int count = readCount(buffer);
+    ArrayList<ServiceInstance> instances = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String instanceId = readString(buffer);
+      String serviceId = readString(buffer);
+      String host = readString(buffer);
+      instances.add(new DefaultServiceInstance(instanceId, serviceId, host, buffer.readInt()));
+    }
+    return instances;
+  }
+
+  public static void writeStrings(ByteBuf buffer, Collection<String> values) {
+    buffer.writeInt(values.size());
+    for (String value : values) {
+      writeString(buffer, value);
+    }
+  }
+
+  public static List<String> readStrings(ByteBuf buffer) {
+    int count = readCount(buffer);
+    ArrayList<String> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      values.add(readString(buffer));
+    }
+    return values;
+  }
+
+  /**
+   * Write a watch event, {@link #RESET} or the ordinal of the
+   * {@link RegistryEvent.Type} plus one.
+   */
+  public static void writeEvent(ByteBuf buffer, byte type, Collection<ServiceDefinition> definitions) {
+    buffer.writeByte(type);
+    writeDefinitions(buffer, definitions);
+  }
+
+  public static byte eventType(RegistryEvent.Type type) {
+    return (byte) (type.ordinal() + 1);
+  }
+
+  /**
+   * @return the type of the event, {@code null} for a {@link #RESET}
+   */
+  @Nullable
+  public static RegistryEvent.Type readEventType(ByteBuf buffer) {
+    byte type = buffer.readByte();
+    if (type == RESET) {
+      return null;
+    }
+    RegistryEvent.Type[] types = RegistryEvent.Type.values();
+    if (type < 0 || type > types.length) {
+      throw new IllegalArgumentException("Unknown registry event type: " + type);
+    }
+    return types[type - 1];
+  }
+
+  public static void writeString(ByteBuf buffer, @Nullable String value) {
+    if (value == null) {
+      buffer.writeInt(-1);
+    }
+    else {
+      int lengthIndex = buffer.writerIndex();
+      buffer.writeInt(0);
+      int length = buffer.writeCharSequence(value, StandardCharsets.UTF_8);
+      buffer.setInt(lengthIndex, length);
+    }
+  }
+
+  @Nullable
+  public static String readString(ByteBuf buffer) {
+    int length = buffer.readInt();
+    if (length < 0) {
+      return null;
+    }
+    return buffer.readCharSequence(length, StandardCharsets.UTF_8).toString();
+  }
+
+  private static int readCount(ByteBuf buffer) {
+    int count = buffer.readInt();
+    // every element takes at least 4 bytes, guards against a corrupted count
+    if (count < 0 || count > buffer.readableBytes() / 4) {
+      throw new IllegalArgumentException("Invalid element count: " + count);
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry.remoting;
+
+import java.time.Duration;
+
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.context.SmartLifecycle;
+import infra.lang.Nullable;
+import infra.logging.Logger;
+import infra.logging.LoggerFactory;
+import infra.remoting.core.RemotingServer;
+import infra.remoting.frame.decoder.PayloadDecoder;
+import infra.remoting.transport.netty.server.CloseableChannel;
+import infra.remoting.transport.netty.server.TcpServerTransport;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Serves the registry over the remoting protocol on a TCP port, each client
+ * connection gets its own {@link RegistryChannel}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 11:00
+ */
+public class RemotingRegistryServer implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(RemotingRegistryServer.class);
+
+  private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+  private final int port;
+
+  private final HttpServiceRegistryEndpoint registry;
+
+  private int maxPendingEvents = 8192;
+
+  @Nullable
+  private volatile CloseableChannel server;
+
+  @Nullable
+  private Scheduler scheduler;
+
+  public RemotingRegistryServer(int port, HttpServiceRegistryEndpoint registry) {
+    this.port = port;
+    this.registry = registry;
+  }
+
+  /**
+   * Set the max number of watch events buffered for a slow client.
+   */
+  public void setMaxPendingEvents(int maxPendingEvents) {
+    this.maxPendingEvents = maxPendingEvents;
+  }
+
+  @Override
+  public void start() {
+    if (server == null) {
+      // the registry changes are serialized by the endpoint anyway
+      Scheduler scheduler = Schedulers.newSingle("remoting-registry", true);
+      this.scheduler = scheduler;
+      CloseableChannel server = RemotingServer.create((setup, client) ->
+                      Mono.just(new RegistryChannel(registry, client, maxPendingEvents, scheduler)))
+              .payloadDecoder(PayloadDecoder.ZERO_COPY)
+              .bindNow(TcpServerTransport.create(port));
+      log.info("Remoting registry server started on: [{}]", server.address());
+      this.server = server;
+    }
+  }
+
+  @Override
+  public void stop() {
+    CloseableChannel server = this.server;
+    if (server != null) {
+      this.server = null;
+      log.info("Stopping remoting registry server: [{}]", server.address());
+      server.dispose();
+      server.onClose().block(CLOSE_TIMEOUT);
+    }
+    Scheduler scheduler = this.scheduler;
+    if (scheduler != null) {
+      this.scheduler = null;
+      scheduler.dispose();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    CloseableChannel server = this.server;
+    return server != null && !server.isDisposed();
+  }
+
+}
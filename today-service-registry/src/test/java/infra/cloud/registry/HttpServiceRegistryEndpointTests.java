@@ -0,0 +1,205 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import infra.http.HttpStatus;
+import infra.http.ResponseEntity;
+import infra.web.annotation.ResponseStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Lease expiry and renewal of the {@link HttpServiceRegistryEndpoint},
+ * with a short lease TTL.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 23:05
+ */
+class HttpServiceRegistryEndpointTests {
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  private static final Duration TTL = Duration.ofMillis(300);
+
+  private final HttpServiceRegistryEndpoint endpoint = new HttpServiceRegistryEndpoint(TTL, new ObjectMapper());
+
+  private final CopyOnWriteArrayList<RegistryEvent> events = new CopyOnWriteArrayList<>();
+
+  @AfterEach
+  void destroy() throws InterruptedException {
+    endpoint.destroy();
+  }
+
+  @Test
+  void instanceEvictedWithoutHeartbeat() {
+    endpoint.addListener(events::add);
+    HttpRegistration registration = registration("10.0.1.1");
+    endpoint.register(registration);
+    assertThat(endpoint.getInstances(SERVICE)).hasSize(1);
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> instances().isEmpty());
+    assertThatExceptionOfType(ServiceNotFoundException.class)
+            .isThrownBy(() -> endpoint.lookup(SERVICE, null));
+    assertThat(endpoint.services()).isEmpty();
+
+    assertThat(events).extracting(RegistryEvent::getType)
+            .containsExactly(RegistryEvent.Type.REGISTERED, RegistryEvent.Type.EVICTED);
+    assertThat(events.get(1).getDefinitions()).isEqualTo(registration.getServiceDefinitions());
+  }
+
+  @Test
+  void heartbeatsRenewLease() throws InterruptedException {
+    endpoint.addListener(events::add);
+    HttpRegistration registration = registration("10.0.1.2");
+    endpoint.register(registration);
+
+    // several times the TTL
+    for (int i = 0; i < 12; i++) {
+      Thread.sleep(TTL.toMillis() / 3);
+      endpoint.heartbeat(instanceId(registration));
+    }
+    assertThat(instances()).hasSize(1);
+    assertThat(events).extracting(RegistryEvent::getType)
+            .containsExactly(RegistryEvent.Type.REGISTERED);
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> instances().isEmpty());
+  }
+
+  @Test
+  void heartbeatAfterEvictionNotFound() {
+    HttpRegistration registration = registration("10.0.1.3");
+    endpoint.register(registration);
+    await().atMost(Duration.ofSeconds(5)).until(() -> instances().isEmpty());
+
+    assertThatExceptionOfType(ServiceNotFoundException.class)
+            .isThrownBy(() -> endpoint.heartbeat(instanceId(registration)));
+
+    // the instance registers again
+    endpoint.register(registration);
+    endpoint.heartbeat(instanceId(registration));
+    assertThat(instances()).hasSize(1);
+  }
+
+  @Test
+  void heartbeatOfUnknownInstanceNotFound() {
+    assertThatExceptionOfType(ServiceNotFoundException.class)
+            .isThrownBy(() -> endpoint.heartbeat("10.0.1.4:9001"));
+  }
+
+  @Test
+  void heartbeatAfterUnregisterNotFound() {
+    HttpRegistration registration = registration("10.0.1.5");
+    endpoint.register(registration);
+    endpoint.unregister(registration);
+
+    assertThatExceptionOfType(ServiceNotFoundException.class)
+            .isThrownBy(() -> endpoint.heartbeat(instanceId(registration)));
+  }
+
+  @Test
+  void lookupRevalidatedWithEntityTag() {
+    endpoint.register(registration("10.0.1.6"));
+    ResponseEntity<byte[]> first = endpoint.lookup(SERVICE, null);
+    assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+    String etag = first.getHeaders().getETag();
+    assertThat(etag).isNotNull();
+
+    ResponseEntity<byte[]> notModified = endpoint.lookup(SERVICE, etag);
+    assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    assertThat(notModified.getHeaders().getETag()).isEqualTo(etag);
+    assertThat(notModified.getBody()).isNull();
+    assertThat(endpoint.lookup(SERVICE, "\"other\", W/" + etag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    assertThat(endpoint.lookup(SERVICE, "*").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+    // the registration of a service does not change the others
+    endpoint.register(registration(SERVICE + "2", "10.0.1.6"));
+    assertThat(endpoint.lookup(SERVICE, etag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+  }
+
+  @Test
+  void entityTagChangesOnRegisterAndEvict() {
+    HttpRegistration kept = registration("10.0.1.7");
+    endpoint.register(kept);
+    String etag = endpoint.lookup(SERVICE, null).getHeaders().getETag();
+
+    endpoint.register(registration("10.0.1.8"));
+    ResponseEntity<byte[]> registered = endpoint.lookup(SERVICE, etag);
+    assertThat(registered.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(registered.getHeaders().getETag()).isNotEqualTo(etag);
+    etag = registered.getHeaders().getETag();
+
+    // only the instance sending heartbeats stays
+    await().atMost(Duration.ofSeconds(5)).pollInterval(Duration.ofMillis(50)).until(() -> {
+      endpoint.heartbeat(instanceId(kept));
+      return instances().size() == 1;
+    });
+    ResponseEntity<byte[]> evicted = endpoint.lookup(SERVICE, etag);
+    assertThat(evicted.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(evicted.getHeaders().getETag()).isNotEqualTo(etag);
+    assertThat(new String(evicted.getBody(), StandardCharsets.UTF_8))
+            .contains("10.0.1.7")
+            .doesNotContain("10.0.1.8");
+  }
+
+  @Test
+  void serviceNotFoundMappedToNotFoundStatus() throws NoSuchMethodException {
+    ResponseStatus status = HttpServiceRegistryEndpoint.class
+            .getDeclaredMethod("handleServiceNotFound", ServiceNotFoundException.class)
+            .getAnnotation(ResponseStatus.class);
+    assertThat(status.value()).isEqualTo(HttpStatus.NOT_FOUND);
+  }
+
+  private List<?> instances() {
+    try {
+      return endpoint.getInstances(SERVICE);
+    }
+    catch (ServiceNotFoundException e) {
+      return List.of();
+    }
+  }
+
+  private static String instanceId(HttpRegistration registration) {
+    return HttpRegistration.instanceId(registration.getServiceDefinitions().get(0));
+  }
+
+  private static HttpRegistration registration(String host) {
+    return registration(SERVICE, host);
+  }
+
+  private static HttpRegistration registration(String service, String host) {
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName(service);
+    definition.setHost(host);
+    definition.setPort(9001);
+    definition.setVersion("1.0");
+    return new HttpRegistration(List.of(definition));
+  }
+
+}
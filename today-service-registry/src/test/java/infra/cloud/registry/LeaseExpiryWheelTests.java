@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 23:20
+ */
+class LeaseExpiryWheelTests {
+
+  private final LeaseExpiryWheel wheel = new LeaseExpiryWheel(10, 8, 0);
+
+  @Test
+  void expiredAtDeadlineTick() {
+    InstanceLease lease = new InstanceLease("10.0.0.1:9001", 35);
+    wheel.schedule(lease);
+
+    assertThat(wheel.advance(30)).isEmpty();
+    assertThat(wheel.advance(40)).containsExactly(lease);
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void renewedLeaseMovesToNewDeadline() {
+    InstanceLease lease = new InstanceLease("10.0.0.1:9001", 20);
+    wheel.schedule(lease);
+    assertThat(lease.renew(60)).isTrue();
+
+    assertThat(wheel.advance(20)).isEmpty();
+    assertThat(wheel.size()).isOne();
+    assertThat(wheel.advance(50)).isEmpty();
+    assertThat(wheel.advance(60)).containsExactly(lease);
+  }
+
+  @Test
+  void deadlineBeyondWheelSpan() {
+    InstanceLease lease = new InstanceLease("10.0.0.1:9001", 200);
+    wheel.schedule(lease);
+
+    // the bucket comes up several times before the deadline
+    assertThat(wheel.advance(150)).isEmpty();
+    assertThat(wheel.size()).isOne();
+    assertThat(wheel.advance(200)).containsExactly(lease);
+  }
+
+  @Test
+  void removedLeaseDropped() {
+    InstanceLease lease = new InstanceLease("10.0.0.1:9001", 20);
+    wheel.schedule(lease);
+    lease.remove();
+
+    assertThat(wheel.advance(100)).isEmpty();
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void expiredLeaseCannotBeRenewed() {
+    InstanceLease lease = new InstanceLease("10.0.0.1:9001", 20);
+    assertThat(lease.expire(10)).isFalse();
+    assertThat(lease.expire(20)).isTrue();
+    assertThat(lease.renew(100)).isFalse();
+    assertThat(lease.removed).isTrue();
+    assertThat(lease.expire(200)).isFalse();
+  }
+
+  @Test
+  void renewedLeaseNotExpired() {
+    InstanceLease lease = new InstanceLease("10.0.0.1:9001", 20);
+    assertThat(lease.renew(100)).isTrue();
+    assertThat(lease.expire(50)).isFalse();
+    assertThat(lease.removed).isFalse();
+  }
+
+}
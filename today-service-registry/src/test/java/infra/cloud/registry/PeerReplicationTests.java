@@ -0,0 +1,176 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import infra.cloud.ServiceInstance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Registry nodes of a cluster in one JVM, replicating to each other
+ * through an in-memory {@link PeerTransport}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 14:10
+ */
+class PeerReplicationTests {
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  private static final Duration LONG_TTL = Duration.ofSeconds(30);
+
+  private final Map<String, HttpServiceRegistryEndpoint> nodes = new LinkedHashMap<>();
+
+  private final PeerTransport transport = (peer, deltas) -> nodes.get(peer).replicate(deltas);
+
+  @AfterEach
+  void destroy() throws InterruptedException {
+    for (HttpServiceRegistryEndpoint node : nodes.values()) {
+      node.destroy();
+    }
+  }
+
+  @Test
+  void registrationsPropagate() {
+    HttpServiceRegistryEndpoint a = node("a", LONG_TTL);
+    HttpServiceRegistryEndpoint b = node("b", LONG_TTL);
+    HttpServiceRegistryEndpoint c = node("c", LONG_TTL);
+    connect();
+
+    HttpRegistration registration = registration("10.0.0.1");
+    a.register(registration);
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+      assertThat(instances(b)).extracting(ServiceInstance::getHost).containsExactly("10.0.0.1");
+      assertThat(instances(c)).extracting(ServiceInstance::getHost).containsExactly("10.0.0.1");
+    });
+
+    // a change accepted by another node
+    b.unregister(registration);
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+      assertThat(instances(a)).isEmpty();
+      assertThat(instances(c)).isEmpty();
+    });
+  }
+
+  @Test
+  void evictionPropagates() {
+    // only the node accepting the registration expires it on its own
+    HttpServiceRegistryEndpoint a = node("a", Duration.ofMillis(300));
+    HttpServiceRegistryEndpoint b = node("b", LONG_TTL);
+    connect();
+
+    a.register(registration("10.0.0.2"));
+    await().atMost(Duration.ofSeconds(5)).until(() -> !instances(b).isEmpty());
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+      assertThat(instances(a)).isEmpty();
+      assertThat(instances(b)).isEmpty();
+    });
+  }
+
+  @Test
+  void staleDeltaLosesToNewerChange() {
+    HttpServiceRegistryEndpoint a = node("a", LONG_TTL);
+    HttpServiceRegistryEndpoint b = node("b", LONG_TTL);
+    connect();
+
+    HttpRegistration registration = registration("10.0.0.3");
+    String instanceId = HttpRegistration.instanceId(registration.getServiceDefinitions().get(0));
+    a.register(registration);
+    await().atMost(Duration.ofSeconds(5)).until(() -> !instances(b).isEmpty());
+
+    // an un-registration delayed from before the registration
+    b.replicate(List.of(new ReplicationDelta(ReplicationDelta.Action.UNREGISTER,
+            instanceId, registration.getServiceDefinitions(), 1)));
+    assertThat(instances(b)).hasSize(1);
+
+    a.unregister(registration);
+    await().atMost(Duration.ofSeconds(5)).until(() -> instances(b).isEmpty());
+
+    // a registration delayed from before the un-registration
+    b.replicate(List.of(new ReplicationDelta(ReplicationDelta.Action.REGISTER,
+            instanceId, registration.getServiceDefinitions(), 1)));
+    assertThat(instances(b)).isEmpty();
+  }
+
+  @Test
+  void heartbeatOfUnknownInstanceRegistersItOnPeer() {
+    HttpServiceRegistryEndpoint a = node("a", LONG_TTL);
+    HttpServiceRegistryEndpoint b = node("b", LONG_TTL);
+
+    // registered before the nodes are connected
+    HttpRegistration registration = registration("10.0.0.4");
+    a.register(registration);
+    connect();
+    assertThat(instances(b)).isEmpty();
+
+    a.heartbeat(HttpRegistration.instanceId(registration.getServiceDefinitions().get(0)));
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+            assertThat(instances(b)).extracting(ServiceInstance::getHost).containsExactly("10.0.0.4"));
+  }
+
+  private HttpServiceRegistryEndpoint node(String name, Duration leaseTtl) {
+    HttpServiceRegistryEndpoint node = new HttpServiceRegistryEndpoint(leaseTtl, new ObjectMapper());
+    nodes.put(name, node);
+    return node;
+  }
+
+  /**
+   * Replicate each node to all the others.
+   */
+  private void connect() {
+    for (Map.Entry<String, HttpServiceRegistryEndpoint> entry : nodes.entrySet()) {
+      ArrayList<String> peers = new ArrayList<>(nodes.keySet());
+      peers.remove(entry.getKey());
+      PeerReplicator replicator = new PeerReplicator(peers, transport);
+      replicator.setInterval(Duration.ofMillis(10));
+      entry.getValue().setReplicator(replicator);
+    }
+  }
+
+  private static List<ServiceInstance> instances(HttpServiceRegistryEndpoint node) {
+    try {
+      return node.getInstances(SERVICE);
+    }
+    catch (ServiceNotFoundException e) {
+      return List.of();
+    }
+  }
+
+  private static HttpRegistration registration(String host) {
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName(SERVICE);
+    definition.setHost(host);
+    definition.setPort(9001);
+    definition.setVersion("1.0");
+    return new HttpRegistration(List.of(definition));
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Watching the changes of the {@link HttpServiceRegistryEndpoint} through
+ * its {@link RegistryChangeLog}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 23:40
+ */
+class RegistryChangeLogTests {
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+  private final HttpServiceRegistryEndpoint endpoint = new HttpServiceRegistryEndpoint(Duration.ofSeconds(30), new ObjectMapper());
+
+  @AfterEach
+  void destroy() throws InterruptedException {
+    endpoint.destroy();
+  }
+
+  @Test
+  void firstWatchResets() {
+    HttpRegistration registration = registration(SERVICE, "10.0.2.1");
+    endpoint.register(registration);
+
+    WatchResult result = watch(0, 0);
+    assertThat(result.isReset()).isTrue();
+    assertThat(result.getEpoch()).isEqualTo(endpoint.getChangeLog().getEpoch());
+    assertThat(result.getRevision()).isEqualTo(1);
+    assertThat(result.getChanges()).extracting(RegistryChange::getDefinition)
+            .containsExactlyElementsOf(registration.getServiceDefinitions());
+  }
+
+  @Test
+  void watchResumesFromRevision() {
+    endpoint.register(registration(SERVICE, "10.0.2.1"));
+    WatchResult first = watch(0, 0);
+
+    HttpRegistration second = registration(SERVICE, "10.0.2.2");
+    endpoint.register(second);
+    endpoint.unregister(second);
+
+    WatchResult result = watch(first.getEpoch(), first.getRevision());
+    assertThat(result.isReset()).isFalse();
+    assertThat(result.getRevision()).isEqualTo(first.getRevision() + 2);
+    assertThat(result.getChanges()).extracting(RegistryChange::getType)
+            .containsExactly(RegistryEvent.Type.REGISTERED, RegistryEvent.Type.UNREGISTERED);
+    assertThat(result.getChanges()).extracting(RegistryChange::getRevision)
+            .containsExactly(first.getRevision() + 1, first.getRevision() + 2);
+
+    // from the middle
+    WatchResult rest = watch(first.getEpoch(), first.getRevision() + 1);
+    assertThat(rest.getChanges()).extracting(RegistryChange::getType)
+            .containsExactly(RegistryEvent.Type.UNREGISTERED);
+  }
+
+  @Test
+  void upToDateWatcherParkedUntilChange() throws Exception {
+    WatchResult first = watch(0, 0);
+    CompletableFuture<WatchResult> parked = endpoint.watch(first.getEpoch(), first.getRevision(), TIMEOUT.toMillis());
+    assertThat(parked).isNotDone();
+
+    HttpRegistration registration = registration(SERVICE, "10.0.2.3");
+    endpoint.register(registration);
+
+    WatchResult result = parked.get(5, TimeUnit.SECONDS);
+    assertThat(result.isReset()).isFalse();
+    assertThat(result.getRevision()).isEqualTo(first.getRevision() + 1);
+    assertThat(result.getChanges()).extracting(RegistryChange::getDefinition)
+            .containsExactlyElementsOf(registration.getServiceDefinitions());
+  }
+
+  @Test
+  void parkedWatcherTimesOutWithoutChange() {
+    WatchResult first = watch(0, 0);
+    WatchResult result = endpoint.watch(first.getEpoch(), first.getRevision(), 50).join();
+
+    assertThat(result.isReset()).isFalse();
+    assertThat(result.getRevision()).isEqualTo(first.getRevision());
+    assertThat(result.getChanges()).isEmpty();
+  }
+
+  @Test
+  void unknownEpochResets() {
+    endpoint.register(registration(SERVICE, "10.0.2.4"));
+    WatchResult first = watch(0, 0);
+
+    // the revision of a previous run of the registry
+    WatchResult result = watch(first.getEpoch() + 1, first.getRevision());
+    assertThat(result.isReset()).isTrue();
+    assertThat(result.getChanges()).hasSize(1);
+
+    // a revision the registry has not reached
+    assertThat(watch(first.getEpoch(), first.getRevision() + 10).isReset()).isTrue();
+  }
+
+  @Test
+  void truncatedLogResets() {
+    endpoint.register(registration(SERVICE, "10.0.2.5"));
+    WatchResult first = watch(0, 0);
+
+    // more changes than the log keeps
+    ArrayList<ServiceDefinition> definitions = new ArrayList<>();
+    for (int i = 0; i < 8200; i++) {
+      definitions.add(registration(SERVICE + i, "10.0.3.1").getServiceDefinitions().get(0));
+    }
+    endpoint.register(new HttpRegistration(definitions));
+
+    WatchResult result = watch(first.getEpoch(), first.getRevision());
+    assertThat(result.isReset()).isTrue();
+    assertThat(result.getRevision()).isEqualTo(first.getRevision() + 8200);
+    assertThat(result.getChanges()).hasSize(8201)
+            .allSatisfy(change -> assertThat(change.getType()).isEqualTo(RegistryEvent.Type.REGISTERED));
+
+    // the recent changes are still in the log
+    WatchResult recent = watch(result.getEpoch(), result.getRevision() - 100);
+    assertThat(recent.isReset()).isFalse();
+    assertThat(recent.getChanges()).hasSize(100);
+  }
+
+  private WatchResult watch(long epoch, long revision) {
+    CompletableFuture<WatchResult> future = endpoint.watch(epoch, revision, TIMEOUT.toMillis());
+    assertThat(future).isDone();
+    return future.join();
+  }
+
+  static HttpRegistration registration(String service, String host) {
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName(service);
+    definition.setHost(host);
+    definition.setPort(9001);
+    definition.setVersion("1.0");
+    return new HttpRegistration(List.of(definition));
+  }
+
+}
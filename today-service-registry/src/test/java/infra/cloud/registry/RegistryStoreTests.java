@@ -0,0 +1,252 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import infra.cloud.ServiceInstance;
+import infra.lang.Nullable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/20 01:10
+ */
+class RegistryStoreTests {
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void operationsReplayedFromLog() throws IOException {
+    RegistryStore store = new RegistryStore(directory);
+    assertThat(store.recover()).isEmpty();
+    store.append(RegistryStore.REGISTER, List.of(definition("10.0.6.1"), definition("10.0.6.2")), 10);
+    store.append(RegistryStore.UNREGISTER, List.of(definition("10.0.6.1")), 11);
+    store.append(RegistryStore.REGISTER, List.of(definition("10.0.6.2")), 12);
+    store.close();
+
+    assertThat(recover()).containsExactly(Map.entry(definition("10.0.6.2"), 12L));
+  }
+
+  @Test
+  void tornTailTruncated() throws IOException {
+    RegistryStore store = new RegistryStore(directory);
+    store.recover();
+    store.append(RegistryStore.REGISTER, List.of(definition("10.0.6.1")), 10);
+    store.close();
+
+    Path log = files("wal-").get(0);
+    long size = Files.size(log);
+    // a record cut by a crash
+    byte[] record = record(RegistryStore.REGISTER, definition("10.0.6.2"), 11L);
+    Files.write(log, Arrays.copyOf(record, record.length - 3), StandardOpenOption.APPEND);
+
+    assertThat(recover()).containsOnlyKeys(definition("10.0.6.1"));
+    assertThat(Files.size(log)).isEqualTo(size);
+  }
+
+  @Test
+  void corruptedRecordTruncated() throws IOException {
+    RegistryStore store = new RegistryStore(directory);
+    store.recover();
+    store.append(RegistryStore.REGISTER, List.of(definition("10.0.6.1")), 10);
+    store.close();
+
+    Path log = files("wal-").get(0);
+    long size = Files.size(log);
+    byte[] record = record(RegistryStore.REGISTER, definition("10.0.6.2"), 11L);
+    record[record.length - 1] ^= 1;
+    Files.write(log, record, StandardOpenOption.APPEND);
+
+    assertThat(recover()).containsOnlyKeys(definition("10.0.6.1"));
+    assertThat(Files.size(log)).isEqualTo(size);
+  }
+
+  @Test
+  void firstFormatRecordsReadAsVersionZero() throws IOException {
+    Files.write(directory.resolve("wal-0000000000000001.log"), record(RegistryStore.REGISTER, definition("10.0.6.1"), null));
+
+    assertThat(recover()).containsExactly(Map.entry(definition("10.0.6.1"), 0L));
+  }
+
+  @Test
+  void snapshotReplacesOlderGenerations() throws IOException {
+    RegistryStore store = new RegistryStore(directory);
+    store.recover();
+    // nothing to compact
+    assertThat(store.rotate()).isEqualTo(-1);
+
+    store.append(RegistryStore.REGISTER, List.of(definition("10.0.6.1")), 10);
+    long generation = store.rotate();
+    assertThat(generation).isEqualTo(2);
+    store.writeSnapshot(generation, Map.of(definition("10.0.6.1"), 10L));
+    assertThat(files("snapshot-")).extracting(Path::getFileName).extracting(Path::toString)
+            .containsExactly("snapshot-0000000000000002.dat");
+    assertThat(files("wal-")).extracting(Path::getFileName).extracting(Path::toString)
+            .containsExactly("wal-0000000000000002.log");
+
+    // appended after the rotation, replayed over the snapshot
+    store.append(RegistryStore.REGISTER, List.of(definition("10.0.6.2")), 11);
+    generation = store.rotate();
+    assertThat(generation).isEqualTo(3);
+    // the log of generation 3 stays: appends after the rotation go there
+    store.append(RegistryStore.UNREGISTER, List.of(definition("10.0.6.1")), 12);
+    store.writeSnapshot(generation, Map.of(definition("10.0.6.1"), 10L, definition("10.0.6.2"), 11L));
+    store.close();
+
+    assertThat(files("snapshot-")).extracting(Path::getFileName).extracting(Path::toString)
+            .containsExactly("snapshot-0000000000000003.dat");
+    assertThat(files("wal-")).extracting(Path::getFileName).extracting(Path::toString)
+            .containsExactly("wal-0000000000000003.log");
+    assertThat(recover()).containsExactly(Map.entry(definition("10.0.6.2"), 11L));
+  }
+
+  @Test
+  void endpointRestartRestoresRegistrations() throws InterruptedException {
+    HttpServiceRegistryEndpoint endpoint = endpoint();
+    HttpRegistration kept = registration("10.0.6.1");
+    HttpRegistration removed = registration("10.0.6.2");
+    endpoint.register(kept);
+    endpoint.register(removed);
+    endpoint.unregister(removed);
+    long version = version(endpoint, kept);
+    endpoint.destroy();
+
+    HttpServiceRegistryEndpoint restarted = endpoint();
+    try {
+      assertThat(restarted.getInstances(SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.6.1");
+      // conflicts with the peers are resolved against the persisted version
+      assertThat(version(restarted, kept)).isEqualTo(version);
+    }
+    finally {
+      restarted.destroy();
+    }
+  }
+
+  @Test
+  void versionOfRegistrationAgainPersisted() throws IOException, InterruptedException {
+    HttpServiceRegistryEndpoint endpoint = endpoint();
+    HttpRegistration registration = registration("10.0.6.1");
+    endpoint.register(registration);
+    long first = version(endpoint, registration);
+    // the instance registers again, after a heartbeat not found on another node
+    endpoint.register(registration);
+    long second = version(endpoint, registration);
+    assertThat(second).isGreaterThan(first);
+
+    // the log as a crash leaves it, without the compaction on destroy
+    endpoint.syncStore();
+    Path copy = Files.createDirectory(directory.resolve("copy"));
+    for (Path file : files("wal-")) {
+      Files.copy(file, copy.resolve(file.getFileName()));
+    }
+    endpoint.destroy();
+
+    RegistryStore store = new RegistryStore(copy);
+    assertThat(store.recover()).containsExactly(Map.entry(registration.getServiceDefinitions().get(0), second));
+    store.close();
+  }
+
+  private HttpServiceRegistryEndpoint endpoint() {
+    return new HttpServiceRegistryEndpoint(Duration.ofSeconds(30), new ObjectMapper(), new RegistryStore(directory));
+  }
+
+  private static long version(HttpServiceRegistryEndpoint endpoint, HttpRegistration registration) {
+    List<ReplicationDelta> deltas = endpoint.registrationOf(HttpRegistration.instanceId(registration.getServiceDefinitions().get(0)));
+    assertThat(deltas).hasSize(1);
+    return deltas.get(0).getVersion();
+  }
+
+  private Map<ServiceDefinition, Long> recover() throws IOException {
+    RegistryStore store = new RegistryStore(directory);
+    try {
+      return new LinkedHashMap<>(store.recover());
+    }
+    finally {
+      store.close();
+    }
+  }
+
+  private List<Path> files(String prefix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+    }
+  }
+
+  /**
+   * Encode a log record, without replication version as the first format does
+   * if {@code null}.
+   */
+  private static byte[] record(byte operation, ServiceDefinition definition, @Nullable Long replicationVersion) {
+    byte[] name = definition.getName().getBytes(StandardCharsets.UTF_8);
+    byte[] host = definition.getHost().getBytes(StandardCharsets.UTF_8);
+    byte[] version = definition.getVersion().getBytes(StandardCharsets.UTF_8);
+    int bodyLength = 1 + 4 + name.length + 4 + host.length + 4 + 4 + version.length
+            + (replicationVersion != null ? 8 : 0);
+    ByteBuffer buffer = ByteBuffer.allocate(8 + bodyLength);
+    buffer.putInt(bodyLength)
+            .putInt(0)
+            .put(operation)
+            .putInt(name.length).put(name)
+            .putInt(host.length).put(host)
+            .putInt(definition.getPort())
+            .putInt(version.length).put(version);
+    if (replicationVersion != null) {
+      buffer.putLong(replicationVersion);
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.array(), 8, bodyLength);
+    buffer.putInt(4, (int) crc.getValue());
+    return buffer.array();
+  }
+
+  private static HttpRegistration registration(String host) {
+    return new HttpRegistration(List.of(definition(host)));
+  }
+
+  private static ServiceDefinition definition(String host) {
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName(SERVICE);
+    definition.setHost(host);
+    definition.setPort(9001);
+    definition.setVersion("1.0");
+    return definition;
+  }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry.remoting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.HttpRegistration;
+import infra.cloud.registry.HttpServiceRegistryEndpoint;
+import infra.cloud.registry.RegistryEvent;
+import infra.cloud.registry.ServiceDefinition;
+import infra.remoting.Channel;
+import infra.remoting.Payload;
+import infra.remoting.exceptions.InvalidException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 15:40
+ */
+class RegistryChannelTests {
+
+  private static final String SERVICE = "infra.cloud.samples.UserService";
+
+  private final HttpServiceRegistryEndpoint registry =
+          new HttpServiceRegistryEndpoint(Duration.ofSeconds(30), new ObjectMapper());
+
+  private final Channel client = mock(Channel.class);
+
+  private final Scheduler scheduler = Schedulers.newSingle("registry-channel-test");
+
+  private final RegistryChannel channel = new RegistryChannel(registry, client, 16, scheduler);
+
+  @AfterEach
+  void destroy() throws InterruptedException {
+    scheduler.dispose();
+    registry.destroy();
+  }
+
+  @Test
+  void registerAndLookup() {
+    ServiceDefinition definition = RegistryProtocolTests.definition("10.0.0.1", "1.0");
+    channel.fireAndForget(request(RegistryProtocol.REGISTER, data -> RegistryProtocol.writeDefinitions(data, List.of(definition))))
+            .block(Duration.ofSeconds(5));
+
+    assertThat(lookup(SERVICE)).extracting(ServiceInstance::getHost).containsExactly("10.0.0.1");
+    assertThat(services()).containsExactly(SERVICE);
+
+    channel.fireAndForget(request(RegistryProtocol.UNREGISTER, data -> RegistryProtocol.writeDefinitions(data, List.of(definition))))
+            .block(Duration.ofSeconds(5));
+    assertThat(lookup(SERVICE)).isEmpty();
+  }
+
+  @Test
+  void operationsRunOnScheduler() {
+    ArrayList<String> threads = new ArrayList<>();
+    registry.addListener(event -> threads.add(Thread.currentThread().getName()), registered -> { });
+
+    ServiceDefinition definition = RegistryProtocolTests.definition("10.0.0.1", "1.0");
+    Mono<Void> operation = channel.fireAndForget(
+            request(RegistryProtocol.REGISTER, data -> RegistryProtocol.writeDefinitions(data, List.of(definition))));
+    // nothing changes until subscribed
+    assertThat(lookup(SERVICE)).isEmpty();
+
+    operation.block(Duration.ofSeconds(5));
+    assertThat(threads).singleElement().asString().startsWith("registry-channel-test");
+  }
+
+  @Test
+  void heartbeatOfUnknownInstanceAsksClientToRegister() {
+    when(client.fireAndForget(any())).thenReturn(Mono.empty());
+    ServiceDefinition definition = RegistryProtocolTests.definition("10.0.0.1", "1.0");
+    registry.register(new HttpRegistration(List.of(definition)));
+    String known = HttpRegistration.instanceId(definition);
+
+    channel.fireAndForget(request(RegistryProtocol.HEARTBEAT, data -> RegistryProtocol.writeStrings(data, List.of(known))))
+            .block(Duration.ofSeconds(5));
+    verify(client, never()).fireAndForget(any());
+
+    channel.fireAndForget(request(RegistryProtocol.HEARTBEAT, data -> RegistryProtocol.writeStrings(data, List.of(known, "unknown"))))
+            .block(Duration.ofSeconds(5));
+
+    ArgumentCaptor<Payload> captor = ArgumentCaptor.forClass(Payload.class);
+    verify(client).fireAndForget(captor.capture());
+    Payload payload = captor.getValue();
+    try {
+      assertThat(RegistryProtocol.operation(payload)).isEqualTo(RegistryProtocol.REREGISTER);
+      assertThat(RegistryProtocol.readStrings(payload.data())).containsExactly("unknown");
+    }
+    finally {
+      payload.release();
+    }
+  }
+
+  @Test
+  void watchStartsWithReset() {
+    ServiceDefinition first = RegistryProtocolTests.definition("10.0.0.1", "1.0");
+    registry.register(new HttpRegistration(List.of(first)));
+
+    ArrayList<RegistryEvent.Type> types = new ArrayList<>();
+    ArrayList<List<ServiceDefinition>> changes = new ArrayList<>();
+    Disposable watch = channel.requestStream(request(RegistryProtocol.WATCH, data -> { }))
+            .subscribe(event -> {
+              try {
+                ByteBuf data = event.data();
+                types.add(RegistryProtocol.readEventType(data));
+                changes.add(RegistryProtocol.readDefinitions(data));
+              }
+              finally {
+                event.release();
+              }
+            });
+    try {
+      ServiceDefinition second = RegistryProtocolTests.definition("10.0.0.2", "1.0");
+      registry.register(new HttpRegistration(List.of(second)));
+
+      assertThat(types).containsExactly(null, RegistryEvent.Type.REGISTERED);
+      assertThat(changes.get(0)).extracting(ServiceDefinition::getHost).containsExactly("10.0.0.1");
+      assertThat(changes.get(1)).extracting(ServiceDefinition::getHost).containsExactly("10.0.0.2");
+    }
+    finally {
+      watch.dispose();
+    }
+  }
+
+  @Test
+  void unsupportedOperation() {
+    assertThatExceptionOfType(InvalidException.class).isThrownBy(() ->
+            channel.fireAndForget(request(RegistryProtocol.LOOKUP, data -> { })).block());
+    assertThatExceptionOfType(InvalidException.class).isThrownBy(() ->
+            channel.requestResponse(request(RegistryProtocol.REGISTER, data -> { })).block());
+    assertThatExceptionOfType(InvalidException.class).isThrownBy(() ->
+            channel.requestStream(request(RegistryProtocol.LOOKUP, data -> { })).blockFirst());
+  }
+
+  private List<ServiceInstance> lookup(String name) {
+    Payload response = channel.requestResponse(request(RegistryProtocol.LOOKUP, data -> RegistryProtocol.writeString(data, name)))
+            .block(Duration.ofSeconds(5));
+    try {
+      return RegistryProtocol.readInstances(response.data());
+    }
+    finally {
+      response.release();
+    }
+  }
+
+  private List<String> services() {
+    Payload response = channel.requestResponse(request(RegistryProtocol.SERVICES, data -> { }))
+            .block(Duration.ofSeconds(5));
+    try {
+      return RegistryProtocol.readStrings(response.data());
+    }
+    finally {
+      response.release();
+    }
+  }
+
+  private static Payload request(byte operation, Consumer<ByteBuf> writer) {
+    ByteBuf data = ByteBufAllocator.DEFAULT.buffer();
+    writer.accept(data);
+    return RegistryProtocol.request(ByteBufAllocator.DEFAULT, operation, data);
+  }
+
+}
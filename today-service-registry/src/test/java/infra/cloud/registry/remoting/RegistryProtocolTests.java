@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package infra.cloud.registry.remoting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import infra.cloud.DefaultServiceInstance;
+import infra.cloud.ServiceInstance;
+import infra.cloud.registry.RegistryEvent;
+import infra.cloud.registry.ServiceDefinition;
+import infra.remoting.Payload;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">海子 Yang</a>
+ * @since 1.0 2026/10/19 15:20
+ */
+class RegistryProtocolTests {
+
+  @Test
+  void definitions() {
+    ByteBuf buffer = Unpooled.buffer();
+    RegistryProtocol.writeDefinitions(buffer, List.of(definition("10.0.0.1", "1.0"), definition("10.0.0.2", null)));
+
+    List<ServiceDefinition> definitions = RegistryProtocol.readDefinitions(buffer);
+    assertThat(definitions).extracting(ServiceDefinition::getHost).containsExactly("10.0.0.1", "10.0.0.2");
+    assertThat(definitions).extracting(ServiceDefinition::getVersion).containsExactly("1.0", null);
+    assertThat(definitions).extracting(ServiceDefinition::getPort).containsOnly(9001);
+    assertThat(buffer.isReadable()).isFalse();
+  }
+
+  @Test
+  void instances() {
+    ByteBuf buffer = Unpooled.buffer();
+    RegistryProtocol.writeInstances(buffer, List.of(new DefaultServiceInstance("id", "service", "10.0.0.1", 9001)));
+
+    List<ServiceInstance> instances = RegistryProtocol.readInstances(buffer);
+    assertThat(instances).hasSize(1);
+    ServiceInstance instance = instances.get(0);
+    assertThat(instance.getInstanceId()).isEqualTo("id");
+    assertThat(instance.getServiceId()).isEqualTo("service");
+    assertThat(instance.getHost()).isEqualTo("10.0.0.1");
+    assertThat(instance.getPort()).isEqualTo(9001);
+  }
+
+  @Test
+  void strings() {
+    ByteBuf buffer = Unpooled.buffer();
+    RegistryProtocol.writeStrings(buffer, Arrays.asList("a", "", null, "服务"));
+    assertThat(RegistryProtocol.readStrings(buffer)).containsExactly("a", "", null, "服务");
+  }
+
+  @Test
+  void events() {
+    ByteBuf buffer = Unpooled.buffer();
+    RegistryProtocol.writeEvent(buffer, RegistryProtocol.RESET, List.of());
+    for (RegistryEvent.Type type : RegistryEvent.Type.values()) {
+      RegistryProtocol.writeEvent(buffer, RegistryProtocol.eventType(type), List.of(definition("10.0.0.1", "1.0")));
+    }
+
+    assertThat(RegistryProtocol.readEventType(buffer)).isNull();
+    assertThat(RegistryProtocol.readDefinitions(buffer)).isEmpty();
+    for (RegistryEvent.Type type : RegistryEvent.Type.values()) {
+      assertThat(RegistryProtocol.readEventType(buffer)).isEqualTo(type);
+      assertThat(RegistryProtocol.readDefinitions(buffer)).hasSize(1);
+    }
+  }
+
+  @Test
+  void unknownEventType() {
+    ByteBuf buffer = Unpooled.buffer().writeByte(RegistryEvent.Type.values().length + 1);
+    assertThatIllegalArgumentException().isThrownBy(() -> RegistryProtocol.readEventType(buffer));
+  }
+
+  @Test
+  void corruptedCount() {
+    ByteBuf buffer = Unpooled.buffer().writeInt(Integer.MAX_VALUE).writeInt(0);
+    assertThatIllegalArgumentException().isThrownBy(() -> RegistryProtocol.readDefinitions(buffer));
+
+    ByteBuf negative = Unpooled.buffer().writeInt(-1);
+    assertThatIllegalArgumentException().isThrownBy(() -> RegistryProtocol.readStrings(negative));
+  }
+
+  @Test
+  void operation() {
+    ByteBuf data = Unpooled.buffer();
+    RegistryProtocol.writeString(data, "service");
+    Payload payload = RegistryProtocol.request(ByteBufAllocator.DEFAULT, RegistryProtocol.LOOKUP, data);
+    try {
+      assertThat(RegistryProtocol.operation(payload)).isEqualTo(RegistryProtocol.LOOKUP);
+      assertThat(RegistryProtocol.readString(payload.data())).isEqualTo("service");
+    }
+    finally {
+      payload.release();
+    }
+  }
+
+  static ServiceDefinition definition(String host, String version) {
+    ServiceDefinition definition = new ServiceDefinition();
+    definition.setName("infra.cloud.samples.UserService");
+    definition.setHost(host);
+    definition.setPort(9001);
+    definition.setVersion(version);
+    return definition;
+  }
+
+}